@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.api.data.batch;
+
+import co.cask.cdap.api.annotation.Beta;
+import co.cask.cdap.api.common.Bytes;
+
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Optional interface for {@link RecordScannable} datasets whose records are stored in the order of a key, where the
+ * key is also a field of the records. Ad-hoc queries with predicates on the key field use it to read only the splits
+ * of the matching key range, instead of all splits of the dataset.
+ * <p>
+ *   The key of a record must be the value of the key field encoded with {@link Bytes#toBytes}, such as the UTF-8
+ *   bytes of a string, or the big-endian bytes of an int or a long. Splits may contain records outside of the
+ *   requested range, as queries still apply their predicates to every record.
+ * </p>
+ */
+@Beta
+public interface KeyRangeScannable {
+
+  /**
+   * Returns the name of the record field that holds the key, or {@code null} if the records have no such field.
+   */
+  @Nullable
+  String getKeyField();
+
+  /**
+   * Returns the splits of the dataset for a range of keys.
+   *
+   * @param numSplits the desired number of splits, or a non-positive number to use the default
+   * @param start the key to start from, inclusive, or {@code null} to start from the first key
+   * @param stop the key to stop at, exclusive, or {@code null} to read up to the last key
+   * @return a list of {@link Split}s
+   */
+  List<Split> getSplits(int numSplits, @Nullable byte[] start, @Nullable byte[] stop);
+}
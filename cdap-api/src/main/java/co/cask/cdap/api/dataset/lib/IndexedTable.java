@@ -38,8 +38,12 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -94,6 +98,17 @@ import javax.annotation.Nullable;
  * as it would break parsing of the configuration property.
  * </p>
  *
+ * <p>Reading by index looks up the data rows for a batch of index rows at a time, with a single multi-get on the
+ * data table. The batch size can be configured with the {@link #INDEX_SCAN_BATCH_SIZE_CONF_KEY} property.
+ * </p>
+ *
+ * <p>The values of some columns can also be stored in the index rows, by configuring these columns with the
+ * {@link #COVERED_COLUMNS_CONF_KEY} property. Reading by index with only such columns, using
+ * {@link #readByIndex(byte[], byte[], byte[][])} or {@link #scanByIndex(byte[], byte[], byte[], byte[][])},
+ * is served from the index table alone, without reading the data table. This comes at the cost of also updating
+ * the index rows whenever a covered column is written.
+ * </p>
+ *
  * @see #INDEX_COLUMNS_CONF_KEY
  */
 public class IndexedTable extends AbstractDataset implements Table {
@@ -105,10 +120,31 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   public static final String INDEX_COLUMNS_CONF_KEY = "columnsToIndex";
 
+  /**
+   * Configuration key for defining column names whose values are also stored in the index rows, in the
+   * DatasetSpecification properties. Multiple column names should be listed as a comma-separated string.
+   */
+  public static final String COVERED_COLUMNS_CONF_KEY = "coveredColumns";
+
+  /**
+   * Configuration key for defining the number of index rows to resolve with one multi-get on the data table
+   * when reading by index, in the DatasetSpecification properties.
+   */
+  public static final String INDEX_SCAN_BATCH_SIZE_CONF_KEY = "indexScanBatchSize";
+
+  /**
+   * Default number of index rows to resolve with one multi-get on the data table when reading by index.
+   */
+  public static final int DEFAULT_INDEX_SCAN_BATCH_SIZE = 100;
+
   /**
    * Column key used to store the existence of a row in the secondary index.
    */
   private static final byte[] IDX_COL = {'r'};
+  /**
+   * Prefix of the column keys used to store the values of covered columns in the secondary index.
+   */
+  private static final byte[] COVERED_COL_PREFIX = {'c'};
   private static final byte DELIMITER_BYTE = 0;
   private static final byte[] KEY_DELIMITER = new byte[] { DELIMITER_BYTE };
 
@@ -117,6 +153,9 @@ public class IndexedTable extends AbstractDataset implements Table {
   private Table table, index;
   // the secondary index column
   private SortedSet<byte[]> indexedColumns;
+  // the columns whose values are also stored in the index rows
+  private final SortedSet<byte[]> coveredColumns;
+  private final int indexScanBatchSize;
 
   /**
    * Configuration time constructor.
@@ -127,10 +166,30 @@ public class IndexedTable extends AbstractDataset implements Table {
    * @param columnsToIndex the names of the data columns to index
    */
   public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex) {
+    this(name, table, index, columnsToIndex, new TreeSet<>(Bytes.BYTES_COMPARATOR), DEFAULT_INDEX_SCAN_BATCH_SIZE);
+  }
+
+  /**
+   * Configuration time constructor.
+   *
+   * @param name the name of the table
+   * @param table table to use as the table
+   * @param index table to use as the index
+   * @param columnsToIndex the names of the data columns to index
+   * @param coveredColumns the names of the data columns whose values are also stored in the index
+   * @param indexScanBatchSize the number of index rows to resolve with one multi-get on the data table
+   */
+  public IndexedTable(String name, Table table, Table index, SortedSet<byte[]> columnsToIndex,
+                      SortedSet<byte[]> coveredColumns, int indexScanBatchSize) {
     super(name, table, index);
+    if (indexScanBatchSize <= 0) {
+      throw new IllegalArgumentException("Index scan batch size must be positive: " + indexScanBatchSize);
+    }
     this.table = table;
     this.index = index;
     this.indexedColumns = columnsToIndex;
+    this.coveredColumns = coveredColumns;
+    this.indexScanBatchSize = indexScanBatchSize;
     this.hasColumnWithDelimiter = hasDelimiterByte(columnsToIndex);
   }
 
@@ -212,11 +271,29 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   @ReadOnly
   public Scanner readByIndex(byte[] column, byte[] value) {
+    return readByIndex(column, value, null);
+  }
+
+  /**
+   * Reads the given columns of table rows by the given secondary index key. If no rows are indexed by the given key,
+   * then a {@link co.cask.cdap.api.dataset.table.Scanner} with no results will be returned. If all the given columns
+   * are covered by the index, the rows are read from the index table only.
+   *
+   * @param column the column to use for the index lookup
+   * @param value the value of the column to look up
+   * @param columns the columns of the rows to return, or {@code null} to return all columns
+   * @return a Scanner returning rows from the data table, whose stored value for the given column matches the
+   * given value.
+   * @throws java.lang.IllegalArgumentException if the given column is not configured for indexing.
+   * @see #COVERED_COLUMNS_CONF_KEY
+   */
+  @ReadOnly
+  public Scanner readByIndex(byte[] column, byte[] value, @Nullable byte[][] columns) {
     assertIndexedColumn(column);
     byte[] rowKeyPrefix = Bytes.concat(column, KEY_DELIMITER, value, KEY_DELIMITER);
     byte[] stopRow = Bytes.stopKeyForPrefix(rowKeyPrefix);
     Scanner indexScan = index.scan(rowKeyPrefix, stopRow);
-    return new IndexScanner(indexScan, column, value);
+    return new IndexScanner(indexScan, column, value, columns);
   }
 
   /**
@@ -234,6 +311,28 @@ public class IndexedTable extends AbstractDataset implements Table {
    */
   @ReadOnly
   public Scanner scanByIndex(byte[] column, @Nullable byte[] startValue, @Nullable byte[] endValue) {
+    return scanByIndex(column, startValue, endValue, null);
+  }
+
+  /**
+   * Reads the given columns of table rows within the given secondary index key range. If no rows are indexed,
+   * falling within the given range, then a {@link co.cask.cdap.api.dataset.table.Scanner} with no results will be
+   * returned. If all the given columns are covered by the index, the rows are read from the index table only.
+   *
+   * @param column the column to use for the index lookup
+   * @param startValue the inclusive start of the range for which rows must fall within to be returned in the scan.
+   *                   {@code null} means start from first row of the table
+   * @param endValue the exclusive end of the range for which rows must fall within to be returned in the scan
+   *                 {@code null} means end with the last row of the table
+   * @param columns the columns of the rows to return, or {@code null} to return all columns
+   * @return a Scanner returning rows from the data table, whose stored value for the given column is within the the
+   *         given range.
+   * @throws java.lang.IllegalArgumentException if the given column is not configured for indexing.
+   * @see #COVERED_COLUMNS_CONF_KEY
+   */
+  @ReadOnly
+  public Scanner scanByIndex(byte[] column, @Nullable byte[] startValue, @Nullable byte[] endValue,
+                             @Nullable byte[][] columns) {
     assertIndexedColumn(column);
     // KEY_DELIMITER is not used at the end of the rowKeys, because they are used for a range scan,
     // instead of a fixed-match lookup
@@ -242,7 +341,7 @@ public class IndexedTable extends AbstractDataset implements Table {
     byte[] stopRow = endValue == null ? Bytes.stopKeyForPrefix(Bytes.concat(column, KEY_DELIMITER)) :
       Bytes.concat(column, KEY_DELIMITER, endValue);
     Scanner indexScan = index.scan(startRow, stopRow);
-    return new IndexRangeScanner(indexScan, column, startValue, endValue);
+    return new IndexRangeScanner(indexScan, column, startValue, endValue, columns);
   }
 
   private void assertIndexedColumn(byte[] column) {
@@ -263,39 +362,118 @@ public class IndexedTable extends AbstractDataset implements Table {
     // if different value exists, remove current index ref
     // add a new index ref unless same value already exists
     byte[] dataRow = put.getRow();
-    // find which values need to be indexed
     Map<byte[], byte[]> putColumns = put.getValues();
-    Set<byte[]> colsToIndex = new TreeSet<>(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], byte[]> putEntry : putColumns.entrySet()) {
-      if (indexedColumns.contains(putEntry.getKey())) {
-        colsToIndex.add(putEntry.getKey());
+    byte[][] columnsToRead = getColumnsToRead(putColumns.keySet());
+
+    if (columnsToRead.length > 0) {
+      // first read the existing values to find which have changed and need to be updated
+      Map<byte[], byte[]> existing = table.get(dataRow, columnsToRead).getColumns();
+      NavigableMap<byte[], byte[]> updated = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      updated.putAll(existing);
+      for (byte[] column : columnsToRead) {
+        if (putColumns.containsKey(column)) {
+          updated.put(column, putColumns.get(column));
+        }
       }
+      updateIndex(dataRow, columnsToRead, existing, updated);
     }
 
-    if (!colsToIndex.isEmpty()) {
-      // first read the existing indexed values to find which have changed and need to be updated
-      Row existingRow = table.get(dataRow, colsToIndex.toArray(new byte[colsToIndex.size()][]));
-      for (Map.Entry<byte[], byte[]> entry : existingRow.getColumns().entrySet()) {
-        if (!Arrays.equals(entry.getValue(), putColumns.get(entry.getKey()))) {
-          index.delete(createIndexKey(dataRow, entry.getKey(), entry.getValue()), IDX_COL);
-        } else {
-          // value already indexed
-          colsToIndex.remove(entry.getKey());
+    // store the data row
+    table.put(put);
+  }
+
+  private byte[] createIndexKey(byte[] row, byte[] column, byte[] value) {
+    return Bytes.concat(column, KEY_DELIMITER, value, KEY_DELIMITER, row);
+  }
+
+  /**
+   * Returns the columns of a data row that need to be read to update the index, when the given columns of the
+   * data row are changed.
+   */
+  private byte[][] getColumnsToRead(Collection<byte[]> changedColumns) {
+    Set<byte[]> result = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    boolean indexedChanged = false;
+    boolean coveredChanged = false;
+    for (byte[] column : changedColumns) {
+      if (indexedColumns.contains(column)) {
+        result.add(column);
+        indexedChanged = true;
+      }
+      coveredChanged = coveredChanged || coveredColumns.contains(column);
+    }
+    // Changing a covered column changes all the index rows of the data row.
+    // New index rows need the values of all covered columns.
+    if (coveredChanged) {
+      result.addAll(indexedColumns);
+    }
+    if (coveredChanged || indexedChanged) {
+      result.addAll(coveredColumns);
+    }
+    return result.toArray(new byte[result.size()][]);
+  }
+
+  /**
+   * Updates the index rows of a data row for a change of the data row.
+   *
+   * @param row the data row key
+   * @param columns the columns of the data row to update the index for, as given by {@link #getColumnsToRead}
+   * @param existing the existing values of the given columns
+   * @param updated the updated values of the given columns
+   */
+  private void updateIndex(byte[] row, byte[][] columns,
+                           Map<byte[], byte[]> existing, Map<byte[], byte[]> updated) {
+    for (byte[] column : columns) {
+      if (!indexedColumns.contains(column)) {
+        continue;
+      }
+      byte[] oldValue = existing.get(column);
+      byte[] newValue = updated.get(column);
+      if (oldValue != null && !Arrays.equals(oldValue, newValue)) {
+        deleteIndexRow(createIndexKey(row, column, oldValue));
+      }
+      if (newValue == null) {
+        continue;
+      }
+
+      byte[] indexKey = createIndexKey(row, column, newValue);
+      if (!Arrays.equals(oldValue, newValue)) {
+        // add a new index entry for a value that has changed or did not exist
+        Put put = new Put(indexKey, IDX_COL, row);
+        for (byte[] coveredColumn : coveredColumns) {
+          byte[] value = updated.get(coveredColumn);
+          if (value != null) {
+            put.add(createCoveredColumnKey(coveredColumn), value);
+          }
         }
+        index.put(put);
+        continue;
       }
 
-      // add new index entries for all values that have changed or did not exist
-      for (byte[] col : colsToIndex) {
-        index.put(createIndexKey(dataRow, col, putColumns.get(col)), IDX_COL, dataRow);
+      // value already indexed, only the covered values that changed need to be updated
+      for (byte[] coveredColumn : coveredColumns) {
+        byte[] oldCovered = existing.get(coveredColumn);
+        byte[] newCovered = updated.get(coveredColumn);
+        if (newCovered == null) {
+          if (oldCovered != null) {
+            index.delete(indexKey, createCoveredColumnKey(coveredColumn));
+          }
+        } else if (!Arrays.equals(oldCovered, newCovered)) {
+          index.put(indexKey, createCoveredColumnKey(coveredColumn), newCovered);
+        }
       }
     }
+  }
 
-    // store the data row
-    table.put(put);
+  private void deleteIndexRow(byte[] indexKey) {
+    if (coveredColumns.isEmpty()) {
+      index.delete(indexKey, IDX_COL);
+    } else {
+      index.delete(indexKey);
+    }
   }
 
-  private byte[] createIndexKey(byte[] row, byte[] column, byte[] value) {
-    return Bytes.concat(column, KEY_DELIMITER, value, KEY_DELIMITER, row);
+  private byte[] createCoveredColumnKey(byte[] column) {
+    return Bytes.add(COVERED_COL_PREFIX, column);
   }
 
   @WriteOnly
@@ -357,14 +535,27 @@ public class IndexedTable extends AbstractDataset implements Table {
   @WriteOnly
   @Override
   public void delete(byte[] row, byte[][] columns) {
-    Row existingRow = table.get(row, columns);
-    if (existingRow.isEmpty()) {
-      // no row to delete
-      return;
-    }
+    if (coveredColumns.isEmpty()) {
+      Row existingRow = table.get(row, columns);
+      if (existingRow.isEmpty()) {
+        // no row to delete
+        return;
+      }
 
-    // delete all index entries
-    deleteIndexEntries(existingRow);
+      // delete all index entries
+      deleteIndexEntries(existingRow);
+    } else {
+      byte[][] columnsToRead = getColumnsToRead(Arrays.asList(columns));
+      if (columnsToRead.length > 0) {
+        Map<byte[], byte[]> existing = table.get(row, columnsToRead).getColumns();
+        NavigableMap<byte[], byte[]> updated = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        updated.putAll(existing);
+        for (byte[] column : columns) {
+          updated.remove(column);
+        }
+        updateIndex(row, columnsToRead, existing, updated);
+      }
+    }
 
     // delete the row's columns
     table.delete(row, columns);
@@ -374,7 +565,7 @@ public class IndexedTable extends AbstractDataset implements Table {
     byte[] row = existingRow.getRow();
     for (Map.Entry<byte[], byte[]> entry : existingRow.getColumns().entrySet()) {
       if (indexedColumns.contains(entry.getKey())) {
-        index.delete(createIndexKey(row, entry.getKey(), entry.getValue()), IDX_COL);
+        deleteIndexRow(createIndexKey(row, entry.getKey(), entry.getValue()));
       }
     }
   }
@@ -393,11 +584,29 @@ public class IndexedTable extends AbstractDataset implements Table {
     // the index is not affected - just execute the swap.
     // also, if the swap is on the index column, but the old value
     // is the same as the new value, then the index is not affected either.
-    if (!indexedColumns.contains(column) ||
+    if ((!indexedColumns.contains(column) && !coveredColumns.contains(column)) ||
         Arrays.equals(expected, newValue)) {
       return table.compareAndSwap(row, column, expected, newValue);
     }
 
+    if (!coveredColumns.isEmpty()) {
+      if (!table.compareAndSwap(row, column, expected, newValue)) {
+        // do nothing: no changes
+        return false;
+      }
+      // the swap succeeded, hence the existing value was the expected value
+      byte[][] columnsToRead = getColumnsToRead(Collections.singleton(column));
+      Map<byte[], byte[]> updated = table.get(row, columnsToRead).getColumns();
+      NavigableMap<byte[], byte[]> existing = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      existing.putAll(updated);
+      existing.remove(column);
+      if (expected != null) {
+        existing.put(column, expected);
+      }
+      updateIndex(row, columnsToRead, existing, updated);
+      return true;
+    }
+
     // the swap is on the index column. it will only succeed if the current
     // value matches the expected value of the swap. if that value is not null,
     // then we must remove the row key from the index for that value.
@@ -459,6 +668,10 @@ public class IndexedTable extends AbstractDataset implements Table {
       throw new IllegalArgumentException("Size of columns and amounts arguments must match");
     }
 
+    if (!coveredColumns.isEmpty()) {
+      return incrementAndGetCovered(row, columns, amounts);
+    }
+
     Row existingRow = table.get(row, columns);
     byte[][] updatedValues = new byte[columns.length][];
     NavigableMap<byte[], byte[]> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
@@ -488,6 +701,44 @@ public class IndexedTable extends AbstractDataset implements Table {
     return new Result(row, result);
   }
 
+  /**
+   * Increments the specified row and columns by the specified amounts, and updates the index rows
+   * including the covered columns.
+   */
+  private Row incrementAndGetCovered(byte[] row, byte[][] columns, long[] amounts) {
+    byte[][] columnsToRead = getColumnsToRead(Arrays.asList(columns));
+    Set<byte[]> readColumns = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    Collections.addAll(readColumns, columnsToRead);
+    Collections.addAll(readColumns, columns);
+
+    Map<byte[], byte[]> existing = table.get(row, readColumns.toArray(new byte[readColumns.size()][]))
+      .getColumns();
+    NavigableMap<byte[], byte[]> updated = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    updated.putAll(existing);
+    byte[][] updatedValues = new byte[columns.length][];
+    NavigableMap<byte[], byte[]> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+
+    for (int i = 0; i < columns.length; i++) {
+      long existingValue = 0L;
+      byte[] existingBytes = existing.get(columns[i]);
+      if (existingBytes != null) {
+        if (existingBytes.length != Bytes.SIZEOF_LONG) {
+          throw new NumberFormatException("Attempted to increment a value that is not convertible to long," +
+                                            " row: " + Bytes.toStringBinary(row) +
+                                            " column: " + Bytes.toStringBinary(columns[i]));
+        }
+        existingValue = Bytes.toLong(existingBytes);
+      }
+      updatedValues[i] = Bytes.toBytes(existingValue + amounts[i]);
+      result.put(columns[i], updatedValues[i]);
+      updated.put(columns[i], updatedValues[i]);
+    }
+
+    updateIndex(row, columnsToRead, existing, updated);
+    table.put(row, columns, updatedValues);
+    return new Result(row, result);
+  }
+
   /**
    * Increments (atomically) the specified row and columns by the specified amounts, and returns the new values.
    * Note that performing this operation on an indexed column will generally have a negative impact on performance,
@@ -522,10 +773,7 @@ public class IndexedTable extends AbstractDataset implements Table {
   @Override
   public void increment(byte[] row, byte[] column, long amount) {
     // read-less increments should not be used on indexed columns
-    if (indexedColumns.contains(column)) {
-      throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
-                                           + Bytes.toStringBinary(column) + "'");
-    }
+    assertReadLessIncrement(column);
     table.increment(row, column, amount);
   }
 
@@ -540,10 +788,7 @@ public class IndexedTable extends AbstractDataset implements Table {
   public void increment(byte[] row, byte[][] columns, long[] amounts) {
     // read-less increments should not be used on indexed columns
     for (byte[] col : columns) {
-      if (indexedColumns.contains(col)) {
-        throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
-                                             + Bytes.toStringBinary(col) + "'");
-      }
+      assertReadLessIncrement(col);
     }
     table.increment(row, columns, amounts);
   }
@@ -558,14 +803,22 @@ public class IndexedTable extends AbstractDataset implements Table {
   @Override
   public void increment(Increment increment) {
     for (byte[] col : increment.getValues().keySet()) {
-      if (indexedColumns.contains(col)) {
-        throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
-                                             + Bytes.toStringBinary(col) + "'");
-      }
+      assertReadLessIncrement(col);
     }
     table.increment(increment);
   }
 
+  private void assertReadLessIncrement(byte[] column) {
+    if (indexedColumns.contains(column)) {
+      throw new IllegalArgumentException("Read-less increment is not supported on indexed column '"
+                                           + Bytes.toStringBinary(column) + "'");
+    }
+    if (coveredColumns.contains(column)) {
+      throw new IllegalArgumentException("Read-less increment is not supported on covered column '"
+                                           + Bytes.toStringBinary(column) + "'");
+    }
+  }
+
   @ReadOnly
   @Override
   public Scanner scan(@Nullable byte[] startRow, @Nullable byte[] stopRow) {
@@ -625,10 +878,22 @@ public class IndexedTable extends AbstractDataset implements Table {
     // scanner over index table
     private final Scanner baseScanner;
     private final byte[] column;
-
-    AbstractIndexScanner(Scanner baseScanner, byte[] column) {
+    // the columns to return, or null for all columns
+    private final byte[][] columns;
+    // whether the rows can be read from the index rows, without reading the data table
+    private final boolean covered;
+    // data rows looked up for the last batch of index rows, with the values of the indexed column
+    private final Deque<Row> rows;
+    private final Deque<byte[]> columnValues;
+    private boolean indexExhausted;
+
+    AbstractIndexScanner(Scanner baseScanner, byte[] column, @Nullable byte[][] columns) {
       this.baseScanner = baseScanner;
       this.column = column;
+      this.columns = columns;
+      this.covered = columns != null && isCovered(column, columns);
+      this.rows = new ArrayDeque<>();
+      this.columnValues = new ArrayDeque<>();
     }
 
     /**
@@ -642,9 +907,43 @@ public class IndexedTable extends AbstractDataset implements Table {
     @Nullable
     @Override
     public Row next() {
-      // TODO: retrieve results in batches to minimize RPC overhead (requires multi-get support in table)
       // keep going until we hit a non-null, non-empty data row, or we exhaust the index
-      for (Row indexRow = baseScanner.next(); indexRow != null; indexRow = baseScanner.next()) {
+      while (true) {
+        while (!rows.isEmpty()) {
+          Row row = rows.poll();
+          byte[] columnValue = columnValues.poll();
+          // If a column has null byte (the key delimiter) in it, then we need to check against the data row's column
+          // to be sure this row isn't a false positive in the scan.
+          // For reference, take a look at IndexedTableTest#testIndexKeyDelimiterAmbiguity
+          if (hasColumnWithDelimiter && !Bytes.equals(row.get(column), columnValue)) {
+            continue;
+          }
+          return selectColumns(row);
+        }
+        if (indexExhausted) {
+          // end of index
+          return null;
+        }
+        fetchBatch();
+      }
+    }
+
+    @Override
+    public void close() {
+      baseScanner.close();
+    }
+
+    /**
+     * Reads the next batch of index rows, and looks up the data rows for them with one multi-get.
+     */
+    private void fetchBatch() {
+      List<Get> gets = new ArrayList<>();
+      while (gets.size() + rows.size() < indexScanBatchSize) {
+        Row indexRow = baseScanner.next();
+        if (indexRow == null) {
+          indexExhausted = true;
+          break;
+        }
         byte[] rowkey = indexRow.get(IDX_COL);
         if (rowkey == null) {
           LOG.warn("Row of Indexed table '{}' is missing index column. Row key: {}", getName(), indexRow.getRow());
@@ -655,33 +954,95 @@ public class IndexedTable extends AbstractDataset implements Table {
                                                 indexRow.getRow().length - rowkey.length - 1);
         // Verify that datarow matches the expected row key to avoid issues with column name or value
         // containing the delimiter used. This is a sufficient check, as long as columns don't contain the null byte.
-        if (matches(columnValue)) {
-          Row row = table.get(rowkey);
-          // If a column has null byte (the key delimiter) in it, then we need to check against the data row's column
-          // to be sure this row isn't a false positive in the scan.
-          // For reference, take a look at IndexedTableTest#testIndexKeyDelimiterAmbiguity
-          if (hasColumnWithDelimiter && !Bytes.equals(row.get(column), columnValue)) {
-            continue;
-          }
-          return row;
+        if (!matches(columnValue)) {
+          continue;
+        }
+        if (covered) {
+          rows.add(createCoveredRow(rowkey, columnValue, indexRow));
+        } else {
+          gets.add(createGet(rowkey));
         }
+        columnValues.add(columnValue);
+      }
+      if (!gets.isEmpty()) {
+        rows.addAll(table.get(gets));
       }
-      // end of index
-      return null;
     }
 
-    @Override
-    public void close() {
-      baseScanner.close();
+    private Get createGet(byte[] rowkey) {
+      if (columns == null) {
+        return new Get(rowkey);
+      }
+      List<byte[]> getColumns = new ArrayList<>(Arrays.asList(columns));
+      if (hasColumnWithDelimiter) {
+        // The indexed column is needed to check for false positives
+        getColumns.add(column);
+      }
+      return new Get(rowkey, getColumns);
+    }
+
+    /**
+     * Creates a row with the requested columns, from the values stored in an index row. Only used if no indexed
+     * column has the delimiter, so the index row cannot be a false positive.
+     */
+    private Row createCoveredRow(byte[] rowkey, byte[] columnValue, Row indexRow) {
+      NavigableMap<byte[], byte[]> values = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      for (byte[] col : columns) {
+        byte[] value = Bytes.equals(col, column) ? columnValue : indexRow.get(createCoveredColumnKey(col));
+        if (value != null) {
+          values.put(col, value);
+        }
+      }
+      return new Result(rowkey, values);
     }
+
+    /**
+     * Returns the row with the requested columns only, removing the indexed column if it was only added
+     * to check for false positives.
+     */
+    private Row selectColumns(Row row) {
+      if (columns == null || !hasColumnWithDelimiter || containsColumn(columns, column)) {
+        return row;
+      }
+      NavigableMap<byte[], byte[]> values = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      values.putAll(row.getColumns());
+      values.remove(column);
+      return new Result(row.getRow(), values);
+    }
+  }
+
+  /**
+   * Returns whether all the given columns can be read from the index rows of the given indexed column.
+   */
+  private boolean isCovered(byte[] indexedColumn, byte[][] columns) {
+    // If an indexed column has the delimiter, the index rows can be false positives, which can only be
+    // told by reading the data rows
+    if (hasColumnWithDelimiter) {
+      return false;
+    }
+    for (byte[] col : columns) {
+      if (!Bytes.equals(col, indexedColumn) && !coveredColumns.contains(col)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean containsColumn(byte[][] columns, byte[] column) {
+    for (byte[] col : columns) {
+      if (Bytes.equals(col, column)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   // scanner that matches column values based upon exact match
   private class IndexScanner extends AbstractIndexScanner {
     private final byte[] value;
 
-    IndexScanner(Scanner baseScanner, byte[] column, byte[] value) {
-      super(baseScanner, column);
+    IndexScanner(Scanner baseScanner, byte[] column, byte[] value, @Nullable byte[][] columns) {
+      super(baseScanner, column, columns);
       this.value = value;
     }
 
@@ -696,8 +1057,9 @@ public class IndexedTable extends AbstractDataset implements Table {
     private final byte[] start;
     private final byte[] end;
 
-    IndexRangeScanner(Scanner baseScanner, byte[] column, @Nullable byte[] start, @Nullable byte[] end) {
-      super(baseScanner, column);
+    IndexRangeScanner(Scanner baseScanner, byte[] column, @Nullable byte[] start, @Nullable byte[] end,
+                      @Nullable byte[][] columns) {
+      super(baseScanner, column, columns);
       this.start = start;
       this.end = end;
     }
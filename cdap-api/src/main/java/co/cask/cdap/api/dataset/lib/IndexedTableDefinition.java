@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import javax.annotation.Nullable;
 
 /**
  * DatasetDefinition for {@link IndexedTable}.
@@ -52,6 +53,7 @@ public class IndexedTableDefinition
     if (columnNamesToIndex == null) {
       throw new IllegalArgumentException("columnsToIndex must be specified");
     }
+    parseBatchSize(properties.getProperties().get(IndexedTable.INDEX_SCAN_BATCH_SIZE_CONF_KEY));
     return super.configure(instanceName, properties);
   }
 
@@ -74,6 +76,14 @@ public class IndexedTableDefinition
                                                             oldColumnsToIndex, columnNamesToIndex));
       }
     }
+    // existing index rows would not have the values of newly covered columns
+    String coveredColumns = newProperties.getProperties().get(IndexedTable.COVERED_COLUMNS_CONF_KEY);
+    String oldCoveredColumns = currentSpec.getProperty(IndexedTable.COVERED_COLUMNS_CONF_KEY);
+    if (!parseColumns(coveredColumns).equals(parseColumns(oldCoveredColumns))) {
+      throw new IncompatibleUpdateException(String.format("Attempt to change covered columns from '%s' to '%s'",
+                                                          oldCoveredColumns, coveredColumns));
+    }
+    parseBatchSize(newProperties.getProperties().get(IndexedTable.INDEX_SCAN_BATCH_SIZE_CONF_KEY));
     return super.reconfigure(instanceName, newProperties, currentSpec);
   }
 
@@ -82,22 +92,46 @@ public class IndexedTableDefinition
                                  Map<String, String> arguments, ClassLoader classLoader) throws IOException {
 
     SortedSet<byte[]> columnsToIndex = parseColumns(spec.getProperty(IndexedTable.INDEX_COLUMNS_CONF_KEY));
+    SortedSet<byte[]> coveredColumns = parseColumns(spec.getProperty(IndexedTable.COVERED_COLUMNS_CONF_KEY));
+    int batchSize = parseBatchSize(spec.getProperty(IndexedTable.INDEX_SCAN_BATCH_SIZE_CONF_KEY));
 
     Table table = getDataset(datasetContext, "d", spec, arguments, classLoader);
     Table index = getDataset(datasetContext, "i", spec, arguments, classLoader);
 
-    return new IndexedTable(spec.getName(), table, index, columnsToIndex);
+    return new IndexedTable(spec.getName(), table, index, columnsToIndex, coveredColumns, batchSize);
   }
 
   /**
-   * Helper method to parse a list of column names, comma-separated.
+   * Helper method to parse a list of column names, comma-separated. A {@code null} or empty value gives no columns.
    */
-  private SortedSet<byte[]> parseColumns(String value) {
+  private SortedSet<byte[]> parseColumns(@Nullable String value) {
     // TODO: add support for setting index key delimiter
     SortedSet<byte[]> columnsToIndex = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    if (value == null || value.isEmpty()) {
+      return columnsToIndex;
+    }
     for (String column : value.split(",")) {
       columnsToIndex.add(Bytes.toBytes(column));
     }
     return columnsToIndex;
   }
+
+  /**
+   * Helper method to parse the index scan batch size, using the default if it is not set.
+   */
+  private int parseBatchSize(@Nullable String value) {
+    if (value == null) {
+      return IndexedTable.DEFAULT_INDEX_SCAN_BATCH_SIZE;
+    }
+    int batchSize;
+    try {
+      batchSize = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(IndexedTable.INDEX_SCAN_BATCH_SIZE_CONF_KEY + " must be an integer: " + value);
+    }
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException(IndexedTable.INDEX_SCAN_BATCH_SIZE_CONF_KEY + " must be positive: " + value);
+    }
+    return batchSize;
+  }
 }
@@ -22,6 +22,7 @@ import co.cask.cdap.api.annotation.WriteOnly;
 import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.data.batch.BatchReadable;
 import co.cask.cdap.api.data.batch.BatchWritable;
+import co.cask.cdap.api.data.batch.KeyRangeScannable;
 import co.cask.cdap.api.data.batch.RecordScannable;
 import co.cask.cdap.api.data.batch.RecordScanner;
 import co.cask.cdap.api.data.batch.RecordWritable;
@@ -47,7 +48,7 @@ import javax.annotation.Nullable;
  */
 public class KeyValueTable extends AbstractDataset implements
   BatchReadable<byte[], byte[]>, BatchWritable<byte[], byte[]>,
-  RecordScannable<KeyValue<byte[], byte[]>>, RecordWritable<KeyValue<byte[], byte[]>> {
+  RecordScannable<KeyValue<byte[], byte[]>>, RecordWritable<KeyValue<byte[], byte[]>>, KeyRangeScannable {
 
   // the fixed single column to use for the key
   static final byte[] KEY_COLUMN = { 'c' };
@@ -212,6 +213,12 @@ public class KeyValueTable extends AbstractDataset implements
     return Scannables.splitRecordScanner(createSplitReader(split), new KeyValueRecordMaker());
   }
 
+  @Override
+  public String getKeyField() {
+    // the field of KeyValue that holds the key
+    return "key";
+  }
+
   /**
   * Returns splits for a range of keys in the table.
   *
@@ -221,6 +228,7 @@ public class KeyValueTable extends AbstractDataset implements
   * @param stop if non-null, the returned splits will only cover keys that are less
   * @return list of {@link Split}
   */
+  @Override
   public List<Split> getSplits(int numSplits, @Nullable byte[] start, @Nullable byte[] stop) {
     return table.getSplits(numSplits, start, stop);
   }
@@ -19,7 +19,9 @@ package co.cask.cdap.api.dataset.lib;
 import co.cask.cdap.api.annotation.Beta;
 import co.cask.cdap.api.dataset.table.TableProperties;
 
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nullable;
 
 /**
@@ -38,6 +40,13 @@ public class PartitionedFileSetProperties extends FileSetProperties {
    */
   public static final String PARTITIONING_FIELD_PREFIX = "partitioning.field.";
 
+  /**
+   * The property name for the list of partitioning fields that have a secondary index. Partition filters with
+   * a condition on an indexed field can be served from the index, instead of scanning all partitions whose
+   * leading fields match the filter. The indexed fields cannot be changed after the dataset is created.
+   */
+  public static final String PARTITIONING_INDEXED_FIELDS = "partitioning.indexed.fields";
+
   /**
    * Read the partitioning for a PartitionedFileSet from its properties.
    *
@@ -71,6 +80,25 @@ public class PartitionedFileSetProperties extends FileSetProperties {
     return builder.build();
   }
 
+  /**
+   * Read the names of the indexed partitioning fields of a PartitionedFileSet from its properties.
+   *
+   * @param properties the dataset properties
+   * @return the names of the indexed fields, in the order they were given; empty if no field is indexed
+   */
+  public static Set<String> getIndexedFields(Map<String, String> properties) {
+    Set<String> indexedFields = new LinkedHashSet<>();
+    String fieldList = properties.get(PARTITIONING_INDEXED_FIELDS);
+    if (fieldList != null) {
+      for (String fieldName : fieldList.split(",")) {
+        if (!fieldName.trim().isEmpty()) {
+          indexedFields.add(fieldName.trim());
+        }
+      }
+    }
+    return indexedFields;
+  }
+
   /**
    * @return a properties builder
    */
@@ -105,6 +133,22 @@ public class PartitionedFileSetProperties extends FileSetProperties {
       return this;
     }
 
+    /**
+     * Sets the partitioning fields that have a secondary index. Each field must be a field of the partitioning.
+     * It is only worth indexing fields that are not the leading field of the partitioning, because partition
+     * filters on leading fields can already be served by a range scan.
+     */
+    public Builder setIndexedFields(String... fieldNames) {
+      StringBuilder builder = new StringBuilder();
+      String sep = "";
+      for (String fieldName : fieldNames) {
+        builder.append(sep).append(fieldName);
+        sep = ",";
+      }
+      add(PARTITIONING_INDEXED_FIELDS, builder.toString());
+      return this;
+    }
+
     /**
      * Set the table permissions as a map from user name to a permission string.
      */
@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.api.dataset.table;
+
+import co.cask.cdap.api.annotation.Beta;
+
+/**
+ * {@link Filter} that only returns the first columns of each row, up to a given limit. It is an experimental feature.
+ */
+@Beta
+public final class ColumnLimitFilter implements Filter {
+
+  private final int limit;
+
+  /**
+   * Creates a filter that returns at most the given number of columns for each row.
+   *
+   * @param limit maximum number of columns to return for each row
+   */
+  public ColumnLimitFilter(int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("Column limit must be positive: " + limit);
+    }
+    this.limit = limit;
+  }
+
+  public int getLimit() {
+    return limit;
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnLimitFilter{limit=" + limit + '}';
+  }
+}
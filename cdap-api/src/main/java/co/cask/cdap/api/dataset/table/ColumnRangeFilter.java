@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.api.dataset.table;
+
+import co.cask.cdap.api.annotation.Beta;
+import co.cask.cdap.api.common.Bytes;
+
+import javax.annotation.Nullable;
+
+/**
+ * {@link Filter} that only returns the columns in a given range. Rows that have no columns in the range
+ * are excluded. It is an experimental feature.
+ */
+@Beta
+public final class ColumnRangeFilter implements Filter {
+
+  @Nullable
+  private final byte[] startColumn;
+  @Nullable
+  private final byte[] stopColumn;
+
+  /**
+   * Creates a filter that returns the columns in the given range.
+   *
+   * @param startColumn start column inclusive; {@code null} means from the first column of the row
+   * @param stopColumn stop column exclusive; {@code null} means to the last column of the row
+   */
+  public ColumnRangeFilter(@Nullable byte[] startColumn, @Nullable byte[] stopColumn) {
+    this.startColumn = startColumn;
+    this.stopColumn = stopColumn;
+  }
+
+  @Nullable
+  public byte[] getStartColumn() {
+    return startColumn;
+  }
+
+  @Nullable
+  public byte[] getStopColumn() {
+    return stopColumn;
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnRangeFilter{" +
+      "startColumn=" + Bytes.toStringBinary(startColumn) +
+      ", stopColumn=" + Bytes.toStringBinary(stopColumn) +
+      '}';
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.api.dataset.table;
+
+import co.cask.cdap.api.annotation.Beta;
+import co.cask.cdap.api.common.Bytes;
+
+import javax.annotation.Nullable;
+
+/**
+ * {@link Filter} that includes rows based on the value of a column. Values are compared as unsigned bytes,
+ * the same way as {@link Bytes#compareTo(byte[], byte[])}. The filter does not change the columns returned
+ * for the rows it includes. It is an experimental feature.
+ */
+@Beta
+public final class ColumnValueFilter implements Filter {
+
+  /**
+   * Comparison of the column value with the value of the filter.
+   */
+  public enum CompareOp {
+    EQUAL,
+    NOT_EQUAL,
+    LESS,
+    LESS_OR_EQUAL,
+    GREATER,
+    GREATER_OR_EQUAL
+  }
+
+  private final byte[] column;
+  private final CompareOp op;
+  private final byte[] value;
+  private final boolean filterIfMissing;
+
+  /**
+   * Creates a filter that includes the rows with a value of the given column that satisfies the given comparison.
+   * Rows that do not have the column are excluded.
+   *
+   * @param column the column to compare
+   * @param op the comparison of the column value with the given value
+   * @param value the value to compare with
+   */
+  public ColumnValueFilter(byte[] column, CompareOp op, byte[] value) {
+    this(column, op, value, true);
+  }
+
+  /**
+   * Creates a filter that includes the rows with a value of the given column that satisfies the given comparison.
+   *
+   * @param column the column to compare
+   * @param op the comparison of the column value with the given value
+   * @param value the value to compare with
+   * @param filterIfMissing whether rows that do not have the column are excluded
+   */
+  public ColumnValueFilter(byte[] column, CompareOp op, byte[] value, boolean filterIfMissing) {
+    if (column == null || op == null || value == null) {
+      throw new IllegalArgumentException("Column, comparison and value cannot be null");
+    }
+    this.column = column;
+    this.op = op;
+    this.value = value;
+    this.filterIfMissing = filterIfMissing;
+  }
+
+  public byte[] getColumn() {
+    return column;
+  }
+
+  public CompareOp getOp() {
+    return op;
+  }
+
+  public byte[] getValue() {
+    return value;
+  }
+
+  public boolean isFilterIfMissing() {
+    return filterIfMissing;
+  }
+
+  /**
+   * Returns whether a row with the given value of the column is included.
+   *
+   * @param columnValue the value of the column, or {@code null} if the row does not have the column
+   */
+  public boolean matches(@Nullable byte[] columnValue) {
+    if (columnValue == null) {
+      return !filterIfMissing;
+    }
+    int cmp = Bytes.compareTo(columnValue, value);
+    switch (op) {
+      case EQUAL:
+        return cmp == 0;
+      case NOT_EQUAL:
+        return cmp != 0;
+      case LESS:
+        return cmp < 0;
+      case LESS_OR_EQUAL:
+        return cmp <= 0;
+      case GREATER:
+        return cmp > 0;
+      case GREATER_OR_EQUAL:
+        return cmp >= 0;
+      default:
+        throw new IllegalStateException("Unknown comparison " + op);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnValueFilter{" +
+      "column=" + Bytes.toStringBinary(column) +
+      ", op=" + op +
+      ", value=" + Bytes.toStringBinary(value) +
+      ", filterIfMissing=" + filterIfMissing +
+      '}';
+  }
+}
@@ -20,6 +20,14 @@ import co.cask.cdap.api.annotation.Beta;
 
 /**
  * Filter to be applied to {@link Scan}. It is an experimental feature.
+ *
+ * The filters are evaluated by the table, close to the data, so that only the matching rows and columns are
+ * returned by the scan. Filters can be combined with {@link FilterList}.
+ *
+ * @see RowPrefixFilter
+ * @see ColumnValueFilter
+ * @see ColumnRangeFilter
+ * @see ColumnLimitFilter
  */
 @Beta
 public interface Filter {
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.api.dataset.table;
+
+import co.cask.cdap.api.annotation.Beta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link Filter} that combines a list of filters. It is an experimental feature.
+ *
+ * With {@link Operator#MUST_PASS_ALL}, a row is included if all filters include it, and the filters that select
+ * columns, such as {@link ColumnRangeFilter} and {@link ColumnLimitFilter}, are applied in the order of the list.
+ * Filters that decide on the row, such as {@link ColumnValueFilter}, are evaluated on all columns of the row.
+ *
+ * With {@link Operator#MUST_PASS_ONE}, a row is included if any filter includes it. Only filters that decide
+ * on the row can be combined this way. Tables reject scans with lists that combine filters that select columns
+ * with this operator.
+ */
+@Beta
+public final class FilterList implements Filter {
+
+  /**
+   * How the filters of the list are combined.
+   */
+  public enum Operator {
+    MUST_PASS_ALL,
+    MUST_PASS_ONE
+  }
+
+  private final Operator operator;
+  private final List<Filter> filters;
+
+  /**
+   * Creates a filter that combines the given filters.
+   *
+   * @param operator how the filters are combined
+   * @param filters the filters to combine
+   * @throws IllegalArgumentException if the operator or any of the filters is {@code null}
+   */
+  public FilterList(Operator operator, Filter... filters) {
+    this(operator, Arrays.asList(filters));
+  }
+
+  /**
+   * Creates a filter that combines the given filters.
+   *
+   * @param operator how the filters are combined
+   * @param filters the filters to combine
+   * @throws IllegalArgumentException if the operator or any of the filters is {@code null}
+   */
+  public FilterList(Operator operator, List<? extends Filter> filters) {
+    if (operator == null) {
+      throw new IllegalArgumentException("Operator cannot be null");
+    }
+    for (Filter filter : filters) {
+      if (filter == null) {
+        throw new IllegalArgumentException("Filters cannot be null");
+      }
+    }
+    this.operator = operator;
+    this.filters = Collections.unmodifiableList(new ArrayList<>(filters));
+  }
+
+  public Operator getOperator() {
+    return operator;
+  }
+
+  public List<Filter> getFilters() {
+    return filters;
+  }
+
+  @Override
+  public String toString() {
+    return "FilterList{" +
+      "operator=" + operator +
+      ", filters=" + filters +
+      '}';
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.api.dataset.table;
+
+import co.cask.cdap.api.annotation.Beta;
+import co.cask.cdap.api.common.Bytes;
+
+/**
+ * {@link Filter} that only includes rows whose key starts with a given prefix. It is an experimental feature.
+ */
+@Beta
+public final class RowPrefixFilter implements Filter {
+
+  private final byte[] prefix;
+
+  /**
+   * Creates a filter that includes the rows whose key starts with the given prefix.
+   *
+   * @param prefix the row key prefix
+   */
+  public RowPrefixFilter(byte[] prefix) {
+    if (prefix == null) {
+      throw new IllegalArgumentException("Row prefix cannot be null");
+    }
+    this.prefix = prefix;
+  }
+
+  public byte[] getPrefix() {
+    return prefix;
+  }
+
+  @Override
+  public String toString() {
+    return "RowPrefixFilter{prefix=" + Bytes.toStringBinary(prefix) + '}';
+  }
+}
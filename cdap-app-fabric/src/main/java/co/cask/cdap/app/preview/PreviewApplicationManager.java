@@ -19,6 +19,7 @@ package co.cask.cdap.app.preview;
 import co.cask.cdap.app.deploy.Manager;
 import co.cask.cdap.app.store.Store;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.data2.dataset2.DatasetFramework;
 import co.cask.cdap.data2.registry.UsageRegistry;
 import co.cask.cdap.internal.app.deploy.pipeline.ApplicationRegistrationStage;
@@ -58,6 +59,7 @@ public class PreviewApplicationManager<I, O> implements Manager<I, O> {
   private final Impersonator impersonator;
   private final PrivilegesManager privilegesManager;
   private final AuthenticationContext authenticationContext;
+  private final UnpackedJarCache unpackedJarCache;
 
   @Inject
   PreviewApplicationManager(CConfiguration configuration, PipelineFactory pipelineFactory,
@@ -65,7 +67,8 @@ public class PreviewApplicationManager<I, O> implements Manager<I, O> {
                             @Named("datasetMDS") DatasetFramework inMemoryDatasetFramework,
                             UsageRegistry usageRegistry, ArtifactRepository artifactRepository,
                             PrivilegesManager privilegesManager,
-                            AuthenticationContext authenticationContext, Impersonator impersonator) {
+                            AuthenticationContext authenticationContext, Impersonator impersonator,
+                            UnpackedJarCache unpackedJarCache) {
     this.cConf = configuration;
     this.pipelineFactory = pipelineFactory;
     this.store = store;
@@ -77,12 +80,13 @@ public class PreviewApplicationManager<I, O> implements Manager<I, O> {
     this.privilegesManager = privilegesManager;
     this.authenticationContext = authenticationContext;
     this.ownerAdmin = ownerAdmin;
+    this.unpackedJarCache = unpackedJarCache;
   }
 
   @Override
   public ListenableFuture<O> deploy(I input) throws Exception {
     Pipeline<O> pipeline = pipelineFactory.getPipeline();
-    pipeline.addLast(new LocalArtifactLoaderStage(cConf, store, artifactRepository, impersonator));
+    pipeline.addLast(new LocalArtifactLoaderStage(cConf, store, artifactRepository, unpackedJarCache, impersonator));
     pipeline.addLast(new ApplicationVerificationStage(store, datasetFramework, ownerAdmin));
     pipeline.addLast(new DeployDatasetModulesStage(cConf, datasetFramework,
                                                    inMemoryDatasetFramework));
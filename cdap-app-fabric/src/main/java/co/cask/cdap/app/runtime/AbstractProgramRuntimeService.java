@@ -18,6 +18,7 @@ package co.cask.cdap.app.runtime;
 import co.cask.cdap.api.app.ApplicationSpecification;
 import co.cask.cdap.api.common.RuntimeArguments;
 import co.cask.cdap.api.plugin.Plugin;
+import co.cask.cdap.app.program.DefaultProgram;
 import co.cask.cdap.app.program.Program;
 import co.cask.cdap.app.program.ProgramDescriptor;
 import co.cask.cdap.app.program.Programs;
@@ -26,7 +27,7 @@ import co.cask.cdap.common.app.RunIds;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.Locations;
-import co.cask.cdap.common.lang.jar.BundleJarUtil;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.common.utils.DirUtils;
 import co.cask.cdap.internal.app.runtime.AbstractListener;
 import co.cask.cdap.internal.app.runtime.BasicArguments;
@@ -49,7 +50,6 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
 import com.google.common.io.Closeables;
-import com.google.common.io.Files;
 import com.google.common.util.concurrent.AbstractIdleService;
 import org.apache.twill.api.RunId;
 import org.apache.twill.common.Threads;
@@ -88,14 +88,16 @@ public abstract class AbstractProgramRuntimeService extends AbstractIdleService
   private final Table<ProgramType, RunId, RuntimeInfo> runtimeInfos;
   private final ProgramRunnerFactory programRunnerFactory;
   private final ArtifactRepository artifactRepository;
+  private final UnpackedJarCache unpackedJarCache;
 
   protected AbstractProgramRuntimeService(CConfiguration cConf, ProgramRunnerFactory programRunnerFactory,
-                                          ArtifactRepository artifactRepository) {
+                                          ArtifactRepository artifactRepository, UnpackedJarCache unpackedJarCache) {
     this.cConf = cConf;
     this.runtimeInfosLock = new ReentrantReadWriteLock();
     this.runtimeInfos = HashBasedTable.create();
     this.programRunnerFactory = programRunnerFactory;
     this.artifactRepository = artifactRepository;
+    this.unpackedJarCache = unpackedJarCache;
   }
 
   @Override
@@ -135,6 +137,7 @@ public abstract class AbstractProgramRuntimeService extends AbstractIdleService
 
   /**
    * Creates a {@link Program} for the given {@link ProgramRunner} from the given program jar {@link Location}.
+   * The program jar is unpacked through the {@link UnpackedJarCache}, which is released when the program is closed.
    */
   protected Program createProgram(CConfiguration cConf, ProgramRunner programRunner,
                                   ProgramDescriptor programDescriptor,
@@ -142,20 +145,25 @@ public abstract class AbstractProgramRuntimeService extends AbstractIdleService
 
     final Location programJarLocation = artifactDetail.getDescriptor().getLocation();
 
-    // Take a snapshot of the JAR file to avoid program mutation
-    final File unpackedDir = new File(tempDir, "unpacked");
-    unpackedDir.mkdirs();
+    // The cache verifies the checksum of the content it unpacks, hence the program is not affected by mutation
+    final UnpackedJarCache.Reference unpacked = unpackedJarCache.acquire(programJarLocation);
     try {
-      File programJar = Locations.linkOrCopy(programJarLocation, new File(tempDir, "program.jar"));
-      // Unpack the JAR file
-      BundleJarUtil.unJar(Files.newInputStreamSupplier(programJar), unpackedDir);
-    } catch (IOException ioe) {
-      throw ioe;
-    } catch (Exception e) {
-      // should not happen
-      throw Throwables.propagate(e);
+      Program program = Programs.create(cConf, programRunner, programDescriptor,
+                                        programJarLocation, unpacked.getDirectory());
+      return new DefaultProgram(programDescriptor, programJarLocation, program.getClassLoader()) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            unpacked.close();
+          }
+        }
+      };
+    } catch (IOException | RuntimeException e) {
+      unpacked.close();
+      throw e;
     }
-    return Programs.create(cConf, programRunner, programDescriptor, programJarLocation, unpackedDir);
   }
 
   private Runnable createCleanupTask(final Object... resources) {
@@ -16,6 +16,7 @@
 
 package co.cask.cdap.gateway.handlers.meta;
 
+import co.cask.cdap.common.BadRequestException;
 import co.cask.cdap.common.internal.remote.MethodArgument;
 import co.cask.cdap.proto.codec.EntityIdTypeAdapter;
 import co.cask.cdap.proto.id.EntityId;
@@ -23,6 +24,8 @@ import co.cask.cdap.proto.security.Action;
 import co.cask.cdap.proto.security.AuthorizationPrivilege;
 import co.cask.cdap.proto.security.Principal;
 import co.cask.cdap.proto.security.Privilege;
+import co.cask.cdap.proto.security.VisibilityRequest;
+import co.cask.cdap.security.authorization.AuthorizationUtil;
 import co.cask.cdap.security.spi.authorization.AuthorizationEnforcer;
 import co.cask.cdap.security.spi.authorization.PrivilegesManager;
 import co.cask.http.HttpResponder;
@@ -50,6 +53,7 @@ import javax.ws.rs.Path;
 public class RemotePrivilegesHandler extends AbstractRemoteSystemOpsHandler {
   private static final Logger LOG = LoggerFactory.getLogger(RemotePrivilegesHandler.class);
   private static final Type SET_OF_ACTIONS = new TypeLiteral<Set<Action>>() { }.getType();
+  private static final Type SET_OF_ENTITY_IDS = new TypeLiteral<Set<EntityId>>() { }.getType();
   private static final Gson GSON = new GsonBuilder()
     .registerTypeAdapter(EntityId.class, new EntityIdTypeAdapter())
     .create();
@@ -74,6 +78,22 @@ public class RemotePrivilegesHandler extends AbstractRemoteSystemOpsHandler {
     responder.sendStatus(HttpResponseStatus.OK);
   }
 
+  @POST
+  @Path("/isVisible")
+  public void isVisible(HttpRequest request, HttpResponder responder) throws Exception {
+    VisibilityRequest visibilityRequest = GSON.fromJson(request.getContent().toString(Charsets.UTF_8),
+                                                        VisibilityRequest.class);
+    if (visibilityRequest == null || visibilityRequest.getPrincipal() == null
+      || visibilityRequest.getEntityIds() == null) {
+      throw new BadRequestException("Principal and entities are required to check visibility.");
+    }
+    LOG.trace("Checking visibility of {} entities for {}", visibilityRequest.getEntityIds().size(),
+              visibilityRequest.getPrincipal());
+    Set<EntityId> visible = AuthorizationUtil.isVisible(authorizationEnforcer, visibilityRequest.getEntityIds(),
+                                                        visibilityRequest.getPrincipal());
+    responder.sendJson(HttpResponseStatus.OK, visible, SET_OF_ENTITY_IDS, GSON);
+  }
+
   @POST
   @Path("/listPrivileges")
   public void listPrivileges(HttpRequest request, HttpResponder responder) throws Exception {
@@ -29,6 +29,7 @@ import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.CaseInsensitiveEnumTypeAdapterFactory;
 import co.cask.cdap.common.lang.ClassLoaders;
 import co.cask.cdap.common.lang.CombineClassLoader;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.common.utils.DirUtils;
 import co.cask.cdap.internal.app.ApplicationSpecificationAdapter;
 import co.cask.cdap.internal.app.runtime.artifact.ArtifactRepository;
@@ -73,13 +74,14 @@ public final class InMemoryConfigurator implements Configurator {
   private final Id.Namespace appNamespace;
 
   private final ArtifactRepository artifactRepository;
+  private final UnpackedJarCache unpackedJarCache;
   private final ClassLoader artifactClassLoader;
   private final String appClassName;
   private final Id.Artifact artifactId;
 
   public InMemoryConfigurator(CConfiguration cConf, Id.Namespace appNamespace, Id.Artifact artifactId,
                               String appClassName, ArtifactRepository artifactRepository,
-                              ClassLoader artifactClassLoader,
+                              UnpackedJarCache unpackedJarCache, ClassLoader artifactClassLoader,
                               @Nullable String applicationName, @Nullable String applicationVersion,
                               @Nullable String configString) {
     this.cConf = cConf;
@@ -90,6 +92,7 @@ public final class InMemoryConfigurator implements Configurator {
     this.applicationVersion = applicationVersion;
     this.configString = configString == null ? "" : configString;
     this.artifactRepository = artifactRepository;
+    this.unpackedJarCache = unpackedJarCache;
     this.artifactClassLoader = artifactClassLoader;
     this.baseUnpackDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
                                   cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
@@ -138,7 +141,8 @@ public final class InMemoryConfigurator implements Configurator {
 
     File tempDir = DirUtils.createTempDir(baseUnpackDir);
     try (
-      PluginInstantiator pluginInstantiator = new PluginInstantiator(cConf, app.getClass().getClassLoader(), tempDir)
+      PluginInstantiator pluginInstantiator = new PluginInstantiator(unpackedJarCache,
+                                                                     app.getClass().getClassLoader(), tempDir)
     ) {
       configurer = new DefaultAppConfigurer(appNamespace, artifactId, app,
                                             configString, artifactRepository, pluginInstantiator);
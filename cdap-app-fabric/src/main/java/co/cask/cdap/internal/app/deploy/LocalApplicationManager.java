@@ -20,6 +20,7 @@ import co.cask.cdap.api.metrics.MetricStore;
 import co.cask.cdap.app.deploy.Manager;
 import co.cask.cdap.app.store.Store;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.data2.dataset2.DatasetFramework;
 import co.cask.cdap.data2.metadata.store.MetadataStore;
 import co.cask.cdap.data2.registry.UsageRegistry;
@@ -83,6 +84,7 @@ public class LocalApplicationManager<I, O> implements Manager<I, O> {
   private final Impersonator impersonator;
   private final AuthenticationContext authenticationContext;
   private final co.cask.cdap.scheduler.Scheduler programScheduler;
+  private final UnpackedJarCache unpackedJarCache;
 
   @Inject
   LocalApplicationManager(CConfiguration configuration, PipelineFactory pipelineFactory,
@@ -94,7 +96,7 @@ public class LocalApplicationManager<I, O> implements Manager<I, O> {
                           UsageRegistry usageRegistry, ArtifactRepository artifactRepository,
                           MetadataStore metadataStore, PrivilegesManager privilegesManager,
                           Impersonator impersonator, AuthenticationContext authenticationContext,
-                          co.cask.cdap.scheduler.Scheduler programScheduler) {
+                          co.cask.cdap.scheduler.Scheduler programScheduler, UnpackedJarCache unpackedJarCache) {
     this.configuration = configuration;
     this.pipelineFactory = pipelineFactory;
     this.store = store;
@@ -113,12 +115,14 @@ public class LocalApplicationManager<I, O> implements Manager<I, O> {
     this.impersonator = impersonator;
     this.authenticationContext = authenticationContext;
     this.programScheduler = programScheduler;
+    this.unpackedJarCache = unpackedJarCache;
   }
 
   @Override
   public ListenableFuture<O> deploy(I input) throws Exception {
     Pipeline<O> pipeline = pipelineFactory.getPipeline();
-    pipeline.addLast(new LocalArtifactLoaderStage(configuration, store, artifactRepository, impersonator));
+    pipeline.addLast(new LocalArtifactLoaderStage(configuration, store, artifactRepository, unpackedJarCache,
+                                                  impersonator));
     pipeline.addLast(new ApplicationVerificationStage(store, datasetFramework, ownerAdmin));
     pipeline.addLast(new DeployDatasetModulesStage(configuration, datasetFramework, inMemoryDatasetFramework));
     pipeline.addLast(new CreateDatasetInstancesStage(configuration, datasetFramework));
@@ -20,6 +20,7 @@ import co.cask.cdap.api.app.ApplicationSpecification;
 import co.cask.cdap.app.deploy.ConfigResponse;
 import co.cask.cdap.app.store.Store;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.internal.app.ApplicationSpecificationAdapter;
 import co.cask.cdap.internal.app.deploy.InMemoryConfigurator;
 import co.cask.cdap.internal.app.deploy.LocalApplicationManager;
@@ -57,18 +58,20 @@ public class LocalArtifactLoaderStage extends AbstractStage<AppDeploymentInfo> {
   private final Store store;
   private final ApplicationSpecificationAdapter adapter;
   private final ArtifactRepository artifactRepository;
+  private final UnpackedJarCache unpackedJarCache;
   private final Impersonator impersonator;
 
   /**
    * Constructor with hit for handling type.
    */
   public LocalArtifactLoaderStage(CConfiguration cConf, Store store, ArtifactRepository artifactRepository,
-                                  Impersonator impersonator) {
+                                  UnpackedJarCache unpackedJarCache, Impersonator impersonator) {
     super(TypeToken.of(AppDeploymentInfo.class));
     this.cConf = cConf;
     this.store = store;
     this.adapter = ApplicationSpecificationAdapter.create(new ReflectionSchemaGenerator());
     this.artifactRepository = artifactRepository;
+    this.unpackedJarCache = unpackedJarCache;
     this.impersonator = impersonator;
   }
 
@@ -96,7 +99,8 @@ public class LocalArtifactLoaderStage extends AbstractStage<AppDeploymentInfo> {
 
     InMemoryConfigurator inMemoryConfigurator = new InMemoryConfigurator(cConf, deploymentInfo.getNamespaceId().toId(),
                                                                          artifactId.toId(), appClassName,
-                                                                         artifactRepository, artifactClassLoader,
+                                                                         artifactRepository, unpackedJarCache,
+                                                                         artifactClassLoader,
                                                                          deploymentInfo.getApplicationName(),
                                                                          deploymentInfo.getApplicationVersion(),
                                                                          configString);
@@ -19,7 +19,9 @@ package co.cask.cdap.internal.app.runtime;
 import co.cask.cdap.app.runtime.ProgramOptions;
 import co.cask.cdap.app.runtime.ProgramRunner;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.internal.app.runtime.plugin.PluginInstantiator;
+import com.google.inject.Inject;
 
 import java.io.File;
 import javax.annotation.Nullable;
@@ -30,11 +32,21 @@ import javax.annotation.Nullable;
 public abstract class AbstractProgramRunnerWithPlugin implements ProgramRunner {
 
   protected final CConfiguration cConf;
+  private UnpackedJarCache unpackedJarCache;
 
   public AbstractProgramRunnerWithPlugin(CConfiguration cConf) {
     this.cConf = cConf;
   }
 
+  /**
+   * Sets the {@link UnpackedJarCache} for unpacking plugin jars. Uses setter injection, so that subclasses don't
+   * need to pass it through their constructors.
+   */
+  @Inject
+  public void setUnpackedJarCache(UnpackedJarCache unpackedJarCache) {
+    this.unpackedJarCache = unpackedJarCache;
+  }
+
   /**
    * Creates a {@link PluginInstantiator} based on the {@link ProgramOptionConstants#PLUGIN_DIR} in
    * the system arguments in the given {@link ProgramOptions}.
@@ -49,6 +61,6 @@ public abstract class AbstractProgramRunnerWithPlugin implements ProgramRunner {
       return null;
     }
     return new PluginInstantiator(
-      cConf, classLoader, new File(options.getArguments().getOption(ProgramOptionConstants.PLUGIN_DIR)));
+      unpackedJarCache, classLoader, new File(options.getArguments().getOption(ProgramOptionConstants.PLUGIN_DIR)));
   }
 }
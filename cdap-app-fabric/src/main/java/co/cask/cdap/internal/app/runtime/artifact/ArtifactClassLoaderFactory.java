@@ -21,10 +21,8 @@ import co.cask.cdap.app.runtime.ProgramClassLoaderProvider;
 import co.cask.cdap.app.runtime.ProgramRunner;
 import co.cask.cdap.app.runtime.ProgramRunnerFactory;
 import co.cask.cdap.common.conf.CConfiguration;
-import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.lang.FilterClassLoader;
-import co.cask.cdap.common.lang.jar.BundleJarUtil;
-import co.cask.cdap.common.utils.DirUtils;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.internal.app.runtime.ProgramClassLoader;
 import co.cask.cdap.proto.ProgramType;
 import co.cask.cdap.security.impersonation.EntityImpersonator;
@@ -40,21 +38,21 @@ import java.io.IOException;
 import java.util.concurrent.Callable;
 
 /**
- * Given an artifact, creates a {@link CloseableClassLoader} from it. Takes care of unpacking the artifact and
- * cleaning up the directory when the classloader is closed.
+ * Given an artifact, creates a {@link CloseableClassLoader} from it. Takes care of unpacking the artifact through
+ * the {@link UnpackedJarCache}, and releasing the unpacked directory when the classloader is closed.
  */
 final class ArtifactClassLoaderFactory {
   private static final Logger LOG = LoggerFactory.getLogger(ArtifactClassLoaderFactory.class);
 
   private final CConfiguration cConf;
   private final ProgramRunnerFactory programRunnerFactory;
-  private final File tmpDir;
+  private final UnpackedJarCache unpackedJarCache;
 
-  ArtifactClassLoaderFactory(CConfiguration cConf, ProgramRunnerFactory programRunnerFactory) {
+  ArtifactClassLoaderFactory(CConfiguration cConf, ProgramRunnerFactory programRunnerFactory,
+                             UnpackedJarCache unpackedJarCache) {
     this.cConf = cConf;
     this.programRunnerFactory = programRunnerFactory;
-    this.tmpDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
-                           cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
+    this.unpackedJarCache = unpackedJarCache;
   }
 
   /**
@@ -103,35 +101,39 @@ final class ArtifactClassLoaderFactory {
   }
 
   /**
-   * Unpack the given {@code artifactLocation} to a temporary directory and call
-   * {@link #createClassLoader(File)} to create the {@link ClassLoader}.
+   * Unpack the given {@code artifactLocation} through the {@link UnpackedJarCache} and call
+   * {@link #createClassLoader(File)} to create the {@link ClassLoader}. Artifacts with the same content share
+   * the same unpacked directory.
    *
    * @param artifactLocation the location of the artifact to create the classloader from
    * @return a closeable classloader based off the specified artifact; on closing the returned {@link ClassLoader},
-   *         all temporary resources created for the classloader will be removed
+   *         the unpacked directory is released
    * @throws IOException if there was an error copying or unpacking the artifact
    * @see #createClassLoader(File)
    */
   CloseableClassLoader createClassLoader(final Location artifactLocation,
                                          EntityImpersonator entityImpersonator) throws IOException {
     try {
-      final File unpackDir = entityImpersonator.impersonate(new Callable<File>() {
-        @Override
-        public File call() throws IOException {
-          return BundleJarUtil.unJar(artifactLocation, DirUtils.createTempDir(tmpDir));
-        }
-      });
+      final UnpackedJarCache.Reference unpacked = entityImpersonator.impersonate(
+        new Callable<UnpackedJarCache.Reference>() {
+          @Override
+          public UnpackedJarCache.Reference call() throws IOException {
+            return unpackedJarCache.acquire(artifactLocation);
+          }
+        });
 
-      final CloseableClassLoader classLoader = createClassLoader(unpackDir);
+      final CloseableClassLoader classLoader;
+      try {
+        classLoader = createClassLoader(unpacked.getDirectory());
+      } catch (IOException | RuntimeException e) {
+        unpacked.close();
+        throw e;
+      }
       return new CloseableClassLoader(classLoader, new Closeable() {
         @Override
-        public void close() throws IOException {
-          try {
-            Closeables.closeQuietly(classLoader);
-            DirUtils.deleteDirectoryContents(unpackDir);
-          } catch (IOException e) {
-            LOG.warn("Failed to delete directory {}", unpackDir, e);
-          }
+        public void close() {
+          Closeables.closeQuietly(classLoader);
+          unpacked.close();
         }
       });
     } catch (Exception e) {
@@ -38,6 +38,7 @@ import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.lang.jar.BundleJarUtil;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.common.utils.DirUtils;
 import co.cask.cdap.internal.app.runtime.plugin.PluginInstantiator;
 import co.cask.cdap.internal.io.ReflectionSchemaGenerator;
@@ -92,11 +93,14 @@ final class ArtifactInspector {
   private static final Logger LOG = LoggerFactory.getLogger(ArtifactInspector.class);
 
   private final CConfiguration cConf;
+  private final UnpackedJarCache unpackedJarCache;
   private final ArtifactClassLoaderFactory artifactClassLoaderFactory;
   private final ReflectionSchemaGenerator schemaGenerator;
 
-  ArtifactInspector(CConfiguration cConf, ArtifactClassLoaderFactory artifactClassLoaderFactory) {
+  ArtifactInspector(CConfiguration cConf, ArtifactClassLoaderFactory artifactClassLoaderFactory,
+                    UnpackedJarCache unpackedJarCache) {
     this.cConf = cConf;
+    this.unpackedJarCache = unpackedJarCache;
     this.artifactClassLoaderFactory = artifactClassLoaderFactory;
     this.schemaGenerator = new ReflectionSchemaGenerator(false);
   }
@@ -122,22 +126,21 @@ final class ArtifactInspector {
     Location artifactLocation = Locations.toLocation(artifactFile);
 
     Path stageDir = Files.createTempDirectory(tmpDir, artifactFile.getName());
-    try {
-      File unpackedDir = BundleJarUtil.unJar(artifactLocation,
-                                             Files.createTempDirectory(stageDir, "unpacked-").toFile());
-
-      try (CloseableClassLoader artifactClassLoader = artifactClassLoaderFactory.createClassLoader(unpackedDir)) {
-        ArtifactClasses.Builder builder = inspectApplications(artifactId, ArtifactClasses.builder(),
-                                                              artifactLocation, artifactClassLoader);
-
-        try (PluginInstantiator pluginInstantiator =
-               new PluginInstantiator(cConf, parentClassLoader == null ? artifactClassLoader : parentClassLoader,
-                                      Files.createTempDirectory(stageDir, "plugins-").toFile())) {
-          pluginInstantiator.addArtifact(artifactLocation, artifactId.toArtifactId());
-          inspectPlugins(builder, artifactFile, artifactId.toArtifactId(), pluginInstantiator);
-        }
-        return builder.build();
+    // Unpacks through the cache, so that classloaders created later for the same artifact reuse the directory
+    try (UnpackedJarCache.Reference unpacked = unpackedJarCache.acquire(artifactLocation);
+         CloseableClassLoader artifactClassLoader =
+           artifactClassLoaderFactory.createClassLoader(unpacked.getDirectory())) {
+      ArtifactClasses.Builder builder = inspectApplications(artifactId, ArtifactClasses.builder(),
+                                                            artifactLocation, artifactClassLoader);
+
+      try (PluginInstantiator pluginInstantiator =
+             new PluginInstantiator(unpackedJarCache,
+                                    parentClassLoader == null ? artifactClassLoader : parentClassLoader,
+                                    Files.createTempDirectory(stageDir, "plugins-").toFile())) {
+        pluginInstantiator.addArtifact(artifactLocation, artifactId.toArtifactId());
+        inspectPlugins(builder, artifactFile, artifactId.toArtifactId(), pluginInstantiator);
       }
+      return builder.build();
     } catch (EOFException | ZipException e) {
       throw new InvalidArtifactException("Artifact " + artifactId + " is not a valid zip file.", e);
     } finally {
@@ -36,6 +36,7 @@ import co.cask.cdap.common.conf.ArtifactConfig;
 import co.cask.cdap.common.conf.ArtifactConfigReader;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.common.utils.DirUtils;
 import co.cask.cdap.common.utils.ImmutablePair;
 import co.cask.cdap.data2.metadata.store.MetadataStore;
@@ -49,6 +50,7 @@ import co.cask.cdap.proto.id.EntityId;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.proto.security.Action;
 import co.cask.cdap.proto.security.Principal;
+import co.cask.cdap.security.authorization.AuthorizationUtil;
 import co.cask.cdap.security.impersonation.EntityImpersonator;
 import co.cask.cdap.security.impersonation.Impersonator;
 import co.cask.cdap.security.spi.authentication.AuthenticationContext;
@@ -106,10 +108,10 @@ public class ArtifactRepository {
   public ArtifactRepository(CConfiguration cConf, ArtifactStore artifactStore, MetadataStore metadataStore,
                             PrivilegesManager privilegesManager, ProgramRunnerFactory programRunnerFactory,
                             Impersonator impersonator, AuthorizationEnforcer authorizationEnforcer,
-                            AuthenticationContext authenticationContext) {
+                            AuthenticationContext authenticationContext, UnpackedJarCache unpackedJarCache) {
     this.artifactStore = artifactStore;
-    this.artifactClassLoaderFactory = new ArtifactClassLoaderFactory(cConf, programRunnerFactory);
-    this.artifactInspector = new ArtifactInspector(cConf, artifactClassLoaderFactory);
+    this.artifactClassLoaderFactory = new ArtifactClassLoaderFactory(cConf, programRunnerFactory, unpackedJarCache);
+    this.artifactInspector = new ArtifactInspector(cConf, artifactClassLoaderFactory, unpackedJarCache);
     this.systemArtifactDirs = new ArrayList<>();
     String systemArtifactsDir = cConf.get(Constants.AppFabric.SYSTEM_ARTIFACTS_DIR);
     if (!Strings.isNullOrEmpty(systemArtifactsDir)) {
@@ -235,7 +237,7 @@ public class ArtifactRepository {
    * @param order the order of the result
    * @return an unmodifiable list of all artifacts that match the given ranges. If none exist, an empty list is returned
    */
-  public List<ArtifactDetail> getArtifactDetails(final ArtifactRange range, int limit,
+  public List<ArtifactDetail> getArtifactDetails(ArtifactRange range, int limit,
                                                  ArtifactSortOrder order) throws Exception {
     List<ArtifactDetail> artifacts = artifactStore.getArtifacts(range, limit, order);
     // No authorization for system artifacts
@@ -243,17 +245,21 @@ public class ArtifactRepository {
       return artifacts;
     }
     Principal principal = authenticationContext.getPrincipal();
-    final Predicate<EntityId> filter = authorizationEnforcer.createFilter(principal);
-    return Lists.newArrayList(
-      Iterables.filter(artifacts, new com.google.common.base.Predicate<ArtifactDetail>() {
-        @Override
-        public boolean apply(ArtifactDetail artifactDetail) {
-          ArtifactId artifactId = artifactDetail.getDescriptor().getArtifactId();
-          return filter.apply(new NamespaceId(range.getNamespace()).artifact(artifactId.getName(),
-                                                            artifactId.getVersion().getVersion()));
-        }
-      })
-    );
+    NamespaceId namespace = new NamespaceId(range.getNamespace());
+    List<co.cask.cdap.proto.id.ArtifactId> artifactIds = new ArrayList<>(artifacts.size());
+    for (ArtifactDetail artifactDetail : artifacts) {
+      ArtifactId artifactId = artifactDetail.getDescriptor().getArtifactId();
+      artifactIds.add(namespace.artifact(artifactId.getName(), artifactId.getVersion().getVersion()));
+    }
+    Set<EntityId> visible = AuthorizationUtil.isVisible(authorizationEnforcer, new HashSet<>(artifactIds),
+                                                        principal);
+    List<ArtifactDetail> result = new ArrayList<>();
+    for (int i = 0; i < artifacts.size(); i++) {
+      if (visible.contains(artifactIds.get(i))) {
+        result.add(artifacts.get(i));
+      }
+    }
+    return result;
   }
 
   /**
@@ -822,14 +828,21 @@ public class ArtifactRepository {
    */
   private List<ArtifactSummary> filterAuthorizedArtifacts(List<ArtifactSummary> artifacts, final NamespaceId namespace)
     throws Exception {
-    final Predicate<EntityId> filter = authorizationEnforcer.createFilter(authenticationContext.getPrincipal());
+    Set<EntityId> artifactIds = new HashSet<>();
+    for (ArtifactSummary artifactSummary : artifacts) {
+      // no authorization on system artifacts
+      if (!ArtifactScope.SYSTEM.equals(artifactSummary.getScope())) {
+        artifactIds.add(namespace.artifact(artifactSummary.getName(), artifactSummary.getVersion()));
+      }
+    }
+    final Set<EntityId> visible = AuthorizationUtil.isVisible(authorizationEnforcer, artifactIds,
+                                                              authenticationContext.getPrincipal());
     return Lists.newArrayList(
       Iterables.filter(artifacts, new com.google.common.base.Predicate<ArtifactSummary>() {
         @Override
         public boolean apply(ArtifactSummary artifactSummary) {
-          // no authorization on system artifacts
           return ArtifactScope.SYSTEM.equals(artifactSummary.getScope()) ||
-            filter.apply(namespace.artifact(artifactSummary.getName(), artifactSummary.getVersion()));
+            visible.contains(namespace.artifact(artifactSummary.getName(), artifactSummary.getVersion()));
         }
       })
     );
@@ -844,14 +857,21 @@ public class ArtifactRepository {
    */
   private List<ArtifactInfo> filterAuthorizedArtifactInfos(List<ArtifactInfo> artifacts,
                                                            final NamespaceId namespace) throws Exception {
-    final Predicate<EntityId> filter = authorizationEnforcer.createFilter(authenticationContext.getPrincipal());
+    Set<EntityId> artifactIds = new HashSet<>();
+    for (ArtifactInfo artifactInfo : artifacts) {
+      // no authorization on system artifacts
+      if (!ArtifactScope.SYSTEM.equals(artifactInfo.getScope())) {
+        artifactIds.add(namespace.artifact(artifactInfo.getName(), artifactInfo.getVersion()));
+      }
+    }
+    final Set<EntityId> visible = AuthorizationUtil.isVisible(authorizationEnforcer, artifactIds,
+                                                              authenticationContext.getPrincipal());
     return Lists.newArrayList(
       Iterables.filter(artifacts, new com.google.common.base.Predicate<ArtifactInfo>() {
         @Override
         public boolean apply(ArtifactInfo artifactInfo) {
-          // no authorization on system artifacts
           return ArtifactScope.SYSTEM.equals(artifactInfo.getScope()) ||
-            filter.apply(namespace.artifact(artifactInfo.getName(), artifactInfo.getVersion()));
+            visible.contains(namespace.artifact(artifactInfo.getName(), artifactInfo.getVersion()));
         }
       })
     );
@@ -41,7 +41,6 @@ import co.cask.cdap.common.ArtifactNotFoundException;
 import co.cask.cdap.common.ArtifactRangeNotFoundException;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.namespace.NamespacedLocationFactory;
-import co.cask.cdap.common.utils.ImmutablePair;
 import co.cask.cdap.data.dataset.SystemDatasetInstantiator;
 import co.cask.cdap.data2.datafabric.dataset.DatasetsUtil;
 import co.cask.cdap.data2.dataset2.DatasetFramework;
@@ -85,8 +84,11 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -94,6 +96,7 @@ import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.UUID;
 import java.util.concurrent.Callable;
 import javax.annotation.Nullable;
 
@@ -149,12 +152,24 @@ import javax.annotation.Nullable;
  *
  * With this schema we can perform a scan to look up AppClasses, a scan to look up plugins that extend a specific
  * artifact, and a scan to look up artifacts.
+ *
+ * Every write and delete of artifact metadata also records a catalog change in a row of its own,
+ * v:plugins:{time}:{id}, with the changed artifact as column. Plugin lookups are served from a {@link PluginCatalog}
+ * kept in memory. Whenever the set of change rows differs from the one the catalog was built with, no matter which
+ * process made the change, only the artifacts of the differing change rows are reloaded from the meta table. Since
+ * every change has its own row, changes of different artifacts don't conflict with each other. Once there are
+ * too many change rows, they are deleted and the catalog version in row v:plugins is incremented instead, which
+ * makes every process reload its whole catalog.
  */
 public class ArtifactStore {
   private static final String ARTIFACTS_PATH = "artifacts";
   private static final String ARTIFACT_PREFIX = "r";
   private static final String PLUGIN_PREFIX = "p";
   private static final String APPCLASS_PREFIX = "a";
+  private static final byte[] CATALOG_VERSION_ROW = Bytes.toBytes("v:plugins");
+  private static final byte[] CATALOG_VERSION_COLUMN = Bytes.toBytes("version");
+  private static final String CATALOG_CHANGE_PREFIX = "v:plugins:";
+  private static final int MAX_CATALOG_CHANGES = 100;
   private static final DatasetId META_ID = NamespaceId.SYSTEM.dataset("artifact.meta");
   private static final DatasetProperties META_PROPERTIES =
     TableProperties.builder().setConflictDetection(ConflictDetection.COLUMN).build();
@@ -169,6 +184,7 @@ public class ArtifactStore {
   private final DatasetFramework datasetFramework;
   private final Transactional transactional;
   private final Impersonator impersonator;
+  private volatile PluginCatalog pluginCatalog;
 
   @Inject
   ArtifactStore(DatasetFramework datasetFramework,
@@ -493,20 +509,15 @@ public class ArtifactStore {
       return Transactions.execute(transactional, new TxCallable<SortedMap<ArtifactDescriptor, Set<PluginClass>>>() {
         @Override
         public SortedMap<ArtifactDescriptor, Set<PluginClass>> call(DatasetContext context) throws Exception {
-          Table metaTable = getMetaTable(context);
+          PluginCatalog catalog = getPluginCatalog(getMetaTable(context));
 
-          SortedMap<ArtifactDescriptor, Set<PluginClass>> plugins = getPluginsInArtifact(metaTable, parentArtifactId);
+          SortedMap<ArtifactDescriptor, Set<PluginClass>> plugins = getPluginsInArtifact(catalog, parentArtifactId);
           if (plugins == null) {
             throw new ArtifactNotFoundException(parentArtifactId.toEntityId());
           }
 
-          // should be able to scan by column prefix as well... instead, we have to filter out by namespace
-          try (Scanner scanner = metaTable.scan(scanPlugins(parentArtifactId))) {
-            Row row;
-            while ((row = scanner.next()) != null) {
-              addPluginsToMap(namespace, parentArtifactId, plugins, row);
-            }
-          }
+          addPluginsToMap(namespace, parentArtifactId, plugins,
+                          catalog.getPlugins(parentArtifactId.getNamespace().getId(), parentArtifactId.getName()));
           return Collections.unmodifiableSortedMap(plugins);
         }
       });
@@ -535,9 +546,9 @@ public class ArtifactStore {
       return Transactions.execute(transactional, new TxCallable<SortedMap<ArtifactDescriptor, Set<PluginClass>>>() {
         @Override
         public SortedMap<ArtifactDescriptor, Set<PluginClass>> call(DatasetContext context) throws Exception {
-          Table metaTable = getMetaTable(context);
+          PluginCatalog catalog = getPluginCatalog(getMetaTable(context));
           SortedMap<ArtifactDescriptor, Set<PluginClass>> plugins = getPluginsInArtifact(
-            metaTable, parentArtifactId, new Predicate<PluginClass>() {
+            catalog, parentArtifactId, new Predicate<PluginClass>() {
               @Override
               public boolean apply(PluginClass input) {
                 return type.equals(input.getType());
@@ -548,13 +559,9 @@ public class ArtifactStore {
             throw new ArtifactNotFoundException(parentArtifactId.toEntityId());
           }
 
-          try (Scanner scanner = metaTable.scan(scanPlugins(parentArtifactId, type))) {
-            Row row;
-            while ((row = scanner.next()) != null) {
-              addPluginsToMap(namespace, parentArtifactId, plugins, row);
-            }
-          }
-
+          addPluginsToMap(namespace, parentArtifactId, plugins,
+                          catalog.getPlugins(parentArtifactId.getNamespace().getId(),
+                                             parentArtifactId.getName(), type));
           return Collections.unmodifiableSortedMap(plugins);
         }
       });
@@ -613,11 +620,10 @@ public class ArtifactStore {
         Transactions.execute(transactional, new TxCallable<SortedMap<ArtifactDescriptor, PluginClass>>() {
           @Override
           public SortedMap<ArtifactDescriptor, PluginClass> call(DatasetContext context) throws Exception {
-            Table metaTable = getMetaTable(context);
-            List<ArtifactDetail> parentArtifactDetails = getArtifacts(metaTable, parentArtifactRange,
-                                                                      Integer.MAX_VALUE, null);
+            PluginCatalog catalog = getPluginCatalog(getMetaTable(context));
+            List<PluginCatalog.ArtifactEntry> parentArtifactEntries = catalog.getArtifacts(parentArtifactRange);
 
-            if (parentArtifactDetails.isEmpty()) {
+            if (parentArtifactEntries.isEmpty()) {
               throw new ArtifactNotFoundException(parentArtifactRange.getNamespace(), parentArtifactRange.getName());
             }
 
@@ -626,25 +632,22 @@ public class ArtifactStore {
               new TreeMap<ArtifactDescriptor, PluginClass>();
 
             List<Id.Artifact> parentArtifacts = new ArrayList<>();
-            for (ArtifactDetail parentArtifactDetail : parentArtifactDetails) {
+            for (PluginCatalog.ArtifactEntry parentArtifactEntry : parentArtifactEntries) {
               Id.Artifact parentArtifactId =
-                Id.Artifact.from(namespace.toId(), parentArtifactDetail.getDescriptor().getArtifactId());
+                Id.Artifact.from(namespace.toId(), parentArtifactEntry.getDescriptor().getArtifactId());
               parentArtifacts.add(parentArtifactId);
 
-              Set<PluginClass> parentPlugins = parentArtifactDetail.getMeta().getClasses().getPlugins();
-              for (PluginClass pluginClass : parentPlugins) {
+              for (PluginClass pluginClass : parentArtifactEntry.getPlugins()) {
                 if (pluginClass.getName().equals(name) && pluginClass.getType().equals(type)) {
-                  plugins.put(parentArtifactDetail.getDescriptor(), pluginClass);
+                  plugins.put(parentArtifactEntry.getDescriptor(), pluginClass);
                   break;
                 }
               }
             }
-            PluginKey pluginKey = new PluginKey(parentArtifactRange.getNamespace(),
-                                                parentArtifactRange.getName(), type, name);
-            Row row = metaTable.get(pluginKey.getRowKey());
-            if (!row.isEmpty()) {
-              addPluginsInRangeToMap(namespace, parentArtifacts, row.getColumns(), plugins, pluginRange, limit);
-            }
+            addPluginsInRangeToMap(namespace, parentArtifacts,
+                                   catalog.getPlugins(parentArtifactRange.getNamespace(),
+                                                      parentArtifactRange.getName(), type, name),
+                                   plugins, pluginRange, limit);
             return Collections.unmodifiableSortedMap(plugins);
           }
         });
@@ -890,6 +893,12 @@ public class ArtifactStore {
               }
             }
           }
+          try (Scanner scanner = metaTable.scan(createCatalogChangesScan())) {
+            while ((row = scanner.next()) != null) {
+              metaTable.delete(row.getRow());
+            }
+          }
+          incrementCatalogVersion(metaTable);
         }
       });
     } catch (TransactionFailureException e) {
@@ -929,6 +938,7 @@ public class ArtifactStore {
       byte[] appDataBytes = Bytes.toBytes(GSON.toJson(new AppData(appClass, artifactLocation)));
       table.put(appClassKey.getRowKey(), artifactColumn, appDataBytes);
     }
+    recordCatalogChange(table, artifactId);
   }
 
   private void deleteMeta(Table table, Id.Artifact artifactId, byte[] oldData) throws IOException {
@@ -955,6 +965,7 @@ public class ArtifactStore {
       AppClassKey appClassKey = new AppClassKey(artifactId.getNamespace().toEntityId(), appClass.getClassName());
       table.delete(appClassKey.getRowKey(), artifactColumn);
     }
+    recordCatalogChange(table, artifactId);
 
     // delete the old jar file
 
@@ -975,31 +986,171 @@ public class ArtifactStore {
   }
 
 
-  private SortedMap<ArtifactDescriptor, Set<PluginClass>> getPluginsInArtifact(Table table, Id.Artifact artifactId) {
-    return getPluginsInArtifact(table, artifactId, Predicates.<PluginClass>alwaysTrue());
+  /**
+   * Records a change of the given artifact for the plugin catalogs of all processes, as part of the transaction
+   * that makes the change. Once there are too many change rows, they are replaced by an increment of the
+   * catalog version.
+   */
+  @VisibleForTesting
+  static void recordCatalogChange(Table table, Id.Artifact artifactId) {
+    List<byte[]> changeRows = new ArrayList<>();
+    Row row;
+    try (Scanner scanner = table.scan(createCatalogChangesScan())) {
+      while ((row = scanner.next()) != null) {
+        changeRows.add(row.getRow());
+      }
+    }
+    if (changeRows.size() >= MAX_CATALOG_CHANGES) {
+      for (byte[] changeRow : changeRows) {
+        table.delete(changeRow);
+      }
+      incrementCatalogVersion(table);
+    }
+
+    // the time only keeps the change rows in order, the id makes the row unique
+    String changeRow = String.format("%s%016x:%s", CATALOG_CHANGE_PREFIX, System.currentTimeMillis(),
+                                     UUID.randomUUID());
+    table.put(Bytes.toBytes(changeRow), new ArtifactColumn(artifactId).getColumn(), Bytes.toBytes(true));
+  }
+
+  // signals a change of the whole plugin catalog to all processes, as part of the transaction that changes it
+  private static void incrementCatalogVersion(Table table) {
+    table.increment(CATALOG_VERSION_ROW, CATALOG_VERSION_COLUMN, 1L);
+  }
+
+  private static Scan createCatalogChangesScan() {
+    return new Scan(Bytes.toBytes(CATALOG_CHANGE_PREFIX), Bytes.toBytes("v:plugins;"));
+  }
+
+  /**
+   * Returns the {@link PluginCatalog} as of the current transaction. The catalog kept in memory is used if its
+   * version and changes are still current. If only the changes differ, the catalog is updated with the artifacts
+   * of the differing changes, otherwise the catalog is loaded from the meta table.
+   */
+  private PluginCatalog getPluginCatalog(Table table) throws IOException {
+    byte[] versionBytes = table.get(CATALOG_VERSION_ROW, CATALOG_VERSION_COLUMN);
+    long version = versionBytes == null ? 0L : Bytes.toLong(versionBytes);
+    Map<String, Set<Id.Artifact>> changes = new HashMap<>();
+    Row row;
+    try (Scanner scanner = table.scan(createCatalogChangesScan())) {
+      while ((row = scanner.next()) != null) {
+        Set<Id.Artifact> artifactIds = new HashSet<>();
+        for (byte[] column : row.getColumns().keySet()) {
+          artifactIds.add(ArtifactColumn.parse(column).artifactId);
+        }
+        changes.put(Bytes.toString(row.getRow()), artifactIds);
+      }
+    }
+
+    PluginCatalog catalog = pluginCatalog;
+    if (catalog != null && catalog.getVersion() == version) {
+      Set<Id.Artifact> changedArtifacts = catalog.getChangedArtifacts(changes);
+      if (changedArtifacts.isEmpty()) {
+        return catalog;
+      }
+      catalog = updatePluginCatalog(table, catalog, version, changes, changedArtifacts);
+    } else {
+      catalog = loadPluginCatalog(table, version, changes);
+    }
+    synchronized (this) {
+      // a transaction with an older snapshot must not replace a newer catalog
+      if (pluginCatalog == null || pluginCatalog.isSupersededBy(catalog)) {
+        pluginCatalog = catalog;
+      }
+    }
+    return catalog;
   }
 
-  private SortedMap<ArtifactDescriptor, Set<PluginClass>> getPluginsInArtifact(Table table, Id.Artifact artifactId,
+  private PluginCatalog updatePluginCatalog(Table table, PluginCatalog catalog, long version,
+                                            Map<String, Set<Id.Artifact>> changes,
+                                            Set<Id.Artifact> changedArtifacts) {
+    PluginCatalog.Builder builder = PluginCatalog.builder(version, changes).addAll(catalog, changedArtifacts);
+    for (Id.Artifact artifactId : changedArtifacts) {
+      ArtifactCell artifactCell = new ArtifactCell(artifactId);
+      byte[] value = table.get(artifactCell.rowkey, artifactCell.column);
+      if (value == null) {
+        // the artifact was deleted
+        continue;
+      }
+      ArtifactData data = GSON.fromJson(Bytes.toString(value), ArtifactData.class);
+      Location location = Locations.getLocationFromAbsolutePath(locationFactory, data.getLocationPath());
+      ArtifactDescriptor descriptor = new ArtifactDescriptor(artifactId.toArtifactId(), location);
+      Set<PluginClass> pluginClasses = data.meta.getClasses().getPlugins();
+      builder.addArtifact(artifactId, descriptor, pluginClasses);
+      // the same plugins as the plugin rows written by writeMeta
+      for (PluginClass pluginClass : pluginClasses) {
+        for (ArtifactRange artifactRange : data.meta.getUsableBy()) {
+          builder.addPlugin(artifactRange.getNamespace(), artifactRange.getName(), artifactId, descriptor,
+                            pluginClass, artifactRange);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  private PluginCatalog loadPluginCatalog(Table table, long version,
+                                          Map<String, Set<Id.Artifact>> changes) throws IOException {
+    PluginCatalog.Builder builder = PluginCatalog.builder(version, changes);
+    Row row;
+    try (Scanner scanner = table.scan(new Scan(Bytes.toBytes(ARTIFACT_PREFIX + ":"),
+                                               Bytes.toBytes(ARTIFACT_PREFIX + ";")))) {
+      while ((row = scanner.next()) != null) {
+        ArtifactKey artifactKey = ArtifactKey.parse(row.getRow());
+        for (Map.Entry<byte[], byte[]> column : row.getColumns().entrySet()) {
+          ArtifactData data = GSON.fromJson(Bytes.toString(column.getValue()), ArtifactData.class);
+          Id.Artifact artifactId = new NamespaceId(artifactKey.namespace)
+            .artifact(artifactKey.name, Bytes.toString(column.getKey())).toId();
+          Location location = Locations.getLocationFromAbsolutePath(locationFactory, data.getLocationPath());
+          builder.addArtifact(artifactId, new ArtifactDescriptor(artifactId.toArtifactId(), location),
+                              data.meta.getClasses().getPlugins());
+        }
+      }
+    }
+
+    try (Scanner scanner = table.scan(new Scan(Bytes.toBytes(PLUGIN_PREFIX + ":"),
+                                               Bytes.toBytes(PLUGIN_PREFIX + ";")))) {
+      while ((row = scanner.next()) != null) {
+        // p:{parent-namespace}:{parent-name}:{plugin-type}:{plugin-name}
+        Iterator<String> parts = Splitter.on(':').limit(4).split(Bytes.toString(row.getRow())).iterator();
+        parts.next();
+        String parentNamespace = parts.next();
+        String parentName = parts.next();
+        // column is the artifact namespace, name, and version. value is the serialized PluginData
+        for (Map.Entry<byte[], byte[]> column : row.getColumns().entrySet()) {
+          Id.Artifact artifactId = ArtifactColumn.parse(column.getKey()).artifactId;
+          PluginData pluginData = GSON.fromJson(Bytes.toString(column.getValue()), PluginData.class);
+          Location location = Locations.getLocationFromAbsolutePath(locationFactory,
+                                                                    pluginData.getArtifactLocationPath());
+          builder.addPlugin(parentNamespace, parentName, artifactId,
+                            new ArtifactDescriptor(artifactId.toArtifactId(), location),
+                            pluginData.pluginClass, pluginData.usableBy);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  private SortedMap<ArtifactDescriptor, Set<PluginClass>> getPluginsInArtifact(PluginCatalog catalog,
+                                                                               Id.Artifact artifactId) {
+    return getPluginsInArtifact(catalog, artifactId, Predicates.<PluginClass>alwaysTrue());
+  }
+
+  @Nullable
+  private SortedMap<ArtifactDescriptor, Set<PluginClass>> getPluginsInArtifact(PluginCatalog catalog,
+                                                                               Id.Artifact artifactId,
                                                                                Predicate<PluginClass> filter) {
     SortedMap<ArtifactDescriptor, Set<PluginClass>> result = new TreeMap<>();
 
     // Make sure the artifact exists
-    ArtifactCell parentCell = new ArtifactCell(artifactId);
-    byte[] parentDataBytes = table.get(parentCell.rowkey, parentCell.column);
-    if (parentDataBytes == null) {
+    PluginCatalog.ArtifactEntry parentEntry = catalog.getArtifact(artifactId);
+    if (parentEntry == null) {
       return null;
     }
 
     // include any plugin classes that are inside the artifact itself
-    ArtifactData parentData = GSON.fromJson(Bytes.toString(parentDataBytes), ArtifactData.class);
-    Set<PluginClass> parentPlugins = parentData.meta.getClasses().getPlugins();
-
-    Set<PluginClass> filteredPlugins = Sets.newLinkedHashSet(Iterables.filter(parentPlugins, filter));
-
+    Set<PluginClass> filteredPlugins = Sets.newLinkedHashSet(Iterables.filter(parentEntry.getPlugins(), filter));
     if (!filteredPlugins.isEmpty()) {
-      Location parentLocation = Locations.getLocationFromAbsolutePath(locationFactory, parentData.getLocationPath());
-      ArtifactDescriptor descriptor = new ArtifactDescriptor(artifactId.toArtifactId(), parentLocation);
-      result.put(descriptor, filteredPlugins);
+      result.put(parentEntry.getDescriptor(), filteredPlugins);
     }
     return result;
   }
@@ -1026,54 +1177,32 @@ public class ArtifactStore {
     }
   }
 
-  // this method examines all plugins in the given row and checks if they extend the given parent artifact
+  // this method examines the given plugins and checks if they extend the given parent artifact
   // and are from an artifact in the given namespace.
   // if so, information about the plugin artifact and the plugin details are added to the given map.
   private void addPluginsToMap(NamespaceId namespace, Id.Artifact parentArtifactId,
                                SortedMap<ArtifactDescriptor, Set<PluginClass>> map,
-                               Row row) throws IOException {
-    // column is the artifact namespace, name, and version. value is the serialized PluginData
-    for (Map.Entry<byte[], byte[]> column : row.getColumns().entrySet()) {
-      ImmutablePair<ArtifactDescriptor, PluginClass> pluginEntry = getPluginEntry(namespace, parentArtifactId, column);
-      if (pluginEntry != null) {
-        ArtifactDescriptor artifactDescriptor = pluginEntry.getFirst();
-        if (!map.containsKey(artifactDescriptor)) {
-          map.put(artifactDescriptor, Sets.<PluginClass>newHashSet());
-        }
-        map.get(artifactDescriptor).add(pluginEntry.getSecond());
+                               Collection<PluginCatalog.PluginEntry> pluginEntries) {
+    for (PluginCatalog.PluginEntry pluginEntry : pluginEntries) {
+      Id.Namespace artifactNamespace = pluginEntry.getArtifactId().getNamespace();
+      // filter out plugins whose artifacts are not in the system namespace and not in this namespace
+      if (!Id.Namespace.SYSTEM.equals(artifactNamespace) && !artifactNamespace.equals(namespace.toId())) {
+        continue;
       }
+      // filter out plugins that don't extend this version of the parent artifact
+      if (!pluginEntry.getUsableBy().versionIsInRange(parentArtifactId.getVersion())) {
+        continue;
+      }
+      ArtifactDescriptor artifactDescriptor = pluginEntry.getDescriptor();
+      if (!map.containsKey(artifactDescriptor)) {
+        map.put(artifactDescriptor, Sets.<PluginClass>newHashSet());
+      }
+      map.get(artifactDescriptor).add(pluginEntry.getPluginClass());
     }
   }
 
-  /**
-   * Decode the PluginClass from the table column if it is from an artifact in the given namespace and
-   * extends the given parent artifact. If the plugin's artifact is not in the given namespace, or it does not
-   * extend the given parent artifact, return null.
-   */
-  private ImmutablePair<ArtifactDescriptor, PluginClass> getPluginEntry(NamespaceId namespace,
-                                                                        Id.Artifact parentArtifactId,
-                                                                        Map.Entry<byte[], byte[]> column) {
-    // column is the artifact namespace, name, and version. value is the serialized PluginData
-    ArtifactColumn artifactColumn = ArtifactColumn.parse(column.getKey());
-    Id.Namespace artifactNamespace = artifactColumn.artifactId.getNamespace();
-    // filter out plugins whose artifacts are not in the system namespace and not in this namespace
-    if (!Id.Namespace.SYSTEM.equals(artifactNamespace) && !artifactNamespace.equals(namespace.toId())) {
-      return null;
-    }
-    PluginData pluginData = GSON.fromJson(Bytes.toString(column.getValue()), PluginData.class);
-
-    // filter out plugins that don't extend this version of the parent artifact
-    if (pluginData.usableBy.versionIsInRange(parentArtifactId.getVersion())) {
-      ArtifactDescriptor artifactDescriptor = new ArtifactDescriptor(
-        artifactColumn.artifactId.toArtifactId(),
-        Locations.getLocationFromAbsolutePath(locationFactory, pluginData.getArtifactLocationPath()));
-      return ImmutablePair.of(artifactDescriptor, pluginData.pluginClass);
-    }
-    return null;
-  }
-
   private void addPluginsInRangeToMap(final NamespaceId namespace, List<Id.Artifact> parentArtifacts,
-                                      Map<byte[], byte[]> columns,
+                                      Collection<PluginCatalog.PluginEntry> pluginEntries,
                                       SortedMap<ArtifactDescriptor, PluginClass> plugins,
                                       @Nullable Predicate<co.cask.cdap.proto.id.ArtifactId> range,
                                       int limit) {
@@ -1086,22 +1215,15 @@ public class ArtifactStore {
       }
     };
 
-    for (Map.Entry<byte[], byte[]> column : columns.entrySet()) {
-      // column is the artifact namespace, name, and version. value is the serialized PluginData
-      ArtifactColumn artifactColumn = ArtifactColumn.parse(column.getKey());
-
-      if (!range.apply(artifactColumn.artifactId.toEntityId())) {
+    for (PluginCatalog.PluginEntry pluginEntry : pluginEntries) {
+      if (!range.apply(pluginEntry.getArtifactId().toEntityId())) {
         continue;
       }
-      PluginData pluginData = GSON.fromJson(Bytes.toString(column.getValue()), PluginData.class);
 
       // filter out plugins that don't extend this version of the parent artifact
       for (Id.Artifact parentArtifactId : parentArtifacts) {
-        if (pluginData.usableBy.versionIsInRange(parentArtifactId.getVersion())) {
-          plugins.put(new ArtifactDescriptor(
-            artifactColumn.artifactId.toArtifactId(),
-            Locations.getLocationFromAbsolutePath(locationFactory, pluginData.getArtifactLocationPath())),
-                      pluginData.pluginClass);
+        if (pluginEntry.getUsableBy().versionIsInRange(parentArtifactId.getVersion())) {
+          plugins.put(pluginEntry.getDescriptor(), pluginEntry.getPluginClass());
           break;
         }
       }
@@ -1117,24 +1239,6 @@ public class ArtifactStore {
       Bytes.toBytes(String.format("%s:%s;", ARTIFACT_PREFIX, namespace.getNamespace())));
   }
 
-  private Scan scanPlugins(Id.Artifact parentArtifactId) {
-    return new Scan(
-      Bytes.toBytes(String.format("%s:%s:%s:",
-                                  PLUGIN_PREFIX, parentArtifactId.getNamespace().getId(), parentArtifactId.getName())),
-      Bytes.toBytes(String.format("%s:%s:%s;",
-                                  PLUGIN_PREFIX, parentArtifactId.getNamespace().getId(), parentArtifactId.getName())));
-  }
-
-  private Scan scanPlugins(Id.Artifact parentArtifactId, String type) {
-    return new Scan(
-      Bytes.toBytes(String.format("%s:%s:%s:%s:",
-                                  PLUGIN_PREFIX, parentArtifactId.getNamespace().getId(),
-                                  parentArtifactId.getName(), type)),
-      Bytes.toBytes(String.format("%s:%s:%s:%s;",
-                                  PLUGIN_PREFIX, parentArtifactId.getNamespace().getId(),
-                                  parentArtifactId.getName(), type)));
-  }
-
   private Scan scanAppClasses(NamespaceId namespace) {
     return new Scan(
       Bytes.toBytes(String.format("%s:%s:", APPCLASS_PREFIX, namespace.getNamespace())),
@@ -28,8 +28,7 @@ import co.cask.cdap.common.http.DefaultHttpRequestConfig;
 import co.cask.cdap.common.internal.remote.RemoteClient;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.lang.DirectoryClassLoader;
-import co.cask.cdap.common.lang.jar.BundleJarUtil;
-import co.cask.cdap.common.utils.DirUtils;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.internal.guava.reflect.TypeToken;
 import co.cask.cdap.internal.io.SchemaTypeAdapter;
 import co.cask.cdap.proto.id.NamespaceId;
@@ -45,11 +44,8 @@ import org.apache.twill.discovery.DiscoveryServiceClient;
 import org.apache.twill.filesystem.Location;
 import org.apache.twill.filesystem.LocationFactory;
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
-import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.URL;
@@ -62,13 +58,12 @@ import javax.annotation.Nullable;
  * communicating with {@link co.cask.cdap.gateway.handlers.ArtifactHttpHandler} and returning artifact info.
  */
 public class DefaultArtifactManager {
-  private static final Logger LOG = LoggerFactory.getLogger(DefaultArtifactManager.class);
   private static final Gson GSON = new GsonBuilder()
     .registerTypeAdapter(Schema.class, new SchemaTypeAdapter())
     .registerTypeAdapter(PluginClass.class, new PluginClassDeserializer())
     .create();
   private static final Type ARTIFACT_INFO_LIST_TYPE = new TypeToken<List<ArtifactInfo>>() { }.getType();
-  private final File tmpDir;
+  private final UnpackedJarCache unpackedJarCache;
   private final ClassLoader bootstrapClassLoader;
   private final LocationFactory locationFactory;
   private final AuthenticationContext authenticationContext;
@@ -77,11 +72,10 @@ public class DefaultArtifactManager {
 
   @Inject
   public DefaultArtifactManager(CConfiguration cConf, DiscoveryServiceClient discoveryServiceClient,
-                                LocationFactory locationFactory, AuthenticationContext authenticationContext) {
+                                LocationFactory locationFactory, AuthenticationContext authenticationContext,
+                                UnpackedJarCache unpackedJarCache) {
     this.locationFactory = locationFactory;
-    File tmpDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
-                           cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
-    this.tmpDir = DirUtils.createTempDir(tmpDir);
+    this.unpackedJarCache = unpackedJarCache;
     // There is no reliable way to get bootstrap ClassLoader from Java (System.class.getClassLoader() may return null).
     // A URLClassLoader with no URLs and with a null parent will load class from bootstrap ClassLoader only.
     this.bootstrapClassLoader = new URLClassLoader(new URL[0], null);
@@ -178,11 +172,16 @@ public class DefaultArtifactManager {
         throw new IOException(String.format("Artifact Location does not exist %s for artifact %s version %s",
                                             path, artifactInfo.getName(), artifactInfo.getVersion()));
       }
-      File unpackedDir = DirUtils.createTempDir(tmpDir);
-      BundleJarUtil.unJar(location, unpackedDir);
-      DirectoryClassLoader directoryClassLoader =
-        new DirectoryClassLoader(unpackedDir, parentClassLoader == null ? bootstrapClassLoader : parentClassLoader);
-      return new CloseableClassLoader(directoryClassLoader, new ClassLoaderCleanup(directoryClassLoader, unpackedDir));
+      UnpackedJarCache.Reference unpacked = unpackedJarCache.acquire(location);
+      try {
+        DirectoryClassLoader directoryClassLoader =
+          new DirectoryClassLoader(unpacked.getDirectory(),
+                                   parentClassLoader == null ? bootstrapClassLoader : parentClassLoader);
+        return new CloseableClassLoader(directoryClassLoader, new ClassLoaderCleanup(directoryClassLoader, unpacked));
+      } catch (RuntimeException e) {
+        unpacked.close();
+        throw e;
+      }
     } else {
       throw new IOException(String.format("Exception while getting artifacts list %s",
                                           httpResponse.getResponseBodyAsString()));
@@ -190,21 +189,17 @@ public class DefaultArtifactManager {
   }
 
   private static final class ClassLoaderCleanup implements Closeable {
-    private final File directory;
+    private final UnpackedJarCache.Reference unpacked;
     private final DirectoryClassLoader directoryClassLoader;
 
-    private ClassLoaderCleanup(DirectoryClassLoader directoryClassLoader, File directory) {
+    private ClassLoaderCleanup(DirectoryClassLoader directoryClassLoader, UnpackedJarCache.Reference unpacked) {
       this.directoryClassLoader = directoryClassLoader;
-      this.directory = directory;
+      this.unpacked = unpacked;
     }
     @Override
-    public void close() throws IOException {
-      try {
-        Closeables.closeQuietly(directoryClassLoader);
-        DirUtils.deleteDirectoryContents(directory);
-      } catch (IOException e) {
-        LOG.warn("Failed to delete directory {}", directory, e);
-      }
+    public void close() {
+      Closeables.closeQuietly(directoryClassLoader);
+      unpacked.close();
     }
   }
 }
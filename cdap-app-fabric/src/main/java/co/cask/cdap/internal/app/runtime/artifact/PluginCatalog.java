@@ -0,0 +1,297 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.internal.app.runtime.artifact;
+
+import co.cask.cdap.api.artifact.ArtifactRange;
+import co.cask.cdap.api.plugin.PluginClass;
+import co.cask.cdap.proto.Id;
+import com.google.common.base.Joiner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * An immutable in-memory index of the artifacts and plugins in the {@link ArtifactStore}, as of a catalog version
+ * and a set of catalog changes in the artifact meta table. Plugins are indexed by the parent artifact they extend,
+ * their type and their name, the same way as the plugin rows of the meta table, so that lookups don't need to scan
+ * the table and decode its content.
+ */
+final class PluginCatalog {
+
+  private static final Joiner KEY_JOINER = Joiner.on(':');
+
+  private final long version;
+  // artifacts changed since the version was set, by change row key
+  private final Map<String, Set<Id.Artifact>> changes;
+  // parent artifacts by {namespace}:{name}, then by version
+  private final Map<String, Map<String, ArtifactEntry>> artifacts;
+  // plugins by {parent-namespace}:{parent-name}:{plugin-type}:{plugin-name}
+  private final NavigableMap<String, List<PluginEntry>> plugins;
+
+  static Builder builder(long version, Map<String, Set<Id.Artifact>> changes) {
+    return new Builder(version, changes);
+  }
+
+  private PluginCatalog(long version, Map<String, Set<Id.Artifact>> changes,
+                        Map<String, Map<String, ArtifactEntry>> artifacts,
+                        NavigableMap<String, List<PluginEntry>> plugins) {
+    this.version = version;
+    this.changes = changes;
+    this.artifacts = artifacts;
+    this.plugins = plugins;
+  }
+
+  /**
+   * Returns the version of the meta table that this catalog reflects.
+   */
+  long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the artifacts of the changes that are either in this catalog or in the given changes, but not in both.
+   * Those are the artifacts to reload to bring this catalog up to date with the given changes.
+   */
+  Set<Id.Artifact> getChangedArtifacts(Map<String, Set<Id.Artifact>> otherChanges) {
+    Set<Id.Artifact> result = new HashSet<>();
+    for (Map.Entry<String, Set<Id.Artifact>> entry : changes.entrySet()) {
+      if (!otherChanges.containsKey(entry.getKey())) {
+        result.addAll(entry.getValue());
+      }
+    }
+    for (Map.Entry<String, Set<Id.Artifact>> entry : otherChanges.entrySet()) {
+      if (!changes.containsKey(entry.getKey())) {
+        result.addAll(entry.getValue());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns whether the given catalog reflects a later state of the meta table than this one.
+   */
+  boolean isSupersededBy(PluginCatalog other) {
+    if (version != other.version) {
+      return version < other.version;
+    }
+    return other.changes.size() > changes.size() && other.changes.keySet().containsAll(changes.keySet());
+  }
+
+  /**
+   * Returns the given artifact, or {@code null} if it does not exist.
+   */
+  @Nullable
+  ArtifactEntry getArtifact(Id.Artifact artifactId) {
+    Map<String, ArtifactEntry> versions =
+      artifacts.get(KEY_JOINER.join(artifactId.getNamespace().getId(), artifactId.getName()));
+    return versions == null ? null : versions.get(artifactId.getVersion().getVersion());
+  }
+
+  /**
+   * Returns the artifacts in the given range.
+   */
+  List<ArtifactEntry> getArtifacts(ArtifactRange range) {
+    Map<String, ArtifactEntry> versions = artifacts.get(KEY_JOINER.join(range.getNamespace(), range.getName()));
+    if (versions == null) {
+      return Collections.emptyList();
+    }
+    List<ArtifactEntry> result = new ArrayList<>();
+    for (ArtifactEntry entry : versions.values()) {
+      if (range.versionIsInRange(entry.getDescriptor().getArtifactId().getVersion())) {
+        result.add(entry);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the plugins of all types that extend the given parent artifact, in any version.
+   */
+  Collection<PluginEntry> getPlugins(String parentNamespace, String parentName) {
+    return getPluginsWithPrefix(KEY_JOINER.join(parentNamespace, parentName));
+  }
+
+  /**
+   * Returns the plugins of the given type that extend the given parent artifact, in any version.
+   */
+  Collection<PluginEntry> getPlugins(String parentNamespace, String parentName, String type) {
+    return getPluginsWithPrefix(KEY_JOINER.join(parentNamespace, parentName, type));
+  }
+
+  /**
+   * Returns the plugins of the given type and name that extend the given parent artifact, in any version.
+   */
+  Collection<PluginEntry> getPlugins(String parentNamespace, String parentName, String type, String name) {
+    List<PluginEntry> entries = plugins.get(KEY_JOINER.join(parentNamespace, parentName, type, name));
+    return entries == null ? Collections.<PluginEntry>emptyList() : entries;
+  }
+
+  private Collection<PluginEntry> getPluginsWithPrefix(String prefix) {
+    // Same as the prefix scan on the meta table
+    List<PluginEntry> result = new ArrayList<>();
+    for (List<PluginEntry> entries : plugins.subMap(prefix + ":", true, prefix + ";", false).values()) {
+      result.addAll(entries);
+    }
+    return result;
+  }
+
+  /**
+   * An artifact with the plugins it contains.
+   */
+  static final class ArtifactEntry {
+    private final Id.Artifact artifactId;
+    private final ArtifactDescriptor descriptor;
+    private final Set<PluginClass> plugins;
+
+    private ArtifactEntry(Id.Artifact artifactId, ArtifactDescriptor descriptor, Set<PluginClass> plugins) {
+      this.artifactId = artifactId;
+      this.descriptor = descriptor;
+      this.plugins = plugins;
+    }
+
+    Id.Artifact getArtifactId() {
+      return artifactId;
+    }
+
+    ArtifactDescriptor getDescriptor() {
+      return descriptor;
+    }
+
+    Set<PluginClass> getPlugins() {
+      return plugins;
+    }
+  }
+
+  /**
+   * A plugin, with the artifact that contains it and the range of parent artifacts it extends.
+   */
+  static final class PluginEntry {
+    private final Id.Artifact artifactId;
+    private final ArtifactDescriptor descriptor;
+    private final PluginClass pluginClass;
+    private final ArtifactRange usableBy;
+
+    private PluginEntry(Id.Artifact artifactId, ArtifactDescriptor descriptor,
+                        PluginClass pluginClass, ArtifactRange usableBy) {
+      this.artifactId = artifactId;
+      this.descriptor = descriptor;
+      this.pluginClass = pluginClass;
+      this.usableBy = usableBy;
+    }
+
+    Id.Artifact getArtifactId() {
+      return artifactId;
+    }
+
+    ArtifactDescriptor getDescriptor() {
+      return descriptor;
+    }
+
+    PluginClass getPluginClass() {
+      return pluginClass;
+    }
+
+    ArtifactRange getUsableBy() {
+      return usableBy;
+    }
+  }
+
+  /**
+   * Builder for {@link PluginCatalog}.
+   */
+  static final class Builder {
+    private final long version;
+    private final Map<String, Set<Id.Artifact>> changes;
+    private final Map<String, Map<String, ArtifactEntry>> artifacts = new HashMap<>();
+    private final NavigableMap<String, List<PluginEntry>> plugins = new TreeMap<>();
+
+    private Builder(long version, Map<String, Set<Id.Artifact>> changes) {
+      this.version = version;
+      this.changes = changes;
+    }
+
+    /**
+     * Adds the artifacts and plugins of the given catalog, except those of the given artifacts.
+     */
+    Builder addAll(PluginCatalog catalog, Set<Id.Artifact> excluded) {
+      for (Map<String, ArtifactEntry> versions : catalog.artifacts.values()) {
+        for (ArtifactEntry entry : versions.values()) {
+          if (!excluded.contains(entry.getArtifactId())) {
+            addArtifact(entry.getArtifactId(), entry.getDescriptor(), entry.getPlugins());
+          }
+        }
+      }
+      for (Map.Entry<String, List<PluginEntry>> entry : catalog.plugins.entrySet()) {
+        for (PluginEntry pluginEntry : entry.getValue()) {
+          if (!excluded.contains(pluginEntry.getArtifactId())) {
+            addPlugin(entry.getKey(), pluginEntry);
+          }
+        }
+      }
+      return this;
+    }
+
+    /**
+     * Adds an artifact with the plugins it contains.
+     */
+    Builder addArtifact(Id.Artifact artifactId, ArtifactDescriptor descriptor, Set<PluginClass> pluginClasses) {
+      String key = KEY_JOINER.join(artifactId.getNamespace().getId(), artifactId.getName());
+      Map<String, ArtifactEntry> versions = artifacts.get(key);
+      if (versions == null) {
+        versions = new LinkedHashMap<>();
+        artifacts.put(key, versions);
+      }
+      versions.put(artifactId.getVersion().getVersion(),
+                   new ArtifactEntry(artifactId, descriptor, Collections.unmodifiableSet(pluginClasses)));
+      return this;
+    }
+
+    /**
+     * Adds a plugin that extends the given parent artifact.
+     */
+    Builder addPlugin(String parentNamespace, String parentName, Id.Artifact artifactId, ArtifactDescriptor descriptor,
+                      PluginClass pluginClass, ArtifactRange usableBy) {
+      String key = KEY_JOINER.join(parentNamespace, parentName, pluginClass.getType(), pluginClass.getName());
+      return addPlugin(key, new PluginEntry(artifactId, descriptor, pluginClass, usableBy));
+    }
+
+    private Builder addPlugin(String key, PluginEntry entry) {
+      List<PluginEntry> entries = plugins.get(key);
+      if (entries == null) {
+        entries = new ArrayList<>();
+        plugins.put(key, entries);
+      }
+      entries.add(entry);
+      return this;
+    }
+
+    PluginCatalog build() {
+      return new PluginCatalog(version, Collections.unmodifiableMap(changes), artifacts, plugins);
+    }
+  }
+}
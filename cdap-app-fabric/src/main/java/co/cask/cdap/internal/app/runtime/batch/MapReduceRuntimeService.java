@@ -56,6 +56,7 @@ import co.cask.cdap.internal.app.runtime.ProgramRunners;
 import co.cask.cdap.internal.app.runtime.batch.dataset.UnsupportedOutputFormat;
 import co.cask.cdap.internal.app.runtime.batch.dataset.input.MapperInput;
 import co.cask.cdap.internal.app.runtime.batch.dataset.input.MultipleInputs;
+import co.cask.cdap.internal.app.runtime.batch.dataset.input.PartitionKeyMappings;
 import co.cask.cdap.internal.app.runtime.batch.dataset.output.MultipleOutputs;
 import co.cask.cdap.internal.app.runtime.batch.dataset.output.MultipleOutputsMainOutputWrapper;
 import co.cask.cdap.internal.app.runtime.batch.dataset.output.ProvidedOutput;
@@ -230,7 +231,11 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
 
       context.setJob(job);
 
-      beforeSubmit(job);
+      // Create a temporary location for storing all generated files through the LocationFactory.
+      Location tempLocation = createTempLocationDirectory();
+      cleanupTask = createCleanupTask(cleanupTask, tempLocation);
+
+      beforeSubmit(job, tempLocation);
 
       // Localize additional resources that users have requested via BasicMapReduceContext.localize methods
       Map<String, String> localizedUserResources = localizeUserResources(job, tempDir);
@@ -243,10 +248,6 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
       }
       job.setJobName(getJobName(context));
 
-      // Create a temporary location for storing all generated files through the LocationFactory.
-      Location tempLocation = createTempLocationDirectory();
-      cleanupTask = createCleanupTask(cleanupTask, tempLocation);
-
       // For local mode, everything is in the configuration classloader already, hence no need to create new jar
       if (!MapReduceTaskContextProvider.isLocal(mapredConf)) {
         // After calling initialize, we know what plugins are needed for the program, hence construct the proper
@@ -546,7 +547,7 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
    * This method also sets up the Input/Output within the same transaction.
    */
   @SuppressWarnings("unchecked")
-  private void beforeSubmit(final Job job) throws Exception {
+  private void beforeSubmit(final Job job, Location tempLocation) throws Exception {
 
     // AbstractMapReduce implements final initialize(context) and requires subclass to
     // implement initialize(), whereas programs that directly implement MapReduce have
@@ -572,7 +573,7 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
     ClassLoader oldClassLoader = ClassLoaders.setContextClassLoader(job.getConfiguration().getClassLoader());
     try {
       // set input/outputs info, and get one of the configured mapper's TypeToken
-      TypeToken<?> mapperTypeToken = setInputsIfNeeded(job);
+      TypeToken<?> mapperTypeToken = setInputsIfNeeded(job, tempLocation);
       setOutputsIfNeeded(job);
       setOutputClassesIfNeeded(job, mapperTypeToken);
       setMapOutputClassesIfNeeded(job, mapperTypeToken);
@@ -761,13 +762,15 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
    * Sets the configurations used for inputs.
    * Multiple mappers could be defined, so we first check that their output types are consistent.
    *
+   * @param tempLocation the staging location of the job, for files that should not be part of the job configuration
    * @return the TypeToken for one of the mappers (doesn't matter which one, since we check that all of their output
    * key/value types are consistent. Returns null if the mapper class was not configured directly on the job and the
    * job's mapper class is to be used.
    * @throws IllegalArgumentException if any of the configured mapper output types are inconsistent.
    */
   @Nullable
-  private TypeToken<Mapper> setInputsIfNeeded(Job job) throws IOException, ClassNotFoundException {
+  private TypeToken<Mapper> setInputsIfNeeded(Job job, Location tempLocation)
+    throws IOException, ClassNotFoundException {
     Class<? extends Mapper> jobMapperClass = job.getMapperClass();
 
     Class<? extends Mapper> firstMapperClass = null;
@@ -805,6 +808,9 @@ final class MapReduceRuntimeService extends AbstractExecutionThreadService {
         }
       }
 
+      // The partition mapping of a partitioned file set can be large; keep it out of the job configuration
+      inputFormatConfiguration = PartitionKeyMappings.externalize(inputFormatConfiguration, tempLocation);
+
       MultipleInputs.addInput(job, mapperInputEntry.getKey(),
                               mapperInput.getInputFormatClassName(), inputFormatConfiguration, mapperClass);
     }
@@ -18,16 +18,12 @@ package co.cask.cdap.internal.app.runtime.batch.dataset.input;
 
 import co.cask.cdap.api.data.batch.PartitionedFileSetInputContext;
 import co.cask.cdap.api.dataset.lib.PartitionKey;
-import co.cask.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
-import co.cask.cdap.data2.dataset2.lib.partitioned.PartitionedFileSetDataset;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.net.URI;
 import java.util.Map;
 import java.util.Objects;
@@ -37,13 +33,8 @@ import java.util.Objects;
  */
 class BasicPartitionedFileSetInputContext extends BasicInputContext implements PartitionedFileSetInputContext {
 
-  private static final Gson GSON =
-    new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create();
-
-  private static final Type STRING_PARTITION_KEY_MAP_TYPE = new TypeToken<Map<String, PartitionKey>>() { }.getType();
-
   private final Path inputPath;
-  private final String mappingString;
+  private final Configuration conf;
 
   private PartitionKey partitionKey;
 
@@ -56,7 +47,7 @@ class BasicPartitionedFileSetInputContext extends BasicInputContext implements P
                                                        FileSplit.class.getName(), inputSplit.getClass().getName()));
     }
     this.inputPath = ((FileSplit) inputSplit).getPath();
-    this.mappingString = multiInputTaggedSplit.getConf().get(PartitionedFileSetDataset.PATH_TO_PARTITIONING_MAPPING);
+    this.conf = multiInputTaggedSplit.getConf();
   }
 
   @Override
@@ -68,8 +59,13 @@ class BasicPartitionedFileSetInputContext extends BasicInputContext implements P
   }
 
   private PartitionKey getPartitionKey(URI inputPathURI) {
-    Map<String, PartitionKey> pathToPartitionMapping =
-      GSON.fromJson(Objects.requireNonNull(mappingString), STRING_PARTITION_KEY_MAP_TYPE);
+    // the mapping is only read when needed, since it has an entry for every input partition
+    Map<String, PartitionKey> pathToPartitionMapping;
+    try {
+      pathToPartitionMapping = Objects.requireNonNull(PartitionKeyMappings.read(conf));
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to read the partition mapping of input " + getInputName(), e);
+    }
     if (pathToPartitionMapping.containsKey(inputPathURI.toString())) {
       return pathToPartitionMapping.get(inputPathURI.toString());
     }
@@ -17,7 +17,6 @@
 package co.cask.cdap.internal.app.runtime.batch.dataset.input;
 
 import co.cask.cdap.api.data.batch.InputContext;
-import co.cask.cdap.data2.dataset2.lib.partitioned.PartitionedFileSetDataset;
 
 /**
  * Utility class that helps determine the {@link InputContext} to be used.
@@ -31,8 +30,7 @@ public final class InputContexts {
    * @return an {@link InputContext} representing the input that this mapper task is processing
    */
   public static InputContext create(MultiInputTaggedSplit multiInputTaggedSplit) {
-    String mappingString = multiInputTaggedSplit.getConf().get(PartitionedFileSetDataset.PATH_TO_PARTITIONING_MAPPING);
-    if (mappingString != null) {
+    if (PartitionKeyMappings.hasMapping(multiInputTaggedSplit.getConf())) {
       return new BasicPartitionedFileSetInputContext(multiInputTaggedSplit);
     }
     return new BasicInputContext(multiInputTaggedSplit.getName());
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.internal.app.runtime.batch.dataset.input;
+
+import co.cask.cdap.api.dataset.lib.PartitionKey;
+import co.cask.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
+import co.cask.cdap.data2.dataset2.lib.partitioned.PartitionedFileSetDataset;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.twill.filesystem.Location;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Helper for the mapping from partition paths to partition keys of a partitioned file set input. Since the mapping
+ * is proportional to the number of input partitions, it is written to a side file in the staging directory of the
+ * job, instead of being carried in the job configuration and in every input split. Tasks read it lazily, only when
+ * the partition key of their input is requested.
+ */
+public final class PartitionKeyMappings {
+
+  /**
+   * A key in the input format configuration, where the value is the URI of the file that contains the
+   * GSON-serialized mapping from a partition's path to its partition key.
+   */
+  static final String PATH_TO_PARTITIONING_MAPPING_LOCATION = "cdap.path.to.partition.mapping.location";
+
+  private static final Gson GSON =
+    new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create();
+  private static final Type STRING_PARTITION_KEY_MAP_TYPE = new TypeToken<Map<String, PartitionKey>>() { }.getType();
+
+  private PartitionKeyMappings() { }
+
+  /**
+   * Moves the partition mapping of an input format configuration, if there is one, to a file in the given directory.
+   *
+   * @param inputFormatConfiguration the input format configuration of an input
+   * @param stagingDir the directory to write the mapping file in. It must be readable by the tasks of the job.
+   * @return the input format configuration with the mapping replaced by the location of the mapping file
+   */
+  public static Map<String, String> externalize(Map<String, String> inputFormatConfiguration,
+                                                Location stagingDir) throws IOException {
+    String mapping = inputFormatConfiguration.get(PartitionedFileSetDataset.PATH_TO_PARTITIONING_MAPPING);
+    if (mapping == null) {
+      return inputFormatConfiguration;
+    }
+    Location location = stagingDir.append("partitions").getTempFile(".json");
+    try (OutputStream os = location.getOutputStream()) {
+      os.write(mapping.getBytes(StandardCharsets.UTF_8));
+    }
+    Map<String, String> result = new HashMap<>(inputFormatConfiguration);
+    result.remove(PartitionedFileSetDataset.PATH_TO_PARTITIONING_MAPPING);
+    result.put(PATH_TO_PARTITIONING_MAPPING_LOCATION, location.toURI().toString());
+    return result;
+  }
+
+  /**
+   * Returns whether the given configuration has a partition mapping, either inline or as a file.
+   */
+  static boolean hasMapping(Configuration conf) {
+    return conf.get(PartitionedFileSetDataset.PATH_TO_PARTITIONING_MAPPING) != null
+      || conf.get(PATH_TO_PARTITIONING_MAPPING_LOCATION) != null;
+  }
+
+  /**
+   * Reads the partition mapping of the given configuration.
+   *
+   * @return the mapping from partition path to partition key, or {@code null} if the configuration has no mapping
+   */
+  @Nullable
+  static Map<String, PartitionKey> read(Configuration conf) throws IOException {
+    String mapping = conf.get(PartitionedFileSetDataset.PATH_TO_PARTITIONING_MAPPING);
+    if (mapping != null) {
+      return GSON.fromJson(mapping, STRING_PARTITION_KEY_MAP_TYPE);
+    }
+    String location = conf.get(PATH_TO_PARTITIONING_MAPPING_LOCATION);
+    if (location == null) {
+      return null;
+    }
+    Path path = new Path(URI.create(location));
+    try (Reader reader = new InputStreamReader(path.getFileSystem(conf).open(path), StandardCharsets.UTF_8)) {
+      return GSON.fromJson(reader, STRING_PARTITION_KEY_MAP_TYPE);
+    }
+  }
+}
@@ -29,6 +29,7 @@ import co.cask.cdap.common.app.RunIds;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.Locations;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.internal.app.program.ProgramTypeMetricTag;
 import co.cask.cdap.internal.app.runtime.AbstractResourceReporter;
 import co.cask.cdap.internal.app.runtime.artifact.ArtifactDetail;
@@ -97,8 +98,9 @@ public final class DistributedProgramRuntimeService extends AbstractProgramRunti
   DistributedProgramRuntimeService(ProgramRunnerFactory programRunnerFactory, TwillRunner twillRunner, Store store,
                                    MetricsCollectionService metricsCollectionService,
                                    Configuration hConf, CConfiguration cConf,
-                                   ArtifactRepository artifactRepository, Impersonator impersonator) {
-    super(cConf, programRunnerFactory, artifactRepository);
+                                   ArtifactRepository artifactRepository, UnpackedJarCache unpackedJarCache,
+                                   Impersonator impersonator) {
+    super(cConf, programRunnerFactory, artifactRepository, unpackedJarCache);
     this.programRunnerFactory = programRunnerFactory;
     this.twillRunner = twillRunner;
     this.store = store;
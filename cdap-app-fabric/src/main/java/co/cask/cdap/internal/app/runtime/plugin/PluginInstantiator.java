@@ -27,11 +27,9 @@ import co.cask.cdap.api.plugin.PluginConfig;
 import co.cask.cdap.api.plugin.PluginProperties;
 import co.cask.cdap.api.plugin.PluginPropertyField;
 import co.cask.cdap.common.conf.CConfiguration;
-import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.lang.InstantiatorFactory;
-import co.cask.cdap.common.lang.jar.BundleJarUtil;
-import co.cask.cdap.common.utils.DirUtils;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.internal.app.runtime.artifact.Artifacts;
 import co.cask.cdap.internal.lang.FieldVisitor;
 import co.cask.cdap.internal.lang.Fields;
@@ -64,6 +62,7 @@ import java.lang.reflect.Type;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
@@ -73,7 +72,7 @@ import javax.annotation.Nullable;
  * This class helps creating new instances of plugins. It also contains a ClassLoader cache to
  * save ClassLoader creation.
  *
- * This class implements {@link Closeable} as well for cleanup of temporary directories created for the ClassLoaders.
+ * This class implements {@link Closeable} as well for releasing the unpacked plugin jars used by the ClassLoaders.
  */
 public class PluginInstantiator implements Closeable {
   private static final Logger LOG = LoggerFactory.getLogger(PluginInstantiator.class);
@@ -92,17 +91,25 @@ public class PluginInstantiator implements Closeable {
 
   private final LoadingCache<ArtifactId, ClassLoader> classLoaders;
   private final InstantiatorFactory instantiatorFactory;
-  private final File tmpDir;
+  private final UnpackedJarCache unpackedJarCache;
+  // The unpacked jar used by each plugin ClassLoader, released when the ClassLoader is removed from the cache
+  private final Map<ClassLoader, UnpackedJarCache.Reference> unpackedJars;
   private final File pluginDir;
   private final ClassLoader parentClassLoader;
 
+  /**
+   * Creates an instance that unpacks plugin jars with its own {@link UnpackedJarCache}, which deletes the unpacked
+   * jars once they are released. This is for processes that don't share a cache through Guice, such as containers.
+   */
   public PluginInstantiator(CConfiguration cConf, ClassLoader parentClassLoader, File pluginDir) {
-    this.instantiatorFactory = new InstantiatorFactory(false);
-    File tmpDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
-                           cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
+    this(new UnpackedJarCache(cConf, 0), parentClassLoader, pluginDir);
+  }
 
+  public PluginInstantiator(UnpackedJarCache unpackedJarCache, ClassLoader parentClassLoader, File pluginDir) {
+    this.instantiatorFactory = new InstantiatorFactory(false);
+    this.unpackedJarCache = unpackedJarCache;
+    this.unpackedJars = Collections.synchronizedMap(new IdentityHashMap<ClassLoader, UnpackedJarCache.Reference>());
     this.pluginDir = pluginDir;
-    this.tmpDir = DirUtils.createTempDir(tmpDir);
     this.classLoaders = CacheBuilder.newBuilder()
       .removalListener(new ClassLoaderRemovalListener())
       .build(new ClassLoaderCacheLoader());
@@ -334,17 +341,11 @@ public class PluginInstantiator implements Closeable {
 
   @Override
   public void close() throws IOException {
-    // Cleanup the ClassLoader cache and the temporary directory for the expanded plugin jar.
+    // Cleanup the ClassLoader cache, which releases the expanded plugin jars.
     classLoaders.invalidateAll();
     if (parentClassLoader instanceof Closeable) {
       Closeables.closeQuietly((Closeable) parentClassLoader);
     }
-    try {
-      DirUtils.deleteDirectoryContents(tmpDir);
-    } catch (IOException e) {
-      // It's the cleanup step. Nothing much can be done if cleanup failed.
-      LOG.warn("Failed to delete directory {}", tmpDir);
-    }
   }
 
   /**
@@ -354,17 +355,23 @@ public class PluginInstantiator implements Closeable {
 
     @Override
     public ClassLoader load(ArtifactId artifactId) throws Exception {
-      File unpackedDir = DirUtils.createTempDir(tmpDir);
       File artifact = new File(pluginDir, Artifacts.getFileName(artifactId));
-      BundleJarUtil.unJar(Locations.toLocation(artifact), unpackedDir);
-      return new PluginClassLoader(unpackedDir, parentClassLoader);
+      UnpackedJarCache.Reference unpacked = unpackedJarCache.acquire(Locations.toLocation(artifact));
+      try {
+        PluginClassLoader classLoader = new PluginClassLoader(unpacked.getDirectory(), parentClassLoader);
+        unpackedJars.put(classLoader, unpacked);
+        return classLoader;
+      } catch (RuntimeException e) {
+        unpacked.close();
+        throw e;
+      }
     }
   }
 
   /**
-   * A RemovalListener for closing plugin ClassLoader.
+   * A RemovalListener for closing plugin ClassLoader and releasing its unpacked jar.
    */
-  private static final class ClassLoaderRemovalListener implements RemovalListener<ArtifactId, ClassLoader> {
+  private final class ClassLoaderRemovalListener implements RemovalListener<ArtifactId, ClassLoader> {
 
     @Override
     public void onRemoval(RemovalNotification<ArtifactId, ClassLoader> notification) {
@@ -372,6 +379,10 @@ public class PluginInstantiator implements Closeable {
       if (cl instanceof Closeable) {
         Closeables.closeQuietly((Closeable) cl);
       }
+      UnpackedJarCache.Reference unpacked = unpackedJars.remove(cl);
+      if (unpacked != null) {
+        unpacked.close();
+      }
     }
   }
 
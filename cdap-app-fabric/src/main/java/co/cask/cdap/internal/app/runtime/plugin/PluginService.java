@@ -25,6 +25,7 @@ import co.cask.cdap.common.NotFoundException;
 import co.cask.cdap.common.ServiceUnavailableException;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.common.utils.DirUtils;
 import co.cask.cdap.internal.app.runtime.DefaultEndpointPluginContext;
 import co.cask.cdap.internal.app.runtime.artifact.ArtifactDescriptor;
@@ -70,18 +71,19 @@ public class PluginService extends AbstractIdleService {
 
   private final ArtifactRepository artifactRepository;
   private final File tmpDir;
-  private final CConfiguration cConf;
+  private final UnpackedJarCache unpackedJarCache;
   private final LoadingCache<ArtifactDescriptor, Instantiators> instantiators;
   private final Impersonator impersonator;
 
   private File stageDir;
 
   @Inject
-  public PluginService(ArtifactRepository artifactRepository, CConfiguration cConf, Impersonator impersonator) {
+  public PluginService(ArtifactRepository artifactRepository, CConfiguration cConf, Impersonator impersonator,
+                       UnpackedJarCache unpackedJarCache) {
     this.artifactRepository = artifactRepository;
     this.tmpDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR),
                            cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
-    this.cConf = cConf;
+    this.unpackedJarCache = unpackedJarCache;
     this.instantiators = CacheBuilder.newBuilder()
       .removalListener(new InstantiatorsRemovalListener())
       .maximumWeight(100)
@@ -190,7 +192,7 @@ public class PluginService extends AbstractIdleService {
 
     private void addInstantiatorAndAddArtifact(ArtifactDetail artifactDetail,
                                                ArtifactId artifactId) throws IOException {
-      PluginInstantiator instantiator = new PluginInstantiator(cConf, parentClassLoader, pluginDir);
+      PluginInstantiator instantiator = new PluginInstantiator(unpackedJarCache, parentClassLoader, pluginDir);
       instantiatorInfoMap.put(artifactDetail.getDescriptor(),
                               new InstantiatorInfo(artifactDetail.getDescriptor().getLocation(), instantiator));
       instantiator.addArtifact(artifactDetail.getDescriptor().getLocation(), artifactId);
@@ -88,6 +88,12 @@ public class AppVersionUpgradeService extends AbstractIdleService {
         } catch (Exception e) {
           LOG.debug("DefaultStore upgrade failed.", e);
         }
+        // The backfill runs after the upgrade, since the upgrade moves the run records that it scans
+        try {
+          defaultStore.backfillRunTimeIndex();
+        } catch (Exception e) {
+          LOG.debug("DefaultStore run time index backfill failed.", e);
+        }
       }
     });
   }
@@ -25,6 +25,7 @@ import co.cask.cdap.app.runtime.ProgramController;
 import co.cask.cdap.common.app.RunIds;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.utils.ProjectInfo;
+import co.cask.cdap.data2.dataset2.lib.table.GsonMetadataStoreCodec;
 import co.cask.cdap.data2.dataset2.lib.table.MDSKey;
 import co.cask.cdap.data2.dataset2.lib.table.MetadataStoreDataset;
 import co.cask.cdap.internal.app.ApplicationSpecificationAdapter;
@@ -50,6 +51,7 @@ import com.google.common.base.Stopwatch;
 import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.hash.HashCode;
 import com.google.common.reflect.TypeToken;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -89,9 +91,18 @@ public class AppMetadataStore extends MetadataStoreDataset {
   private static final String TYPE_WORKFLOW_NODE_STATE = "wns";
   private static final String TYPE_WORKFLOW_TOKEN = "wft";
   private static final String TYPE_NAMESPACE = "namespace";
+  // Index of completed runs by the time buckets they ran in: [runTimeIdx][bucket][runid]
+  private static final String TYPE_RUN_TIME_INDEX = "runTimeIdx";
+  // Completed runs that ran in too many buckets to index in each of them: [runTimeIdxLong][runid]
+  private static final String TYPE_RUN_TIME_INDEX_LONG = "runTimeIdxLong";
+  private static final long RUN_TIME_BUCKET_SECS = TimeUnit.HOURS.toSeconds(1);
+  private static final int MAX_RUN_TIME_BUCKETS = 24;
 
   private final CConfiguration cConf;
   private final AtomicBoolean upgradeComplete;
+  private final AtomicBoolean runTimeIndexComplete;
+  @Nullable
+  private final ApplicationMetaCache appMetaCache;
 
   private static final Function<RunRecordMeta, RunId> RUN_RECORD_META_TO_RUN_ID_FUNCTION =
     new Function<RunRecordMeta, RunId>() {
@@ -101,20 +112,62 @@ public class AppMetadataStore extends MetadataStoreDataset {
       }
     };
 
+  private static final Function<RunTimeIndexEntry, RunId> RUN_TIME_INDEX_ENTRY_TO_RUN_ID_FUNCTION =
+    new Function<RunTimeIndexEntry, RunId>() {
+      @Override
+      public RunId apply(RunTimeIndexEntry entry) {
+        return RunIds.fromString(entry.pid);
+      }
+    };
+
   public AppMetadataStore(Table table, CConfiguration cConf, AtomicBoolean upgradeComplete) {
-    super(table);
-    this.cConf = cConf;
-    this.upgradeComplete = upgradeComplete;
+    this(table, cConf, upgradeComplete, new AtomicBoolean(false));
   }
 
-  @Override
-  protected <T> byte[] serialize(T value) {
-    return Bytes.toBytes(GSON.toJson(value));
+  /**
+   * Creates the store.
+   *
+   * @param upgradeComplete whether the upgrade of the keys to include the application version is complete
+   * @param runTimeIndexComplete whether the run time index has been backfilled for all completed runs. Until then,
+   *                             {@link #getRunningInRange(long, long)} scans all run records.
+   */
+  public AppMetadataStore(Table table, CConfiguration cConf, AtomicBoolean upgradeComplete,
+                          AtomicBoolean runTimeIndexComplete) {
+    this(table, cConf, upgradeComplete, runTimeIndexComplete, null);
+  }
+
+  /**
+   * Creates the store.
+   *
+   * @param upgradeComplete whether the upgrade of the keys to include the application version is complete
+   * @param runTimeIndexComplete whether the run time index has been backfilled for all completed runs. Until then,
+   *                             {@link #getRunningInRange(long, long)} scans all run records.
+   * @param appMetaCache the cache of decoded application metas, or {@code null} to decode them on every read.
+   *                     The {@link ApplicationMeta}s returned by the store are then shared, and must not be modified.
+   */
+  AppMetadataStore(Table table, CConfiguration cConf, AtomicBoolean upgradeComplete,
+                   AtomicBoolean runTimeIndexComplete, @Nullable ApplicationMetaCache appMetaCache) {
+    super(table, new GsonMetadataStoreCodec(GSON, GsonMetadataStoreCodec.Format.BINARY));
+    this.cConf = cConf;
+    this.upgradeComplete = upgradeComplete;
+    this.runTimeIndexComplete = runTimeIndexComplete;
+    this.appMetaCache = appMetaCache;
   }
 
   @Override
   protected <T> T deserialize(byte[] serialized, Type typeOfT) {
-    return GSON.fromJson(Bytes.toString(serialized), typeOfT);
+    if (typeOfT != ApplicationMeta.class || appMetaCache == null) {
+      return super.deserialize(serialized, typeOfT);
+    }
+    HashCode version = ApplicationMetaCache.hash(serialized);
+    ApplicationMeta meta = appMetaCache.get(version);
+    if (meta == null) {
+      meta = super.deserialize(serialized, typeOfT);
+      appMetaCache.put(version, meta, serialized.length);
+    }
+    @SuppressWarnings("unchecked")
+    T result = (T) meta;
+    return result;
   }
 
   @Nullable
@@ -411,6 +464,9 @@ public class AppMetadataStore extends MetadataStoreDataset {
     deleteAll(key);
     key = builder.add(getInvertedTsKeyPart(started.getStartTs())).add(pid).build();
     write(key, new RunRecordMeta(started, stopTs, runStatus));
+    for (MDSKey indexKey : getRunTimeIndexKeys(pid, started.getStartTs(), stopTs)) {
+      write(indexKey, new RunTimeIndexEntry(pid, started.getStartTs(), stopTs));
+    }
   }
 
   public Map<ProgramRunId, RunRecordMeta> getRuns(ProgramRunStatus status, Predicate<RunRecordMeta> filter) {
@@ -720,6 +776,10 @@ public class AppMetadataStore extends MetadataStoreDataset {
     deleteAll(new MDSKey.Builder().add(TYPE_STREAM, namespaceId, name).build());
   }
 
+  /**
+   * Deletes the run records of an application. The run time index entries of the completed runs must have been
+   * deleted with {@link #deleteRunTimeIndex(String, String, String, MDSKey, int)} before.
+   */
   public void deleteProgramHistory(String namespaceId, String appId, String versionId) {
     if (!upgradeComplete.get() && versionId.equals(ApplicationId.DEFAULT_VERSION)) {
       Predicate<MDSKey> keyPredicate = new AppVersionPredicate(ApplicationId.DEFAULT_VERSION);
@@ -733,6 +793,10 @@ public class AppMetadataStore extends MetadataStoreDataset {
     }
   }
 
+  /**
+   * Deletes the run records of a namespace. The run time index entries of the completed runs must have been
+   * deleted with {@link #deleteRunTimeIndex(String, MDSKey, int)} before.
+   */
   public void deleteProgramHistory(String namespaceId) {
     deleteAll(new MDSKey.Builder().add(TYPE_RUN_RECORD_STARTED, namespaceId).build());
     deleteAll(new MDSKey.Builder().add(TYPE_RUN_RECORD_COMPLETED, namespaceId).build());
@@ -805,8 +869,13 @@ public class AppMetadataStore extends MetadataStoreDataset {
     LOG.trace("Scan timeout = {}ms", scanTimeoutMills);
 
     Set<RunId> runIds = new HashSet<>();
-    Iterables.addAll(runIds, getRunningInRangeForStatus(TYPE_RUN_RECORD_COMPLETED, startTimeInSecs, endTimeInSecs,
-                                                        scanTimeoutMills));
+    if (runTimeIndexComplete.get()) {
+      Iterables.addAll(runIds, Iterables.concat(getCompletedInRangeFromIndex(startTimeInSecs, endTimeInSecs,
+                                                                             scanTimeoutMills, Ticker.systemTicker())));
+    } else {
+      Iterables.addAll(runIds, getRunningInRangeForStatus(TYPE_RUN_RECORD_COMPLETED, startTimeInSecs, endTimeInSecs,
+                                                          scanTimeoutMills));
+    }
     Iterables.addAll(runIds, getRunningInRangeForStatus(TYPE_RUN_RECORD_SUSPENDED, startTimeInSecs, endTimeInSecs,
                                                         scanTimeoutMills));
     Iterables.addAll(runIds, getRunningInRangeForStatus(TYPE_RUN_RECORD_STARTED, startTimeInSecs, endTimeInSecs,
@@ -858,19 +927,156 @@ public class AppMetadataStore extends MetadataStoreDataset {
       }
     };
 
-    // Break up scans into smaller batches to prevent transaction timeout
     List<Iterable<RunId>> batches = new ArrayList<>();
     MDSKey startKey = new MDSKey.Builder().add(statusKey).build();
     MDSKey endKey = new MDSKey(Bytes.stopKeyForPrefix(startKey.getKey()));
+    for (List<RunRecordMeta> batch : scanInBatches(startKey, endKey, RunRecordMeta.class, timeFilter,
+                                                   maxScanTimeMillis, ticker)) {
+      batches.add(Iterables.transform(batch, RUN_RECORD_META_TO_RUN_ID_FUNCTION));
+    }
+    return batches;
+  }
+
+  /**
+   * Returns the completed runs that were running in the given time range, using the run time index.
+   * Only the index buckets that overlap the time range, and the runs that span too many buckets, are scanned.
+   */
+  @VisibleForTesting
+  List<Iterable<RunId>> getCompletedInRangeFromIndex(final long startTimeInSecs, final long endTimeInSecs,
+                                                     long maxScanTimeMillis, Ticker ticker) {
+    Predicate<RunTimeIndexEntry> timeFilter = new Predicate<RunTimeIndexEntry>() {
+      @Override
+      public boolean apply(RunTimeIndexEntry entry) {
+        return entry.startTs < endTimeInSecs && entry.stopTs >= startTimeInSecs;
+      }
+    };
+
+    List<List<RunTimeIndexEntry>> batches = new ArrayList<>();
+    // A run in range covers all times from its start to its stop, which include the time
+    // max(startTime, runStartTime) if startTime < endTime, and otherwise endTime - 1.
+    if (endTimeInSecs > 0) {
+      long fromBucket = Math.max(0L, Math.min(startTimeInSecs, endTimeInSecs - 1)) / RUN_TIME_BUCKET_SECS;
+      long toBucket = (endTimeInSecs - 1) / RUN_TIME_BUCKET_SECS;
+      MDSKey startKey = new MDSKey.Builder().add(TYPE_RUN_TIME_INDEX).add(fromBucket).build();
+      MDSKey endKey = new MDSKey.Builder().add(TYPE_RUN_TIME_INDEX).add(toBucket + 1).build();
+      batches.addAll(scanInBatches(startKey, endKey, RunTimeIndexEntry.class, timeFilter, maxScanTimeMillis, ticker));
+    }
+    MDSKey longStartKey = new MDSKey.Builder().add(TYPE_RUN_TIME_INDEX_LONG).build();
+    MDSKey longEndKey = new MDSKey(Bytes.stopKeyForPrefix(longStartKey.getKey()));
+    batches.addAll(scanInBatches(longStartKey, longEndKey, RunTimeIndexEntry.class, timeFilter,
+                                 maxScanTimeMillis, ticker));
+
+    // A run is indexed in each bucket it ran in, hence can be in multiple batches.
+    // Deduplication is left to the caller, which collects the run ids into a set anyway.
+    List<Iterable<RunId>> result = new ArrayList<>();
+    for (List<RunTimeIndexEntry> batch : batches) {
+      result.add(Iterables.transform(batch, RUN_TIME_INDEX_ENTRY_TO_RUN_ID_FUNCTION));
+    }
+    return result;
+  }
+
+  /**
+   * Adds the run time index entries for a batch of the completed run records.
+   *
+   * @param startKey the key to start from, or {@code null} to start from the first completed run record
+   * @param maxRows maximum number of run records to index in this call
+   * @return the key to continue from in the next call, or {@code null} if all completed run records are indexed
+   */
+  @Nullable
+  MDSKey backfillRunTimeIndex(@Nullable MDSKey startKey, int maxRows) {
+    MDSKey prefix = new MDSKey.Builder().add(TYPE_RUN_RECORD_COMPLETED).build();
+    Map<MDSKey, RunRecordMeta> records = listKV(startKey == null ? prefix : startKey,
+                                                new MDSKey(Bytes.stopKeyForPrefix(prefix.getKey())),
+                                                RunRecordMeta.class, maxRows, Predicates.<RunRecordMeta>alwaysTrue());
+    MDSKey lastKey = null;
+    for (Map.Entry<MDSKey, RunRecordMeta> entry : records.entrySet()) {
+      RunRecordMeta meta = entry.getValue();
+      if (meta.getStopTs() != null) {
+        for (MDSKey indexKey : getRunTimeIndexKeys(meta.getPid(), meta.getStartTs(), meta.getStopTs())) {
+          write(indexKey, new RunTimeIndexEntry(meta.getPid(), meta.getStartTs(), meta.getStopTs()));
+        }
+      }
+      lastKey = entry.getKey();
+    }
+    return records.size() < maxRows ? null : new MDSKey(Bytes.stopKeyForPrefix(lastKey.getKey()));
+  }
+
+  /**
+   * Returns the keys of the run time index entries of a completed run. A run is indexed in each time bucket
+   * it ran in, unless it ran in more than {@link #MAX_RUN_TIME_BUCKETS} buckets.
+   */
+  private List<MDSKey> getRunTimeIndexKeys(String pid, long startTs, long stopTs) {
+    long startBucket = Math.max(0L, startTs) / RUN_TIME_BUCKET_SECS;
+    long stopBucket = Math.max(startTs, stopTs) / RUN_TIME_BUCKET_SECS;
+    if (stopBucket - startBucket >= MAX_RUN_TIME_BUCKETS) {
+      return Collections.singletonList(new MDSKey.Builder().add(TYPE_RUN_TIME_INDEX_LONG).add(pid).build());
+    }
+    List<MDSKey> keys = new ArrayList<>();
+    for (long bucket = startBucket; bucket <= stopBucket; bucket++) {
+      keys.add(new MDSKey.Builder().add(TYPE_RUN_TIME_INDEX).add(bucket).add(pid).build());
+    }
+    return keys;
+  }
+
+  /**
+   * Deletes the run time index entries for a batch of the completed run records of an application.
+   *
+   * @param startKey the key to start from, or {@code null} to start from the first completed run record
+   * @param maxRows maximum number of run records to scan in this call
+   * @return the key to continue from in the next call, or {@code null} if all index entries are deleted
+   */
+  @Nullable
+  public MDSKey deleteRunTimeIndex(String namespaceId, String appId, String versionId,
+                                   @Nullable MDSKey startKey, int maxRows) {
+    if (!upgradeComplete.get() && versionId.equals(ApplicationId.DEFAULT_VERSION)) {
+      return deleteRunTimeIndex(new MDSKey.Builder().add(TYPE_RUN_RECORD_COMPLETED, namespaceId, appId).build(),
+                                new AppVersionPredicate(ApplicationId.DEFAULT_VERSION), startKey, maxRows);
+    }
+    MDSKey completedPrefix = new MDSKey.Builder().add(TYPE_RUN_RECORD_COMPLETED, namespaceId, appId, versionId).build();
+    return deleteRunTimeIndex(completedPrefix, null, startKey, maxRows);
+  }
+
+  /**
+   * Deletes the run time index entries for a batch of the completed run records of a namespace.
+   *
+   * @param startKey the key to start from, or {@code null} to start from the first completed run record
+   * @param maxRows maximum number of run records to scan in this call
+   * @return the key to continue from in the next call, or {@code null} if all index entries are deleted
+   */
+  @Nullable
+  public MDSKey deleteRunTimeIndex(String namespaceId, @Nullable MDSKey startKey, int maxRows) {
+    return deleteRunTimeIndex(new MDSKey.Builder().add(TYPE_RUN_RECORD_COMPLETED, namespaceId).build(),
+                              null, startKey, maxRows);
+  }
+
+  @Nullable
+  private MDSKey deleteRunTimeIndex(MDSKey completedPrefix, @Nullable Predicate<MDSKey> keyFilter,
+                                    @Nullable MDSKey startKey, int maxRows) {
+    RunTimeIndexDeleteFunction deleteFunction = new RunTimeIndexDeleteFunction(keyFilter, maxRows);
+    scan(startKey == null ? completedPrefix : startKey, new MDSKey(Bytes.stopKeyForPrefix(completedPrefix.getKey())),
+         RunRecordMeta.class, deleteFunction);
+    if (deleteFunction.getNumProcessed() < maxRows) {
+      return null;
+    }
+    return new MDSKey(Bytes.stopKeyForPrefix(deleteFunction.getLastKey().getKey()));
+  }
+
+  /**
+   * Scans the given key range in batches, each of which takes at most the given time, to prevent
+   * transaction timeouts during large scans.
+   */
+  private <T> List<List<T>> scanInBatches(MDSKey startKey, MDSKey endKey, Type typeOfT, Predicate<T> filter,
+                                          long maxScanTimeMillis, Ticker ticker) {
+    List<List<T>> batches = new ArrayList<>();
     while (true) {
-      ScanFunction scanFunction = new ScanFunction(timeFilter, ticker, maxScanTimeMillis);
+      ScanFunction<T> scanFunction = new ScanFunction<>(filter, ticker, maxScanTimeMillis);
       scanFunction.start();
-      scan(startKey, endKey, RunRecordMeta.class, scanFunction);
+      scan(startKey, endKey, typeOfT, scanFunction);
       // stop when scan returns zero elements
       if (scanFunction.getNumProcessed() == 0) {
         break;
       }
-      batches.add(Iterables.transform(scanFunction.getValues(), RUN_RECORD_META_TO_RUN_ID_FUNCTION));
+      batches.add(scanFunction.getValues());
       // key for next scan is the last key + 1 from the previous scan
       startKey = new MDSKey(Bytes.stopKeyForPrefix(scanFunction.getLastKey().getKey()));
     }
@@ -1119,15 +1325,15 @@ public class AppMetadataStore extends MetadataStoreDataset {
     }
   }
 
-  private static class ScanFunction implements Function<MetadataStoreDataset.KeyValue<RunRecordMeta>, Boolean> {
-    private final Predicate<RunRecordMeta> filter;
+  private static class ScanFunction<T> implements Function<MetadataStoreDataset.KeyValue<T>, Boolean> {
+    private final Predicate<T> filter;
     private final Stopwatch stopwatch;
     private final long maxScanTimeMillis;
-    private final List<RunRecordMeta> values = new ArrayList<>();
+    private final List<T> values = new ArrayList<>();
     private int numProcessed = 0;
     private MDSKey lastKey;
 
-    ScanFunction(Predicate<RunRecordMeta> filter, Ticker ticker, long maxScanTimeMillis) {
+    ScanFunction(Predicate<T> filter, Ticker ticker, long maxScanTimeMillis) {
       this.filter = filter;
       this.maxScanTimeMillis = maxScanTimeMillis;
       this.stopwatch = new Stopwatch(ticker);
@@ -1137,7 +1343,7 @@ public class AppMetadataStore extends MetadataStoreDataset {
       stopwatch.start();
     }
 
-    public List<RunRecordMeta> getValues() {
+    public List<T> getValues() {
       return Collections.unmodifiableList(values);
     }
 
@@ -1150,7 +1356,7 @@ public class AppMetadataStore extends MetadataStoreDataset {
     }
 
     @Override
-    public Boolean apply(MetadataStoreDataset.KeyValue<RunRecordMeta> input) {
+    public Boolean apply(MetadataStoreDataset.KeyValue<T> input) {
       long elapsedMillis = stopwatch.elapsedMillis();
       if (elapsedMillis > maxScanTimeMillis) {
         return false;
@@ -1164,4 +1370,57 @@ public class AppMetadataStore extends MetadataStoreDataset {
       return true;
     }
   }
+
+  /**
+   * Deletes the run time index entries of the completed run records it is applied to, up to a maximum number
+   * of records.
+   */
+  private final class RunTimeIndexDeleteFunction implements Function<MetadataStoreDataset.KeyValue<RunRecordMeta>,
+                                                                     Boolean> {
+    private final Predicate<MDSKey> keyFilter;
+    private final int maxRows;
+    private int numProcessed;
+    private MDSKey lastKey;
+
+    RunTimeIndexDeleteFunction(@Nullable Predicate<MDSKey> keyFilter, int maxRows) {
+      this.keyFilter = keyFilter == null ? Predicates.<MDSKey>alwaysTrue() : keyFilter;
+      this.maxRows = maxRows;
+    }
+
+    int getNumProcessed() {
+      return numProcessed;
+    }
+
+    MDSKey getLastKey() {
+      return lastKey;
+    }
+
+    @Override
+    public Boolean apply(MetadataStoreDataset.KeyValue<RunRecordMeta> input) {
+      numProcessed++;
+      lastKey = input.getKey();
+      RunRecordMeta meta = input.getValue();
+      if (keyFilter.apply(input.getKey()) && meta.getStopTs() != null) {
+        for (MDSKey indexKey : getRunTimeIndexKeys(meta.getPid(), meta.getStartTs(), meta.getStopTs())) {
+          delete(indexKey);
+        }
+      }
+      return numProcessed < maxRows;
+    }
+  }
+
+  /**
+   * Value of the run time index entries.
+   */
+  private static final class RunTimeIndexEntry {
+    private final String pid;
+    private final long startTs;
+    private final long stopTs;
+
+    RunTimeIndexEntry(String pid, long startTs, long stopTs) {
+      this.pid = pid;
+      this.startTs = startTs;
+      this.stopTs = stopTs;
+    }
+  }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.internal.app.store;
+
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import javax.annotation.Nullable;
+
+/**
+ * A cache of decoded {@link ApplicationMeta}s, shared by the {@link AppMetadataStore}s of a {@link DefaultStore}.
+ * Application specifications can be large and are read on most program lifecycle calls. Every write of an
+ * application meta changes its last update time, hence the hash of the stored bytes identifies the row version
+ * and is used as the key. The cache is bounded by the total size of the stored bytes of its entries.
+ * <p>
+ *   The same {@link ApplicationMeta} instance is returned to all readers of a row version, so callers must not
+ *   modify it or its specification.
+ * </p>
+ */
+final class ApplicationMetaCache {
+
+  static final long DEFAULT_MAX_WEIGHT = 32L * 1024 * 1024;
+
+  private final Cache<HashCode, Entry> cache;
+
+  /**
+   * Creates a cache with the maximum weight configured by {@link Constants.AppFabric#APP_META_CACHE_MAX_WEIGHT}.
+   */
+  static ApplicationMetaCache create(CConfiguration cConf) {
+    return new ApplicationMetaCache(cConf.getLong(Constants.AppFabric.APP_META_CACHE_MAX_WEIGHT, DEFAULT_MAX_WEIGHT));
+  }
+
+  ApplicationMetaCache(long maxWeight) {
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxWeight)
+      .weigher(new Weigher<HashCode, Entry>() {
+        @Override
+        public int weigh(HashCode key, Entry value) {
+          return value.size;
+        }
+      })
+      .build();
+  }
+
+  /**
+   * Returns the hash that identifies the given stored bytes of an application meta.
+   */
+  static HashCode hash(byte[] serialized) {
+    return Hashing.murmur3_128().hashBytes(serialized);
+  }
+
+  /**
+   * Returns the application meta decoded from the stored bytes with the given hash, or {@code null} if it is not
+   * cached.
+   */
+  @Nullable
+  ApplicationMeta get(HashCode hash) {
+    Entry entry = cache.getIfPresent(hash);
+    return entry == null ? null : entry.meta;
+  }
+
+  /**
+   * Caches the application meta decoded from the given number of stored bytes with the given hash.
+   */
+  void put(HashCode hash, ApplicationMeta meta, int size) {
+    cache.put(hash, new Entry(meta, size));
+  }
+
+  private static final class Entry {
+    private final ApplicationMeta meta;
+    private final int size;
+
+    private Entry(ApplicationMeta meta, int size) {
+      this.meta = meta;
+      this.size = size;
+    }
+  }
+}
@@ -47,6 +47,7 @@ import co.cask.cdap.data.dataset.SystemDatasetInstantiator;
 import co.cask.cdap.data2.datafabric.dataset.DatasetsUtil;
 import co.cask.cdap.data2.dataset2.DatasetFramework;
 import co.cask.cdap.data2.dataset2.MultiThreadDatasetCache;
+import co.cask.cdap.data2.dataset2.lib.table.MDSKey;
 import co.cask.cdap.data2.transaction.TransactionSystemClientAdapter;
 import co.cask.cdap.data2.transaction.Transactions;
 import co.cask.cdap.data2.transaction.TxCallable;
@@ -106,6 +107,8 @@ public class DefaultStore implements Store {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultStore.class);
   private static final DatasetId APP_META_INSTANCE_ID = NamespaceId.SYSTEM.dataset(Constants.AppMetaStore.TABLE);
   private static final byte[] APP_VERSION_UPGRADE_KEY = Bytes.toBytes("version.default.store");
+  private static final byte[] RUN_TIME_INDEX_KEY = Bytes.toBytes("version.run.time.index");
+  private static final int RUN_TIME_INDEX_BATCH_ROWS = 1000;
   private static final String NAME = DefaultStore.class.getSimpleName();
 
   // mds is specific for metadata, we do not want to add workflow stats related information to the mds,
@@ -120,6 +123,9 @@ public class DefaultStore implements Store {
   private final Transactional transactional;
   private final AtomicBoolean upgradeComplete;
   private final LoadingCache<byte[], Boolean> upgradeCacheLoader;
+  private final AtomicBoolean runTimeIndexComplete;
+  private final LoadingCache<byte[], Boolean> runTimeIndexCacheLoader;
+  private final ApplicationMetaCache appMetaCache;
 
   @Inject
   public DefaultStore(CConfiguration conf, DatasetFramework framework, TransactionSystemClient txClient) {
@@ -136,6 +142,11 @@ public class DefaultStore implements Store {
     this.upgradeCacheLoader = CacheBuilder.newBuilder()
       .expireAfterWrite(1, TimeUnit.MINUTES)
       .build(new DefaultStoreUpgradeCacheLoader(transactional, dsFramework, configuration, upgradeComplete));
+    this.runTimeIndexComplete = new AtomicBoolean(false);
+    this.runTimeIndexCacheLoader = CacheBuilder.newBuilder()
+      .expireAfterWrite(1, TimeUnit.MINUTES)
+      .build(new DefaultStoreUpgradeCacheLoader(transactional, dsFramework, configuration, runTimeIndexComplete));
+    this.appMetaCache = ApplicationMetaCache.create(conf);
   }
 
   // Returns true if the upgrade flag is set. Upgrade could have completed earlier than this since this flag is
@@ -144,6 +155,12 @@ public class DefaultStore implements Store {
     return upgradeCacheLoader.getUnchecked(APP_VERSION_UPGRADE_KEY);
   }
 
+  // Returns true if the run time index has been backfilled for the existing run records. This flag is also
+  // updated asynchronously.
+  public boolean isRunTimeIndexComplete() {
+    return runTimeIndexComplete.get() || runTimeIndexCacheLoader.getUnchecked(RUN_TIME_INDEX_KEY);
+  }
+
   /**
    * Adds datasets and types to the given {@link DatasetFramework} used by app mds.
    *
@@ -158,7 +175,7 @@ public class DefaultStore implements Store {
                                                                                      DatasetManagementException {
     Table table = DatasetsUtil.getOrCreateDataset(datasetContext, dsFramework, APP_META_INSTANCE_ID,
                                                   Table.class.getName(), DatasetProperties.EMPTY);
-    return new AppMetadataStore(table, configuration, upgradeComplete);
+    return new AppMetadataStore(table, configuration, upgradeComplete, runTimeIndexComplete, appMetaCache);
   }
 
   private WorkflowDataset getWorkflowDataset(DatasetContext datasetContext) throws IOException,
@@ -648,6 +665,7 @@ public class DefaultStore implements Store {
   public void removeApplication(final ApplicationId id) {
     LOG.trace("Removing application: namespace: {}, application: {}", id.getNamespace(), id.getApplication());
 
+    deleteRunTimeIndex(id.getParent(), id);
     Transactions.executeUnchecked(transactional, new TxRunnable() {
       @Override
       public void run(DatasetContext context) throws Exception {
@@ -662,6 +680,7 @@ public class DefaultStore implements Store {
   public void removeAllApplications(final NamespaceId id) {
     LOG.trace("Removing all applications of namespace with id: {}", id.getNamespace());
 
+    deleteRunTimeIndex(id, null);
     Transactions.executeUnchecked(transactional, new TxRunnable() {
       @Override
       public void run(DatasetContext context) throws Exception {
@@ -676,6 +695,7 @@ public class DefaultStore implements Store {
   public void removeAll(final NamespaceId id) {
     LOG.trace("Removing all applications of namespace with id: {}", id.getNamespace());
 
+    deleteRunTimeIndex(id, null);
     Transactions.executeUnchecked(transactional, new TxRunnable() {
       @Override
       public void run(DatasetContext context) throws Exception {
@@ -892,6 +912,71 @@ public class DefaultStore implements Store {
     LOG.info("Upgrade of {} is complete.", NAME);
   }
 
+  /**
+   * Adds the run time index entries for the run records that were completed before the index existed.
+   * Until this is complete, {@link #getRunningInRange(long, long)} scans all run records.
+   *
+   * @throws InterruptedException
+   */
+  public void backfillRunTimeIndex() throws InterruptedException {
+    if (isRunTimeIndexComplete()) {
+      LOG.info("Run time index of {} is already backfilled.", NAME);
+      return;
+    }
+
+    LOG.info("Starting backfill of run time index of {}.", NAME);
+    MDSKey startKey = null;
+    boolean complete = false;
+    while (!complete) {
+      final MDSKey batchStartKey = startKey;
+      try {
+        startKey = Transactions.execute(transactional, new TxCallable<MDSKey>() {
+          @Override
+          public MDSKey call(DatasetContext context) throws Exception {
+            AppMetadataStore store = getAppMetadataStore(context);
+            MDSKey nextKey = store.backfillRunTimeIndex(batchStartKey, RUN_TIME_INDEX_BATCH_ROWS);
+            if (nextKey == null) {
+              store.setUpgradeComplete(RUN_TIME_INDEX_KEY);
+            }
+            return nextKey;
+          }
+        });
+        complete = startKey == null;
+      } catch (TransactionFailureException e) {
+        // The index entries are idempotent, so the batch is simply retried
+        LOG.debug("Run time index backfill step faced exception. Retrying operation after some delay.", e);
+        TimeUnit.SECONDS.sleep(10);
+      }
+    }
+    runTimeIndexComplete.set(true);
+    LOG.info("Backfill of run time index of {} is complete.", NAME);
+  }
+
+  /**
+   * Deletes the run time index entries of the completed runs of an application or a namespace. It is done in
+   * batches, each in its own transaction, so that the number of runs doesn't matter for the transaction timeout.
+   *
+   * @param namespace the namespace to delete the entries of
+   * @param application the application to delete the entries of, or {@code null} for all applications
+   */
+  private void deleteRunTimeIndex(final NamespaceId namespace, @Nullable final ApplicationId application) {
+    MDSKey startKey = null;
+    do {
+      final MDSKey batchStartKey = startKey;
+      startKey = Transactions.executeUnchecked(transactional, new TxCallable<MDSKey>() {
+        @Override
+        public MDSKey call(DatasetContext context) throws Exception {
+          AppMetadataStore store = getAppMetadataStore(context);
+          if (application == null) {
+            return store.deleteRunTimeIndex(namespace.getNamespace(), batchStartKey, RUN_TIME_INDEX_BATCH_ROWS);
+          }
+          return store.deleteRunTimeIndex(application.getNamespace(), application.getApplication(),
+                                          application.getVersion(), batchStartKey, RUN_TIME_INDEX_BATCH_ROWS);
+        }
+      });
+    } while (startKey != null);
+  }
+
   private void truncate(DatasetAdmin admin) throws Exception {
     if (admin != null) {
       admin.truncate();
@@ -1070,6 +1155,8 @@ public class DefaultStore implements Store {
   }
 
   public Set<RunId> getRunningInRange(final long startTimeInSecs, final long endTimeInSecs) {
+    // Refreshes the flag that tells whether the run time index can be used
+    isRunTimeIndexComplete();
     return Transactions.executeUnchecked(transactional, new TxCallable<Set<RunId>>() {
       @Override
       public Set<RunId> call(DatasetContext context) throws Exception {
@@ -1096,7 +1183,7 @@ public class DefaultStore implements Store {
     }
 
     @Override
-    public Boolean load(byte[] key) throws Exception {
+    public Boolean load(final byte[] key) throws Exception {
       if (upgradeComplete.get()) {
         // Result flag is already set, so no need to check the table.
         return true;
@@ -1109,7 +1196,7 @@ public class DefaultStore implements Store {
             Table table = DatasetsUtil.getOrCreateDataset(context, dsFramework, APP_META_INSTANCE_ID,
                                                           Table.class.getName(), DatasetProperties.EMPTY);
             AppMetadataStore appMetadataStore = new AppMetadataStore(table, cConf, upgradeComplete);
-            boolean isUpgradeComplete = appMetadataStore.isUpgradeComplete(APP_VERSION_UPGRADE_KEY);
+            boolean isUpgradeComplete = appMetadataStore.isUpgradeComplete(key);
             if (isUpgradeComplete) {
               upgradeComplete.set(true);
             }
@@ -1118,7 +1205,7 @@ public class DefaultStore implements Store {
         });
       } catch (Exception ex) {
         LIMITED_LOGGER.debug("Upgrade Check got an exception while trying to read the " +
-                               "upgrade version of {} table.", NAME, ex);
+                               "upgrade version {} of {} table.", Bytes.toString(key), NAME, ex);
       }
       return upgradeComplete.get();
     }
@@ -25,7 +25,7 @@ import co.cask.cdap.api.dataset.DatasetManagementException;
 import co.cask.cdap.api.dataset.DatasetProperties;
 import co.cask.cdap.app.store.Store;
 import co.cask.cdap.common.NamespaceNotFoundException;
-import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.common.namespace.NamespaceQueryAdmin;
 import co.cask.cdap.data.dataset.SystemDatasetInstantiator;
 import co.cask.cdap.data.dataset.SystemDatasetInstantiatorFactory;
@@ -75,13 +75,14 @@ public class ExistingEntitySystemMetadataWriter {
   private final ViewAdmin viewAdmin;
   private final ArtifactStore artifactStore;
   private final LocationFactory locationFactory;
-  private final CConfiguration cConf;
+  private final UnpackedJarCache unpackedJarCache;
   private final Impersonator impersonator;
 
   @Inject
   ExistingEntitySystemMetadataWriter(MetadataStore metadataStore, NamespaceQueryAdmin namespaceQueryAdmin, Store store,
                                      ArtifactStore artifactStore, StreamAdmin streamAdmin, ViewAdmin viewAdmin,
-                                     LocationFactory locationFactory, CConfiguration cConf, Impersonator impersonator) {
+                                     LocationFactory locationFactory, UnpackedJarCache unpackedJarCache,
+                                     Impersonator impersonator) {
     this.metadataStore = metadataStore;
     this.namespaceQueryAdmin = namespaceQueryAdmin;
     this.store = store;
@@ -89,7 +90,7 @@ public class ExistingEntitySystemMetadataWriter {
     this.viewAdmin = viewAdmin;
     this.artifactStore = artifactStore;
     this.locationFactory = locationFactory;
-    this.cConf = cConf;
+    this.unpackedJarCache = unpackedJarCache;
     this.impersonator = impersonator;
   }
 
@@ -145,7 +146,7 @@ public class ExistingEntitySystemMetadataWriter {
   private void writeSystemMetadataForDatasets(NamespaceId namespace, DatasetFramework dsFramework)
     throws DatasetManagementException, IOException, NamespaceNotFoundException {
     SystemDatasetInstantiatorFactory systemDatasetInstantiatorFactory =
-      new SystemDatasetInstantiatorFactory(locationFactory, dsFramework, cConf);
+      new SystemDatasetInstantiatorFactory(locationFactory, dsFramework, unpackedJarCache);
     try (SystemDatasetInstantiator systemDatasetInstantiator = systemDatasetInstantiatorFactory.create()) {
 
       for (DatasetSpecificationSummary summary : dsFramework.getInstances(namespace)) {
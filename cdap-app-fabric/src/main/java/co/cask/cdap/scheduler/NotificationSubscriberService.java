@@ -17,11 +17,11 @@
 package co.cask.cdap.scheduler;
 
 import co.cask.cdap.api.Transactional;
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.data.DatasetContext;
 import co.cask.cdap.api.dataset.DatasetManagementException;
 import co.cask.cdap.api.dataset.lib.CloseableIterator;
 import co.cask.cdap.api.messaging.Message;
-import co.cask.cdap.api.messaging.MessageFetcher;
 import co.cask.cdap.api.messaging.TopicNotFoundException;
 import co.cask.cdap.common.NotFoundException;
 import co.cask.cdap.common.ServiceUnavailableException;
@@ -41,7 +41,9 @@ import co.cask.cdap.internal.app.runtime.schedule.ProgramScheduleRecord;
 import co.cask.cdap.internal.app.runtime.schedule.ProgramScheduleStatus;
 import co.cask.cdap.internal.app.runtime.schedule.queue.JobQueueDataset;
 import co.cask.cdap.internal.app.runtime.schedule.store.Schedulers;
+import co.cask.cdap.messaging.MessageFetcher;
 import co.cask.cdap.messaging.MessagingService;
+import co.cask.cdap.messaging.data.RawMessage;
 import co.cask.cdap.proto.Notification;
 import co.cask.cdap.proto.id.DatasetId;
 import co.cask.cdap.proto.id.NamespaceId;
@@ -76,7 +78,10 @@ class NotificationSubscriberService extends AbstractIdleService {
   // Sampling log only log once per 10000
   private static final Logger SAMPLING_LOG = Loggers.sampling(LOG, LogSamplers.limitRate(10000));
   private static final Gson GSON = new Gson();
+  // Maximum time to wait for new notifications when there is no notification
+  private static final long POLL_TIMEOUT_MILLIS = 2000L;
 
+  private final MessagingService messagingService;
   private final Transactional transactional;
   private final MultiThreadMessagingContext messagingContext;
   private final DatasetFramework datasetFramework;
@@ -92,6 +97,7 @@ class NotificationSubscriberService extends AbstractIdleService {
                                 DatasetFramework datasetFramework,
                                 TransactionSystemClient txClient) {
     this.cConf = cConf;
+    this.messagingService = messagingService;
     this.messagingContext = new MultiThreadMessagingContext(messagingService);
     this.multiThreadDatasetCache = new MultiThreadDatasetCache(
       new SystemDatasetInstantiator(datasetFramework), txClient,
@@ -137,6 +143,8 @@ class NotificationSubscriberService extends AbstractIdleService {
     private final RetryStrategy scheduleStrategy;
     private int failureCount;
     private String messageId;
+    // The id of the last message seen when waiting for notifications, which may not yet be visible transactionally
+    private byte[] waitMessageId;
     JobQueueDataset jobQueue;
 
 
@@ -187,7 +195,7 @@ class NotificationSubscriberService extends AbstractIdleService {
     private long processNotifications() {
       boolean emptyFetch = false;
       try {
-        final MessageFetcher fetcher = messagingContext.getMessageFetcher();
+        final co.cask.cdap.api.messaging.MessageFetcher fetcher = messagingContext.getMessageFetcher();
         emptyFetch = Transactions.execute(transactional, new TxCallable<Boolean>() {
           @Override
           public Boolean call(DatasetContext context) throws Exception {
@@ -207,11 +215,50 @@ class NotificationSubscriberService extends AbstractIdleService {
         return scheduleStrategy.nextRetry(failureCount, 0);
       }
 
-      // Sleep for 2 seconds if there's no notification, otherwise don't sleep
-      return emptyFetch ? 2000L : 0L;
+      if (!emptyFetch) {
+        waitMessageId = null;
+        return 0L;
+      }
+
+      // If there's no notification, wait for new notifications to be published
+      return waitForNotifications();
+    }
+
+    /**
+     * Waits for new notifications to be published to the topic, up to {@link #POLL_TIMEOUT_MILLIS}.
+     * It is done by a non-transactional fetch, hence a new notification may not yet be visible
+     * to the next transactional fetch. To avoid repeatedly waking up for the same notification,
+     * the next wait will start after the notification seen by this wait.
+     *
+     * @return the remaining time to sleep if the wait returned early without seeing any new notification
+     */
+    private long waitForNotifications() {
+      long startTime = System.currentTimeMillis();
+      try {
+        MessageFetcher fetcher = messagingService
+          .prepareFetch(NamespaceId.SYSTEM.topic(topic))
+          .setLimit(1)
+          .setPollTimeout(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (waitMessageId != null) {
+          fetcher.setStartMessage(waitMessageId, false);
+        } else if (messageId != null) {
+          fetcher.setStartMessage(Bytes.fromHexString(messageId), false);
+        }
+        try (CloseableIterator<RawMessage> iterator = fetcher.fetch()) {
+          if (iterator.hasNext()) {
+            waitMessageId = iterator.next().getId();
+            return 0L;
+          }
+        }
+      } catch (Exception e) {
+        SAMPLING_LOG.debug("Failed to wait for notifications from TMS. Will retry later.", e);
+      }
+      // The messaging service may return before the timeout, e.g. when it doesn't support waiting
+      return Math.max(0L, POLL_TIMEOUT_MILLIS - (System.currentTimeMillis() - startTime));
     }
 
-    private boolean fetchAndProcessNotifications(DatasetContext context, MessageFetcher fetcher) throws Exception {
+    private boolean fetchAndProcessNotifications(DatasetContext context,
+                                                 co.cask.cdap.api.messaging.MessageFetcher fetcher) throws Exception {
       boolean emptyFetch = true;
       try (CloseableIterator<Message> iterator = fetcher.fetch(NamespaceId.SYSTEM.getNamespace(),
                                                                topic, 100, messageId)) {
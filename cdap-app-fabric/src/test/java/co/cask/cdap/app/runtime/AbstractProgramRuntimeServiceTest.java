@@ -82,7 +82,7 @@ public class AbstractProgramRuntimeServiceTest {
     final Program program = createDummyProgram();
 
     final ProgramRuntimeService runtimeService =
-      new AbstractProgramRuntimeService(CConfiguration.create(), runnerFactory, null) {
+      new AbstractProgramRuntimeService(CConfiguration.create(), runnerFactory, null, null) {
       @Override
       public ProgramLiveInfo getLiveInfo(ProgramId programId) {
         return new ProgramLiveInfo(programId, "runtime") { };
@@ -156,7 +156,7 @@ public class AbstractProgramRuntimeServiceTest {
 
     final Program program = createDummyProgram();
     final ProgramRuntimeService runtimeService =
-      new AbstractProgramRuntimeService(CConfiguration.create(), runnerFactory, null) {
+      new AbstractProgramRuntimeService(CConfiguration.create(), runnerFactory, null, null) {
       @Override
       public ProgramLiveInfo getLiveInfo(ProgramId programId) {
         return new ProgramLiveInfo(programId, "runtime") { };
@@ -382,7 +382,7 @@ public class AbstractProgramRuntimeServiceTest {
     protected TestProgramRuntimeService(CConfiguration cConf, ProgramRunnerFactory programRunnerFactory,
                                         @Nullable ArtifactRepository artifactRepository,
                                         @Nullable RuntimeInfo extraInfo) {
-      super(cConf, programRunnerFactory, artifactRepository);
+      super(cConf, programRunnerFactory, artifactRepository, null);
       this.extraInfo = extraInfo;
     }
 
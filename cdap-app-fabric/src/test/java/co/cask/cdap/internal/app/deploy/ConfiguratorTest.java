@@ -26,6 +26,7 @@ import co.cask.cdap.app.runtime.DummyProgramRunnerFactory;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.guice.ConfigModule;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.common.test.AppJarHelper;
 import co.cask.cdap.internal.app.ApplicationSpecificationAdapter;
 import co.cask.cdap.internal.app.runtime.artifact.ArtifactRepository;
@@ -72,6 +73,7 @@ public class ConfiguratorTest {
   private static Authorizer authorizer;
   private static AuthorizationEnforcer authEnforcer;
   private static AuthenticationContext authenticationContext;
+  private static UnpackedJarCache unpackedJarCache;
 
   @BeforeClass
   public static void setup() throws IOException {
@@ -84,6 +86,7 @@ public class ConfiguratorTest {
     authorizer = injector.getInstance(AuthorizerInstantiator.class).get();
     authEnforcer = injector.getInstance(AuthorizationEnforcer.class);
     authenticationContext = injector.getInstance(AuthenticationContext.class);
+    unpackedJarCache = injector.getInstance(UnpackedJarCache.class);
   }
 
   @Test
@@ -95,7 +98,7 @@ public class ConfiguratorTest {
     ArtifactRepository artifactRepo = new ArtifactRepository(conf, null, null, authorizer,
                                                              new DummyProgramRunnerFactory(),
                                                              new DefaultImpersonator(cConf, null),
-                                                             authEnforcer, authenticationContext);
+                                                             authEnforcer, authenticationContext, unpackedJarCache);
 
     // Create a configurator that is testable. Provide it a application.
     try (CloseableClassLoader artifactClassLoader =
@@ -104,7 +107,7 @@ public class ConfiguratorTest {
                                             new DefaultImpersonator(cConf, null)))) {
       Configurator configurator = new InMemoryConfigurator(conf, Id.Namespace.DEFAULT, artifactId,
                                                            WordCountApp.class.getName(), artifactRepo,
-                                                           artifactClassLoader, null, null, "");
+                                                           unpackedJarCache, artifactClassLoader, null, null, "");
       // Extract response from the configurator.
       ListenableFuture<ConfigResponse> result = configurator.config();
       ConfigResponse response = result.get(10, TimeUnit.SECONDS);
@@ -128,7 +131,7 @@ public class ConfiguratorTest {
     ArtifactRepository artifactRepo = new ArtifactRepository(conf, null, null, authorizer,
                                                              new DummyProgramRunnerFactory(),
                                                              new DefaultImpersonator(cConf, null),
-                                                             authEnforcer, authenticationContext);
+                                                             authEnforcer, authenticationContext, unpackedJarCache);
 
     ConfigTestApp.ConfigClass config = new ConfigTestApp.ConfigClass("myStream", "myTable");
     // Create a configurator that is testable. Provide it an application.
@@ -138,7 +141,8 @@ public class ConfiguratorTest {
                                             new DefaultImpersonator(cConf, null)))) {
       Configurator configuratorWithConfig =
         new InMemoryConfigurator(conf, Id.Namespace.DEFAULT, artifactId, ConfigTestApp.class.getName(),
-                                 artifactRepo, artifactClassLoader, null, null, new Gson().toJson(config));
+                                 artifactRepo, unpackedJarCache, artifactClassLoader, null, null,
+                                 new Gson().toJson(config));
 
       ListenableFuture<ConfigResponse> result = configuratorWithConfig.config();
       ConfigResponse response = result.get(10, TimeUnit.SECONDS);
@@ -154,7 +158,7 @@ public class ConfiguratorTest {
 
       Configurator configuratorWithoutConfig = new InMemoryConfigurator(
         conf, Id.Namespace.DEFAULT, artifactId, ConfigTestApp.class.getName(),
-        artifactRepo, artifactClassLoader, null, null, null);
+        artifactRepo, unpackedJarCache, artifactClassLoader, null, null, null);
       result = configuratorWithoutConfig.config();
       response = result.get(10, TimeUnit.SECONDS);
       Assert.assertNotNull(response);
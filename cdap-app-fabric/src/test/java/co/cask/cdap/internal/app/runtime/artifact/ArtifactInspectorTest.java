@@ -27,6 +27,7 @@ import co.cask.cdap.common.InvalidArtifactException;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.Locations;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.common.test.AppJarHelper;
 import co.cask.cdap.common.utils.DirUtils;
 import co.cask.cdap.internal.app.runtime.artifact.app.InvalidConfigApp;
@@ -65,8 +66,9 @@ public class ArtifactInspectorTest {
     CConfiguration cConf = CConfiguration.create();
     cConf.set(Constants.CFG_LOCAL_DATA_DIR, TMP_FOLDER.newFolder().getAbsolutePath());
 
-    classLoaderFactory = new ArtifactClassLoaderFactory(cConf, new DummyProgramRunnerFactory());
-    artifactInspector = new ArtifactInspector(cConf, classLoaderFactory);
+    UnpackedJarCache unpackedJarCache = new UnpackedJarCache(cConf, 0);
+    classLoaderFactory = new ArtifactClassLoaderFactory(cConf, new DummyProgramRunnerFactory(), unpackedJarCache);
+    artifactInspector = new ArtifactInspector(cConf, classLoaderFactory, unpackedJarCache);
   }
 
   @Test(expected = InvalidArtifactException.class)
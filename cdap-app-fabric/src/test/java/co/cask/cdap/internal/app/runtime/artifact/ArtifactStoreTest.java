@@ -25,11 +25,14 @@ import co.cask.cdap.api.artifact.ArtifactVersion;
 import co.cask.cdap.api.artifact.ArtifactVersionRange;
 import co.cask.cdap.api.artifact.InvalidArtifactRangeException;
 import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.table.Table;
 import co.cask.cdap.api.plugin.PluginClass;
 import co.cask.cdap.api.plugin.PluginPropertyField;
 import co.cask.cdap.common.ArtifactAlreadyExistsException;
 import co.cask.cdap.common.ArtifactNotFoundException;
 import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.namespace.NamespacedLocationFactory;
+import co.cask.cdap.data2.dataset2.DatasetFramework;
 import co.cask.cdap.internal.AppFabricTestHelper;
 import co.cask.cdap.internal.app.runtime.artifact.app.inspection.InspectionApp;
 import co.cask.cdap.internal.app.runtime.plugin.PluginNotExistsException;
@@ -37,10 +40,12 @@ import co.cask.cdap.internal.io.ReflectionSchemaGenerator;
 import co.cask.cdap.proto.Id;
 import co.cask.cdap.proto.artifact.ArtifactSortOrder;
 import co.cask.cdap.proto.id.ArtifactId;
+import co.cask.cdap.proto.id.DatasetId;
 import co.cask.cdap.proto.id.Ids;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.security.impersonation.DefaultImpersonator;
 import co.cask.cdap.security.impersonation.EntityImpersonator;
+import co.cask.cdap.security.impersonation.Impersonator;
 import co.cask.cdap.test.SlowTests;
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
@@ -52,7 +57,12 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.CharStreams;
+import com.google.inject.Injector;
+import org.apache.tephra.TransactionAware;
+import org.apache.tephra.TransactionContext;
+import org.apache.tephra.TransactionSystemClient;
 import org.apache.twill.filesystem.Location;
+import org.apache.twill.filesystem.LocationFactory;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -1196,6 +1206,141 @@ public class ArtifactStoreTest {
     Assert.assertEquals(properties, detail.getMeta().getProperties());
   }
 
+  @Test
+  public void testPluginCatalogChanges() throws Exception {
+    // another store, as if in another process, with its own plugin catalog
+    Injector injector = AppFabricTestHelper.getInjector();
+    ArtifactStore otherStore = new ArtifactStore(injector.getInstance(DatasetFramework.class),
+                                                 injector.getInstance(NamespacedLocationFactory.class),
+                                                 injector.getInstance(LocationFactory.class),
+                                                 injector.getInstance(TransactionSystemClient.class),
+                                                 injector.getInstance(Impersonator.class));
+
+    Id.Artifact parentId = Id.Artifact.from(Id.Namespace.DEFAULT, "parent", "1.0.0");
+    writeArtifact(parentId, new ArtifactMeta(ArtifactClasses.builder().build()), "parent contents");
+    ArtifactRange parentRange = new ArtifactRange(NamespaceId.DEFAULT.getNamespace(), "parent",
+                                                  new ArtifactVersion("1.0.0"), new ArtifactVersion("2.0.0"));
+    Assert.assertTrue(otherStore.getPluginClasses(NamespaceId.DEFAULT, parentId).isEmpty());
+
+    // plugins added through one store are visible through the other
+    PluginClass plugin1 =
+      new PluginClass("atype", "plugin1", "", "c.c.c.plugin1", "cfg", ImmutableMap.<String, PluginPropertyField>of());
+    Id.Artifact plugins1Id = Id.Artifact.from(Id.Namespace.DEFAULT, "plugins1", "1.0.0");
+    writeArtifact(plugins1Id, new ArtifactMeta(ArtifactClasses.builder().addPlugin(plugin1).build(),
+                                               ImmutableSet.of(parentRange)), "plugins1 contents");
+    ArtifactDescriptor plugins1Descriptor = artifactStore.getArtifact(plugins1Id).getDescriptor();
+    Assert.assertEquals(ImmutableMap.of(plugins1Descriptor, ImmutableSet.of(plugin1)),
+                        otherStore.getPluginClasses(NamespaceId.DEFAULT, parentId, "atype"));
+
+    PluginClass plugin2 =
+      new PluginClass("atype", "plugin2", "", "c.c.c.plugin2", "cfg", ImmutableMap.<String, PluginPropertyField>of());
+    Id.Artifact plugins2Id = Id.Artifact.from(Id.Namespace.DEFAULT, "plugins2", "1.0.0");
+    writeArtifact(plugins2Id, new ArtifactMeta(ArtifactClasses.builder().addPlugin(plugin2).build(),
+                                               ImmutableSet.of(parentRange)), "plugins2 contents");
+    ArtifactDescriptor plugins2Descriptor = artifactStore.getArtifact(plugins2Id).getDescriptor();
+    Assert.assertEquals(ImmutableMap.of(plugins1Descriptor, ImmutableSet.of(plugin1),
+                                        plugins2Descriptor, ImmutableSet.of(plugin2)),
+                        otherStore.getPluginClasses(NamespaceId.DEFAULT, parentId));
+    Assert.assertEquals(ImmutableMap.of(plugins2Descriptor, plugin2),
+                        otherStore.getPluginClasses(NamespaceId.DEFAULT, parentRange, "atype", "plugin2", null,
+                                                    Integer.MAX_VALUE, ArtifactSortOrder.UNORDERED));
+
+    // deleted plugins are gone from the other store as well
+    artifactStore.delete(plugins1Id);
+    Assert.assertEquals(ImmutableMap.of(plugins2Descriptor, ImmutableSet.of(plugin2)),
+                        otherStore.getPluginClasses(NamespaceId.DEFAULT, parentId));
+    try {
+      otherStore.getPluginClasses(NamespaceId.DEFAULT, parentRange, "atype", "plugin1", null,
+                                  Integer.MAX_VALUE, ArtifactSortOrder.UNORDERED);
+      Assert.fail();
+    } catch (PluginNotExistsException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testCatalogChangesDontConflict() throws Exception {
+    Injector injector = AppFabricTestHelper.getInjector();
+    DatasetFramework datasetFramework = injector.getInstance(DatasetFramework.class);
+    TransactionSystemClient txClient = injector.getInstance(TransactionSystemClient.class);
+    // creates the meta table if it does not exist yet
+    artifactStore.getArtifacts(NamespaceId.DEFAULT);
+
+    DatasetId metaId = NamespaceId.SYSTEM.dataset("artifact.meta");
+    Table table1 = datasetFramework.getDataset(metaId, Collections.<String, String>emptyMap(), null);
+    Table table2 = datasetFramework.getDataset(metaId, Collections.<String, String>emptyMap(), null);
+    TransactionContext txContext1 = new TransactionContext(txClient, (TransactionAware) table1);
+    TransactionContext txContext2 = new TransactionContext(txClient, (TransactionAware) table2);
+
+    // concurrent changes of different artifacts must both commit
+    txContext1.start();
+    txContext2.start();
+    ArtifactStore.recordCatalogChange(table1, Id.Artifact.from(Id.Namespace.DEFAULT, "plugins1", "1.0.0"));
+    ArtifactStore.recordCatalogChange(table2, Id.Artifact.from(Id.Namespace.DEFAULT, "plugins2", "1.0.0"));
+    txContext1.finish();
+    txContext2.finish();
+  }
+
+  @Category(SlowTests.class)
+  @Test
+  public void testConcurrentPluginWrites() throws Exception {
+    // another store, as if in another process, with its own plugin catalog
+    Injector injector = AppFabricTestHelper.getInjector();
+    ArtifactStore otherStore = new ArtifactStore(injector.getInstance(DatasetFramework.class),
+                                                 injector.getInstance(NamespacedLocationFactory.class),
+                                                 injector.getInstance(LocationFactory.class),
+                                                 injector.getInstance(TransactionSystemClient.class),
+                                                 injector.getInstance(Impersonator.class));
+
+    final Id.Artifact parentId = Id.Artifact.from(Id.Namespace.DEFAULT, "parent", "1.0.0");
+    writeArtifact(parentId, new ArtifactMeta(ArtifactClasses.builder().build()), "parent contents");
+    final ArtifactRange parentRange = new ArtifactRange(NamespaceId.DEFAULT.getNamespace(), "parent",
+                                                        new ArtifactVersion("1.0.0"), new ArtifactVersion("2.0.0"));
+    // load the catalogs before the writes, so that they are updated with the changes afterwards
+    Assert.assertTrue(artifactStore.getPluginClasses(NamespaceId.DEFAULT, parentId).isEmpty());
+    Assert.assertTrue(otherStore.getPluginClasses(NamespaceId.DEFAULT, parentId).isEmpty());
+
+    // start up a bunch of threads that each write a different plugin artifact at the same time
+    int numThreads = 20;
+    final CyclicBarrier barrier = new CyclicBarrier(numThreads);
+    final CountDownLatch latch = new CountDownLatch(numThreads);
+    final List<Exception> failures = Collections.synchronizedList(Lists.<Exception>newArrayList());
+    ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+    for (int i = 0; i < numThreads; i++) {
+      final String writer = String.valueOf(i);
+      executorService.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            barrier.await();
+            PluginClass pluginClass = new PluginClass("atype", "plugin" + writer, "", "classname", "cfg",
+                                                      ImmutableMap.<String, PluginPropertyField>of());
+            writeArtifact(Id.Artifact.from(Id.Namespace.DEFAULT, "plugins" + writer, "1.0.0"),
+                          new ArtifactMeta(ArtifactClasses.builder().addPlugin(pluginClass).build(),
+                                           ImmutableSet.of(parentRange)), writer);
+          } catch (Exception e) {
+            failures.add(e);
+          } finally {
+            latch.countDown();
+          }
+        }
+      });
+    }
+    latch.await();
+    executorService.shutdown();
+    Assert.assertEquals(Collections.<Exception>emptyList(), failures);
+
+    // all plugins are visible through both stores
+    for (ArtifactStore store : ImmutableList.of(artifactStore, otherStore)) {
+      Map<ArtifactDescriptor, Set<PluginClass>> plugins = store.getPluginClasses(NamespaceId.DEFAULT, parentId);
+      Assert.assertEquals(numThreads, plugins.size());
+      for (int i = 0; i < numThreads; i++) {
+        Assert.assertEquals(1, store.getPluginClasses(NamespaceId.DEFAULT, parentRange, "atype", "plugin" + i, null,
+                                                      Integer.MAX_VALUE, ArtifactSortOrder.UNORDERED).size());
+      }
+    }
+  }
+
   @Category(SlowTests.class)
   @Test
   public void testConcurrentSnapshotWrite() throws Exception {
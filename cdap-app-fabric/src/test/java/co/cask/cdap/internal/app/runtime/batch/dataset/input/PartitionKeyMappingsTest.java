@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.internal.app.runtime.batch.dataset.input;
+
+import co.cask.cdap.api.dataset.lib.PartitionKey;
+import co.cask.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
+import co.cask.cdap.data2.dataset2.lib.partitioned.PartitionedFileSetDataset;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.twill.filesystem.LocalLocationFactory;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tests for {@link PartitionKeyMappings}.
+ */
+public class PartitionKeyMappingsTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static final Gson GSON =
+    new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create();
+
+  @Test
+  public void testExternalize() throws Exception {
+    Location stagingDir = new LocalLocationFactory(TMP_FOLDER.newFolder()).create("staging");
+    Map<String, PartitionKey> mapping = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      mapping.put("file:/base/" + i, PartitionKey.builder().addIntField("i", i).addStringField("s", "v" + i).build());
+    }
+    Map<String, String> inputConfig = ImmutableMap.of(
+      "key", "value", PartitionedFileSetDataset.PATH_TO_PARTITIONING_MAPPING, GSON.toJson(mapping));
+
+    // the mapping is moved to a file, and read back from it
+    Map<String, String> externalized = PartitionKeyMappings.externalize(inputConfig, stagingDir);
+    Assert.assertEquals("value", externalized.get("key"));
+    Assert.assertFalse(externalized.containsKey(PartitionedFileSetDataset.PATH_TO_PARTITIONING_MAPPING));
+    Assert.assertTrue(externalized.containsKey(PartitionKeyMappings.PATH_TO_PARTITIONING_MAPPING_LOCATION));
+
+    Configuration conf = new Configuration(false);
+    Assert.assertFalse(PartitionKeyMappings.hasMapping(conf));
+    Assert.assertNull(PartitionKeyMappings.read(conf));
+    for (Map.Entry<String, String> entry : externalized.entrySet()) {
+      conf.set(entry.getKey(), entry.getValue());
+    }
+    Assert.assertTrue(PartitionKeyMappings.hasMapping(conf));
+    Assert.assertEquals(mapping, PartitionKeyMappings.read(conf));
+
+    // an inline mapping is still supported
+    conf = new Configuration(false);
+    conf.set(PartitionedFileSetDataset.PATH_TO_PARTITIONING_MAPPING, GSON.toJson(mapping));
+    Assert.assertTrue(PartitionKeyMappings.hasMapping(conf));
+    Assert.assertEquals(mapping, PartitionKeyMappings.read(conf));
+
+    // configurations without a mapping are left unchanged
+    Map<String, String> noMapping = ImmutableMap.of("key", "value");
+    Assert.assertSame(noMapping, PartitionKeyMappings.externalize(noMapping, stagingDir));
+  }
+}
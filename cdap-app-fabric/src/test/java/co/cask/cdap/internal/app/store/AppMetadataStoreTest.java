@@ -16,13 +16,17 @@
 
 package co.cask.cdap.internal.app.store;
 
+import co.cask.cdap.AllProgramsApp;
+import co.cask.cdap.api.app.ApplicationSpecification;
 import co.cask.cdap.api.dataset.DatasetProperties;
 import co.cask.cdap.api.dataset.table.Table;
 import co.cask.cdap.common.app.RunIds;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.data2.dataset2.DatasetFramework;
+import co.cask.cdap.data2.dataset2.lib.table.MDSKey;
 import co.cask.cdap.data2.transaction.TransactionExecutorFactory;
 import co.cask.cdap.internal.AppFabricTestHelper;
+import co.cask.cdap.internal.app.deploy.Specifications;
 import co.cask.cdap.proto.ProgramRunStatus;
 import co.cask.cdap.proto.ProgramType;
 import co.cask.cdap.proto.id.ApplicationId;
@@ -51,6 +55,7 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Test AppMetadataStore.
@@ -287,6 +292,184 @@ public class AppMetadataStoreTest {
     });
   }
 
+  @Test
+  public void testRunTimeIndex() throws Exception {
+    DatasetId storeTable = NamespaceId.DEFAULT.dataset("testRunTimeIndex");
+    datasetFramework.addInstance(Table.class.getName(), storeTable, DatasetProperties.EMPTY);
+
+    Table table = datasetFramework.getDataset(storeTable, ImmutableMap.<String, String>of(), null);
+    Assert.assertNotNull(table);
+    // Both stores use the same table, one queries the run time index and the other scans all run records
+    final AppMetadataStore indexed = new AppMetadataStore(table, cConf, new AtomicBoolean(false),
+                                                          new AtomicBoolean(true));
+    final AppMetadataStore scanning = new AppMetadataStore(table, cConf, new AtomicBoolean(false));
+    TransactionExecutor txnl = txExecutorFactory.createExecutor(Collections.singleton((TransactionAware) indexed));
+
+    final long hour = TimeUnit.HOURS.toSeconds(1);
+    // Start and stop times of the runs, in seconds: within a bucket, across buckets, across many buckets and running
+    final long[][] runTimes = {
+      { 100, 200 }, { 3 * hour + 10, 3 * hour + 20 }, { 2 * hour - 10, 5 * hour + 10 },
+      { 10, 40 * hour }, { 6 * hour, 6 * hour }, { 4 * hour, -1 }
+    };
+    for (int i = 0; i < runTimes.length; i++) {
+      final ProgramId program = NamespaceId.DEFAULT.app("app" + (i % 2)).program(ProgramType.WORKFLOW, "program");
+      final RunId runId = RunIds.generate(TimeUnit.SECONDS.toMillis(runTimes[i][0]));
+      final long[] times = runTimes[i];
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          indexed.recordProgramStart(program, runId.getId(), times[0], null, null, null);
+          if (times[1] >= 0) {
+            indexed.recordProgramStop(program, runId.getId(), times[1], ProgramRunStatus.COMPLETED, null);
+          }
+        }
+      });
+    }
+
+    final long[][] ranges = {
+      { 0, Long.MAX_VALUE }, { 0, 100 }, { 0, 101 }, { 201, 3 * hour }, { 3 * hour + 15, 3 * hour + 16 },
+      { 5 * hour + 11, 6 * hour }, { 6 * hour, 6 * hour + 1 }, { 41 * hour, 42 * hour }, { 150, 150 }
+    };
+    txnl.execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        for (long[] range : ranges) {
+          Set<RunId> expected = new HashSet<>();
+          for (long[] times : runTimes) {
+            if (times[0] < range[1] && (times[1] < 0 || times[1] >= range[0])) {
+              expected.add(RunIds.generate(TimeUnit.SECONDS.toMillis(times[0])));
+            }
+          }
+          Assert.assertEquals(toTimes(expected), toTimes(scanning.getRunningInRange(range[0], range[1])));
+          Assert.assertEquals(toTimes(expected), toTimes(indexed.getRunningInRange(range[0], range[1])));
+        }
+      }
+    });
+
+    // Remove the index and backfill it in small batches
+    txnl.execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        indexed.deleteAll(new MDSKey.Builder().add("runTimeIdx").build());
+        indexed.deleteAll(new MDSKey.Builder().add("runTimeIdxLong").build());
+        Assert.assertEquals(1, indexed.getRunningInRange(0, Long.MAX_VALUE).size());
+      }
+    });
+    final AtomicReference<MDSKey> startKey = new AtomicReference<>();
+    do {
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          startKey.set(indexed.backfillRunTimeIndex(startKey.get(), 2));
+        }
+      });
+    } while (startKey.get() != null);
+
+    // Deleting the index entries of an application in small batches, followed by its run history
+    txnl.execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        for (long[] range : ranges) {
+          Assert.assertEquals(toTimes(scanning.getRunningInRange(range[0], range[1])),
+                              toTimes(indexed.getRunningInRange(range[0], range[1])));
+        }
+      }
+    });
+    do {
+      txnl.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          startKey.set(indexed.deleteRunTimeIndex(NamespaceId.DEFAULT.getNamespace(), "app0",
+                                                  ApplicationId.DEFAULT_VERSION, startKey.get(), 1));
+        }
+      });
+    } while (startKey.get() != null);
+    txnl.execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        indexed.deleteProgramHistory(NamespaceId.DEFAULT.getNamespace(), "app0", ApplicationId.DEFAULT_VERSION);
+        for (long[] range : ranges) {
+          Assert.assertEquals(toTimes(scanning.getRunningInRange(range[0], range[1])),
+                              toTimes(indexed.getRunningInRange(range[0], range[1])));
+        }
+        Assert.assertEquals(3, indexed.getRunningInRange(0, Long.MAX_VALUE).size());
+      }
+    });
+  }
+
+  @Test
+  public void testApplicationMetaCache() throws Exception {
+    DatasetId storeTable = NamespaceId.DEFAULT.dataset("testApplicationMetaCache");
+    datasetFramework.addInstance(Table.class.getName(), storeTable, DatasetProperties.EMPTY);
+
+    Table table = datasetFramework.getDataset(storeTable, ImmutableMap.<String, String>of(), null);
+    Assert.assertNotNull(table);
+    // Both stores use the same table, the cache of the second one is too small to hold any application meta
+    final AppMetadataStore cached = new AppMetadataStore(
+      table, cConf, new AtomicBoolean(false), new AtomicBoolean(false),
+      new ApplicationMetaCache(ApplicationMetaCache.DEFAULT_MAX_WEIGHT));
+    final AppMetadataStore uncached = new AppMetadataStore(
+      table, cConf, new AtomicBoolean(false), new AtomicBoolean(false), new ApplicationMetaCache(1));
+    TransactionExecutor txnl = txExecutorFactory.createExecutor(Collections.singleton((TransactionAware) cached));
+    final ApplicationSpecification spec = Specifications.from(new AllProgramsApp());
+    final ApplicationId appId = NamespaceId.DEFAULT.app(spec.getName());
+    final AtomicReference<ApplicationMeta> firstRead = new AtomicReference<>();
+
+    txnl.execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        cached.writeApplication(appId.getNamespace(), appId.getApplication(), appId.getVersion(), spec);
+      }
+    });
+    txnl.execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        // the same row version is decoded only once
+        ApplicationMeta meta = cached.getApplication(appId.getNamespace(), appId.getApplication(),
+                                                     appId.getVersion());
+        Assert.assertNotNull(meta);
+        Assert.assertEquals(spec.getName(), meta.getSpec().getName());
+        Assert.assertSame(meta, cached.getApplication(appId.getNamespace(), appId.getApplication(),
+                                                      appId.getVersion()));
+        firstRead.set(meta);
+
+        // entries heavier than the maximum weight are not kept
+        ApplicationMeta uncachedMeta = uncached.getApplication(appId.getNamespace(), appId.getApplication(),
+                                                               appId.getVersion());
+        Assert.assertNotNull(uncachedMeta);
+        Assert.assertNotSame(uncachedMeta, uncached.getApplication(appId.getNamespace(), appId.getApplication(),
+                                                                   appId.getVersion()));
+      }
+    });
+
+    // an update changes the stored bytes, so the new version is decoded
+    TimeUnit.MILLISECONDS.sleep(1);
+    txnl.execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        cached.updateAppSpec(appId.getNamespace(), appId.getApplication(), appId.getVersion(), spec);
+      }
+    });
+    txnl.execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        ApplicationMeta meta = cached.getApplication(appId.getNamespace(), appId.getApplication(),
+                                                     appId.getVersion());
+        Assert.assertNotNull(meta);
+        Assert.assertNotSame(firstRead.get(), meta);
+        Assert.assertTrue(meta.getLastUpdateTs() > firstRead.get().getLastUpdateTs());
+      }
+    });
+  }
+
+  private static Set<Long> toTimes(Iterable<RunId> runIds) {
+    Set<Long> times = new TreeSet<>();
+    for (RunId runId : runIds) {
+      times.add(RunIds.getTime(runId, TimeUnit.SECONDS));
+    }
+    return times;
+  }
+
   private static class CountingTicker extends Ticker {
     private final long elementsPerMillis;
     private int numProcessed = 0;
@@ -46,8 +46,13 @@ import co.cask.cdap.api.workflow.NodeStatus;
 import co.cask.cdap.app.program.ProgramDescriptor;
 import co.cask.cdap.app.runtime.ProgramController;
 import co.cask.cdap.common.app.RunIds;
+import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.namespace.NamespaceAdmin;
 import co.cask.cdap.common.namespace.NamespacedLocationFactory;
+import co.cask.cdap.data2.dataset2.DatasetFramework;
+import co.cask.cdap.data2.dataset2.lib.table.MDSKey;
+import co.cask.cdap.data2.dataset2.lib.table.MetadataStoreDataset;
+import co.cask.cdap.data2.transaction.TransactionExecutorFactory;
 import co.cask.cdap.internal.AppFabricTestHelper;
 import co.cask.cdap.internal.app.deploy.Specifications;
 import co.cask.cdap.internal.app.runtime.ProgramOptionConstants;
@@ -71,12 +76,15 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import com.google.inject.Injector;
+import org.apache.tephra.TransactionAware;
+import org.apache.tephra.TransactionExecutor;
 import org.apache.twill.api.RunId;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -994,6 +1002,63 @@ public class DefaultStoreTest {
                         runIdsToTime(store.getRunningInRange(1, 45 * 10)));
   }
 
+  @Test
+  public void testRunTimeIndexBackfill() throws Exception {
+    long hour = TimeUnit.HOURS.toSeconds(1);
+    // Completed runs within an hour, across hours and across more than a day, and runs of another application
+    Id.Run run1 = newRun("app1", 100);
+    Id.Run run2 = newRun("app1", 2 * hour - 10);
+    Id.Run run3 = newRun("app1", 10);
+    Id.Run run4 = newRun("app2", 3 * hour + 10);
+    Id.Run run5 = newRun("app2", 4 * hour);
+    writeStartRecord(run1);
+    writeStopRecord(run1, TimeUnit.SECONDS.toMillis(200));
+    writeStartRecord(run2);
+    writeStopRecord(run2, TimeUnit.SECONDS.toMillis(5 * hour + 10));
+    writeStartRecord(run3);
+    writeStopRecord(run3, TimeUnit.SECONDS.toMillis(40 * hour));
+    writeStartRecord(run4);
+    writeStopRecord(run4, TimeUnit.SECONDS.toMillis(3 * hour + 20));
+    writeStartRecord(run5);
+
+    // Remove the index entries, as if the runs completed before the index existed
+    Injector injector = AppFabricTestHelper.getInjector();
+    Table table = injector.getInstance(DatasetFramework.class)
+      .getDataset(NamespaceId.SYSTEM.dataset(Constants.AppMetaStore.TABLE), ImmutableMap.<String, String>of(), null);
+    Assert.assertNotNull(table);
+    final MetadataStoreDataset mds = new MetadataStoreDataset(table);
+    injector.getInstance(TransactionExecutorFactory.class)
+      .createExecutor(Collections.singleton((TransactionAware) mds))
+      .execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          mds.deleteAll(new MDSKey.Builder().add("runTimeIdx").build());
+          mds.deleteAll(new MDSKey.Builder().add("runTimeIdxLong").build());
+        }
+      });
+
+    Assert.assertFalse(store.isRunTimeIndexComplete());
+    store.backfillRunTimeIndex();
+    Assert.assertTrue(store.isRunTimeIndexComplete());
+
+    Assert.assertEquals(runsToTime(run1, run3), runIdsToTime(store.getRunningInRange(0, 101)));
+    Assert.assertEquals(runsToTime(run2, run3), runIdsToTime(store.getRunningInRange(201, 3 * hour)));
+    Assert.assertEquals(runsToTime(run2, run3, run4),
+                        runIdsToTime(store.getRunningInRange(3 * hour + 15, 3 * hour + 16)));
+    Assert.assertEquals(runsToTime(run5), runIdsToTime(store.getRunningInRange(41 * hour, 42 * hour)));
+
+    // Removing an application also removes the index entries of its runs
+    store.removeApplication(NamespaceId.DEFAULT.app("app2"));
+    Assert.assertEquals(runsToTime(run2, run3),
+                        runIdsToTime(store.getRunningInRange(3 * hour + 15, 3 * hour + 16)));
+    Assert.assertEquals(ImmutableSet.of(), runIdsToTime(store.getRunningInRange(41 * hour, 42 * hour)));
+  }
+
+  private Id.Run newRun(String app, long startTimeInSecs) {
+    return new Id.Run(Id.Program.from("default", app, ProgramType.WORKFLOW, "workflow"),
+                      RunIds.generate(TimeUnit.SECONDS.toMillis(startTimeInSecs)).getId());
+  }
+
   private void writeStartRecord(Id.Run run) {
     ProgramId programId = run.getProgram().toEntityId();
     store.setStart(programId, run.getId(), RunIds.getTime(RunIds.fromString(run.getId()), TimeUnit.SECONDS));
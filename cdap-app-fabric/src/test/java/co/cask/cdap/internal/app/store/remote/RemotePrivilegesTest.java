@@ -25,17 +25,20 @@ import co.cask.cdap.internal.AppFabricTestHelper;
 import co.cask.cdap.internal.app.services.AppFabricServer;
 import co.cask.cdap.proto.ProgramType;
 import co.cask.cdap.proto.id.ApplicationId;
+import co.cask.cdap.proto.id.EntityId;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.proto.id.ProgramId;
 import co.cask.cdap.proto.security.Action;
 import co.cask.cdap.proto.security.AuthorizationPrivilege;
 import co.cask.cdap.proto.security.Principal;
 import co.cask.cdap.proto.security.Privilege;
+import co.cask.cdap.security.authorization.AuthorizationUtil;
 import co.cask.cdap.security.authorization.InMemoryAuthorizer;
 import co.cask.cdap.security.authorization.RemoteAuthorizationEnforcer;
 import co.cask.cdap.security.spi.authorization.AuthorizationEnforcer;
 import co.cask.cdap.security.spi.authorization.PrivilegesManager;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Injector;
 import org.apache.twill.discovery.DiscoveryServiceClient;
 import org.apache.twill.filesystem.LocalLocationFactory;
@@ -168,6 +171,31 @@ public class RemotePrivilegesTest {
       new AuthorizationPrivilege(ALICE, NS, Action.WRITE)));
   }
 
+  @Test
+  public void testIsVisible() throws Exception {
+    Principal carol = new Principal("carol", Principal.PrincipalType.USER);
+    NamespaceId namespace = new NamespaceId("visibility");
+    ApplicationId app1 = namespace.app("app1");
+    ApplicationId app2 = namespace.app("app2");
+    ApplicationId app3 = namespace.app("app3");
+    privilegesManager.grant(app1, carol, Collections.singleton(Action.READ));
+    privilegesManager.grant(app2, carol, Collections.singleton(Action.EXECUTE));
+    Set<EntityId> apps = ImmutableSet.<EntityId>of(app1, app2, app3);
+    Assert.assertEquals(ImmutableSet.of(app1, app2),
+                        AuthorizationUtil.isVisible(authorizationEnforcer, apps, carol));
+
+    // The entities that are not visible are cached as denied for all actions
+    Map<AuthorizationPrivilege, Boolean> cache = ((RemoteAuthorizationEnforcer) authorizationEnforcer).cacheAsMap();
+    for (Action action : Action.values()) {
+      Assert.assertEquals(Boolean.FALSE, cache.get(new AuthorizationPrivilege(carol, app3, action)));
+    }
+    // The visibility is cached too, so revoking does not change it until the cache expires
+    privilegesManager.revoke(app1);
+    privilegesManager.revoke(app2);
+    Assert.assertEquals(ImmutableSet.of(app1, app2),
+                        AuthorizationUtil.isVisible(authorizationEnforcer, apps, carol));
+  }
+
   @AfterClass
   public static void tearDown() {
     appFabricServer.stopAndWait();
@@ -19,6 +19,10 @@ package co.cask.cdap.datapipeline;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.etl.batch.StructuredRecordWritable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.WritableComparator;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -29,6 +33,10 @@ import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  */
@@ -52,4 +60,105 @@ public class StructuredRecordWritableTest {
 
     Assert.assertEquals(writableIn.get(), record);
   }
+
+  @Test
+  public void testRegisteredSchema() throws IOException {
+    Schema schema = Schema.recordOf("registered",
+                                    Schema.Field.of("s", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("l", Schema.of(Schema.Type.LONG)),
+                                    Schema.Field.of("d", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+                                    Schema.Field.of("b", Schema.of(Schema.Type.BYTES)),
+                                    Schema.Field.of("a", Schema.arrayOf(Schema.of(Schema.Type.INT))));
+    StructuredRecord record = StructuredRecord.builder(schema)
+      .set("s", "abc")
+      .set("l", -5L)
+      .set("b", ByteBuffer.wrap(new byte[] { 1, 2, 3 }))
+      .set("a", ImmutableList.of(1, -1, Integer.MAX_VALUE))
+      .build();
+    byte[] inlineBytes = serialize(record);
+
+    Configuration conf = new Configuration();
+    StructuredRecordWritable.setSchemas(conf, ImmutableList.of(schema));
+    StructuredRecordWritable.registerSchemas(conf);
+    byte[] bytes = serialize(record);
+    // the registered schema is not written with the record
+    Assert.assertTrue(bytes.length < inlineBytes.length);
+    Assert.assertTrue(bytes.length < schema.toString().length());
+
+    StructuredRecordWritable writableIn = new StructuredRecordWritable();
+    writableIn.readFields(new DataInputStream(new ByteArrayInputStream(bytes)));
+    Assert.assertEquals(record, writableIn.get());
+
+    // records serialized before the schema was registered compare equal to the ones serialized after
+    WritableComparator comparator = WritableComparator.get(StructuredRecordWritable.class);
+    Assert.assertTrue(comparator instanceof StructuredRecordWritable.Comparator);
+    Assert.assertEquals(0, comparator.compare(bytes, 0, bytes.length, inlineBytes, 0, inlineBytes.length));
+  }
+
+  @Test
+  public void testComparator() throws IOException {
+    Schema schema = Schema.recordOf("key",
+                                    Schema.Field.of("x", Schema.of(Schema.Type.STRING)),
+                                    Schema.Field.of("y", Schema.of(Schema.Type.INT)));
+    Schema otherSchema = Schema.recordOf("otherKey", Schema.Field.of("x", Schema.of(Schema.Type.STRING)));
+    List<StructuredRecord> records = ImmutableList.of(
+      StructuredRecord.builder(schema).set("x", "a").set("y", 1).build(),
+      StructuredRecord.builder(schema).set("x", "a").set("y", 2).build(),
+      StructuredRecord.builder(schema).set("x", "b").set("y", 1).build(),
+      StructuredRecord.builder(otherSchema).set("x", "a").build());
+
+    WritableComparator comparator = new StructuredRecordWritable.Comparator();
+    for (StructuredRecord record1 : records) {
+      byte[] bytes1 = serialize(record1);
+      for (StructuredRecord record2 : records) {
+        byte[] bytes2 = serialize(record2);
+        int rawCompare = comparator.compare(bytes1, 0, bytes1.length, bytes2, 0, bytes2.length);
+        int compare = new StructuredRecordWritable(record1).compareTo(new StructuredRecordWritable(record2));
+        Assert.assertEquals(Integer.signum(compare), Integer.signum(rawCompare));
+        Assert.assertEquals(record1.equals(record2), rawCompare == 0);
+      }
+    }
+  }
+
+  @Test
+  public void testMapOrder() throws IOException {
+    Schema mapSchema = Schema.mapOf(Schema.of(Schema.Type.STRING),
+                                    Schema.mapOf(Schema.of(Schema.Type.INT), Schema.of(Schema.Type.STRING)));
+    Schema schema = Schema.recordOf("withMap", Schema.Field.of("m", mapSchema));
+
+    // equal maps, including the nested ones, that only differ in insertion order
+    Map<String, Map<Integer, String>> map1 = new LinkedHashMap<>();
+    map1.put("a", ImmutableMap.of(1, "x", 2, "y"));
+    map1.put("b", ImmutableMap.of(3, "z"));
+    map1.put("c", ImmutableMap.<Integer, String>of());
+    Map<String, Map<Integer, String>> map2 = new LinkedHashMap<>();
+    map2.put("c", ImmutableMap.<Integer, String>of());
+    map2.put("b", ImmutableMap.of(3, "z"));
+    map2.put("a", ImmutableMap.of(2, "y", 1, "x"));
+    StructuredRecord record1 = StructuredRecord.builder(schema).set("m", map1).build();
+    StructuredRecord record2 = StructuredRecord.builder(schema).set("m", map2).build();
+    Assert.assertEquals(record1, record2);
+
+    byte[] bytes1 = serialize(record1);
+    byte[] bytes2 = serialize(record2);
+    Assert.assertArrayEquals(bytes1, bytes2);
+    WritableComparator comparator = new StructuredRecordWritable.Comparator();
+    Assert.assertEquals(0, comparator.compare(bytes1, 0, bytes1.length, bytes2, 0, bytes2.length));
+    Assert.assertEquals(0, new StructuredRecordWritable(record1).compareTo(new StructuredRecordWritable(record2)));
+
+    StructuredRecordWritable writableIn = new StructuredRecordWritable();
+    writableIn.readFields(new DataInputStream(new ByteArrayInputStream(bytes2)));
+    Assert.assertEquals(record1, writableIn.get());
+
+    // a different map does not compare equal
+    map2.put("d", ImmutableMap.<Integer, String>of());
+    byte[] bytes3 = serialize(StructuredRecord.builder(schema).set("m", map2).build());
+    Assert.assertNotEquals(0, comparator.compare(bytes1, 0, bytes1.length, bytes3, 0, bytes3.length));
+  }
+
+  private byte[] serialize(StructuredRecord record) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new StructuredRecordWritable(record).write(new DataOutputStream(os));
+    return os.toByteArray();
+  }
 }
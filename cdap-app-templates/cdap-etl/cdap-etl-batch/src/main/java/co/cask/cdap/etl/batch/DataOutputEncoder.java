@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.etl.batch;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.common.io.Encoder;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link Encoder} that writes to a {@link DataOutput}, using the Hadoop variable length encoding for
+ * integers and lengths. Values are written in the same byte order as {@link DataInputDecoder} reads them.
+ */
+final class DataOutputEncoder implements Encoder {
+
+  private final DataOutput output;
+
+  DataOutputEncoder(DataOutput output) {
+    this.output = output;
+  }
+
+  @Override
+  public Encoder writeNull() throws IOException {
+    // nothing to write
+    return this;
+  }
+
+  @Override
+  public Encoder writeBool(boolean b) throws IOException {
+    output.writeBoolean(b);
+    return this;
+  }
+
+  @Override
+  public Encoder writeInt(int i) throws IOException {
+    WritableUtils.writeVInt(output, i);
+    return this;
+  }
+
+  @Override
+  public Encoder writeLong(long l) throws IOException {
+    WritableUtils.writeVLong(output, l);
+    return this;
+  }
+
+  @Override
+  public Encoder writeFloat(float f) throws IOException {
+    output.writeFloat(f);
+    return this;
+  }
+
+  @Override
+  public Encoder writeDouble(double d) throws IOException {
+    output.writeDouble(d);
+    return this;
+  }
+
+  @Override
+  public Encoder writeString(String s) throws IOException {
+    return writeBytes(Bytes.toBytes(s));
+  }
+
+  @Override
+  public Encoder writeBytes(byte[] bytes) throws IOException {
+    return writeBytes(bytes, 0, bytes.length);
+  }
+
+  @Override
+  public Encoder writeBytes(byte[] bytes, int off, int len) throws IOException {
+    WritableUtils.writeVInt(output, len);
+    output.write(bytes, off, len);
+    return this;
+  }
+
+  /**
+   * Writes bytes that were already encoded, without a length.
+   */
+  Encoder writeEncoded(byte[] bytes) throws IOException {
+    output.write(bytes);
+    return this;
+  }
+
+  @Override
+  public Encoder writeBytes(ByteBuffer bytes) throws IOException {
+    if (bytes.hasArray()) {
+      return writeBytes(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+    }
+    byte[] copy = new byte[bytes.remaining()];
+    bytes.duplicate().get(copy);
+    return writeBytes(copy);
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.etl.batch;
+
+import co.cask.cdap.api.data.format.StructuredRecord;
+import co.cask.cdap.api.data.schema.Schema;
+import co.cask.cdap.common.io.Encoder;
+import co.cask.cdap.format.io.StructuredRecordDatumWriter;
+import org.apache.hadoop.io.WritableComparator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link StructuredRecordDatumWriter} that writes map entries ordered by their encoded bytes instead of
+ * the iteration order of the map, so that equal records always have the same encoding. It can only write to a
+ * {@link DataOutputEncoder}. Instances are not thread safe.
+ */
+final class SortedMapDatumWriter extends StructuredRecordDatumWriter {
+
+  private static final Comparator<byte[]> BYTES_COMPARATOR = new Comparator<byte[]>() {
+    @Override
+    public int compare(byte[] b1, byte[] b2) {
+      return WritableComparator.compareBytes(b1, 0, b1.length, b2, 0, b2.length);
+    }
+  };
+
+  // encoded entries of the maps being written, innermost map first
+  private final Deque<List<byte[]>> mapEntries = new LinkedList<>();
+
+  @Override
+  public void encode(StructuredRecord data, Encoder encoder) throws IOException {
+    mapEntries.clear();
+    super.encode(data, encoder);
+  }
+
+  @Override
+  protected void encodeMapBegin(Encoder encoder, Schema keySchema, Schema valueSchema, int size) throws IOException {
+    super.encodeMapBegin(encoder, keySchema, valueSchema, size);
+    mapEntries.push(new ArrayList<byte[]>(size));
+  }
+
+  @Override
+  protected void encodeMapEntry(Encoder encoder, Schema keySchema,
+                                Schema valueSchema, Map.Entry<?, ?> entry) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    // nested maps are written to the entry encoder, so their entries are sorted before this entry is complete
+    super.encodeMapEntry(new DataOutputEncoder(new DataOutputStream(os)), keySchema, valueSchema, entry);
+    mapEntries.peek().add(os.toByteArray());
+  }
+
+  @Override
+  protected void encodeMapEnd(Encoder encoder, Schema keySchema, Schema valueSchema, int size) throws IOException {
+    if (!(encoder instanceof DataOutputEncoder)) {
+      throw new IOException("Expects DataOutputEncoder. Got: " + encoder.getClass());
+    }
+    // keys are distinct and their encoding is self-delimiting, so the order of the entries is the order of the keys
+    List<byte[]> entries = mapEntries.pop();
+    Collections.sort(entries, BYTES_COMPARATOR);
+    for (byte[] entry : entries) {
+      ((DataOutputEncoder) encoder).writeEncoded(entry);
+    }
+    super.encodeMapEnd(encoder, keySchema, valueSchema, size);
+  }
+}
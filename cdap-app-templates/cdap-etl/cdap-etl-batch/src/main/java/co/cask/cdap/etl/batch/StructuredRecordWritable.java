@@ -19,21 +19,101 @@ package co.cask.cdap.etl.batch;
 import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.data.format.StructuredRecord;
 import co.cask.cdap.api.data.schema.Schema;
-import co.cask.cdap.format.StructuredRecordStringConverter;
+import co.cask.cdap.api.data.schema.SchemaHash;
+import co.cask.cdap.format.io.StructuredRecordDatumReader;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.reflect.TypeToken;
+import com.google.gson.Gson;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Wrapper around a {@link StructuredRecord} so that it can be used as the output key and/or value of a mapper.
- * This is not very performant and must be improved soon (CDAP-5347).
+ *
+ * A record is serialized as a format byte and the fingerprint of its schema, followed by the record in a compact
+ * binary encoding. Schemas that are registered for the job with {@link #setSchemas(Configuration, Iterable)} are
+ * identified by the fingerprint only. Other schemas are written inline after the fingerprint, but are still parsed
+ * only once per task. Map entries are written ordered by their encoded bytes rather than in iteration order,
+ * so that equal records are always serialized to the same bytes. Serialized records are compared by their bytes
+ * with {@link Comparator}, without deserializing them. The order groups equal records together, but has no
+ * meaning beyond that.
  */
 public class StructuredRecordWritable implements WritableComparable<StructuredRecordWritable> {
+  private static final String SCHEMAS_KEY = "cdap.etl.writable.schemas";
+  private static final Type SCHEMAS_TYPE = new TypeToken<List<String>>() { }.getType();
+  private static final Gson GSON = new Gson();
+  private static final byte REGISTERED_SCHEMA = 0;
+  private static final byte INLINE_SCHEMA = 1;
+  private static final int FINGERPRINT_SIZE = 16;
+
+  // schemas registered for the job, which readers can resolve from the fingerprint. A job registers far fewer
+  // schemas than the maximum size, so only schemas of jobs that ran before in the same JVM are evicted.
+  private static final Cache<SchemaHash, Schema> REGISTERED_SCHEMAS = CacheBuilder.newBuilder()
+    .maximumSize(1000)
+    .build();
+  // schemas that were read inline, so that they are not parsed again for every record
+  private static final Cache<SchemaHash, Schema> INLINE_SCHEMAS = CacheBuilder.newBuilder().maximumSize(1000).build();
+
+  private static final ThreadLocal<SortedMapDatumWriter> DATUM_WRITER = new ThreadLocal<SortedMapDatumWriter>() {
+    @Override
+    protected SortedMapDatumWriter initialValue() {
+      return new SortedMapDatumWriter();
+    }
+  };
+  private static final StructuredRecordDatumReader DATUM_READER = new StructuredRecordDatumReader();
+
+  static {
+    WritableComparator.define(StructuredRecordWritable.class, new Comparator());
+  }
+
   private StructuredRecord record;
 
+  /**
+   * Sets the schemas of the records that are shuffled by the job with the given configuration.
+   * Records with these schemas are serialized without their schema.
+   */
+  public static void setSchemas(Configuration conf, Iterable<Schema> schemas) {
+    Set<String> schemaStrings = new LinkedHashSet<>();
+    for (Schema schema : schemas) {
+      schemaStrings.add(schema.toString());
+    }
+    conf.set(SCHEMAS_KEY, GSON.toJson(new ArrayList<>(schemaStrings)));
+  }
+
+  /**
+   * Registers the schemas set for the job with the given configuration. It must be called by every task
+   * before records are serialized or deserialized.
+   *
+   * @throws IOException if a schema cannot be parsed
+   */
+  public static void registerSchemas(Configuration conf) throws IOException {
+    String schemasJson = conf.get(SCHEMAS_KEY);
+    if (schemasJson == null) {
+      return;
+    }
+    List<String> schemaStrings = GSON.fromJson(schemasJson, SCHEMAS_TYPE);
+    for (String schemaString : schemaStrings) {
+      Schema schema = Schema.parseJson(schemaString);
+      REGISTERED_SCHEMAS.put(schema.getSchemaHash(), schema);
+    }
+  }
+
   // required by Hadoop
   @SuppressWarnings("unused")
   public StructuredRecordWritable() {
@@ -54,33 +134,58 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
   @SuppressWarnings("ConstantConditions")
   @Override
   public void write(DataOutput out) throws IOException {
-    byte[] schemaBytes = Bytes.toBytes(record.getSchema().toString());
-    out.writeInt(schemaBytes.length);
-    out.write(schemaBytes);
-
-    byte[] recordBytes = Bytes.toBytes(StructuredRecordStringConverter.toJsonString(record));
-    out.writeInt(recordBytes.length);
-    out.write(recordBytes);
+    Schema schema = record.getSchema();
+    SchemaHash hash = schema.getSchemaHash();
+    if (REGISTERED_SCHEMAS.getIfPresent(hash) != null) {
+      out.writeByte(REGISTERED_SCHEMA);
+      out.write(hash.toByteArray());
+    } else {
+      out.writeByte(INLINE_SCHEMA);
+      out.write(hash.toByteArray());
+      byte[] schemaBytes = Bytes.toBytes(schema.toString());
+      WritableUtils.writeVInt(out, schemaBytes.length);
+      out.write(schemaBytes);
+    }
+    DATUM_WRITER.get().encode(record, new DataOutputEncoder(out));
   }
 
   @Override
   public void readFields(DataInput in) throws IOException {
-    int schemaLen = in.readInt();
-    byte[] schemaBytes = new byte[schemaLen];
-    in.readFully(schemaBytes, 0, schemaLen);
-    String schemaStr = Bytes.toString(schemaBytes);
-    Schema schema = Schema.parseJson(schemaStr);
+    byte format = in.readByte();
+    byte[] fingerprint = new byte[FINGERPRINT_SIZE];
+    in.readFully(fingerprint);
+    SchemaHash hash = new SchemaHash(ByteBuffer.wrap(fingerprint));
 
-    int recordLen = in.readInt();
-    byte[] recordBytes = new byte[recordLen];
-    in.readFully(recordBytes, 0, recordLen);
-    String recordStr = Bytes.toString(recordBytes);
-    this.record = StructuredRecordStringConverter.fromJsonString(recordStr, schema);
+    Schema schema;
+    if (format == REGISTERED_SCHEMA) {
+      schema = REGISTERED_SCHEMAS.getIfPresent(hash);
+      if (schema == null) {
+        throw new IOException("Schema with fingerprint " + hash + " is not registered. " +
+                                "Schemas must be registered with registerSchemas() before reading records.");
+      }
+    } else if (format == INLINE_SCHEMA) {
+      int schemaLen = WritableUtils.readVInt(in);
+      schema = INLINE_SCHEMAS.getIfPresent(hash);
+      if (schema == null) {
+        byte[] schemaBytes = new byte[schemaLen];
+        in.readFully(schemaBytes);
+        schema = Schema.parseJson(Bytes.toString(schemaBytes));
+        INLINE_SCHEMAS.put(hash, schema);
+      } else {
+        WritableUtils.skipFully(in, schemaLen);
+      }
+    } else {
+      throw new IOException("Unknown serialization format " + format);
+    }
+    this.record = DATUM_READER.read(new DataInputDecoder(in), schema);
   }
 
   @Override
   public int compareTo(StructuredRecordWritable o) {
-    return Integer.compare(hashCode(), o.hashCode());
+    // compare serialized bytes, to be consistent with the raw comparator
+    byte[] bytes = toBytes();
+    byte[] otherBytes = o.toBytes();
+    return compareSerialized(bytes, 0, bytes.length, otherBytes, 0, otherBytes.length);
   }
 
   @Override
@@ -101,4 +206,62 @@ public class StructuredRecordWritable implements WritableComparable<StructuredRe
   public int hashCode() {
     return record != null ? record.hashCode() : 0;
   }
+
+  private byte[] toBytes() {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    try {
+      write(new DataOutputStream(os));
+    } catch (IOException e) {
+      // cannot happen when writing to a byte array
+      throw new IllegalStateException(e);
+    }
+    return os.toByteArray();
+  }
+
+  /**
+   * Compares two serialized records by their schema fingerprint and then by their binary encoding.
+   * Whether the schema is inline does not matter, so that the order does not depend on the schemas registered.
+   */
+  private static int compareSerialized(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+    int cmp = WritableComparator.compareBytes(b1, s1 + 1, FINGERPRINT_SIZE, b2, s2 + 1, FINGERPRINT_SIZE);
+    if (cmp != 0) {
+      return cmp;
+    }
+    try {
+      int datumStart1 = getDatumStart(b1, s1);
+      int datumStart2 = getDatumStart(b2, s2);
+      return WritableComparator.compareBytes(b1, datumStart1, l1 - (datumStart1 - s1),
+                                             b2, datumStart2, l2 - (datumStart2 - s2));
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Invalid serialized record", e);
+    }
+  }
+
+  /**
+   * Returns the offset of the binary encoded record in a serialized record that starts at the given offset.
+   */
+  private static int getDatumStart(byte[] bytes, int start) throws IOException {
+    int offset = start + 1 + FINGERPRINT_SIZE;
+    if (bytes[start] == INLINE_SCHEMA) {
+      int schemaLen = WritableComparator.readVInt(bytes, offset);
+      offset += WritableUtils.decodeVIntSize(bytes[offset]) + schemaLen;
+    }
+    return offset;
+  }
+
+  /**
+   * A {@link WritableComparator} that compares serialized {@link StructuredRecordWritable}s byte by byte,
+   * without deserializing them. It is registered as the default comparator of {@link StructuredRecordWritable}.
+   */
+  public static class Comparator extends WritableComparator {
+
+    public Comparator() {
+      super(StructuredRecordWritable.class);
+    }
+
+    @Override
+    public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+      return compareSerialized(b1, s1, l1, b2, s2, l2);
+    }
+  }
 }
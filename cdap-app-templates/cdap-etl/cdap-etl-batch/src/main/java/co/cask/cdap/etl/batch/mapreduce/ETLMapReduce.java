@@ -39,6 +39,7 @@ import co.cask.cdap.etl.batch.DefaultAggregatorContext;
 import co.cask.cdap.etl.batch.DefaultJoinerContext;
 import co.cask.cdap.etl.batch.PipelinePluginInstantiator;
 import co.cask.cdap.etl.batch.StageFailureException;
+import co.cask.cdap.etl.batch.StructuredRecordWritable;
 import co.cask.cdap.etl.batch.conversion.WritableConversion;
 import co.cask.cdap.etl.batch.conversion.WritableConversions;
 import co.cask.cdap.etl.common.CompositeFinisher;
@@ -71,8 +72,10 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -276,7 +279,7 @@ public class ETLMapReduce extends AbstractMapReduce {
           }
           hConf.set(MAP_KEY_CLASS, outputKeyClass.getName());
           hConf.set(MAP_VAL_CLASS, outputValClass.getName());
-          job.setMapOutputKeyClass(getOutputKeyClass(reducerName, outputKeyClass));
+          setMapOutputKeyClass(job, getOutputKeyClass(reducerName, outputKeyClass));
           job.setMapOutputValueClass(getOutputValClass(reducerName, outputValClass));
         } else { // reducer type is joiner
           BatchJoiner batchJoiner = pluginInstantiator.newPluginInstance(reducerName, evaluator);
@@ -298,7 +301,7 @@ public class ETLMapReduce extends AbstractMapReduce {
           }
           hConf.set(MAP_KEY_CLASS, outputKeyClass.getName());
           hConf.set(MAP_VAL_CLASS, inputRecordClass.getName());
-          job.setMapOutputKeyClass(getOutputKeyClass(reducerName, outputKeyClass));
+          setMapOutputKeyClass(job, getOutputKeyClass(reducerName, outputKeyClass));
           getOutputValClass(reducerName, inputRecordClass);
           // for joiner plugin map output is tagged with stageName
           job.setMapOutputValueClass(TaggedWritable.class);
@@ -310,6 +313,8 @@ public class ETLMapReduce extends AbstractMapReduce {
                           Throwables.getRootCause(e).getMessage(), Throwables.getRootCause(e));
         throw e;
       }
+      // records with the schemas known to the pipeline are shuffled without their schema
+      StructuredRecordWritable.setSchemas(hConf, getSchemas(phase));
     } else {
       job.setNumReduceTasks(0);
     }
@@ -317,6 +322,32 @@ public class ETLMapReduce extends AbstractMapReduce {
     hConf.set(RUNTIME_ARGS_KEY, GSON.toJson(runtimeArgs));
   }
 
+  private void setMapOutputKeyClass(Job job, Class<?> outputKeyClass) {
+    job.setMapOutputKeyClass(outputKeyClass);
+    if (outputKeyClass == StructuredRecordWritable.class) {
+      // sort and group on the serialized records, without deserializing them
+      job.setSortComparatorClass(StructuredRecordWritable.Comparator.class);
+    }
+  }
+
+  private List<Schema> getSchemas(PipelinePhase phase) {
+    List<Schema> schemas = new ArrayList<>();
+    for (StageInfo stageInfo : phase) {
+      for (Schema schema : stageInfo.getInputSchemas().values()) {
+        if (schema != null) {
+          schemas.add(schema);
+        }
+      }
+      if (stageInfo.getOutputSchema() != null) {
+        schemas.add(stageInfo.getOutputSchema());
+      }
+      if (stageInfo.getErrorSchema() != null) {
+        schemas.add(stageInfo.getErrorSchema());
+      }
+    }
+    return schemas;
+  }
+
   private Class<?> getOutputKeyClass(String reducerName, Class<?> outputKeyClass) {
     // in case the classes are not a WritableComparable, but is some common type we support
     // for example, a String or a StructuredRecord
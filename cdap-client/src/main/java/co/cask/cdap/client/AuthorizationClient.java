@@ -92,6 +92,11 @@ public class AuthorizationClient extends AbstractAuthorizer {
     throw new UnsupportedOperationException("Filtering is not supported via Java Client.");
   }
 
+  @Override
+  public Set<EntityId> isVisible(Set<? extends EntityId> entityIds, Principal principal) throws Exception {
+    throw new UnsupportedOperationException("Visibility checks are not supported via Java Client.");
+  }
+
   @Override
   public void grant(EntityId entity, Principal principal, Set<Action> actions) throws IOException,
     UnauthenticatedException, FeatureDisabledException, UnauthorizedException, NotFoundException {
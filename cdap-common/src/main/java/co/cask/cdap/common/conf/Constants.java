@@ -176,6 +176,8 @@ public final class Constants {
     public static final String MAPREDUCE_INCLUDE_CUSTOM_CLASSES = "mapreduce.include.custom.format.classes";
     public static final String PROGRAM_RUNID_CORRECTOR_INTERVAL_SECONDS = "app.program.runid.corrector.interval";
     public static final String SYSTEM_ARTIFACTS_DIR = "app.artifact.dir";
+    public static final String UNPACKED_JAR_CACHE_MAX_UNUSED = "app.artifact.unpacked.cache.max.unused";
+    public static final String APP_META_CACHE_MAX_WEIGHT = "app.meta.cache.max.weight";
     public static final String PROGRAM_EXTRA_CLASSPATH = "app.program.extra.classpath";
     public static final String SPARK_YARN_CLIENT_REWRITE = "app.program.spark.yarn.client.rewrite.enabled";
     public static final String SPARK_COMPAT = "app.program.spark.compat";
@@ -462,6 +464,7 @@ public final class Constants {
     public static final String URL_PREFIX = "stream://";
     public static final String DESCRIPTION = "stream.description";
     public static final String FORMAT_SPECIFICATION = "stream.format.specification";
+    public static final String COMPRESSION = "stream.compression";
 
     /**
      * Contains HTTP headers used by Stream handler.
@@ -559,6 +562,7 @@ public final class Constants {
     public static final String QUEUE_SIZE = "metrics.processor.queue.size";
 
     public static final String ENTITY_TABLE_NAME = "metrics.data.entity.tableName";
+    public static final String ENTITY_TABLE_CACHE_MAX_WEIGHT = "metrics.data.entity.cache.max.weight";
     public static final String METRICS_TABLE_PREFIX = "metrics.data.table.prefix";
     public static final String TIME_SERIES_TABLE_ROLL_TIME = "metrics.data.table.ts.rollTime";
 
@@ -1112,6 +1116,7 @@ public final class Constants {
   public static final String CFG_DATA_LEVELDB_BLOCKSIZE = "data.local.storage.blocksize";
   public static final String CFG_DATA_LEVELDB_CACHESIZE = "data.local.storage.cachesize";
   public static final String CFG_DATA_LEVELDB_FSYNC = "data.local.storage.fsync";
+  public static final String CFG_DATA_LEVELDB_SINGLE_DB = "data.local.storage.single.db";
 
   /**
    * Defaults for Data Fabric.
@@ -1120,6 +1125,7 @@ public final class Constants {
   public static final int DEFAULT_DATA_LEVELDB_BLOCKSIZE = 1024;
   public static final long DEFAULT_DATA_LEVELDB_CACHESIZE = 1024 * 1024 * 100;
   public static final boolean DEFAULT_DATA_LEVELDB_FSYNC = true;
+  public static final boolean DEFAULT_DATA_LEVELDB_SINGLE_DB = false;
 
   /**
    * Config for Log Collection.
@@ -1231,6 +1237,7 @@ public final class Constants {
     public static final String LOCAL_DATA_CLEANUP_FREQUENCY = "messaging.local.data.cleanup.frequency.secs";
 
     public static final String CACHE_SIZE_MB = "messaging.cache.size.mb";
+    public static final String CACHE_OFFHEAP_ENABLED = "messaging.cache.offheap.enabled";
 
     public static final String HBASE_MAX_SCAN_THREADS = "messaging.hbase.max.scan.threads";
     public static final String HBASE_SCAN_CACHE_ROWS = "messaging.hbase.scan.cache.rows";
@@ -1242,6 +1249,8 @@ public final class Constants {
     public static final String SYSTEM_TOPICS = "messaging.system.topics";
     public static final String TABLE_CACHE_EXPIRATION_SECONDS = "messaging.table.expiration.seconds";
     public static final String TOPIC_DEFAULT_TTL_SECONDS = "messaging.topic.default.ttl.seconds";
+    public static final String WRITER_MAX_BATCH_SIZE = "messaging.writer.max.batch.size";
+    public static final String WRITER_MAX_LINGER_MS = "messaging.writer.max.linger.ms";
     public static final String COPROCESSOR_METADATA_CACHE_UPDATE_FREQUENCY_SECONDS =
       "messaging.coprocessor.metadata.cache.update.frequency.seconds";
 
@@ -1249,6 +1258,8 @@ public final class Constants {
     public static final String HTTP_SERVER_EXECUTOR_THREADS = "messaging.http.server.executor.threads";
     public static final String HTTP_SERVER_MAX_REQUEST_SIZE_MB = "messaging.http.server.max.request.size.mb";
     public static final String HTTP_SERVER_CONSUME_CHUNK_SIZE = "messaging.http.server.consume.chunk.size";
+    public static final String HTTP_SERVER_POLL_THREADS = "messaging.http.server.poll.threads";
+    public static final String HTTP_SERVER_MAX_POLL_TIMEOUT_MS = "messaging.http.server.max.poll.timeout.ms";
 
 
     public static final String CONTAINER_VIRTUAL_CORES = "messaging.container.num.cores";
@@ -0,0 +1,418 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.common.lang.jar;
+
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.utils.DirUtils;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.InputSupplier;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.apache.twill.filesystem.Location;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
+
+/**
+ * A node-local cache of unpacked jars, so that the same artifact is only unpacked once, no matter how many
+ * classloaders are created from it. Jars are identified by the SHA-256 checksum of their content, hence jars with
+ * the same content at different locations share the same directory, and a jar that changes is unpacked again.
+ *
+ * Each {@link #acquire(Location)} returns a {@link Reference} to the unpacked directory, which must be closed when
+ * the directory is no longer used. Directories that are not referenced are kept for reuse, up to a configurable
+ * number, after which the least recently released ones are deleted. The unpacked directories are shared and
+ * must not be modified by their users.
+ *
+ * A single instance is shared through Guice by the components of a process. Each instance uses its own directory,
+ * which is deleted when the process exits.
+ *
+ * This class is thread safe.
+ */
+@Singleton
+public final class UnpackedJarCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(UnpackedJarCache.class);
+  private static final int MAX_CHECKSUMS = 1000;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final File baseDir;
+  private final int maxUnused;
+  // checksums of the jars seen recently, by location, to avoid reading jars that did not change
+  private final Cache<String, Checksum> checksums = CacheBuilder.newBuilder().maximumSize(MAX_CHECKSUMS).build();
+  // guarded by this
+  private final Map<String, Entry> entries = new HashMap<>();
+  // entries that are not referenced, in the order they were released; guarded by this
+  private final LinkedHashMap<String, Entry> unused = new LinkedHashMap<>();
+  // guarded by this, read by the shutdown hook
+  private volatile File cacheDir;
+  private boolean shutdownHookAdded;
+
+  @Inject
+  public UnpackedJarCache(CConfiguration cConf) {
+    this(cConf, cConf.getInt(Constants.AppFabric.UNPACKED_JAR_CACHE_MAX_UNUSED));
+  }
+
+  /**
+   * Creates a cache in the temporary directory configured in the given configuration, which keeps at most the
+   * given number of directories that are not referenced.
+   */
+  public UnpackedJarCache(CConfiguration cConf, int maxUnused) {
+    this(new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR), cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile(),
+         maxUnused);
+  }
+
+  @VisibleForTesting
+  UnpackedJarCache(File baseDir, int maxUnused) {
+    this.baseDir = baseDir;
+    this.maxUnused = maxUnused;
+  }
+
+  /**
+   * Returns a reference to the directory that contains the unpacked content of the given jar, unpacking it if needed.
+   *
+   * @param jarLocation location of the jar
+   * @return a reference to the unpacked directory, which must be closed when the directory is no longer used
+   * @throws IOException if failed to read or to unpack the jar
+   */
+  public Reference acquire(Location jarLocation) throws IOException {
+    Entry entry = getUnpackedEntry(jarLocation);
+    if (entry != null) {
+      return new Reference(entry);
+    }
+
+    // Only compute the checksum first, since the same content may already be unpacked from another location.
+    // Unpacking verifies the checksum again, in case the jar is replaced in the meantime.
+    String key = jarLocation.toURI().toString();
+    long lastModified = jarLocation.lastModified();
+    long length = jarLocation.length();
+    HashingInputSupplier jarSupplier = new HashingInputSupplier(jarLocation);
+    // Closing the stream reads the whole content
+    jarSupplier.getInput().close();
+    String checksum = jarSupplier.getChecksum();
+    checksums.put(key, new Checksum(lastModified, length, checksum));
+
+    entry = reference(checksum);
+    try {
+      entry.unpack(jarLocation);
+    } catch (IOException | RuntimeException e) {
+      checksums.invalidate(key);
+      release(entry);
+      throw e;
+    }
+    return new Reference(entry);
+  }
+
+  /**
+   * Returns a referenced entry for the given jar, if the jar did not change since its checksum was computed,
+   * and its unpacked directory still exists.
+   */
+  @Nullable
+  private Entry getUnpackedEntry(Location jarLocation) throws IOException {
+    Checksum checksum = checksums.getIfPresent(jarLocation.toURI().toString());
+    if (checksum == null || checksum.lastModified != jarLocation.lastModified()
+      || checksum.length != jarLocation.length()) {
+      return null;
+    }
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(checksum.checksum);
+      if (entry == null) {
+        return null;
+      }
+      entry.refCount++;
+      unused.remove(checksum.checksum);
+    }
+    if (entry.isUnpacked()) {
+      return entry;
+    }
+    // Either being unpacked by another thread, or failed. Let the caller go through the full path.
+    release(entry);
+    return null;
+  }
+
+  private synchronized Entry reference(String checksum) {
+    Entry entry = entries.get(checksum);
+    if (entry == null) {
+      entry = new Entry(checksum);
+      entries.put(checksum, entry);
+    }
+    entry.refCount++;
+    unused.remove(checksum);
+    return entry;
+  }
+
+  private void release(Entry entry) {
+    List<Entry> evicted = new ArrayList<>();
+    synchronized (this) {
+      if (--entry.refCount > 0) {
+        return;
+      }
+      if (!entry.isUnpacked()) {
+        // Nothing to keep for a failed unpacking
+        entries.remove(entry.checksum);
+        evicted.add(entry);
+      } else {
+        unused.put(entry.checksum, entry);
+        Iterator<Entry> iterator = unused.values().iterator();
+        while (unused.size() > maxUnused) {
+          Entry evict = iterator.next();
+          iterator.remove();
+          entries.remove(evict.checksum);
+          evicted.add(evict);
+        }
+      }
+    }
+    // Deletes outside of the lock, since it can take a while. Evicted entries can't be referenced again.
+    for (Entry evict : evicted) {
+      evict.delete();
+    }
+  }
+
+  /**
+   * Returns the directory of this cache, creating it if needed. It is deleted when the process exits.
+   */
+  private synchronized File getCacheDir() throws IOException {
+    if (cacheDir == null || !cacheDir.isDirectory()) {
+      File parent = new File(baseDir, "unpacked.jars");
+      if (!DirUtils.mkdirs(parent)) {
+        throw new IOException("Failed to create directory " + parent);
+      }
+      cacheDir = DirUtils.createTempDir(parent);
+      if (!shutdownHookAdded) {
+        // The directory can be recreated if it was removed from under the cache, hence the hook deletes the latest one
+        Runtime.getRuntime().addShutdownHook(new Thread("unpacked-jar-cache-cleanup") {
+          @Override
+          public void run() {
+            try {
+              DirUtils.deleteDirectoryContents(cacheDir);
+            } catch (IOException e) {
+              // Nothing much can be done during shutdown
+            }
+          }
+        });
+        shutdownHookAdded = true;
+      }
+    }
+    return cacheDir;
+  }
+
+  /**
+   * A reference to an unpacked jar directory. Closing it releases the reference.
+   */
+  public final class Reference implements Closeable {
+
+    private final Entry entry;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private Reference(Entry entry) {
+      this.entry = entry;
+    }
+
+    /**
+     * Returns the directory that contains the unpacked content of the jar. It must not be modified.
+     */
+    public File getDirectory() {
+      return entry.dir;
+    }
+
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        release(entry);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return "UnpackedJarCache.Reference{dir=" + entry.dir + "}";
+    }
+  }
+
+  /**
+   * The checksum of a jar, with the modification time and length of the jar when it was computed.
+   */
+  private static final class Checksum {
+    private final long lastModified;
+    private final long length;
+    private final String checksum;
+
+    private Checksum(long lastModified, long length, String checksum) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.checksum = checksum;
+    }
+  }
+
+  /**
+   * An {@link InputSupplier} of the content of a jar, which computes the checksum of the content read.
+   * The whole content is read when the stream is closed, so that the checksum does not depend on how much of the
+   * stream the reader consumed. Only one stream can be opened.
+   */
+  private static final class HashingInputSupplier implements InputSupplier<InputStream> {
+    private final Location location;
+    private final Hasher hasher = Hashing.sha256().newHasher();
+    private String checksum;
+
+    private HashingInputSupplier(Location location) {
+      this.location = location;
+    }
+
+    @Override
+    public InputStream getInput() throws IOException {
+      return new FilterInputStream(location.getInputStream()) {
+        @Override
+        public int read() throws IOException {
+          int b = super.read();
+          if (b >= 0) {
+            hasher.putByte((byte) b);
+          }
+          return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+          int n = super.read(b, off, len);
+          if (n > 0) {
+            hasher.putBytes(b, off, n);
+          }
+          return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+          // Skipped bytes are read, so that they are part of the checksum
+          if (n <= 0) {
+            return 0L;
+          }
+          byte[] buffer = new byte[(int) Math.min(n, BUFFER_SIZE)];
+          long skipped = 0L;
+          while (skipped < n) {
+            int len = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (len < 0) {
+              break;
+            }
+            skipped += len;
+          }
+          return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+          return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+          try {
+            if (checksum == null) {
+              byte[] buffer = new byte[BUFFER_SIZE];
+              while (read(buffer) >= 0) {
+                // Read the remaining content for the checksum
+              }
+              checksum = hasher.hash().toString();
+            }
+          } finally {
+            super.close();
+          }
+        }
+      };
+    }
+
+    /**
+     * Returns the checksum of the content, which is only available after the stream is closed.
+     */
+    String getChecksum() {
+      Preconditions.checkState(checksum != null, "Checksum is not available before the stream is closed");
+      return checksum;
+    }
+  }
+
+  /**
+   * An unpacked jar directory with its reference count.
+   */
+  private final class Entry {
+    private final String checksum;
+    // guarded by UnpackedJarCache.this
+    private int refCount;
+    private File dir;
+    private volatile boolean unpacked;
+
+    private Entry(String checksum) {
+      this.checksum = checksum;
+    }
+
+    boolean isUnpacked() {
+      return unpacked && dir.isDirectory();
+    }
+
+    /**
+     * Unpacks the given jar for this entry, unless it was already done. Concurrent callers wait for the first one.
+     *
+     * @throws IOException if failed to unpack, or if the content of the jar does not match the checksum
+     */
+    synchronized void unpack(Location jarLocation) throws IOException {
+      if (unpacked) {
+        if (dir.isDirectory()) {
+          return;
+        }
+        // The directory was removed from under the cache, for example by a cleanup of the temp directory
+        LOG.debug("Unpacked directory {} of jar with checksum {} no longer exists", dir, checksum);
+        unpacked = false;
+      }
+      dir = DirUtils.createTempDir(getCacheDir());
+      HashingInputSupplier jarSupplier = new HashingInputSupplier(jarLocation);
+      BundleJarUtil.unJar(jarSupplier, dir);
+      if (!checksum.equals(jarSupplier.getChecksum())) {
+        delete();
+        throw new IOException("Jar " + jarLocation + " changed while it was being unpacked");
+      }
+      unpacked = true;
+      LOG.debug("Unpacked jar with checksum {} to {}", checksum, dir);
+    }
+
+    synchronized void delete() {
+      if (dir == null || !dir.exists()) {
+        return;
+      }
+      try {
+        DirUtils.deleteDirectoryContents(dir);
+      } catch (IOException e) {
+        LOG.warn("Failed to delete unpacked jar directory {}", dir, e);
+      }
+    }
+  }
+}
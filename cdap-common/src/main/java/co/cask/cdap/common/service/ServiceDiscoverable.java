@@ -26,12 +26,14 @@ import co.cask.cdap.proto.id.ProgramId;
  */
 public final class ServiceDiscoverable {
 
+  private static final String PREFIX = ProgramType.SERVICE.name().toLowerCase() + ".";
+
   public static String getName(ProgramId programId) {
     return getName(programId.getNamespace(), programId.getApplication(), programId.getProgram());
   }
 
   public static String getName(String namespaceId, String appId, String serviceId) {
-    return String.format("%s.%s.%s.%s", ProgramType.SERVICE.name().toLowerCase(), namespaceId, appId, serviceId);
+    return PREFIX + namespaceId + "." + appId + "." + serviceId;
   }
 
   public static ProgramId getId(String name) {
@@ -45,7 +47,7 @@ public final class ServiceDiscoverable {
   }
 
   public static boolean isServiceDiscoverable(String discoverableName) {
-    return discoverableName.startsWith(String.format("%s.", ProgramType.SERVICE.name().toLowerCase()));
+    return discoverableName.startsWith(PREFIX);
   }
 
   private ServiceDiscoverable() {
@@ -0,0 +1,201 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.common.lang.jar;
+
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.guice.ConfigModule;
+import co.cask.cdap.common.io.Locations;
+import co.cask.cdap.common.utils.DirUtils;
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Unit tests for {@link UnpackedJarCache}.
+ */
+public class UnpackedJarCacheTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testSharedContent() throws IOException {
+    UnpackedJarCache cache = new UnpackedJarCache(TEMP_FOLDER.newFolder(), 10);
+    Location jar1 = createJar(TEMP_FOLDER.newFile("jar1.jar"), "content");
+    Location jar2 = createJar(TEMP_FOLDER.newFile("jar2.jar"), "content");
+    Location jar3 = createJar(TEMP_FOLDER.newFile("jar3.jar"), "other");
+
+    try (
+      UnpackedJarCache.Reference ref1 = cache.acquire(jar1);
+      UnpackedJarCache.Reference ref2 = cache.acquire(jar2);
+      UnpackedJarCache.Reference ref3 = cache.acquire(jar3)
+    ) {
+      // Same content at different locations shares the same directory
+      Assert.assertEquals(ref1.getDirectory(), ref2.getDirectory());
+      Assert.assertNotEquals(ref1.getDirectory(), ref3.getDirectory());
+      Assert.assertEquals("content", readFile(ref1.getDirectory()));
+      Assert.assertEquals("other", readFile(ref3.getDirectory()));
+    }
+
+    // A changed jar gets unpacked again
+    try (UnpackedJarCache.Reference ref = cache.acquire(jar1)) {
+      File dir = ref.getDirectory();
+      createJar(new File(jar1.toURI()), "changed content");
+      try (UnpackedJarCache.Reference changed = cache.acquire(jar1)) {
+        Assert.assertNotEquals(dir, changed.getDirectory());
+        Assert.assertEquals("changed content", readFile(changed.getDirectory()));
+      }
+      Assert.assertEquals("content", readFile(dir));
+    }
+  }
+
+  @Test
+  public void testEviction() throws IOException {
+    UnpackedJarCache cache = new UnpackedJarCache(TEMP_FOLDER.newFolder(), 1);
+    Location jar1 = createJar(TEMP_FOLDER.newFile(), "jar1");
+    Location jar2 = createJar(TEMP_FOLDER.newFile(), "jar2");
+
+    UnpackedJarCache.Reference ref1 = cache.acquire(jar1);
+    UnpackedJarCache.Reference ref2 = cache.acquire(jar2);
+    File dir1 = ref1.getDirectory();
+    File dir2 = ref2.getDirectory();
+
+    // Released entries are kept up to the maximum
+    ref1.close();
+    // Closing twice has no effect
+    ref1.close();
+    Assert.assertTrue(dir1.isDirectory());
+    try (UnpackedJarCache.Reference ref = cache.acquire(jar1)) {
+      Assert.assertEquals(dir1, ref.getDirectory());
+    }
+
+    // Releasing the second entry evicts the least recently released one
+    ref2.close();
+    Assert.assertFalse(dir1.exists());
+    Assert.assertTrue(dir2.isDirectory());
+
+    // An evicted jar gets unpacked again
+    try (UnpackedJarCache.Reference ref = cache.acquire(jar1)) {
+      Assert.assertNotEquals(dir1, ref.getDirectory());
+      Assert.assertEquals("jar1", readFile(ref.getDirectory()));
+    }
+
+    // A directory removed from under the cache gets unpacked again
+    try (UnpackedJarCache.Reference ref = cache.acquire(jar2)) {
+      dir2 = ref.getDirectory();
+    }
+    DirUtils.deleteDirectoryContents(dir2);
+    try (UnpackedJarCache.Reference ref = cache.acquire(jar2)) {
+      Assert.assertEquals("jar2", readFile(ref.getDirectory()));
+    }
+  }
+
+  @Test
+  public void testConcurrentAcquire() throws Exception {
+    final UnpackedJarCache cache = new UnpackedJarCache(TEMP_FOLDER.newFolder(), 0);
+    final Location jar = createJar(TEMP_FOLDER.newFile(), "concurrent");
+    int threads = 10;
+    final CyclicBarrier barrier = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<UnpackedJarCache.Reference> refs = new ArrayList<>();
+    try {
+      List<Future<UnpackedJarCache.Reference>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(new Callable<UnpackedJarCache.Reference>() {
+          @Override
+          public UnpackedJarCache.Reference call() throws Exception {
+            barrier.await();
+            return cache.acquire(jar);
+          }
+        }));
+      }
+      for (Future<UnpackedJarCache.Reference> future : futures) {
+        refs.add(future.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // All threads share the same directory, which is only deleted when the last reference is released
+    Set<File> dirs = new HashSet<>();
+    for (UnpackedJarCache.Reference ref : refs) {
+      dirs.add(ref.getDirectory());
+    }
+    Assert.assertEquals(1, dirs.size());
+    File dir = dirs.iterator().next();
+    Assert.assertEquals("concurrent", readFile(dir));
+    for (UnpackedJarCache.Reference ref : refs) {
+      Assert.assertTrue(dir.isDirectory());
+      ref.close();
+    }
+    Assert.assertFalse(dir.exists());
+  }
+
+  @Test
+  public void testInjection() throws IOException {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, TEMP_FOLDER.newFolder().getAbsolutePath());
+    Injector injector = Guice.createInjector(new ConfigModule(cConf));
+
+    // The cache is shared by everything created from the same injector
+    UnpackedJarCache cache = injector.getInstance(UnpackedJarCache.class);
+    Assert.assertSame(cache, injector.getInstance(UnpackedJarCache.class));
+
+    Location jar = createJar(TEMP_FOLDER.newFile(), "injected");
+    try (UnpackedJarCache.Reference ref = cache.acquire(jar)) {
+      Assert.assertEquals("injected", readFile(ref.getDirectory()));
+      File tempDir = new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR), cConf.get(Constants.AppFabric.TEMP_DIR));
+      Assert.assertTrue(ref.getDirectory().getAbsolutePath().startsWith(tempDir.getAbsolutePath()));
+    }
+  }
+
+  private Location createJar(File file, String content) throws IOException {
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(file))) {
+      output.putNextEntry(new JarEntry("file.txt"));
+      output.write(content.getBytes(Charsets.UTF_8));
+      output.closeEntry();
+    }
+    return Locations.toLocation(file);
+  }
+
+  private String readFile(File dir) throws IOException {
+    return Files.toString(new File(dir, "file.txt"), Charsets.UTF_8);
+  }
+}
@@ -930,6 +930,65 @@ public abstract class StreamDataFileTestBase {
     }
   }
 
+  @Test
+  public void testCompression() throws IOException, InterruptedException {
+    for (String compression : ImmutableList.of(StreamCompressionCodec.SNAPPY, StreamCompressionCodec.DEFLATE,
+                                               StreamCompressionCodec.LZ4)) {
+      Location dir = StreamFileTestUtils.createTempDir(getLocationFactory());
+      Location eventFile = dir.getTempFile(".dat");
+      Location indexFile = dir.getTempFile(".idx");
+
+      // Write blocks of highly compressible events, and blocks of tiny events, which compress to fewer bytes
+      // than the number of events in the block
+      try (StreamDataFileWriter writer = new StreamDataFileWriter(
+        Locations.newOutputSupplier(eventFile), Locations.newOutputSupplier(indexFile), 10L,
+        ImmutableMap.of(StreamDataFileConstants.Property.Key.COMPRESSION, compression))) {
+        for (int i = 0; i < 100; i++) {
+          writer.append(StreamFileTestUtils.createEvent(i, Strings.repeat('x', 100) + i));
+        }
+        Map<String, String> headers = ImmutableMap.of();
+        List<StreamEvent> tinyEvents = Lists.newArrayList();
+        for (int i = 0; i < 200; i++) {
+          tinyEvents.add(new StreamEvent(headers, ByteBuffer.allocate(0), 100 + i / 50));
+        }
+        writer.appendAll(tinyEvents.iterator());
+      }
+
+      StreamDataFileReader reader = StreamDataFileReader.create(Locations.newInputSupplier(eventFile));
+      List<PositionStreamEvent> events = Lists.newArrayList();
+      Assert.assertEquals(300, reader.read(events, 300, 0, TimeUnit.SECONDS));
+      Assert.assertEquals(-1, reader.read(Lists.<PositionStreamEvent>newArrayList(), 1, 0, TimeUnit.SECONDS));
+      reader.close();
+
+      for (int i = 0; i < 100; i++) {
+        Assert.assertEquals((long) i, events.get(i).getTimestamp());
+        Assert.assertEquals(Strings.repeat('x', 100) + i,
+                            Charsets.UTF_8.decode(events.get(i).getBody()).toString());
+      }
+      // Event positions must be unique and increasing, so that readers can resume from them
+      for (int i = 1; i < events.size(); i++) {
+        Assert.assertTrue(events.get(i).getStart() > events.get(i - 1).getStart());
+      }
+
+      // Reading from any offset gives the first event at or after the offset
+      Random random = new Random();
+      for (int i = 0; i < events.size(); i++) {
+        long offset = events.get(i).getStart() - random.nextInt(5);
+        int expected = i;
+        while (expected > 0 && events.get(expected - 1).getStart() >= offset) {
+          expected--;
+        }
+        reader = StreamDataFileReader.createWithOffset(Locations.newInputSupplier(eventFile),
+                                                       Locations.newInputSupplier(indexFile), offset);
+        List<PositionStreamEvent> readEvents = Lists.newArrayList();
+        Assert.assertEquals(1, reader.read(readEvents, 1, 0, TimeUnit.SECONDS));
+        reader.close();
+        Assert.assertEquals(events.get(expected).getStart(), readEvents.get(0).getStart());
+        Assert.assertEquals(events.get(expected).getTimestamp(), readEvents.get(0).getTimestamp());
+      }
+    }
+  }
+
   /**
    * This unit test is to test the v2 file format that supports
    * defaulting values in stream event (timestamp and headers).
@@ -21,15 +21,20 @@ import co.cask.cdap.api.dataset.DatasetAdmin;
 import co.cask.cdap.api.dataset.DatasetContext;
 import co.cask.cdap.api.dataset.DatasetProperties;
 import co.cask.cdap.api.dataset.DatasetSpecification;
+import co.cask.cdap.api.dataset.table.ColumnRangeFilter;
+import co.cask.cdap.api.dataset.table.ColumnValueFilter;
 import co.cask.cdap.api.dataset.table.ConflictDetection;
+import co.cask.cdap.api.dataset.table.FilterList;
 import co.cask.cdap.api.dataset.table.Get;
 import co.cask.cdap.api.dataset.table.Put;
+import co.cask.cdap.api.dataset.table.RowPrefixFilter;
 import co.cask.cdap.api.dataset.table.TableProperties;
 import co.cask.cdap.api.dataset.table.Tables;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.namespace.SimpleNamespaceQueryAdmin;
 import co.cask.cdap.data.hbase.HBaseTestBase;
 import co.cask.cdap.data.hbase.HBaseTestFactory;
+import co.cask.cdap.data2.dataset2.TableAssert;
 import co.cask.cdap.data2.dataset2.lib.table.BufferingTable;
 import co.cask.cdap.data2.dataset2.lib.table.BufferingTableTest;
 import co.cask.cdap.data2.increment.hbase.IncrementHandlerState;
@@ -52,6 +57,9 @@ import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.HTableDescriptor;
 import org.apache.hadoop.hbase.client.HBaseAdmin;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.PrefixFilter;
+import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
 import org.apache.hadoop.hbase.regionserver.HRegion;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
 import org.apache.tephra.DefaultTransactionExecutor;
@@ -338,6 +346,132 @@ public class HBaseTableTest extends BufferingTableTest<BufferingTable> {
     Assert.assertEquals("t", hcd.getNameAsString());
   }
 
+  @Test
+  public void testFilterListPushdown() throws Exception {
+    testFilterListPushdown(false);
+    testFilterListPushdown(true);
+  }
+
+  private void testFilterListPushdown(boolean readlessIncrements) throws Exception {
+    DatasetProperties props = TableProperties.builder().setReadlessIncrementSupport(readlessIncrements).build();
+    String tableName = "testfilterlist" + readlessIncrements;
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, tableName, props);
+    admin.create();
+    try {
+      final HBaseTable table = (HBaseTable) getTable(CONTEXT1, tableName, props);
+      final FilterList rowFilters = new FilterList(
+        FilterList.Operator.MUST_PASS_ALL,
+        new RowPrefixFilter(b("a")),
+        new ColumnValueFilter(b("c1"), ColumnValueFilter.CompareOp.EQUAL, b("v1")));
+
+      // Value filters see the increment deltas with readless increments, so they cannot be pushed down
+      Filter hFilter = table.toHBaseFilter(rowFilters);
+      if (readlessIncrements) {
+        Assert.assertNull(hFilter);
+      } else {
+        Assert.assertTrue(hFilter instanceof org.apache.hadoop.hbase.filter.FilterList);
+        List<Filter> hFilters = ((org.apache.hadoop.hbase.filter.FilterList) hFilter).getFilters();
+        Assert.assertEquals(2, hFilters.size());
+        Assert.assertTrue(hFilters.get(0) instanceof PrefixFilter);
+        Assert.assertTrue(hFilters.get(1) instanceof SingleColumnValueFilter);
+      }
+      // A value filter after a column selection would only see the selected columns in HBase
+      Assert.assertNull(table.toHBaseFilter(new FilterList(
+        FilterList.Operator.MUST_PASS_ALL,
+        new ColumnRangeFilter(b("c2"), null),
+        new ColumnValueFilter(b("c1"), ColumnValueFilter.CompareOp.EQUAL, b("v1")))));
+      // Alternatives are evaluated on the client
+      Assert.assertNull(table.toHBaseFilter(new FilterList(
+        FilterList.Operator.MUST_PASS_ONE, new RowPrefixFilter(b("a")), new RowPrefixFilter(b("b")))));
+
+      TransactionSystemClient txClient = new DetachedTxSystemClient();
+      TransactionExecutor executor = new DefaultTransactionExecutor(txClient, table);
+      executor.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          table.put(new Put("a1").add("c1", "v1").add("c2", "v2"));
+          table.put(new Put("a2").add("c1", "v2").add("c2", "v2"));
+          table.put(new Put("b1").add("c1", "v1").add("c2", "v2"));
+        }
+      });
+      executor.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          TableAssert.assertScan(new byte[][] { b("a1") },
+                                 new byte[][][] { { b("c1"), b("v1"), b("c2"), b("v2") } },
+                                 table, new co.cask.cdap.api.dataset.table.Scan(null, null, rowFilters));
+          TableAssert.assertScan(new byte[][] { b("a1"), b("a2") },
+                                 new byte[][][] { { b("c2"), b("v2") }, { b("c2"), b("v2") } },
+                                 table, new co.cask.cdap.api.dataset.table.Scan(null, null, new FilterList(
+                                   FilterList.Operator.MUST_PASS_ALL,
+                                   new RowPrefixFilter(b("a")),
+                                   new ColumnRangeFilter(b("c2"), null))));
+        }
+      });
+    } finally {
+      admin.drop();
+    }
+  }
+
+  @Test
+  public void testScanHints() throws Exception {
+    // Small caching and batch, so that a scan takes multiple prefetches and rows come in multiple partial results
+    DatasetProperties props = DatasetProperties.builder()
+      .add(HBaseTable.SCAN_CACHING, "3")
+      .add(HBaseTable.SCAN_BATCH, "2")
+      .add(HBaseTable.SCAN_PREFETCH, "true")
+      .build();
+    String tableName = "testscanhints";
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, tableName, props);
+    admin.create();
+    try {
+      final HBaseTable table = (HBaseTable) getTable(CONTEXT1, tableName, props);
+      final int numRows = 10;
+      final int numColumns = 5;
+      TransactionSystemClient txClient = new DetachedTxSystemClient();
+      TransactionExecutor executor = new DefaultTransactionExecutor(txClient, table);
+      executor.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          for (int i = 0; i < numRows; i++) {
+            Put put = new Put("r" + i);
+            for (int j = 0; j < numColumns; j++) {
+              put.add("c" + j, "v" + i + j);
+            }
+            table.put(put);
+          }
+        }
+      });
+
+      final byte[][] rows = new byte[numRows][];
+      final byte[][][] columns = new byte[numRows][][];
+      for (int i = 0; i < numRows; i++) {
+        rows[i] = b("r" + i);
+        columns[i] = new byte[numColumns * 2][];
+        for (int j = 0; j < numColumns; j++) {
+          columns[i][j * 2] = b("c" + j);
+          columns[i][j * 2 + 1] = b("v" + i + j);
+        }
+      }
+      final ColumnValueFilter valueFilter = new ColumnValueFilter(b("c1"), ColumnValueFilter.CompareOp.EQUAL, b("v31"));
+      // The value filter is pushed down, which HBase rejects for batched scans
+      Assert.assertTrue(table.toHBaseFilter(valueFilter) instanceof SingleColumnValueFilter);
+      executor.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // Partial results are merged back into whole rows
+          TableAssert.assertScan(rows, columns, table, new co.cask.cdap.api.dataset.table.Scan(null, null));
+          TableAssert.assertScan(new byte[][] { rows[3] }, new byte[][][] { columns[3] }, table,
+                                 new co.cask.cdap.api.dataset.table.Scan(null, null, valueFilter));
+          TableAssert.assertScan(new byte[][] { rows[1] }, new byte[][][] { columns[1] }, table,
+                                 new co.cask.cdap.api.dataset.table.Scan(null, null, new RowPrefixFilter(b("r1"))));
+        }
+      });
+    } finally {
+      admin.drop();
+    }
+  }
+
   @Test
   public void testTableWithPermissions() throws IOException {
     DatasetAdmin admin = getTableAdmin(CONTEXT1, "validPerms", TableProperties.builder()
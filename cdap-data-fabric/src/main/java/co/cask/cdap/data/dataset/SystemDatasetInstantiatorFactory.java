@@ -16,7 +16,7 @@
 
 package co.cask.cdap.data.dataset;
 
-import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.data2.datafabric.dataset.type.DirectoryClassLoaderProvider;
 import co.cask.cdap.data2.dataset2.DatasetFramework;
 import com.google.inject.Inject;
@@ -28,20 +28,20 @@ import javax.annotation.Nullable;
  * Creates {@link SystemDatasetInstantiator} instances for use in system contexts. This is used instead of directly
  * creating a {@link SystemDatasetInstantiator} to ensure that the same temporary base directory is used,
  * and so that the factory can be injected directly instead of injecting a LocationFactory, DatasetFramework,
- * and CConfiguration object everywhere it is used.
+ * and UnpackedJarCache object everywhere it is used.
  */
 public class SystemDatasetInstantiatorFactory {
   private final LocationFactory locationFactory;
   private final DatasetFramework datasetFramework;
-  private final CConfiguration cConf;
+  private final UnpackedJarCache unpackedJarCache;
 
   @Inject
   public SystemDatasetInstantiatorFactory(LocationFactory locationFactory,
                                           DatasetFramework datasetFramework,
-                                          CConfiguration cConf) {
+                                          UnpackedJarCache unpackedJarCache) {
     this.locationFactory = locationFactory;
     this.datasetFramework = datasetFramework;
-    this.cConf = cConf;
+    this.unpackedJarCache = unpackedJarCache;
   }
 
   /**
@@ -63,7 +63,7 @@ public class SystemDatasetInstantiatorFactory {
    */
   public SystemDatasetInstantiator create(@Nullable ClassLoader parentClassLoader) {
     return new SystemDatasetInstantiator(datasetFramework, parentClassLoader,
-      new DirectoryClassLoaderProvider(cConf, locationFactory),
+      new DirectoryClassLoaderProvider(unpackedJarCache, locationFactory),
       null);
   }
 
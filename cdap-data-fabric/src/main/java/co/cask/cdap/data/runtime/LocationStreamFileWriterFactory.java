@@ -69,7 +69,7 @@ public final class LocationStreamFileWriterFactory implements StreamFileWriterFa
       });
 
       return new TimePartitionedStreamFileWriter(baseLocation, config.getPartitionDuration(),
-                                                 filePrefix, config.getIndexInterval(),
+                                                 filePrefix, config.getIndexInterval(), config.getCompression(),
                                                  config.getStreamId(), impersonator);
     } catch (Exception e) {
       Throwables.propagateIfPossible(e, IOException.class);
@@ -0,0 +1,219 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data.stream;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+
+/**
+ * Codecs for compressing the data blocks of stream data files. The codec of a file is recorded in the file
+ * properties with the {@link StreamDataFileConstants.Property.Key#COMPRESSION} key.
+ */
+public abstract class StreamCompressionCodec {
+
+  public static final String NONE = "none";
+  public static final String SNAPPY = "snappy";
+  public static final String DEFLATE = "deflate";
+  public static final String LZ4 = "lz4";
+
+  /**
+   * Returns the codec of the given name.
+   *
+   * @param name name of the codec
+   * @return the codec, or {@code null} if the name is {@code null} or {@link #NONE}
+   * @throws IllegalArgumentException if the codec is not supported
+   */
+  @Nullable
+  public static StreamCompressionCodec get(@Nullable String name) {
+    if (name == null || NONE.equals(name)) {
+      return null;
+    }
+    switch (name) {
+      case SNAPPY:
+        return new SnappyCodec();
+      case DEFLATE:
+        return new DeflateCodec();
+      case LZ4:
+        return new LZ4Codec();
+      default:
+        throw new IllegalArgumentException(String.format("Unsupported stream compression '%s'. Must be one of %s.",
+                                                         name, NONE + ", " + SNAPPY + ", " + DEFLATE + ", " + LZ4));
+    }
+  }
+
+  private StreamCompressionCodec() {
+  }
+
+  /**
+   * Returns the name of this codec.
+   */
+  public abstract String getName();
+
+  /**
+   * Returns the maximum size of the compressed data for input of the given size.
+   */
+  abstract int maxCompressedLength(int length);
+
+  /**
+   * Compresses the given input into the output buffer, which must be at least as large as given by
+   * {@link #maxCompressedLength(int)}.
+   *
+   * @return the size of the compressed data
+   */
+  abstract int compress(byte[] input, int offset, int length, byte[] output) throws IOException;
+
+  /**
+   * Decompresses the given input into the output buffer.
+   *
+   * @param decompressedLength the size of the data before compression
+   * @throws IOException if the input is not valid compressed data of the given size
+   */
+  abstract void decompress(byte[] input, int offset, int length,
+                           byte[] output, int decompressedLength) throws IOException;
+
+  /**
+   * Compression with Snappy.
+   */
+  private static final class SnappyCodec extends StreamCompressionCodec {
+
+    @Override
+    public String getName() {
+      return SNAPPY;
+    }
+
+    @Override
+    int maxCompressedLength(int length) {
+      return Snappy.maxCompressedLength(length);
+    }
+
+    @Override
+    int compress(byte[] input, int offset, int length, byte[] output) throws IOException {
+      return Snappy.compress(input, offset, length, output, 0);
+    }
+
+    @Override
+    void decompress(byte[] input, int offset, int length, byte[] output, int decompressedLength) throws IOException {
+      if (Snappy.uncompressedLength(input, offset, length) != decompressedLength) {
+        throw new IOException("Corrupted snappy data block");
+      }
+      Snappy.uncompress(input, offset, length, output, 0);
+    }
+  }
+
+  /**
+   * Compression with deflate.
+   */
+  private static final class DeflateCodec extends StreamCompressionCodec {
+
+    @Override
+    public String getName() {
+      return DEFLATE;
+    }
+
+    @Override
+    int maxCompressedLength(int length) {
+      // Same bound as zlib deflateBound()
+      return length + (length >> 12) + (length >> 14) + (length >> 25) + 13;
+    }
+
+    @Override
+    int compress(byte[] input, int offset, int length, byte[] output) throws IOException {
+      Deflater deflater = new Deflater();
+      try {
+        deflater.setInput(input, offset, length);
+        deflater.finish();
+        int size = 0;
+        while (!deflater.finished()) {
+          if (size == output.length) {
+            throw new IOException("Output buffer too small for deflate");
+          }
+          size += deflater.deflate(output, size, output.length - size);
+        }
+        return size;
+      } finally {
+        deflater.end();
+      }
+    }
+
+    @Override
+    void decompress(byte[] input, int offset, int length, byte[] output, int decompressedLength) throws IOException {
+      Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(input, offset, length);
+        int size = 0;
+        while (size < decompressedLength && !inflater.finished()) {
+          int len = inflater.inflate(output, size, decompressedLength - size);
+          if (len == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+            break;
+          }
+          size += len;
+        }
+        if (size != decompressedLength) {
+          throw new IOException("Corrupted deflate data block");
+        }
+      } catch (DataFormatException e) {
+        throw new IOException("Corrupted deflate data block", e);
+      } finally {
+        inflater.end();
+      }
+    }
+  }
+
+  /**
+   * Compression with LZ4.
+   */
+  private static final class LZ4Codec extends StreamCompressionCodec {
+
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4SafeDecompressor decompressor = LZ4Factory.fastestInstance().safeDecompressor();
+
+    @Override
+    public String getName() {
+      return LZ4;
+    }
+
+    @Override
+    int maxCompressedLength(int length) {
+      return compressor.maxCompressedLength(length);
+    }
+
+    @Override
+    int compress(byte[] input, int offset, int length, byte[] output) throws IOException {
+      return compressor.compress(input, offset, length, output, 0, output.length);
+    }
+
+    @Override
+    void decompress(byte[] input, int offset, int length, byte[] output, int decompressedLength) throws IOException {
+      try {
+        if (decompressor.decompress(input, offset, length, output, 0, decompressedLength) != decompressedLength) {
+          throw new IOException("Corrupted lz4 data block");
+        }
+      } catch (LZ4Exception e) {
+        throw new IOException("Corrupted lz4 data block", e);
+      }
+    }
+  }
+}
@@ -43,6 +43,9 @@ public final class StreamDataFileConstants {
       // Key to indicate all events in the file is of the same timestamp
       public static final String UNI_TIMESTAMP = "stream.uni.timestamp";
 
+      // Key for the codec that compresses the data blocks. See StreamCompressionCodec for the values.
+      public static final String COMPRESSION = "stream.compression";
+
       // Key prefix for properties that will be defaulted to all events' header
       public static final String EVENT_HEADER_PREFIX = "event.";
     }
@@ -67,6 +67,7 @@ public final class StreamDataFileReader implements FileReader<PositionStreamEven
   private boolean eof;
   private Decoder decoder;
   private StreamEvent eventTemplate;
+  private StreamCompressionCodec codec;
 
   /**
    * Opens a new {@link StreamDataFileReader} with the given inputs.
@@ -299,6 +300,7 @@ public final class StreamDataFileReader implements FileReader<PositionStreamEven
     Map<String, String> properties = StreamUtils.decodeMap(new BinaryDecoder(eventInput));
 
     verifySchema(properties);
+    codec = getCompressionCodec(properties);
 
     // Create event template
     if (fileVersion >= 2) {
@@ -464,6 +466,18 @@ public final class StreamDataFileReader implements FileReader<PositionStreamEven
     }
   }
 
+  /**
+   * Returns the codec that the data blocks are compressed with, or {@code null} if they are not compressed.
+   */
+  @Nullable
+  private StreamCompressionCodec getCompressionCodec(Map<String, String> properties) throws IOException {
+    try {
+      return StreamCompressionCodec.get(properties.get(StreamDataFileConstants.Property.Key.COMPRESSION));
+    } catch (IllegalArgumentException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
   private long readTimestamp() throws IOException {
     ByteStreams.readFully(eventInput, timestampBuffer);
     return Bytes.toLong(timestampBuffer);
@@ -485,7 +499,11 @@ public final class StreamDataFileReader implements FileReader<PositionStreamEven
     // Use the template timestamp if available
     timestamp = eventTemplate.getTimestamp() >= 0 ? eventTemplate.getTimestamp() : timestamp;
     if (acceptTimestamp(filter, timestamp)) {
-      streamEventBuffer.fillBuffer(eventInput, readLength());
+      if (codec == null) {
+        streamEventBuffer.fillBuffer(eventInput, readLength());
+      } else {
+        streamEventBuffer.fillCompressedBuffer(eventInput, readLength(), codec);
+      }
       this.timestamp = timestamp;
       return;
     }
@@ -32,11 +32,13 @@ import com.google.common.io.OutputSupplier;
 import com.google.common.primitives.Longs;
 import org.apache.hadoop.fs.Syncable;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Iterator;
 import java.util.Map;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 
 /**
@@ -50,15 +52,25 @@ import javax.annotation.concurrent.NotThreadSafe;
  * event_file = <header> <data>* <end_marker>
  * header = "E" "1" <properties>
  * properties = Avro encoded with the properties schema
- * data = <timestamp> <length> <stream_event>+
+ * data = <timestamp> <length> (<stream_event>+ | <compressed_events>)
  * timestamp = 8 bytes int64 for timestamp in milliseconds
- * length = Avro encoded int32 for size in bytes for all <stream_event>s
+ * length = Avro encoded int32 for size in bytes for all <stream_event>s, or for the <compressed_events>
  * stream_event = Avro encoded bytes according to the StreamData schema
+ * compressed_events = <raw_length> <compressed_length> <compressed_data> <padding>
+ * raw_length = Avro encoded int32 for size in bytes for all <stream_event>s before compression
+ * compressed_length = Avro encoded int32 for size in bytes of the <compressed_data>
+ * compressed_data = <stream_event>+ compressed with the codec given by the "stream.compression" property
+ * padding = zero bytes, so that the <length> is at least the number of <stream_event>s in the block
  * end_marker = 8 bytes int64 with value == -(close_timestamp)
  *
  * }
  * </pre>
  *
+ * Data blocks are compressed if the "stream.compression" property is set to a codec other than "none".
+ * Since the events in a compressed block do not have a file offset, the position of the n-th event in a
+ * compressed block is the position after the block <length> plus n. The padding keeps these positions within
+ * the block.
+ *
  * Stream index file:
  *
  * <pre>
@@ -84,9 +96,15 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
   private final long indexInterval;
   private final BufferedEncoder encoder;
   private final BufferedEncoder lengthEncoder;
+  @Nullable
+  private final StreamCompressionCodec codec;
+  private final ExposedByteArrayOutputStream blockOutput;
+  private byte[] compressBuffer;
 
   // Timestamp for the current block
   private long currentTimestamp;
+  // Number of events in the current block
+  private int blockEventCount;
   private long position;
   private long nextIndexTime;
   private boolean synced;
@@ -110,12 +128,16 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
    * @param eventOutputSupplier the provider of the {@link OutputStream} for writing events
    * @param indexOutputSupplier the provider of the {@link OutputStream} for writing the index
    * @param indexInterval the time interval in milliseconds for emitting a new index entry
-   * @param properties the property set that will be stored as file properties
+   * @param properties the property set that will be stored as file properties. Data blocks are compressed
+   *                   with the codec given by the {@link StreamDataFileConstants.Property.Key#COMPRESSION} property.
    * @throws IOException if there is an error in preparing the output streams
+   * @throws IllegalArgumentException if the compression codec is not supported
    */
   public StreamDataFileWriter(OutputSupplier<? extends OutputStream> eventOutputSupplier,
                               OutputSupplier<? extends OutputStream> indexOutputSupplier,
                               long indexInterval, Map<String, String> properties) throws IOException {
+    this.codec = StreamCompressionCodec.get(properties.get(StreamDataFileConstants.Property.Key.COMPRESSION));
+    this.blockOutput = codec == null ? null : new ExposedByteArrayOutputStream(BUFFER_SIZE);
     this.eventOutput = eventOutputSupplier.getOutput();
     try {
       this.indexOutput = indexOutputSupplier.getOutput();
@@ -222,6 +244,7 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
 
       // Encodes the event data into buffer.
       StreamEventDataCodec.encode(event, encoder);
+      blockEventCount++;
 
       // Optionally flush if already filled up the buffer.
       if (encoder.size() >= flushLimit) {
@@ -278,16 +301,21 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
       indexOffset = position - Bytes.SIZEOF_LONG;
     }
 
-    // Writes the size of the encoded event
-    lengthEncoder.writeInt(encoder.size());
-    int size = lengthEncoder.size();
-    lengthEncoder.writeTo(eventOutput);
-    position += size;
-
-    // Writes all encoded data from the buffer to the output.
-    size = encoder.size();
-    encoder.writeTo(eventOutput);
-    position += size;
+    if (codec == null) {
+      // Writes the size of the encoded event
+      lengthEncoder.writeInt(encoder.size());
+      int size = lengthEncoder.size();
+      lengthEncoder.writeTo(eventOutput);
+      position += size;
+
+      // Writes all encoded data from the buffer to the output.
+      size = encoder.size();
+      encoder.writeTo(eventOutput);
+      position += size;
+    } else {
+      position += writeCompressedBlock(codec);
+    }
+    blockEventCount = 0;
     if (sync) {
       sync(eventOutput);
     }
@@ -310,6 +338,39 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
     synced = sync;
   }
 
+  /**
+   * Compresses the encoded events in the buffer and writes them to the output, starting with the block length.
+   *
+   * @return number of bytes written
+   */
+  private int writeCompressedBlock(StreamCompressionCodec codec) throws IOException {
+    int rawSize = encoder.size();
+    encoder.writeTo(blockOutput);
+    int maxSize = codec.maxCompressedLength(rawSize);
+    if (compressBuffer == null || compressBuffer.length < maxSize) {
+      compressBuffer = new byte[maxSize];
+    }
+    int compressedSize = codec.compress(blockOutput.getBuffer(), 0, rawSize, compressBuffer);
+    blockOutput.reset();
+
+    // The raw and compressed sizes are encoded at the beginning of the block
+    encoder.writeInt(rawSize);
+    encoder.writeInt(compressedSize);
+    encoder.writeRaw(compressBuffer, 0, compressedSize);
+    // Pads the block so that each event has a distinct position within the block.
+    // It is only needed for highly compressible blocks of tiny events.
+    int padding = blockEventCount - encoder.size();
+    if (padding > 0) {
+      encoder.writeRaw(new byte[padding]);
+    }
+
+    lengthEncoder.writeInt(encoder.size());
+    int size = lengthEncoder.size() + encoder.size();
+    lengthEncoder.writeTo(eventOutput);
+    encoder.writeTo(eventOutput);
+    return size;
+  }
+
   private void sync(OutputStream output) throws IOException {
     if (output instanceof Syncable) {
       ((Syncable) output).hsync();
@@ -337,4 +398,18 @@ public final class StreamDataFileWriter implements TimestampCloseable, Flushable
       }
     };
   }
+
+  /**
+   * A {@link ByteArrayOutputStream} that exposes the written raw buffer.
+   */
+  private static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+
+    ExposedByteArrayOutputStream(int size) {
+      super(size);
+    }
+
+    byte[] getBuffer() {
+      return buf;
+    }
+  }
 }
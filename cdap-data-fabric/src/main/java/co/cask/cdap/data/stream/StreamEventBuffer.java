@@ -32,7 +32,8 @@ import javax.annotation.concurrent.NotThreadSafe;
 
 /**
  * A buffer for holding encoded stream events. It is used by {@link StreamDataFileReader} for holding
- * encoded stream events in each data block.
+ * encoded stream events in each data block. For a compressed data block, it holds the decompressed events,
+ * with the positions of the events assigned as described in {@link StreamDataFileWriter}.
  */
 @NotThreadSafe
 final class StreamEventBuffer {
@@ -41,10 +42,16 @@ final class StreamEventBuffer {
   private final Decoder decoder;
 
   private ByteBuffer buffer;
+  private ByteBuffer compressedBuffer;
   private long basePosition;
+  // For compressed data block, the size of the block and the index of the next event in the block
+  private boolean compressed;
+  private int blockSize;
+  private int eventIndex;
 
   StreamEventBuffer() {
     this.buffer = ByteBuffers.EMPTY_BUFFER;
+    this.compressedBuffer = ByteBuffers.EMPTY_BUFFER;
     this.bufferInput = new ByteBufferInputStream(buffer);
     this.decoder = new BinaryDecoder(bufferInput);
     this.basePosition = -1L;
@@ -61,17 +68,11 @@ final class StreamEventBuffer {
   void fillBuffer(SeekableInputStream input, int size) throws IOException {
     buffer.clear();
     buffer = ensureCapacity(buffer, size);
+    compressed = false;
 
     try {
       basePosition = input.getPos();
-      int bytesRead = 0;
-      while (bytesRead != size) {
-        int len = input.read(buffer.array(), bytesRead, size - bytesRead);
-        if (len < 0) {
-          throw new EOFException("Expected to read " + size + ", but only " + bytesRead + " was read");
-        }
-        bytesRead += len;
-      }
+      readFully(input, buffer.array(), size);
       buffer.limit(size);
       bufferInput.reset(buffer);
     } catch (IOException e) {
@@ -82,6 +83,50 @@ final class StreamEventBuffer {
     }
   }
 
+  /**
+   * Fills the internal buffer by reading a compressed data block from the given input stream and decompressing it.
+   *
+   * @param input input stream to read from
+   * @param size size of the compressed data block
+   * @param codec the codec to decompress with
+   * @throws IOException if failed to read from the stream or to decompress
+   * @throws EOFException if failed to read the given number of bytes from the input
+   */
+  void fillCompressedBuffer(SeekableInputStream input, int size, StreamCompressionCodec codec) throws IOException {
+    buffer.clear();
+    compressedBuffer.clear();
+    compressedBuffer = ensureCapacity(compressedBuffer, size);
+    compressed = true;
+    blockSize = size;
+    eventIndex = 0;
+
+    try {
+      basePosition = input.getPos();
+      readFully(input, compressedBuffer.array(), size);
+      compressedBuffer.limit(size);
+
+      // The block starts with the raw and compressed sizes
+      bufferInput.reset(compressedBuffer);
+      int rawSize = decoder.readInt();
+      int compressedSize = decoder.readInt();
+      if (rawSize < 0 || compressedSize < 0 || compressedSize > compressedBuffer.remaining()) {
+        throw new IOException("Invalid compressed data block at position " + basePosition);
+      }
+
+      buffer = ensureCapacity(buffer, rawSize);
+      codec.decompress(compressedBuffer.array(), compressedBuffer.position(), compressedSize,
+                       buffer.array(), rawSize);
+      buffer.limit(rawSize);
+      bufferInput.reset(buffer);
+    } catch (IOException e) {
+      // Make the buffer has nothing to read
+      buffer.position(buffer.limit());
+      bufferInput.reset(buffer);
+      basePosition = -1L;
+      throw e;
+    }
+  }
+
   /**
    * Returns {@code true} if there are events in the buffer, {@code false} otherwise.
    */
@@ -94,7 +139,13 @@ final class StreamEventBuffer {
    * read from the stream.
    */
   long getPosition() {
-    return basePosition >= 0 ? basePosition + buffer.position() : -1L;
+    if (basePosition < 0) {
+      return -1L;
+    }
+    if (compressed) {
+      return basePosition + (hasEvent() ? eventIndex : blockSize);
+    }
+    return basePosition + buffer.position();
   }
 
   /**
@@ -102,7 +153,7 @@ final class StreamEventBuffer {
    * been read from the stream.
    */
   long getEndPosition() {
-    return basePosition >= 0 ? basePosition + buffer.limit() : -1L;
+    return basePosition >= 0 ? basePosition + (compressed ? blockSize : buffer.limit()) : -1L;
   }
 
   /**
@@ -120,7 +171,8 @@ final class StreamEventBuffer {
       throw new IOException("No more event in the buffer");
     }
 
-    long eventPos = basePosition + buffer.position();
+    long eventPos = getPosition();
+    eventIndex++;
     if (filter.acceptOffset(eventPos)) {
       return new PositionStreamEvent(StreamEventDataCodec.decode(decoder, defaultHeaders), timestamp, eventPos);
     }
@@ -128,6 +180,17 @@ final class StreamEventBuffer {
     return null;
   }
 
+  private void readFully(SeekableInputStream input, byte[] bytes, int size) throws IOException {
+    int bytesRead = 0;
+    while (bytesRead != size) {
+      int len = input.read(bytes, bytesRead, size - bytesRead);
+      if (len < 0) {
+        throw new EOFException("Expected to read " + size + ", but only " + bytesRead + " was read");
+      }
+      bytesRead += len;
+    }
+  }
+
   /**
    * Ensures that the given {@link ByteBuffer} is of sufficient size.
    *
@@ -19,6 +19,9 @@ package co.cask.cdap.data.stream.service;
 import co.cask.cdap.api.flow.flowlet.StreamEvent;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.io.BinaryEncoder;
+import co.cask.cdap.common.io.Encoder;
+import co.cask.cdap.common.stream.StreamEventDataCodec;
 import co.cask.cdap.common.stream.StreamEventTypeAdapter;
 import co.cask.cdap.common.utils.TimeMathParser;
 import co.cask.cdap.data.file.FileReader;
@@ -40,6 +43,7 @@ import co.cask.http.AbstractHttpHandler;
 import co.cask.http.ChunkResponder;
 import co.cask.http.HttpResponder;
 import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.io.Closeables;
@@ -55,8 +59,11 @@ import org.jboss.netty.handler.codec.http.HttpHeaders;
 import org.jboss.netty.handler.codec.http.HttpRequest;
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -76,6 +83,7 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
   private static final Gson GSON = StreamEventTypeAdapter.register(new GsonBuilder()).create();
   private static final int MAX_EVENTS_PER_READ = 100;
   private static final int CHUNK_SIZE = 8192;
+  private static final String AVRO_BINARY_CONTENT_TYPE = "avro/binary";
 
   private final CConfiguration cConf;
   private final StreamAdmin streamAdmin;
@@ -107,8 +115,20 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
    * </ul>
    * </p>
    * <p>
-   * Response body is a JSON array of the StreamEvent object.
+   * Response body is a JSON array of the StreamEvent object. If the request accepts {@code avro/binary},
+   * the response body is the Avro binary encoding of the events one after another, with the schema:
    * </p>
+   * <pre>
+   * {
+   *   "type": "record",
+   *   "name": "StreamEvent",
+   *   "fields" : [
+   *     {"name": "body", "type": "bytes"},
+   *     {"name": "headers", "type": {"type": "map", "values": ["string", "null"]}},
+   *     {"name": "timestamp", "type": "long"}
+   *   ]
+   * }
+   * </pre>
    *
    * @see StreamEventTypeAdapter StreamEventTypeAdapter for the format of the StreamEvent object
    */
@@ -131,6 +151,7 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
     // Make sure the user has READ permission on the stream since getConfig doesn't check for the same.
     authorizationEnforcer.enforce(streamId, authenticationContext.getPrincipal(), Action.READ);
     final StreamConfig streamConfig = streamAdmin.getConfig(streamId);
+    final boolean binary = acceptsAvroBinary(request);
     long now = System.currentTimeMillis();
     startTime = Math.max(startTime, now - streamConfig.getTTL());
     endTime = Math.min(endTime, now);
@@ -156,30 +177,13 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
           }
 
           // Send with chunk response, as we don't want to buffer all events in memory to determine the content-length.
-          ChunkResponder chunkResponder = responder.sendChunkStart(
-            HttpResponseStatus.OK, ImmutableMultimap.of(HttpHeaders.Names.CONTENT_TYPE,
-                                                        "application/json; charset=utf-8"));
-          ChannelBuffer buffer = ChannelBuffers.dynamicBuffer();
-          JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(new ChannelBufferOutputStream(buffer),
-                                                                        Charsets.UTF_8));
-          // Response is an array of stream event
-          jsonWriter.beginArray();
+          EventChunkWriter chunkWriter = binary ? new AvroEventChunkWriter(responder)
+                                                : new JsonEventChunkWriter(responder);
           while (limit > 0 && eventsRead > 0) {
             limit -= eventsRead;
 
             for (StreamEvent event : events) {
-              GSON.toJson(event, StreamEvent.class, jsonWriter);
-              jsonWriter.flush();
-
-              // If exceeded chunk size limit, send a new chunk.
-              if (buffer.readableBytes() >= CHUNK_SIZE) {
-                // If the connect is closed, sendChunk will throw IOException.
-                // No need to handle the exception as it will just propagated back to the netty-http library
-                // and it will handle it.
-                // Need to copy the buffer because the buffer will get reused and send chunk is an async operation
-                chunkResponder.sendChunk(buffer.copy());
-                buffer.clear();
-              }
+              chunkWriter.write(event);
             }
             events.clear();
 
@@ -187,15 +191,7 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
               eventsRead = readEvents(reader, events, limit, readFilter);
             }
           }
-          jsonWriter.endArray();
-          jsonWriter.close();
-
-          // Send the last chunk that still has data
-          if (buffer.readable()) {
-            // No need to copy the last chunk, since the buffer will not be reused
-            chunkResponder.sendChunk(buffer);
-          }
-          Closeables.closeQuietly(chunkResponder);
+          chunkWriter.close();
         }
         return null;
       }
@@ -203,6 +199,22 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
 
   }
 
+  /**
+   * Returns whether the request accepts the Avro binary encoding of events.
+   */
+  private boolean acceptsAvroBinary(HttpRequest request) {
+    String accept = request.getHeader(HttpHeaders.Names.ACCEPT);
+    if (accept == null) {
+      return false;
+    }
+    for (String mediaRange : Splitter.on(',').trimResults().split(accept)) {
+      if (mediaRange.startsWith(AVRO_BINARY_CONTENT_TYPE)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Reads events from the given reader.
    */
@@ -355,4 +367,144 @@ public final class StreamFetchHandler extends AbstractHttpHandler {
   private int getReadLimit(int count) {
     return (count > MAX_EVENTS_PER_READ) ? MAX_EVENTS_PER_READ : count;
   }
+
+  /**
+   * Writes stream events to a chunked response.
+   */
+  private abstract static class EventChunkWriter implements Closeable {
+
+    private final ChunkResponder chunkResponder;
+
+    EventChunkWriter(HttpResponder responder, String contentType) {
+      this.chunkResponder = responder.sendChunkStart(HttpResponseStatus.OK,
+                                                     ImmutableMultimap.of(HttpHeaders.Names.CONTENT_TYPE, contentType));
+    }
+
+    /**
+     * Writes an event, sending a chunk if enough data has been written.
+     */
+    abstract void write(StreamEvent event) throws IOException;
+
+    /**
+     * Sends a chunk.
+     */
+    void sendChunk(ChannelBuffer chunk) throws IOException {
+      // If the connect is closed, sendChunk will throw IOException.
+      // No need to handle the exception as it will just propagated back to the netty-http library
+      // and it will handle it.
+      chunkResponder.sendChunk(chunk);
+    }
+
+    @Override
+    public void close() throws IOException {
+      Closeables.closeQuietly(chunkResponder);
+    }
+  }
+
+  /**
+   * Writes stream events as a JSON array.
+   */
+  private static final class JsonEventChunkWriter extends EventChunkWriter {
+
+    private final ChannelBuffer buffer;
+    private final JsonWriter jsonWriter;
+
+    JsonEventChunkWriter(HttpResponder responder) throws IOException {
+      super(responder, "application/json; charset=utf-8");
+      this.buffer = ChannelBuffers.dynamicBuffer();
+      this.jsonWriter = new JsonWriter(new OutputStreamWriter(new ChannelBufferOutputStream(buffer), Charsets.UTF_8));
+      // Response is an array of stream event
+      jsonWriter.beginArray();
+    }
+
+    @Override
+    void write(StreamEvent event) throws IOException {
+      GSON.toJson(event, StreamEvent.class, jsonWriter);
+      jsonWriter.flush();
+
+      // If exceeded chunk size limit, send a new chunk.
+      if (buffer.readableBytes() >= CHUNK_SIZE) {
+        // Need to copy the buffer because the buffer will get reused and send chunk is an async operation
+        sendChunk(buffer.copy());
+        buffer.clear();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      jsonWriter.endArray();
+      jsonWriter.close();
+
+      // Send the last chunk that still has data
+      if (buffer.readable()) {
+        // No need to copy the last chunk, since the buffer will not be reused
+        sendChunk(buffer);
+      }
+      super.close();
+    }
+  }
+
+  /**
+   * Writes stream events with Avro binary encoding. The event bodies are not copied, but sent as wrapped
+   * buffers in between the encoded lengths, headers and timestamps of the events.
+   */
+  private static final class AvroEventChunkWriter extends EventChunkWriter {
+
+    private final List<ChannelBuffer> parts;
+    private ChannelBuffer buffer;
+    private Encoder encoder;
+    private int size;
+
+    AvroEventChunkWriter(HttpResponder responder) {
+      super(responder, AVRO_BINARY_CONTENT_TYPE);
+      this.parts = new ArrayList<>();
+      resetBuffer();
+    }
+
+    @Override
+    void write(StreamEvent event) throws IOException {
+      // The schema is sorted by name, hence it is {body, headers, timestamp}.
+      ByteBuffer body = event.getBody();
+      int start = buffer.writerIndex();
+      encoder.writeInt(body.remaining());
+      addPart(buffer.slice(start, buffer.writerIndex() - start));
+      addPart(ChannelBuffers.wrappedBuffer(body));
+
+      start = buffer.writerIndex();
+      StreamEventDataCodec.encodeHeaders(event.getHeaders(), encoder);
+      encoder.writeLong(event.getTimestamp());
+      addPart(buffer.slice(start, buffer.writerIndex() - start));
+
+      if (size >= CHUNK_SIZE) {
+        flushChunk();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      flushChunk();
+      super.close();
+    }
+
+    private void addPart(ChannelBuffer part) {
+      parts.add(part);
+      size += part.readableBytes();
+    }
+
+    private void flushChunk() throws IOException {
+      if (size == 0) {
+        return;
+      }
+      sendChunk(ChannelBuffers.wrappedBuffer(parts.toArray(new ChannelBuffer[parts.size()])));
+      parts.clear();
+      size = 0;
+      // A new buffer is needed, since the chunk still refers to the current one until it is sent
+      resetBuffer();
+    }
+
+    private void resetBuffer() {
+      buffer = ChannelBuffers.dynamicBuffer(CHUNK_SIZE);
+      encoder = new BinaryEncoder(new ChannelBufferOutputStream(buffer));
+    }
+  }
 }
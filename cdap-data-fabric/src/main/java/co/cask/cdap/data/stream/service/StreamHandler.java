@@ -29,6 +29,7 @@ import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.namespace.NamespaceQueryAdmin;
 import co.cask.cdap.common.security.AuditDetail;
 import co.cask.cdap.common.security.AuditPolicy;
+import co.cask.cdap.data.stream.StreamCompressionCodec;
 import co.cask.cdap.data.stream.StreamCoordinatorClient;
 import co.cask.cdap.data.stream.StreamFileWriterFactory;
 import co.cask.cdap.data.stream.service.upload.ContentWriterFactory;
@@ -242,6 +243,10 @@ public final class StreamHandler extends AbstractHttpHandler {
       if (streamProperties.getOwnerPrincipal() != null) {
         props.put(Constants.Security.PRINCIPAL, streamProperties.getOwnerPrincipal());
       }
+
+      if (streamProperties.getCompression() != null) {
+        props.put(Constants.Stream.COMPRESSION, streamProperties.getCompression());
+      }
     }
 
     streamAdmin.create(streamId, props);
@@ -431,8 +436,16 @@ public final class StreamHandler extends AbstractHttpHandler {
       SecurityUtil.validateKerberosPrincipal(properties.getOwnerPrincipal());
     }
 
+    // Validate compression
+    String compression = properties.getCompression();
+    try {
+      StreamCompressionCodec.get(compression);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException(e.getMessage());
+    }
+
     return new StreamProperties(ttl, formatSpec, threshold, properties.getDescription(),
-                                properties.getOwnerPrincipal());
+                                properties.getOwnerPrincipal(), compression);
   }
 
   private RejectedExecutionHandler createAsyncRejectedExecutionHandler() {
@@ -490,6 +503,8 @@ public final class StreamHandler extends AbstractHttpHandler {
    */
   private static final class StreamPropertiesAdapter implements JsonSerializer<StreamProperties>,
                                                                 JsonDeserializer<StreamProperties> {
+    private static final String COMPRESSION = "compression";
+
     @Override
     public JsonElement serialize(StreamProperties src, Type typeOfSrc, JsonSerializationContext context) {
       JsonObject json = new JsonObject();
@@ -508,6 +523,9 @@ public final class StreamHandler extends AbstractHttpHandler {
       if (src.getOwnerPrincipal() != null) {
         json.addProperty(Constants.Security.PRINCIPAL, src.getOwnerPrincipal());
       }
+      if (src.getCompression() != null) {
+        json.addProperty(COMPRESSION, src.getCompression());
+      }
       return json;
     }
 
@@ -528,7 +546,8 @@ public final class StreamHandler extends AbstractHttpHandler {
       String description = jsonObj.has("description") ? jsonObj.get("description").getAsString() : null;
       String ownerPrincipal = jsonObj.has(Constants.Security.PRINCIPAL) ?
         jsonObj.get(Constants.Security.PRINCIPAL).getAsString() : null;
-      return new StreamProperties(ttl, format, threshold, description, ownerPrincipal);
+      String compression = jsonObj.has(COMPRESSION) ? jsonObj.get(COMPRESSION).getAsString() : null;
+      return new StreamProperties(ttl, format, threshold, description, ownerPrincipal, compression);
     }
   }
 
@@ -62,6 +62,9 @@ final class FileContentWriter implements ContentWriter {
     Map<String, String> properties = createStreamFileProperties(headers);
     properties.put(StreamDataFileConstants.Property.Key.UNI_TIMESTAMP,
                    StreamDataFileConstants.Property.Value.CLOSE_TIMESTAMP);
+    if (streamConfig.getCompression() != null) {
+      properties.put(StreamDataFileConstants.Property.Key.COMPRESSION, streamConfig.getCompression());
+    }
     this.writer = new StreamDataFileWriter(Locations.newOutputSupplier(eventFile),
                                            Locations.newOutputSupplier(indexFile),
                                            streamConfig.getIndexInterval(),
@@ -27,7 +27,7 @@ import co.cask.cdap.api.dataset.IncompatibleUpdateException;
 import co.cask.cdap.api.dataset.Updatable;
 import co.cask.cdap.common.BadRequestException;
 import co.cask.cdap.common.NotFoundException;
-import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.data.dataset.SystemDatasetInstantiator;
 import co.cask.cdap.data.dataset.SystemDatasetInstantiatorFactory;
 import co.cask.cdap.data2.datafabric.dataset.DatasetType;
@@ -61,18 +61,19 @@ public class DatasetAdminService {
   private static final Logger LOG = LoggerFactory.getLogger(DatasetAdminService.class);
 
   private final RemoteDatasetFramework dsFramework;
-  private final CConfiguration cConf;
+  private final UnpackedJarCache unpackedJarCache;
   private final LocationFactory locationFactory;
   private final SystemDatasetInstantiatorFactory datasetInstantiatorFactory;
   private final MetadataStore metadataStore;
   private final Impersonator impersonator;
 
   @Inject
-  public DatasetAdminService(RemoteDatasetFramework dsFramework, CConfiguration cConf, LocationFactory locationFactory,
+  public DatasetAdminService(RemoteDatasetFramework dsFramework, UnpackedJarCache unpackedJarCache,
+                             LocationFactory locationFactory,
                              SystemDatasetInstantiatorFactory datasetInstantiatorFactory, MetadataStore metadataStore,
                              Impersonator impersonator) {
     this.dsFramework = dsFramework;
-    this.cConf = cConf;
+    this.unpackedJarCache = unpackedJarCache;
     this.locationFactory = locationFactory;
     this.datasetInstantiatorFactory = datasetInstantiatorFactory;
     this.metadataStore = metadataStore;
@@ -104,7 +105,7 @@ public class DatasetAdminService {
                datasetInstanceId, typeMeta, existing);
     }
     try (DatasetClassLoaderProvider classLoaderProvider =
-           new DirectoryClassLoaderProvider(cConf, locationFactory)) {
+           new DirectoryClassLoaderProvider(unpackedJarCache, locationFactory)) {
       final DatasetContext context = DatasetContext.from(datasetInstanceId.getNamespace());
       UserGroupInformation ugi = getUgiForDataset(impersonator, datasetInstanceId);
 
@@ -200,7 +201,7 @@ public class DatasetAdminService {
                    final DatasetSpecification spec) throws Exception {
     LOG.info("Dropping dataset with spec: {}, type meta: {}", spec, typeMeta);
     try (DatasetClassLoaderProvider classLoaderProvider =
-           new DirectoryClassLoaderProvider(cConf, locationFactory)) {
+           new DirectoryClassLoaderProvider(unpackedJarCache, locationFactory)) {
       UserGroupInformation ugi = getUgiForDataset(impersonator, datasetInstanceId);
 
       ImpersonationUtils.doAs(ugi, new Callable<Void>() {
@@ -16,11 +16,8 @@
 
 package co.cask.cdap.data2.datafabric.dataset.type;
 
-import co.cask.cdap.common.conf.CConfiguration;
-import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.Locations;
-import co.cask.cdap.common.lang.jar.BundleJarUtil;
-import co.cask.cdap.common.utils.DirUtils;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.proto.DatasetModuleMeta;
 import co.cask.common.lang.DirectoryClassLoader;
 import com.google.common.base.Objects;
@@ -36,31 +33,35 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
-import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
- * Creates a {@link ClassLoader} for a {@link DatasetModuleMeta} by unpacking the dataset jar and creating a
- * {@link DirectoryClassLoader} over the unpacked jar. Classloaders are cached, and unpacked directories are cleaned
- * up when the provider is closed. Note that this means changes to dataset code are not picked up, as the assumption
- * is that this provider is created once at the start of a program run and closed at the end.
+ * Creates a {@link ClassLoader} for a {@link DatasetModuleMeta} by unpacking the dataset jar through the
+ * {@link UnpackedJarCache} and creating a {@link DirectoryClassLoader} over the unpacked jar. Classloaders are cached,
+ * and unpacked directories are released when the provider is closed. Note that this means changes to dataset code
+ * are not picked up, as the assumption is that this provider is created once at the start of a program run and
+ * closed at the end.
  */
 public class DirectoryClassLoaderProvider implements DatasetClassLoaderProvider {
   private static final Logger LOG = LoggerFactory.getLogger(DirectoryClassLoaderProvider.class);
   private final LoadingCache<CacheKey, ClassLoader> classLoaders;
   private final LocationFactory locationFactory;
-  private final File tmpDir;
+  private final UnpackedJarCache unpackedJarCache;
+  // The unpacked jar used by each ClassLoader, released when the ClassLoader is removed from the cache
+  private final Map<ClassLoader, UnpackedJarCache.Reference> unpackedJars;
 
-  public DirectoryClassLoaderProvider(CConfiguration cConf,
+  public DirectoryClassLoaderProvider(UnpackedJarCache unpackedJarCache,
                                       LocationFactory locationFactory) {
     this.locationFactory = locationFactory;
+    this.unpackedJarCache = unpackedJarCache;
+    this.unpackedJars = Collections.synchronizedMap(new IdentityHashMap<ClassLoader, UnpackedJarCache.Reference>());
     this.classLoaders = CacheBuilder.newBuilder()
       .removalListener(new ClassLoaderRemovalListener())
       .build(new ClassLoaderCacheLoader());
-    File baseDir =
-      new File(cConf.get(Constants.CFG_LOCAL_DATA_DIR), cConf.get(Constants.AppFabric.TEMP_DIR)).getAbsoluteFile();
-    this.tmpDir = DirUtils.createTempDir(baseDir);
   }
 
   @Override
@@ -72,23 +73,21 @@ public class DirectoryClassLoaderProvider implements DatasetClassLoaderProvider
 
   @Override
   public void close() throws IOException {
-    // Cleanup the ClassLoader cache and the directory used for expanded dataset jars
+    // Cleanup the ClassLoader cache, which releases the expanded dataset jars
     classLoaders.invalidateAll();
-    try {
-      LOG.trace("cleaning unpacked dataset jars from {}.", tmpDir.getAbsolutePath());
-      DirUtils.deleteDirectoryContents(tmpDir);
-    } catch (IOException e) {
-      LOG.warn("Failed to delete directory {}", tmpDir);
-    }
   }
-  
-  private static final class ClassLoaderRemovalListener implements RemovalListener<CacheKey, ClassLoader> {
+
+  private final class ClassLoaderRemovalListener implements RemovalListener<CacheKey, ClassLoader> {
     @Override
     public void onRemoval(RemovalNotification<CacheKey, ClassLoader> notification) {
       ClassLoader cl = notification.getValue();
       if (cl instanceof Closeable) {
         Closeables.closeQuietly((Closeable) cl);
       }
+      UnpackedJarCache.Reference unpacked = unpackedJars.remove(cl);
+      if (unpacked != null) {
+        unpacked.close();
+      }
     }
   }
 
@@ -123,7 +122,7 @@ public class DirectoryClassLoaderProvider implements DatasetClassLoaderProvider
   }
 
   /**
-   * A CacheLoader that will copy the jar to a temporary location, unpack it, and create a DirectoryClassLoader.
+   * A CacheLoader that will unpack the jar through the {@link UnpackedJarCache} and create a DirectoryClassLoader.
    */
   private final class ClassLoaderCacheLoader extends CacheLoader<CacheKey, ClassLoader> {
 
@@ -133,11 +132,16 @@ public class DirectoryClassLoaderProvider implements DatasetClassLoaderProvider
         return key.parentClassLoader;
       }
       Location jarLocation = Locations.getLocationFromAbsolutePath(locationFactory, key.uri.getPath());
-      File unpackedDir = DirUtils.createTempDir(tmpDir);
-      BundleJarUtil.unJar(jarLocation, unpackedDir);
-      LOG.trace("unpacking dataset jar from {} to {}.", key.uri.toString(), unpackedDir.getAbsolutePath());
-
-      return new DirectoryClassLoader(unpackedDir, key.parentClassLoader, "lib");
+      UnpackedJarCache.Reference unpacked = unpackedJarCache.acquire(jarLocation);
+      LOG.trace("unpacked dataset jar from {} to {}.", key.uri, unpacked.getDirectory());
+      try {
+        ClassLoader classLoader = new DirectoryClassLoader(unpacked.getDirectory(), key.parentClassLoader, "lib");
+        unpackedJars.put(classLoader, unpacked);
+        return classLoader;
+      } catch (RuntimeException e) {
+        unpacked.close();
+        throw e;
+      }
     }
   }
 }
@@ -16,8 +16,11 @@
 
 package co.cask.cdap.data2.dataset2.lib.cube;
 
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.table.Get;
 import co.cask.cdap.api.dataset.table.Increment;
 import co.cask.cdap.api.dataset.table.Put;
+import co.cask.cdap.api.dataset.table.Row;
 import co.cask.cdap.api.dataset.table.Scan;
 import co.cask.cdap.api.dataset.table.Scanner;
 import co.cask.cdap.api.dataset.table.Table;
@@ -25,9 +28,13 @@ import co.cask.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import co.cask.cdap.data2.dataset2.lib.table.MetricsTable;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.SortedMap;
+import java.util.TreeMap;
 import javax.annotation.Nullable;
 
 /**
@@ -46,6 +53,22 @@ class MetricsTableOnTable implements MetricsTable {
     return table.get(row, column);
   }
 
+  @Override
+  public NavigableMap<byte[], byte[]> get(Collection<byte[]> rows, byte[] column) {
+    List<Get> gets = new ArrayList<>(rows.size());
+    for (byte[] row : rows) {
+      gets.add(new Get(row, column));
+    }
+    NavigableMap<byte[], byte[]> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    for (Row row : table.get(gets)) {
+      byte[] value = row.get(column);
+      if (value != null) {
+        result.put(row.getRow(), value);
+      }
+    }
+    return result;
+  }
+
   @Override
   public void put(SortedMap<byte[], ? extends SortedMap<byte[], Long>> updates) {
     for (Map.Entry<byte[], ? extends SortedMap<byte[], Long>> rowUpdate : updates.entrySet()) {
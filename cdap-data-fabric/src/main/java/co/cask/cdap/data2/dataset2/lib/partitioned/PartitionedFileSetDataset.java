@@ -43,9 +43,11 @@ import co.cask.cdap.api.dataset.lib.PartitionMetadata;
 import co.cask.cdap.api.dataset.lib.PartitionOutput;
 import co.cask.cdap.api.dataset.lib.PartitionedFileSet;
 import co.cask.cdap.api.dataset.lib.PartitionedFileSetArguments;
+import co.cask.cdap.api.dataset.lib.PartitionedFileSetProperties;
 import co.cask.cdap.api.dataset.lib.Partitioning;
 import co.cask.cdap.api.dataset.lib.Partitioning.FieldType;
 import co.cask.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
+import co.cask.cdap.api.dataset.table.Get;
 import co.cask.cdap.api.dataset.table.Put;
 import co.cask.cdap.api.dataset.table.Row;
 import co.cask.cdap.api.dataset.table.Scanner;
@@ -81,9 +83,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -99,6 +101,8 @@ public class PartitionedFileSetDataset extends AbstractDataset
   private static final Gson GSON =
     new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create();
   private static final String QUARANTINE_DIR = ".quarantine";
+  // number of partitions resolved with one batched get, when the input partitions are given as a list of keys
+  private static final int PARTITION_RESOLUTION_BATCH_SIZE = 1000;
 
   // A function to convert PartitionOperation into PartitionKey by getting the key from the operation.
   private static final Function<PartitionOperation, PartitionKey> OP_TO_KEY =
@@ -121,6 +125,8 @@ public class PartitionedFileSetDataset extends AbstractDataset
   protected static final byte[] METADATA_PREFIX = { 'm', '.' };
   protected static final byte[] CREATION_TIME_COL = { 'c' };
   protected static final byte[] WRITE_PTR_COL = { 'w' };
+  // prefix of the columns that hold the values of indexed fields, encoded like in the row key to preserve the order
+  private static final byte[] INDEXED_FIELD_PREFIX = { 'i', '.' };
 
   protected final FileSet files;
   protected final IndexedTable partitionsTable;
@@ -131,6 +137,9 @@ public class PartitionedFileSetDataset extends AbstractDataset
   protected final Partitioning partitioning;
   protected boolean ignoreInvalidRowsSilently = false;
 
+  // the partitioning fields that have a secondary index, in the order they were given
+  private final Set<String> indexedFields;
+
   private final DatasetId datasetInstanceId;
   private RuntimeProgramContext runtimeProgramContext;
 
@@ -140,9 +149,9 @@ public class PartitionedFileSetDataset extends AbstractDataset
 
   private Transaction tx;
 
-  // this will store the result of getInputKeys() after it is called (the result is needed by
+  // this will store the result of getInputPartitions() after it is called (the result is needed by
   // both getInputFormat() and getInputFormatConfiguration(), and we don't want to compute it twice).
-  private AtomicReference<Collection<PartitionKey>> inputKeysCache = null;
+  private AtomicReference<Map<PartitionKey, String>> inputPartitionsCache = null;
 
   public PartitionedFileSetDataset(DatasetContext datasetContext, String name,
                                    Partitioning partitioning, FileSet fileSet, IndexedTable partitionTable,
@@ -155,6 +164,7 @@ public class PartitionedFileSetDataset extends AbstractDataset
     this.isExternal = FileSetProperties.isDataExternal(spec.getProperties());
     this.runtimeArguments = arguments;
     this.partitioning = partitioning;
+    this.indexedFields = PartitionedFileSetProperties.getIndexedFields(spec.getProperties());
     this.exploreFacadeProvider = exploreFacadeProvider;
     this.datasetInstanceId = new DatasetId(datasetContext.getNamespaceId(), name);
   }
@@ -333,6 +343,11 @@ public class PartitionedFileSetDataset extends AbstractDataset
       put.add(Bytes.add(FIELD_PREFIX, Bytes.toBytes(entry.getKey())), // "f.<field name>"
               Bytes.toBytes(entry.getValue().toString()));            // "<string rep. of value>"
     }
+    // the partitions table maintains the secondary index for these columns
+    for (String fieldName : indexedFields) {
+      put.add(getIndexedFieldColumn(fieldName),
+              FieldTypes.toBytes(key.getField(fieldName), partitioning.getFields().get(fieldName)));
+    }
 
     addMetadataToPut(metadata, put);
     // index each row by its transaction's write pointer
@@ -616,16 +631,16 @@ public class PartitionedFileSetDataset extends AbstractDataset
     return partitionDetails;
   }
 
-  private Collection<PartitionKey> getPartitionPaths(@Nullable PartitionFilter filter) {
+  private Map<PartitionKey, String> getPartitionPaths(@Nullable PartitionFilter filter) {
     // this avoids constructing the Partition object for every partition.
-    final Set<PartitionKey> partitionKeys = new HashSet<>();
+    final Map<PartitionKey, String> partitionPaths = new LinkedHashMap<>();
     getPartitions(filter, new PartitionConsumer() {
       @Override
       public void consume(PartitionKey key, String path, @Nullable PartitionMetadata metadata) {
-        partitionKeys.add(key);
+        partitionPaths.put(key, path);
       }
     }, false);
-    return partitionKeys;
+    return partitionPaths;
   }
 
   protected void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer) {
@@ -638,40 +653,106 @@ public class PartitionedFileSetDataset extends AbstractDataset
   protected void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer, boolean decodeMetadata) {
     byte[] startKey = generateStartKey(filter);
     byte[] endKey = generateStopKey(filter);
-    getPartitions(filter, consumer, decodeMetadata, startKey, endKey, Long.MAX_VALUE);
+    List<PartitionScan> scans = getIndexScans(filter);
+    if (scans.isEmpty()) {
+      getPartitions(filter, consumer, decodeMetadata, startKey, endKey, Long.MAX_VALUE);
+      return;
+    }
+    scans.add(new RangePartitionScan(startKey, endKey));
+    PartitionScan scan = selectMostSelective(scans);
+    try (Scanner scanner = scan.open()) {
+      consumePartitions(scanner, filter, consumer, decodeMetadata, Long.MAX_VALUE);
+    }
   }
 
   private void getPartitions(@Nullable PartitionFilter filter, PartitionConsumer consumer, boolean decodeMetadata,
                              @Nullable byte[] startKey, @Nullable byte[] endKey, long limit) {
-    long count = 0L;
     try (Scanner scanner = partitionsTable.scan(startKey, endKey)) {
-      while (count < limit) {
-        Row row = scanner.next();
-        if (row == null) {
-          break;
-        }
-        PartitionKey key;
-        try {
-          key = parseRowKey(row.getRow(), partitioning);
-        } catch (IllegalArgumentException e) {
-          if (!ignoreInvalidRowsSilently) {
-            LOG.debug(String.format("Failed to parse row key for partitioned file set '%s': %s",
-                                    getName(), Bytes.toStringBinary(row.getRow())));
+      consumePartitions(scanner, filter, consumer, decodeMetadata, limit);
+    }
+  }
+
+  /**
+   * Returns the scans over the secondary indexes that can serve the given filter, one for each indexed field
+   * that the filter has a condition on.
+   */
+  private List<PartitionScan> getIndexScans(@Nullable PartitionFilter filter) {
+    List<PartitionScan> scans = new ArrayList<>();
+    if (filter == null || indexedFields.isEmpty()) {
+      return scans;
+    }
+    for (String fieldName : indexedFields) {
+      PartitionFilter.Condition<? extends Comparable> condition = filter.getCondition(fieldName);
+      FieldType fieldType = partitioning.getFields().get(fieldName);
+      if (condition == null || fieldType == null) {
+        continue;
+      }
+      if (condition.isSingleValue()) {
+        scans.add(new IndexPartitionScan(fieldName, FieldTypes.toBytes(condition.getValue(), fieldType), null, true));
+      } else {
+        byte[] lower = condition.getLower() == null ? null : FieldTypes.toBytes(condition.getLower(), fieldType);
+        byte[] upper = condition.getUpper() == null ? null : FieldTypes.toBytes(condition.getUpper(), fieldType);
+        scans.add(new IndexPartitionScan(fieldName, lower, upper, false));
+      }
+    }
+    return scans;
+  }
+
+  /**
+   * Selects the scan that reads the fewest rows, by reading from all scans in turn until the first one is exhausted.
+   * This costs at most as many rows per scan as the selected scan returns, without requiring statistics about
+   * the distribution of field values.
+   */
+  private PartitionScan selectMostSelective(List<PartitionScan> scans) {
+    List<Scanner> scanners = new ArrayList<>(scans.size());
+    try {
+      for (PartitionScan scan : scans) {
+        scanners.add(scan.open());
+      }
+      while (true) {
+        for (int i = 0; i < scanners.size(); i++) {
+          if (scanners.get(i).next() == null) {
+            LOG.trace("Selected {} to list partitions of dataset '{}'", scans.get(i), getName());
+            return scans.get(i);
           }
-          continue;
         }
-        if (filter != null && !filter.match(key)) {
-          continue;
-        }
-        byte[] pathBytes = row.get(RELATIVE_PATH);
-        if (pathBytes != null) {
-          consumer.consume(key, Bytes.toString(pathBytes), decodeMetadata ? metadataFromRow(row) : null);
+      }
+    } finally {
+      for (Scanner scanner : scanners) {
+        scanner.close();
+      }
+    }
+  }
+
+  private void consumePartitions(Scanner scanner, @Nullable PartitionFilter filter, PartitionConsumer consumer,
+                                 boolean decodeMetadata, long limit) {
+    long count = 0L;
+    while (count < limit) {
+      Row row = scanner.next();
+      if (row == null) {
+        break;
+      }
+      PartitionKey key;
+      try {
+        key = parseRowKey(row.getRow(), partitioning);
+      } catch (IllegalArgumentException e) {
+        if (!ignoreInvalidRowsSilently) {
+          LOG.debug(String.format("Failed to parse row key for partitioned file set '%s': %s",
+                                  getName(), Bytes.toStringBinary(row.getRow())));
         }
-        count++;
+        continue;
       }
-      if (count == 0) {
-        warnIfInvalidPartitionFilter(filter, partitioning);
+      if (filter != null && !filter.match(key)) {
+        continue;
+      }
+      byte[] pathBytes = row.get(RELATIVE_PATH);
+      if (pathBytes != null) {
+        consumer.consume(key, Bytes.toString(pathBytes), decodeMetadata ? metadataFromRow(row) : null);
       }
+      count++;
+    }
+    if (count == 0) {
+      warnIfInvalidPartitionFilter(filter, partitioning);
     }
   }
 
@@ -723,6 +804,74 @@ public class PartitionedFileSetDataset extends AbstractDataset
     void consume(PartitionKey key, String path, @Nullable PartitionMetadata metadata);
   }
 
+  /**
+   * A way to read the rows of the partitions table that may match a partition filter.
+   */
+  private interface PartitionScan {
+    Scanner open();
+  }
+
+  /**
+   * Scans the partitions in a range of row keys.
+   */
+  private final class RangePartitionScan implements PartitionScan {
+    private final byte[] startKey;
+    private final byte[] endKey;
+
+    private RangePartitionScan(@Nullable byte[] startKey, @Nullable byte[] endKey) {
+      this.startKey = startKey;
+      this.endKey = endKey;
+    }
+
+    @Override
+    public Scanner open() {
+      return partitionsTable.scan(startKey, endKey);
+    }
+
+    @Override
+    public String toString() {
+      return "range scan from " + (startKey == null ? "start" : Bytes.toStringBinary(startKey))
+        + " to " + (endKey == null ? "end" : Bytes.toStringBinary(endKey));
+    }
+  }
+
+  /**
+   * Reads the partitions with a value or a range of values of an indexed field from the secondary index.
+   */
+  private final class IndexPartitionScan implements PartitionScan {
+    private final String fieldName;
+    private final byte[] lower;
+    private final byte[] upper;
+    private final boolean singleValue;
+
+    private IndexPartitionScan(String fieldName, @Nullable byte[] lower, @Nullable byte[] upper, boolean singleValue) {
+      this.fieldName = fieldName;
+      this.lower = lower;
+      this.upper = upper;
+      this.singleValue = singleValue;
+    }
+
+    @Override
+    public Scanner open() {
+      byte[] column = getIndexedFieldColumn(fieldName);
+      return singleValue
+        ? partitionsTable.readByIndex(column, lower)
+        : partitionsTable.scanByIndex(column, lower, upper);
+    }
+
+    @Override
+    public String toString() {
+      return "index of field '" + fieldName + "'";
+    }
+  }
+
+  /**
+   * Returns the column of the partitions table that holds the value of an indexed field.
+   */
+  static byte[] getIndexedFieldColumn(String fieldName) {
+    return Bytes.add(INDEXED_FIELD_PREFIX, Bytes.toBytes(fieldName));
+  }
+
   @Override
   public void close() throws IOException {
     try {
@@ -734,8 +883,8 @@ public class PartitionedFileSetDataset extends AbstractDataset
 
   @Override
   public String getInputFormatClassName() {
-    Collection<PartitionKey> inputKeys = getInputKeys();
-    if (inputKeys.isEmpty()) {
+    Map<PartitionKey, String> inputPartitions = getInputPartitions();
+    if (inputPartitions.isEmpty()) {
       return EmptyInputFormat.class.getName();
     }
     return files.getInputFormatClassName();
@@ -743,16 +892,14 @@ public class PartitionedFileSetDataset extends AbstractDataset
 
   @Override
   public Map<String, String> getInputFormatConfiguration() {
-    Collection<PartitionKey> inputKeys = getInputKeys();
-
-    List<Location> inputLocations = new ArrayList<>(inputKeys.size());
-    Map<String, PartitionKey> pathToKey = new HashMap<>(inputKeys.size());
-    for (PartitionKey key : inputKeys) {
-      PartitionDetail partition = getPartition(key);
-      String path = Objects.requireNonNull(partition).getRelativePath();
-      Location partitionLocation = files.getLocation(path);
+    Map<PartitionKey, String> inputPartitions = getInputPartitions();
+
+    List<Location> inputLocations = new ArrayList<>(inputPartitions.size());
+    Map<String, PartitionKey> pathToKey = new HashMap<>(inputPartitions.size());
+    for (Map.Entry<PartitionKey, String> entry : inputPartitions.entrySet()) {
+      Location partitionLocation = files.getLocation(entry.getValue());
       inputLocations.add(partitionLocation);
-      pathToKey.put(partitionLocation.toURI().toString(), key);
+      pathToKey.put(partitionLocation.toURI().toString(), entry.getKey());
     }
 
     Map<String, String> inputFormatConfiguration = files.getInputFormatConfiguration(inputLocations);
@@ -761,28 +908,30 @@ public class PartitionedFileSetDataset extends AbstractDataset
   }
 
   /**
-   * Computes and returns the input partition keys given by the partition filter - if present. Otherwise, get the list
-   * of partition keys explicitly specified in the runtime arguments.
+   * Computes and returns the input partitions given by the partition filter - if present. Otherwise, resolves the
+   * list of partition keys explicitly specified in the runtime arguments.
    * Stores the result in a cache and returns it.
+   *
+   * @return a map from partition key to the relative path of the partition
    */
-  private Collection<PartitionKey> getInputKeys() {
-    if (inputKeysCache != null) {
-      return inputKeysCache.get();
+  private Map<PartitionKey, String> getInputPartitions() {
+    if (inputPartitionsCache != null) {
+      return inputPartitionsCache.get();
     }
-    Collection<PartitionKey> inputKeys = computeInputKeys();
-    if (inputKeys == null) {
-      inputKeys = PartitionedFileSetArguments.getInputPartitionKeys(runtimeArguments);
+    Map<PartitionKey, String> inputPartitions = computeInputPartitions();
+    if (inputPartitions == null) {
+      inputPartitions = getPartitionPaths(PartitionedFileSetArguments.getInputPartitionKeys(runtimeArguments));
     }
-    inputKeysCache = new AtomicReference<>(inputKeys);
-    return inputKeys;
+    inputPartitionsCache = new AtomicReference<>(inputPartitions);
+    return inputPartitions;
   }
 
   /**
-   * If a partition filter was specified, return the partition keys of all partitions
-   * matching the filter. Otherwise return null.
+   * If a partition filter was specified, return the partition keys and relative paths of all partitions
+   * matching the filter, as found by a single scan over the key range of the filter. Otherwise return null.
    */
   @Nullable
-  protected Collection<PartitionKey> computeInputKeys() {
+  protected Map<PartitionKey, String> computeInputPartitions() {
     PartitionFilter filter;
     try {
       filter = PartitionedFileSetArguments.getInputPartitionFilter(runtimeArguments);
@@ -795,6 +944,39 @@ public class PartitionedFileSetDataset extends AbstractDataset
     return getPartitionPaths(filter); // never returns null
   }
 
+  /**
+   * Resolves the relative paths of the given partitions, with one batched get per
+   * {@link #PARTITION_RESOLUTION_BATCH_SIZE} partitions.
+   *
+   * @throws DataSetException if one of the partitions does not exist
+   */
+  private Map<PartitionKey, String> getPartitionPaths(Collection<PartitionKey> keys) {
+    Map<PartitionKey, String> partitionPaths = new LinkedHashMap<>(keys.size());
+    List<PartitionKey> batchKeys = new ArrayList<>(Math.min(keys.size(), PARTITION_RESOLUTION_BATCH_SIZE));
+    List<Get> batch = new ArrayList<>(Math.min(keys.size(), PARTITION_RESOLUTION_BATCH_SIZE));
+    Iterator<PartitionKey> iterator = keys.iterator();
+    while (iterator.hasNext()) {
+      PartitionKey key = iterator.next();
+      batchKeys.add(key);
+      batch.add(new Get(generateRowKey(key, partitioning), RELATIVE_PATH));
+      if (batch.size() < PARTITION_RESOLUTION_BATCH_SIZE && iterator.hasNext()) {
+        continue;
+      }
+      List<Row> rows = partitionsTable.get(batch);
+      for (int i = 0; i < rows.size(); i++) {
+        byte[] pathBytes = rows.get(i).get(RELATIVE_PATH);
+        if (pathBytes == null) {
+          throw new DataSetException(String.format("Input partition %s of partitioned file set '%s' does not exist.",
+                                                   batchKeys.get(i), getName()));
+        }
+        partitionPaths.put(batchKeys.get(i), Bytes.toString(pathBytes));
+      }
+      batchKeys.clear();
+      batch.clear();
+    }
+    return partitionPaths;
+  }
+
   @Override
   public String getOutputFormatClassName() {
     if (isExternal) {
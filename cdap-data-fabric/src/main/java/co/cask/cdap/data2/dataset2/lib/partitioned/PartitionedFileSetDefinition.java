@@ -46,6 +46,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Defines the partitioned dataset type. At this time, the partitions are not managed by the
@@ -84,10 +85,12 @@ public class PartitionedFileSetDefinition
   public DatasetSpecification configure(String instanceName, DatasetProperties properties) {
     Partitioning partitioning = PartitionedFileSetProperties.getPartitioning(properties.getProperties());
     Preconditions.checkNotNull(partitioning, "Properties do not contain partitioning");
+    Set<String> indexedFields = PartitionedFileSetProperties.getIndexedFields(properties.getProperties());
+    validateIndexedFields(indexedFields, partitioning);
     // define the columns for indexing on the partitionsTable
     DatasetProperties indexedTableProperties = DatasetProperties.builder()
       .addAll(properties.getProperties())
-      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, INDEXED_COLS)
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, getIndexedColumns(indexedFields))
       .build();
     return DatasetSpecification.builder(instanceName, getName())
       .properties(properties.getProperties())
@@ -112,10 +115,18 @@ public class PartitionedFileSetDefinition
         "Partitioning cannot be changed. Existing: %s, new: %s", oldPartitioning, newPartitioning));
     }
 
+    // validate that the indexed fields are not changing, because existing partitions would be missing from the index
+    Set<String> oldIndexedFields = PartitionedFileSetProperties.getIndexedFields(currentSpec.getProperties());
+    Set<String> newIndexedFields = PartitionedFileSetProperties.getIndexedFields(properties.getProperties());
+    if (!oldIndexedFields.equals(newIndexedFields)) {
+      throw new IncompatibleUpdateException(String.format(
+        "Indexed partitioning fields cannot be changed. Existing: %s, new: %s", oldIndexedFields, newIndexedFields));
+    }
+
     // define the columns for indexing on the partitionsTable
     DatasetProperties indexedTableProperties = DatasetProperties.builder()
       .addAll(properties.getProperties())
-      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, INDEXED_COLS)
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, getIndexedColumns(newIndexedFields))
       .build();
     return DatasetSpecification.builder(instanceName, getName())
       .properties(properties.getProperties())
@@ -156,6 +167,25 @@ public class PartitionedFileSetDefinition
                                          getExploreProvider());
   }
 
+  private static void validateIndexedFields(Set<String> indexedFields, Partitioning partitioning) {
+    for (String fieldName : indexedFields) {
+      Preconditions.checkArgument(partitioning.getFields().containsKey(fieldName),
+                                  "Indexed field '%s' is not a field of the partitioning %s", fieldName, partitioning);
+    }
+  }
+
+  /**
+   * Returns the columns to index in the partitions table: the write pointer and creation time of partitions,
+   * and the columns that hold the values of the indexed partitioning fields.
+   */
+  private static String getIndexedColumns(Set<String> indexedFields) {
+    StringBuilder builder = new StringBuilder(INDEXED_COLS);
+    for (String fieldName : indexedFields) {
+      builder.append(',').append(Bytes.toString(PartitionedFileSetDataset.getIndexedFieldColumn(fieldName)));
+    }
+    return builder.toString();
+  }
+
   // if the arguments do not contain an output location, generate one from the partition key (if present)
   protected static Map<String, String> updateArgumentsIfNeeded(Map<String, String> arguments,
                                                                Partitioning partitioning) {
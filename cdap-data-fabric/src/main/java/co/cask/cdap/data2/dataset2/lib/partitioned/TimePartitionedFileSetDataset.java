@@ -39,9 +39,8 @@ import com.google.common.collect.Sets;
 import com.google.inject.Provider;
 
 import java.util.Calendar;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -129,17 +128,17 @@ public class TimePartitionedFileSetDataset extends PartitionedFileSetDataset imp
     return partitions;
   }
 
-  private Collection<PartitionKey> getPartitionPathsByTime(long startTime, long endTime) {
-    final Set<PartitionKey> partitionKeys = new HashSet<>();
+  private Map<PartitionKey, String> getPartitionPathsByTime(long startTime, long endTime) {
+    final Map<PartitionKey, String> partitionPaths = new LinkedHashMap<>();
     for (PartitionFilter filter : partitionFiltersForTimeRange(startTime, endTime)) {
       super.getPartitions(filter, new PartitionedFileSetDataset.PartitionConsumer() {
         @Override
         public void consume(PartitionKey key, String path, @Nullable PartitionMetadata metadata) {
-          partitionKeys.add(key);
+          partitionPaths.put(key, path);
         }
-      });
+      }, false);
     }
-    return partitionKeys;
+    return partitionPaths;
   }
 
   @Override
@@ -154,12 +153,12 @@ public class TimePartitionedFileSetDataset extends PartitionedFileSetDataset imp
 
   @Override
   @Nullable
-  protected Collection<PartitionKey> computeInputKeys() {
+  protected Map<PartitionKey, String> computeInputPartitions() {
     Long startTime = TimePartitionedFileSetArguments.getInputStartTime(getRuntimeArguments());
     Long endTime = TimePartitionedFileSetArguments.getInputEndTime(getRuntimeArguments());
     if (startTime == null && endTime == null) {
       // no times specified; perhaps a partition filter was specified. super will deal with that
-      return super.computeInputKeys();
+      return super.computeInputPartitions();
     }
     if (startTime == null) {
       throw new DataSetException("Start time for input time range must be given as argument.");
@@ -20,6 +20,7 @@ import co.cask.cdap.api.annotation.ReadOnly;
 import co.cask.cdap.api.annotation.ReadWrite;
 import co.cask.cdap.api.annotation.WriteOnly;
 import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.batch.KeyRangeScannable;
 import co.cask.cdap.api.data.batch.RecordScanner;
 import co.cask.cdap.api.data.batch.Split;
 import co.cask.cdap.api.data.batch.SplitReader;
@@ -51,11 +52,12 @@ import java.lang.reflect.Type;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import javax.annotation.Nullable;
 
 /**
  * Implements some of the methods in a generic way (not necessarily in most efficient way).
  */
-public abstract class AbstractTable implements Table, TransactionAware {
+public abstract class AbstractTable implements Table, TransactionAware, KeyRangeScannable {
   private static final Logger LOG = LoggerFactory.getLogger(AbstractTable.class);
 
   // empty immutable row's column->value map constant
@@ -196,6 +198,13 @@ public abstract class AbstractTable implements Table, TransactionAware {
     return getSplits(-1, null, null);
   }
 
+  @Nullable
+  @Override
+  public String getKeyField() {
+    // records are only scanned with a schema, in which the row key is the row field, if present
+    return tableSchema == null ? null : rowFieldName;
+  }
+
   @ReadOnly
   @Override
   public SplitReader<byte[], Row> createSplitReader(Split split) {
@@ -53,7 +53,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 import javax.annotation.Nullable;
 
 /**
@@ -78,6 +77,11 @@ import javax.annotation.Nullable;
  * <p>
  * NOTE: Using {@link #get(byte[], byte[], byte[], int)} is generally always not efficient since it always hits the
  *       persisted store even if all needed data is in-memory buffer. See more info at method javadoc
+ * <p>
+ * The in-memory buffer implementation can be selected with the {@link #PROPERTY_WRITE_BUFFER} dataset property.
+ * The default keeps changes in sorted maps. Setting it to {@link #WRITE_BUFFER_COMPACT} keeps changes in compact
+ * append-only byte arrays instead, which uses much less memory for transactions that write a large number of cells,
+ * at the cost of sorting buffered changes on the first read after writes.
  */
 // todo: copying passed params to write methods may be done more efficiently: no need to copy when no changes are made
 public abstract class BufferingTable extends AbstractTable implements MeteredDataset {
@@ -86,6 +90,14 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   protected static final byte[] DELETE_MARKER = new byte[0];
 
+  /**
+   * Dataset property for selecting the in-memory write buffer implementation,
+   * either {@link #WRITE_BUFFER_MAP} (the default) or {@link #WRITE_BUFFER_COMPACT}.
+   */
+  public static final String PROPERTY_WRITE_BUFFER = "dataset.table.write.buffer";
+  public static final String WRITE_BUFFER_MAP = "map";
+  public static final String WRITE_BUFFER_COMPACT = "compact";
+
   // name of the table
   private final String name;
   // conflict detection level
@@ -94,13 +106,15 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   private final byte[] nameAsTxChangePrefix;
   // Whether read-less increments should be used when increment() is called
   private final boolean enableReadlessIncrements;
+  // Whether to use the CompactWriteBuffer
+  private final boolean compactWriteBuffer;
 
   // In-memory buffer that keeps not yet persisted data. It is row->(column->value) map. Value can be null which means
   // that the corresponded column was removed.
-  private NavigableMap<byte[], NavigableMap<byte[], Update>> buff;
+  private WriteBuffer buff;
 
   // Keeps track of what was persisted so far
-  private NavigableMap<byte[], NavigableMap<byte[], Update>> toUndo;
+  private WriteBuffer toUndo;
 
   // Report data ops metrics to
   private MetricsCollector metricsCollector;
@@ -145,12 +159,13 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     this.name = name;
     this.conflictLevel = TableProperties.getConflictDetection(properties, ConflictDetection.ROW);
     this.enableReadlessIncrements = enableReadlessIncrements;
+    this.compactWriteBuffer = isCompactWriteBuffer(properties);
     // TODO: having central dataset management service will allow us to use table ids instead of names, which will
     //       reduce changeset size transferred to/from server
     // we want it to be of format length+value to avoid conflicts like table="ab", row="cd" vs table="abc", row="d"
     // Default uses the above scheme. Subclasses can change it by overriding the #getNameAsTxChangePrefix method
     this.nameAsTxChangePrefix = Bytes.add(new byte[]{(byte) name.length()}, Bytes.toBytes(name));
-    this.buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+    this.buff = createWriteBuffer();
   }
 
   /**
@@ -179,7 +194,8 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
    * Persists in-memory buffer. After this method returns we assume that data can be visible to other table clients
    * (of course other clients may choose still not to see it based on transaction isolation logic).
    * @param buff in-memory buffer to persist. Map is described as row->(column->value). Map can contain null values
-   *             which means that the corresponded column was deleted
+   *             which means that the corresponded column was deleted. It may decode rows while its entries are
+   *             iterated, hence iterating is cheaper than other accesses, and it must not be kept after returning
    * @throws Exception
    */
   protected abstract void persist(NavigableMap<byte[], NavigableMap<byte[], Update>> buff)
@@ -189,7 +205,8 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
    * Undos previously persisted changes. After this method returns we assume that data can be visible to other table
    * clients (of course other clients may choose still not to see it based on transaction isolation logic).
    * @param persisted previously persisted changes. Map is described as row->(column->value). Map can contain null
-   *                  values which means that the corresponded column was deleted
+   *                  values which means that the corresponded column was deleted. Same as for {@link #persist},
+   *                  it may decode rows while its entries are iterated
    * @throws Exception
    */
   protected abstract void undo(NavigableMap<byte[], NavigableMap<byte[], Update>> persisted)
@@ -308,8 +325,9 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   private Collection<byte[]> getRowChanges() {
     // we resolve conflicts on row level of individual table
-    List<byte[]> changes = new ArrayList<>(buff.size());
-    for (byte[] changedRow : buff.keySet()) {
+    Collection<byte[]> changedRows = buff.getRowKeys();
+    List<byte[]> changes = new ArrayList<>(changedRows.size());
+    for (byte[] changedRow : changedRows) {
       changes.add(Bytes.add(getNameAsTxChangePrefix(), changedRow));
     }
     return changes;
@@ -317,8 +335,8 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
 
   private Collection<byte[]> getColumnChanges() {
     // we resolve conflicts on row level of individual table
-    List<byte[]> changes = new ArrayList<>(buff.size());
-    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : buff.entrySet()) {
+    List<byte[]> changes = new ArrayList<>();
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> rowChange : buff.getRowsView().entrySet()) {
       if (rowChange.getValue() == null) {
         // NOTE: as of now we cannot detect conflict between delete whole row and row's column value change.
         //       this is not a big problem as of now, as row deletion is now act as deletion of every column, but this
@@ -342,13 +360,13 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
       // We first assume that all data will be persisted. So that if exception happen during persist we try to
       // rollback everything we had in in-memory buffer.
       toUndo = buff;
-      // clearing up in-memory buffer by initializing new map.
-      // NOTE: we want to init map here so that if no changes are made we re-use same instance of the map in next tx
-      // NOTE: we could cache two maps and swap them to avoid creation of map instances, but code would be ugly
-      buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+      // clearing up in-memory buffer by initializing new buffer.
+      // NOTE: we want to init buffer here so that if no changes are made we re-use same instance in next tx
+      // NOTE: we could cache two buffers and swap them to avoid creation of instances, but code would be ugly
+      buff = createWriteBuffer();
       // TODO: tracking of persisted items can be optimized by returning a pair {succeededOrNot, persisted} which
       //       tells if persisting succeeded and what was persisted (i.e. what we will have to undo in case of rollback)
-      persist(toUndo);
+      persist(toUndo.getRowsView());
     }
     return true;
   }
@@ -365,7 +383,7 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   public boolean rollbackTx() throws Exception {
     buff.clear();
     if (toUndo != null) {
-      undo(toUndo);
+      undo(toUndo.getRowsView());
       toUndo = null;
     }
     tx = null;
@@ -500,23 +518,13 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   }
 
   private void putInternal(byte[] row, byte[][] columns, byte[][] values) {
-    NavigableMap<byte[], Update> colVals = buff.get(row);
-    boolean newRow = false;
-    if (colVals == null) {
-      colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      newRow = true;
-    }
     for (int i = 0; i < columns.length; i++) {
-      // NOTE: we copy passed column's and value's byte arrays to protect buffer against possible changes of these
-      // arrays on client
+      // NOTE: the buffer copies passed row's, column's and value's byte arrays to protect itself against possible
+      // changes of these arrays on client
       if (values[i] != null && values[i].length == 0) {
         warnAboutEmptyValue(columns[i]);
       }
-      colVals.put(copy(columns[i]), new PutValue(copy(values[i])));
-    }
-    if (newRow) {
-      // NOTE: we copy passed row's byte arrays to protect buffer against possible changes of this array on client
-      buff.put(copy(row), colVals);
+      buff.put(row, columns[i], values[i]);
     }
   }
 
@@ -620,13 +628,8 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   public void increment(byte[] row, byte[][] columns, long[] amounts) {
     ensureTransactionIsStarted();
     if (enableReadlessIncrements) {
-      NavigableMap<byte[], Update> colVals = buff.get(row);
-      if (colVals == null) {
-        colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-        buff.put(row, colVals);
-      }
       for (int i = 0; i < columns.length; i++) {
-        colVals.put(columns[i], Updates.mergeUpdates(colVals.get(columns[i]), new IncrementValue(amounts[i])));
+        buff.increment(row, columns[i], amounts[i]);
       }
       reportWrite(1, getSize(row) + getSize(columns) + getSize(amounts));
     } else {
@@ -695,9 +698,17 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
   @Override
   public Scanner scan(Scan scan) {
     ensureTransactionIsStarted();
-    NavigableMap<byte[], NavigableMap<byte[], Update>> bufferMap = scanBuffer(scan);
+    TableFilters.validate(scan.getFilter());
+    scan = TableFilters.narrow(scan);
+    Filter filter = scan.getFilter();
+    NavigableMap<byte[], NavigableMap<byte[], Update>> bufferMap = buff.getRows(scan.getStartRow(), scan.getStopRow());
     try {
-      return new BufferingScanner(bufferMap, scanPersisted(scan));
+      if (filter == null || bufferMap.isEmpty() || TableFilters.isRowKeyFilter(filter)) {
+        return new BufferingScanner(applyFilter(bufferMap, filter), scanPersisted(scan));
+      }
+      // Buffered writes can change whether a row matches the filter, hence the filter is applied to the merged rows
+      Scanner persistedScanner = scanPersisted(new Scan(scan.getStartRow(), scan.getStopRow()));
+      return TableFilters.filter(new BufferingScanner(bufferMap, persistedScanner), filter);
     } catch (Exception e) {
       LOG.debug("scan failed for table: " + getTransactionAwareName() +
           ", scan: " + scan.toString(), e);
@@ -705,23 +716,6 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     }
   }
 
-  private NavigableMap<byte[], NavigableMap<byte[], Update>> scanBuffer(Scan scan) {
-    NavigableMap<byte[], NavigableMap<byte[], Update>> bufferMap;
-    byte[] startRow = scan.getStartRow();
-    byte[] stopRow = scan.getStopRow();
-    if (startRow == null && stopRow == null) {
-      bufferMap = buff;
-    } else if (startRow == null) {
-      bufferMap = buff.headMap(stopRow, false);
-    } else if (stopRow == null) {
-      bufferMap = buff.tailMap(startRow, true);
-    } else {
-      bufferMap = buff.subMap(startRow, true, stopRow, false);
-    }
-    bufferMap = applyFilter(bufferMap, scan.getFilter());
-    return bufferMap;
-  }
-
   private NavigableMap<byte[], NavigableMap<byte[], Update>> applyFilter(
                                                         NavigableMap<byte[], NavigableMap<byte[], Update>> bufferMap,
                                                         @Nullable Filter filter) {
@@ -729,32 +723,20 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
       return bufferMap;
     }
 
-    // todo: currently we support only FuzzyRowFilter as an experimental feature
-    if (filter instanceof FuzzyRowFilter) {
-      NavigableMap<byte[], NavigableMap<byte[], Update>> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      for (Map.Entry<byte[], NavigableMap<byte[], Update>> entry : bufferMap.entrySet()) {
-        if (FuzzyRowFilter.ReturnCode.INCLUDE == ((FuzzyRowFilter) filter).filterRow(entry.getKey())) {
-          result.put(entry.getKey(), entry.getValue());
-        }
+    NavigableMap<byte[], NavigableMap<byte[], Update>> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> entry : bufferMap.entrySet()) {
+      if (TableFilters.matchesRow(filter, entry.getKey())) {
+        result.put(entry.getKey(), entry.getValue());
       }
-      return result;
-    } else {
-      throw new DataSetException("Unknown filter type: " + filter);
     }
+    return result;
   }
 
   private Map<byte[], byte[]> getRowMap(byte[] row) throws Exception {
     NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    // checking if the row was deleted inside this tx
     NavigableMap<byte[], Update> buffCols = buff.get(row);
-    boolean rowDeleted = buffCols == null && buff.containsKey(row);
-    if (rowDeleted) {
-      return Collections.emptyMap();
-    }
-
     Map<byte[], byte[]> persisted = getPersisted(row, null);
 
-
     result.putAll(persisted);
     if (buffCols != null) {
       // buffered should override those returned from persistent store
@@ -848,6 +830,24 @@ public abstract class BufferingTable extends AbstractTable implements MeteredDat
     }
   }
 
+  /**
+   * Creates a new {@link WriteBuffer} based on the dataset properties.
+   */
+  private WriteBuffer createWriteBuffer() {
+    return compactWriteBuffer ? new CompactWriteBuffer() : new MapWriteBuffer();
+  }
+
+  private static boolean isCompactWriteBuffer(Map<String, String> properties) {
+    String value = properties.get(PROPERTY_WRITE_BUFFER);
+    if (value == null || WRITE_BUFFER_MAP.equalsIgnoreCase(value)) {
+      return false;
+    }
+    if (WRITE_BUFFER_COMPACT.equalsIgnoreCase(value)) {
+      return true;
+    }
+    throw new IllegalArgumentException("Invalid write buffer type: " + value);
+  }
+
   // utilities useful for underlying implementations
 
   protected static <T> NavigableMap<byte[], T> getRange(NavigableMap<byte[], T> rowMap,
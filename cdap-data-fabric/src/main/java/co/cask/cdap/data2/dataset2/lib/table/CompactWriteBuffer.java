@@ -0,0 +1,719 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import co.cask.cdap.api.common.Bytes;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ForwardingNavigableMap;
+import com.google.common.collect.Maps;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link WriteBuffer} that keeps updates as records in append-only byte array slabs, indexed by a {@code long[]}
+ * of record addresses. It is optimized for transactions that write a large number of cells, since a cell only costs
+ * its encoded bytes plus one {@code long}, and writing a cell is just an append.
+ *
+ * The index consists of a sorted part followed by an unsorted part. The sorted part is ordered by (row, column)
+ * and has at most one record per cell. Writes append to the unsorted part. Before reads, the unsorted part
+ * is sorted and merged into the sorted part, collapsing updates to the same cell in the order they were written.
+ * Lookups of a single row only scan the unsorted part while it is small, to avoid merging on every read when
+ * reads and writes are interleaved.
+ * Records that are superseded by the merge are left in the slabs as garbage, which is reclaimed by copying live
+ * records into new slabs once garbage dominates.
+ *
+ * Each record is encoded as:
+ *
+ * <pre>
+ * {@code
+ * row-length (int) row (bytes) column-length (int) column (bytes) type (byte) value
+ * }
+ * </pre>
+ *
+ * where value is {@code value-length (int) value (bytes)} for put, a {@code long} for increment and empty for delete.
+ *
+ * Although increments are merged lazily, they are validated when they are buffered: incrementing a cell whose latest
+ * buffered update is a put of a value that is not a long fails immediately. To keep increments cheap, the cell is
+ * only looked up if the buffer has seen such a put at all. The lookup uses a hash table of the cells in the
+ * unsorted part, which is only built by the first such lookup after a merge, and a binary search of the sorted part.
+ */
+final class CompactWriteBuffer extends WriteBuffer {
+
+  private static final byte TYPE_PUT = 0;
+  private static final byte TYPE_DELETE = 1;
+  private static final byte TYPE_INCREMENT = 2;
+
+  private static final int MIN_SLAB_SIZE = 4 * 1024;
+  private static final int MAX_SLAB_SIZE = 1024 * 1024;
+  private static final int INITIAL_INDEX_CAPACITY = 64;
+  // Minimum number of unsorted records that a lookup of a row would scan instead of merging them
+  private static final int MIN_UNMERGED_LOOKUP = 64;
+  // Below this size, runs are sorted by insertion sort during the merge sort
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private final List<byte[]> slabs;
+  // Offset for the next record in the last slab
+  private int slabOffset;
+  // Total number of bytes allocated in slabs and the number of bytes used by superseded records
+  private long allocatedBytes;
+  private long garbageBytes;
+
+  // Addresses of records, as (slab index << 32 | offset)
+  private long[] records;
+  private int size;
+  private int sortedSize;
+  // Number of puts buffered with a value that is not a long, which are the only updates an increment can fail on
+  private int nonLongPuts;
+  // Open addressing hash table of the latest record of each cell in the unsorted part, as (index + 1) in records,
+  // with 0 for an empty slot. It is null until an increment needs to look up a cell, and reset by the merge.
+  private int[] unsortedCells;
+  private int unsortedCellCount;
+
+  CompactWriteBuffer() {
+    this.slabs = new ArrayList<>();
+    this.records = new long[INITIAL_INDEX_CAPACITY];
+  }
+
+  @Override
+  void put(byte[] row, byte[] column, @Nullable byte[] value) {
+    if (value == null) {
+      addRecord(append(row, column, TYPE_DELETE, null, 0L));
+    } else {
+      addRecord(append(row, column, TYPE_PUT, value, 0L));
+      if (value.length != Bytes.SIZEOF_LONG) {
+        nonLongPuts++;
+      }
+    }
+  }
+
+  @Override
+  void increment(byte[] row, byte[] column, long amount) {
+    if (nonLongPuts > 0) {
+      long latest = findLatest(row, column);
+      if (latest >= 0 && getType(latest) == TYPE_PUT && getValueLength(latest) != Bytes.SIZEOF_LONG) {
+        throw new NumberFormatException("Attempted to increment a value that is not convertible to long");
+      }
+    }
+    addRecord(append(row, column, TYPE_INCREMENT, null, amount));
+  }
+
+  @Nullable
+  @Override
+  NavigableMap<byte[], Update> get(byte[] row) {
+    // For a small unsorted part, scanning it is cheaper than merging it into the sorted part.
+    // Allowing it to grow with the square root of the sorted part bounds the cost of both.
+    if (size - sortedSize > Math.max(MIN_UNMERGED_LOOKUP, (int) Math.sqrt(sortedSize))) {
+      merge();
+    }
+
+    NavigableMap<byte[], Update> columns = null;
+    for (int idx = lowerBound(row); idx < sortedSize && compareRow(records[idx], row) == 0; idx++) {
+      if (columns == null) {
+        columns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      }
+      columns.put(getColumn(records[idx]), getUpdate(records[idx]));
+    }
+    for (int idx = sortedSize; idx < size; idx++) {
+      if (compareRow(records[idx], row) != 0) {
+        continue;
+      }
+      if (columns == null) {
+        columns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      }
+      byte[] column = getColumn(records[idx]);
+      columns.put(column, Updates.mergeUpdates(columns.get(column), getUpdate(records[idx])));
+    }
+    return columns;
+  }
+
+  @Override
+  NavigableMap<byte[], NavigableMap<byte[], Update>> getRows(@Nullable byte[] startRow, @Nullable byte[] stopRow) {
+    merge();
+    NavigableMap<byte[], NavigableMap<byte[], Update>> rows = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    int idx = startRow == null ? 0 : lowerBound(startRow);
+    NavigableMap<byte[], Update> columns = null;
+    long lastRecord = -1L;
+    for (; idx < size && (stopRow == null || compareRow(records[idx], stopRow) < 0); idx++) {
+      long record = records[idx];
+      if (columns == null || compareRow(record, lastRecord) != 0) {
+        columns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        rows.put(getRow(record), columns);
+      }
+      columns.put(getColumn(record), getUpdate(record));
+      lastRecord = record;
+    }
+    return rows;
+  }
+
+  @Override
+  NavigableMap<byte[], NavigableMap<byte[], Update>> getRowsView() {
+    merge();
+    return new RowsView();
+  }
+
+  @Override
+  Collection<byte[]> getRowKeys() {
+    merge();
+    List<byte[]> rows = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      if (i == 0 || compareRow(records[i], records[i - 1]) != 0) {
+        rows.add(getRow(records[i]));
+      }
+    }
+    return rows;
+  }
+
+  @Override
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  void clear() {
+    // Keep a small slab for reuse, since most transactions only write a few cells
+    byte[] firstSlab = slabs.isEmpty() ? null : slabs.get(0);
+    slabs.clear();
+    allocatedBytes = 0L;
+    if (firstSlab != null && firstSlab.length == MIN_SLAB_SIZE) {
+      slabs.add(firstSlab);
+      allocatedBytes = firstSlab.length;
+    }
+    slabOffset = 0;
+    garbageBytes = 0L;
+    if (records.length > INITIAL_INDEX_CAPACITY * 64) {
+      records = new long[INITIAL_INDEX_CAPACITY];
+    }
+    size = 0;
+    sortedSize = 0;
+    nonLongPuts = 0;
+    unsortedCells = null;
+  }
+
+  /**
+   * Sorts the unsorted part of the index and merges it into the sorted part.
+   */
+  private void merge() {
+    if (sortedSize == size) {
+      return;
+    }
+
+    // Stable sort of the unsorted part, so that updates to the same cell stay in the order they were written
+    long[] tmp = new long[size - sortedSize];
+    mergeSort(records, sortedSize, size, tmp);
+
+    // Merge the sorted part (older updates) with the newly sorted part, collapsing updates to the same cell
+    long[] merged = new long[Math.max(INITIAL_INDEX_CAPACITY, size + size / 2)];
+    int count = 0;
+    int i = 0;
+    int j = sortedSize;
+    while (i < sortedSize || j < size) {
+      long record;
+      if (j >= size || (i < sortedSize && compare(records[i], records[j]) <= 0)) {
+        record = records[i++];
+      } else {
+        record = records[j++];
+      }
+
+      if (count > 0 && compare(merged[count - 1], record) == 0) {
+        merged[count - 1] = combine(merged[count - 1], record);
+      } else {
+        merged[count++] = record;
+      }
+    }
+
+    records = merged;
+    size = count;
+    sortedSize = count;
+    unsortedCells = null;
+
+    if (garbageBytes > MAX_SLAB_SIZE && garbageBytes * 2 > allocatedBytes) {
+      reclaimGarbage();
+    }
+  }
+
+  /**
+   * Combines two updates of the same cell, with the second one being the newer one.
+   *
+   * @return the address of the record representing the combined update
+   */
+  private long combine(long older, long newer) {
+    byte newerType = getType(newer);
+    if (newerType != TYPE_INCREMENT) {
+      // Put and delete override whatever is there
+      garbageBytes += getRecordSize(older);
+      return newer;
+    }
+
+    byte olderType = getType(older);
+    long amount = getIncrement(newer);
+    long combined;
+    if (olderType == TYPE_DELETE) {
+      combined = append(older, TYPE_PUT, Bytes.toBytes(amount), 0L);
+    } else if (olderType == TYPE_PUT) {
+      // The increment was validated when it was buffered, hence the value is a long
+      byte[] value = getValue(older);
+      combined = append(older, TYPE_PUT, Bytes.toBytes(Bytes.toLong(value) + amount), 0L);
+    } else {
+      combined = append(older, TYPE_INCREMENT, null, getIncrement(older) + amount);
+    }
+    garbageBytes += getRecordSize(older) + getRecordSize(newer);
+    return combined;
+  }
+
+  /**
+   * Copies all live records into new slabs, dropping the old slabs.
+   */
+  private void reclaimGarbage() {
+    List<byte[]> oldSlabs = new ArrayList<>(slabs);
+    long[] oldRecords = Arrays.copyOf(records, size);
+    slabs.clear();
+    slabOffset = 0;
+    allocatedBytes = 0L;
+    garbageBytes = 0L;
+
+    for (int i = 0; i < oldRecords.length; i++) {
+      byte[] slab = oldSlabs.get(getSlabIndex(oldRecords[i]));
+      int offset = getOffset(oldRecords[i]);
+      int length = getRecordSize(slab, offset);
+      long address = allocate(length);
+      System.arraycopy(slab, offset, slabs.get(getSlabIndex(address)), getOffset(address), length);
+      records[i] = address;
+    }
+  }
+
+  private void addRecord(long address) {
+    if (size == records.length) {
+      records = Arrays.copyOf(records, records.length * 2);
+    }
+    records[size++] = address;
+    if (unsortedCells != null) {
+      addUnsortedCell(size - 1);
+    }
+  }
+
+  /**
+   * Appends a record to the slabs.
+   *
+   * @return the address of the record
+   */
+  private long append(byte[] row, byte[] column, byte type, @Nullable byte[] value, long amount) {
+    return append(row, 0, row.length, column, 0, column.length, type, value, amount);
+  }
+
+  /**
+   * Appends a record with the same row and column as the given record.
+   */
+  private long append(long cell, byte type, @Nullable byte[] value, long amount) {
+    byte[] slab = slabs.get(getSlabIndex(cell));
+    int offset = getOffset(cell);
+    int rowLength = Bytes.toInt(slab, offset);
+    int columnOffset = offset + Bytes.SIZEOF_INT + rowLength;
+    int columnLength = Bytes.toInt(slab, columnOffset);
+    return append(slab, offset + Bytes.SIZEOF_INT, rowLength,
+                  slab, columnOffset + Bytes.SIZEOF_INT, columnLength, type, value, amount);
+  }
+
+  private long append(byte[] row, int rowOffset, int rowLength, byte[] column, int columnOffset, int columnLength,
+                      byte type, @Nullable byte[] value, long amount) {
+    int length = Bytes.SIZEOF_INT * 2 + rowLength + columnLength + 1;
+    if (type == TYPE_PUT) {
+      length += Bytes.SIZEOF_INT + value.length;
+    } else if (type == TYPE_INCREMENT) {
+      length += Bytes.SIZEOF_LONG;
+    }
+
+    // The allocation may add a new slab, hence copy from the source arrays after the allocation is done,
+    // which is fine since existing slabs never move.
+    long address = allocate(length);
+    byte[] slab = slabs.get(getSlabIndex(address));
+    int offset = getOffset(address);
+
+    offset = Bytes.putInt(slab, offset, rowLength);
+    offset = Bytes.putBytes(slab, offset, row, rowOffset, rowLength);
+    offset = Bytes.putInt(slab, offset, columnLength);
+    offset = Bytes.putBytes(slab, offset, column, columnOffset, columnLength);
+    slab[offset++] = type;
+    if (type == TYPE_PUT) {
+      offset = Bytes.putInt(slab, offset, value.length);
+      Bytes.putBytes(slab, offset, value, 0, value.length);
+    } else if (type == TYPE_INCREMENT) {
+      Bytes.putLong(slab, offset, amount);
+    }
+    return address;
+  }
+
+  /**
+   * Allocates space in the slabs.
+   *
+   * @return the address of the allocated space
+   */
+  private long allocate(int length) {
+    byte[] slab = slabs.isEmpty() ? null : slabs.get(slabs.size() - 1);
+    if (slab == null || slab.length - slabOffset < length) {
+      // Grow the slab size with the buffer size to keep the number of slabs small
+      int slabSize = (int) Math.min(MAX_SLAB_SIZE, Math.max(MIN_SLAB_SIZE, allocatedBytes));
+      slab = new byte[Math.max(slabSize, length)];
+      slabs.add(slab);
+      slabOffset = 0;
+      allocatedBytes += slab.length;
+    }
+    long address = ((long) (slabs.size() - 1) << 32) | slabOffset;
+    slabOffset += length;
+    return address;
+  }
+
+  /**
+   * Returns the address of the latest record of the given cell, or {@code -1} if the cell has no buffered update.
+   */
+  private long findLatest(byte[] row, byte[] column) {
+    if (unsortedCells == null) {
+      unsortedCells = new int[INITIAL_INDEX_CAPACITY];
+      unsortedCellCount = 0;
+      for (int idx = sortedSize; idx < size; idx++) {
+        addUnsortedCell(idx);
+      }
+    }
+
+    int mask = unsortedCells.length - 1;
+    for (int slot = spread(cellHash(row, column)) & mask; unsortedCells[slot] != 0; slot = (slot + 1) & mask) {
+      long record = records[unsortedCells[slot] - 1];
+      if (compareRow(record, row) == 0 && compareColumn(record, column) == 0) {
+        return record;
+      }
+    }
+
+    // Binary search of the sorted part by (row, column)
+    int low = 0;
+    int high = sortedSize;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compareRow(records[mid], row);
+      if (cmp == 0) {
+        cmp = compareColumn(records[mid], column);
+      }
+      if (cmp < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    if (low < sortedSize && compareRow(records[low], row) == 0 && compareColumn(records[low], column) == 0) {
+      return records[low];
+    }
+    return -1L;
+  }
+
+  /**
+   * Adds the record at the given index of the unsorted part to the hash table of unsorted cells, replacing the
+   * older record of the same cell if there is one.
+   */
+  private void addUnsortedCell(int idx) {
+    if ((unsortedCellCount + 1) * 2 > unsortedCells.length) {
+      int[] oldCells = unsortedCells;
+      unsortedCells = new int[oldCells.length * 2];
+      for (int entry : oldCells) {
+        if (entry != 0) {
+          unsortedCells[findSlot(records[entry - 1])] = entry;
+        }
+      }
+    }
+
+    int slot = findSlot(records[idx]);
+    if (unsortedCells[slot] == 0) {
+      unsortedCellCount++;
+    }
+    unsortedCells[slot] = idx + 1;
+  }
+
+  /**
+   * Returns the slot of the cell of the given record in the hash table of unsorted cells, which is either the slot
+   * holding a record of the same cell, or the empty slot where it should be added.
+   */
+  private int findSlot(long record) {
+    byte[] slab = slabs.get(getSlabIndex(record));
+    int offset = getOffset(record);
+    int columnOffset = getColumnOffset(slab, offset);
+    int hash = 31 * Bytes.hashCode(slab, offset + Bytes.SIZEOF_INT, Bytes.toInt(slab, offset))
+      + Bytes.hashCode(slab, columnOffset + Bytes.SIZEOF_INT, Bytes.toInt(slab, columnOffset));
+
+    int mask = unsortedCells.length - 1;
+    int slot = spread(hash) & mask;
+    while (unsortedCells[slot] != 0 && compare(records[unsortedCells[slot] - 1], record) != 0) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static int cellHash(byte[] row, byte[] column) {
+    return 31 * Bytes.hashCode(row, 0, row.length) + Bytes.hashCode(column, 0, column.length);
+  }
+
+  private static int spread(int hash) {
+    int h = hash * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Returns the index of the first record in the sorted part with row not smaller than the given row.
+   */
+  private int lowerBound(byte[] row) {
+    int low = 0;
+    int high = sortedSize;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (compareRow(records[mid], row) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Stable merge sort of the given range of record addresses by (row, column).
+   */
+  private void mergeSort(long[] array, int from, int to, long[] tmp) {
+    if (to - from <= INSERTION_SORT_THRESHOLD) {
+      for (int i = from + 1; i < to; i++) {
+        long record = array[i];
+        int j = i - 1;
+        while (j >= from && compare(array[j], record) > 0) {
+          array[j + 1] = array[j];
+          j--;
+        }
+        array[j + 1] = record;
+      }
+      return;
+    }
+
+    int mid = (from + to) >>> 1;
+    mergeSort(array, from, mid, tmp);
+    mergeSort(array, mid, to, tmp);
+    if (compare(array[mid - 1], array[mid]) <= 0) {
+      // Already in order, which is common for sequential writes
+      return;
+    }
+
+    System.arraycopy(array, from, tmp, 0, mid - from);
+    int i = 0;
+    int iEnd = mid - from;
+    int j = mid;
+    int k = from;
+    while (i < iEnd && j < to) {
+      array[k++] = compare(tmp[i], array[j]) <= 0 ? tmp[i++] : array[j++];
+    }
+    System.arraycopy(tmp, i, array, k, iEnd - i);
+  }
+
+  /**
+   * Compares two records by (row, column).
+   */
+  private int compare(long record1, long record2) {
+    byte[] slab1 = slabs.get(getSlabIndex(record1));
+    byte[] slab2 = slabs.get(getSlabIndex(record2));
+    int offset1 = getOffset(record1);
+    int offset2 = getOffset(record2);
+
+    int length1 = Bytes.toInt(slab1, offset1);
+    int length2 = Bytes.toInt(slab2, offset2);
+    offset1 += Bytes.SIZEOF_INT;
+    offset2 += Bytes.SIZEOF_INT;
+    int cmp = Bytes.compareTo(slab1, offset1, length1, slab2, offset2, length2);
+    if (cmp != 0) {
+      return cmp;
+    }
+    offset1 += length1;
+    offset2 += length2;
+
+    length1 = Bytes.toInt(slab1, offset1);
+    length2 = Bytes.toInt(slab2, offset2);
+    return Bytes.compareTo(slab1, offset1 + Bytes.SIZEOF_INT, length1, slab2, offset2 + Bytes.SIZEOF_INT, length2);
+  }
+
+  private int compareRow(long record, byte[] row) {
+    byte[] slab = slabs.get(getSlabIndex(record));
+    int offset = getOffset(record);
+    return Bytes.compareTo(slab, offset + Bytes.SIZEOF_INT, Bytes.toInt(slab, offset), row, 0, row.length);
+  }
+
+  private int compareRow(long record1, long record2) {
+    byte[] slab1 = slabs.get(getSlabIndex(record1));
+    byte[] slab2 = slabs.get(getSlabIndex(record2));
+    int offset1 = getOffset(record1);
+    int offset2 = getOffset(record2);
+    return Bytes.compareTo(slab1, offset1 + Bytes.SIZEOF_INT, Bytes.toInt(slab1, offset1),
+                           slab2, offset2 + Bytes.SIZEOF_INT, Bytes.toInt(slab2, offset2));
+  }
+
+  private int compareColumn(long record, byte[] column) {
+    byte[] slab = slabs.get(getSlabIndex(record));
+    int offset = getColumnOffset(slab, getOffset(record));
+    return Bytes.compareTo(slab, offset + Bytes.SIZEOF_INT, Bytes.toInt(slab, offset), column, 0, column.length);
+  }
+
+  private byte[] getRow(long record) {
+    byte[] slab = slabs.get(getSlabIndex(record));
+    int offset = getOffset(record);
+    int length = Bytes.toInt(slab, offset);
+    offset += Bytes.SIZEOF_INT;
+    return Arrays.copyOfRange(slab, offset, offset + length);
+  }
+
+  private byte[] getColumn(long record) {
+    byte[] slab = slabs.get(getSlabIndex(record));
+    int offset = getColumnOffset(slab, getOffset(record));
+    int length = Bytes.toInt(slab, offset);
+    offset += Bytes.SIZEOF_INT;
+    return Arrays.copyOfRange(slab, offset, offset + length);
+  }
+
+  private Update getUpdate(long record) {
+    switch (getType(record)) {
+      case TYPE_PUT:
+        return new PutValue(getValue(record));
+      case TYPE_DELETE:
+        return new PutValue(null);
+      default:
+        return new IncrementValue(getIncrement(record));
+    }
+  }
+
+  private byte getType(long record) {
+    byte[] slab = slabs.get(getSlabIndex(record));
+    return slab[getTypeOffset(slab, getOffset(record))];
+  }
+
+  private byte[] getValue(long record) {
+    byte[] slab = slabs.get(getSlabIndex(record));
+    int offset = getTypeOffset(slab, getOffset(record)) + 1;
+    int length = Bytes.toInt(slab, offset);
+    offset += Bytes.SIZEOF_INT;
+    return Arrays.copyOfRange(slab, offset, offset + length);
+  }
+
+  private int getValueLength(long record) {
+    byte[] slab = slabs.get(getSlabIndex(record));
+    return Bytes.toInt(slab, getTypeOffset(slab, getOffset(record)) + 1);
+  }
+
+  private long getIncrement(long record) {
+    byte[] slab = slabs.get(getSlabIndex(record));
+    return Bytes.toLong(slab, getTypeOffset(slab, getOffset(record)) + 1);
+  }
+
+  private int getRecordSize(long record) {
+    return getRecordSize(slabs.get(getSlabIndex(record)), getOffset(record));
+  }
+
+  private static int getRecordSize(byte[] slab, int offset) {
+    int typeOffset = getTypeOffset(slab, offset);
+    int size = typeOffset + 1 - offset;
+    switch (slab[typeOffset]) {
+      case TYPE_PUT:
+        return size + Bytes.SIZEOF_INT + Bytes.toInt(slab, typeOffset + 1);
+      case TYPE_INCREMENT:
+        return size + Bytes.SIZEOF_LONG;
+      default:
+        return size;
+    }
+  }
+
+  private static int getColumnOffset(byte[] slab, int offset) {
+    return offset + Bytes.SIZEOF_INT + Bytes.toInt(slab, offset);
+  }
+
+  private static int getTypeOffset(byte[] slab, int offset) {
+    int columnOffset = getColumnOffset(slab, offset);
+    return columnOffset + Bytes.SIZEOF_INT + Bytes.toInt(slab, columnOffset);
+  }
+
+  private static int getSlabIndex(long address) {
+    return (int) (address >>> 32);
+  }
+
+  private static int getOffset(long address) {
+    return (int) address;
+  }
+
+  /**
+   * A read-only view of all buffered updates, which decodes one row at a time while its entries are iterated.
+   * Any other access materializes all rows. The view must not be used after the buffer is modified.
+   */
+  private final class RowsView extends ForwardingNavigableMap<byte[], NavigableMap<byte[], Update>> {
+
+    private NavigableMap<byte[], NavigableMap<byte[], Update>> rows;
+
+    @Override
+    protected NavigableMap<byte[], NavigableMap<byte[], Update>> delegate() {
+      if (rows == null) {
+        rows = getRows(null, null);
+      }
+      return rows;
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return CompactWriteBuffer.this.isEmpty();
+    }
+
+    @Override
+    public Set<Map.Entry<byte[], NavigableMap<byte[], Update>>> entrySet() {
+      return new AbstractSet<Map.Entry<byte[], NavigableMap<byte[], Update>>>() {
+        @Override
+        public Iterator<Map.Entry<byte[], NavigableMap<byte[], Update>>> iterator() {
+          return new RowIterator();
+        }
+
+        @Override
+        public int size() {
+          return delegate().size();
+        }
+      };
+    }
+  }
+
+  /**
+   * Iterates over the rows of the sorted part of the index, decoding the updates of each row when it is reached.
+   */
+  private final class RowIterator extends AbstractIterator<Map.Entry<byte[], NavigableMap<byte[], Update>>> {
+
+    private int idx;
+
+    @Override
+    protected Map.Entry<byte[], NavigableMap<byte[], Update>> computeNext() {
+      if (idx >= sortedSize) {
+        return endOfData();
+      }
+      long first = records[idx];
+      NavigableMap<byte[], Update> columns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      for (; idx < sortedSize && compareRow(records[idx], first) == 0; idx++) {
+        columns.put(getColumn(records[idx]), getUpdate(records[idx]));
+      }
+      return Maps.immutableEntry(getRow(first), columns);
+    }
+  }
+}
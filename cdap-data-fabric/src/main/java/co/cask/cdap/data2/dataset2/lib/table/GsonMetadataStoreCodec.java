@@ -0,0 +1,245 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.BinaryEncoder;
+import com.google.common.base.Throwables;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link MetadataStoreCodec} that converts values with {@link Gson}, and stores them either as JSON text,
+ * or in a compact binary encoding of the JSON tree. Values in both formats are decoded, regardless of the format
+ * used for encoding, so that existing JSON rows remain readable after switching to the binary format.
+ * Since the binary encoding keeps the field names, it evolves with the classes in the same way as JSON does.
+ *
+ * The binary format starts with a zero byte, which JSON text never starts with, followed by a format version
+ * and the tree, with integers encoded as zig-zag varints:
+ *
+ * <pre>
+ * {@code
+ * value := NULL | TRUE | FALSE | LONG long | NUMBER string | STRING string
+ *        | ARRAY int(size) value* | OBJECT int(size) (string value)*
+ * string := int(0) int(length) utf8-bytes | int(index + 1)
+ * }
+ * </pre>
+ *
+ * Each distinct string is written once. Later occurrences, such as the repeated field names of a list of objects,
+ * refer to it by the order of its first occurrence.
+ */
+public final class GsonMetadataStoreCodec implements MetadataStoreCodec {
+
+  /**
+   * Format of the encoded values.
+   */
+  public enum Format {
+    JSON,
+    BINARY
+  }
+
+  private static final byte BINARY_MAGIC = 0;
+  private static final int BINARY_VERSION = 1;
+
+  private static final int TAG_NULL = 0;
+  private static final int TAG_TRUE = 1;
+  private static final int TAG_FALSE = 2;
+  private static final int TAG_LONG = 3;
+  private static final int TAG_NUMBER = 4;
+  private static final int TAG_STRING = 5;
+  private static final int TAG_ARRAY = 6;
+  private static final int TAG_OBJECT = 7;
+
+  private final Gson gson;
+  private final Format format;
+
+  public GsonMetadataStoreCodec(Gson gson, Format format) {
+    this.gson = gson;
+    this.format = format;
+  }
+
+  @Override
+  public <T> byte[] encode(T value) {
+    if (format == Format.JSON) {
+      return Bytes.toBytes(gson.toJson(value));
+    }
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    os.write(BINARY_MAGIC);
+    try {
+      BinaryEncoder encoder = new BinaryEncoder(os);
+      encoder.writeInt(BINARY_VERSION);
+      new TreeEncoder(encoder).write(gson.toJsonTree(value));
+    } catch (IOException e) {
+      // Cannot happen when writing to a byte array
+      throw Throwables.propagate(e);
+    }
+    return os.toByteArray();
+  }
+
+  @Override
+  public <T> T decode(byte[] encoded, Type typeOfT) {
+    if (encoded.length == 0 || encoded[0] != BINARY_MAGIC) {
+      return gson.fromJson(Bytes.toString(encoded), typeOfT);
+    }
+    try {
+      BinaryDecoder decoder = new BinaryDecoder(new ByteArrayInputStream(encoded, 1, encoded.length - 1));
+      int version = decoder.readInt();
+      if (version != BINARY_VERSION) {
+        throw new IllegalArgumentException("Unsupported binary format version " + version);
+      }
+      return gson.fromJson(new TreeDecoder(decoder).read(), typeOfT);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Failed to decode binary value", e);
+    }
+  }
+
+  /**
+   * Writes a JSON tree in the binary format.
+   */
+  private static final class TreeEncoder {
+    private final BinaryEncoder encoder;
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    TreeEncoder(BinaryEncoder encoder) {
+      this.encoder = encoder;
+    }
+
+    void write(JsonElement element) throws IOException {
+      if (element.isJsonNull()) {
+        encoder.writeInt(TAG_NULL);
+      } else if (element.isJsonObject()) {
+        JsonObject object = element.getAsJsonObject();
+        encoder.writeInt(TAG_OBJECT);
+        encoder.writeInt(object.entrySet().size());
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+          writeString(entry.getKey());
+          write(entry.getValue());
+        }
+      } else if (element.isJsonArray()) {
+        JsonArray array = element.getAsJsonArray();
+        encoder.writeInt(TAG_ARRAY);
+        encoder.writeInt(array.size());
+        for (JsonElement member : array) {
+          write(member);
+        }
+      } else {
+        JsonPrimitive primitive = element.getAsJsonPrimitive();
+        if (primitive.isBoolean()) {
+          encoder.writeInt(primitive.getAsBoolean() ? TAG_TRUE : TAG_FALSE);
+        } else if (primitive.isString()) {
+          encoder.writeInt(TAG_STRING);
+          writeString(primitive.getAsString());
+        } else {
+          Number number = primitive.getAsNumber();
+          if (number instanceof Long || number instanceof Integer || number instanceof Short
+            || number instanceof Byte) {
+            encoder.writeInt(TAG_LONG);
+            encoder.writeLong(number.longValue());
+          } else {
+            encoder.writeInt(TAG_NUMBER);
+            writeString(number.toString());
+          }
+        }
+      }
+    }
+
+    private void writeString(String string) throws IOException {
+      Integer index = strings.get(string);
+      if (index != null) {
+        encoder.writeInt(index + 1);
+        return;
+      }
+      strings.put(string, strings.size());
+      encoder.writeInt(0);
+      encoder.writeString(string);
+    }
+  }
+
+  /**
+   * Reads a JSON tree written by {@link TreeEncoder}.
+   */
+  private static final class TreeDecoder {
+    private final BinaryDecoder decoder;
+    private final List<String> strings = new ArrayList<>();
+
+    TreeDecoder(BinaryDecoder decoder) {
+      this.decoder = decoder;
+    }
+
+    JsonElement read() throws IOException {
+      int tag = decoder.readInt();
+      switch (tag) {
+        case TAG_NULL:
+          return JsonNull.INSTANCE;
+        case TAG_TRUE:
+          return new JsonPrimitive(true);
+        case TAG_FALSE:
+          return new JsonPrimitive(false);
+        case TAG_LONG:
+          return new JsonPrimitive(decoder.readLong());
+        case TAG_NUMBER:
+          return new JsonPrimitive(new BigDecimal(readString()));
+        case TAG_STRING:
+          return new JsonPrimitive(readString());
+        case TAG_ARRAY: {
+          int size = decoder.readInt();
+          JsonArray array = new JsonArray();
+          for (int i = 0; i < size; i++) {
+            array.add(read());
+          }
+          return array;
+        }
+        case TAG_OBJECT: {
+          int size = decoder.readInt();
+          JsonObject object = new JsonObject();
+          for (int i = 0; i < size; i++) {
+            String name = readString();
+            object.add(name, read());
+          }
+          return object;
+        }
+        default:
+          throw new IOException("Unknown tag " + tag);
+      }
+    }
+
+    private String readString() throws IOException {
+      int index = decoder.readInt();
+      if (index > 0) {
+        return strings.get(index - 1);
+      }
+      String string = decoder.readString();
+      strings.add(string);
+      return string;
+    }
+  }
+}
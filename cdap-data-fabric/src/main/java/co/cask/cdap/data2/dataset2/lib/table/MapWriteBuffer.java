@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import co.cask.cdap.api.common.Bytes;
+import com.google.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link WriteBuffer} that keeps updates in sorted maps, with one {@link Update} object per cell.
+ * Lookups are cheap, but each buffered cell carries the overhead of multiple objects.
+ */
+final class MapWriteBuffer extends WriteBuffer {
+
+  private final NavigableMap<byte[], NavigableMap<byte[], Update>> buff;
+
+  MapWriteBuffer() {
+    this.buff = new ConcurrentSkipListMap<>(Bytes.BYTES_COMPARATOR);
+  }
+
+  @Override
+  void put(byte[] row, byte[] column, @Nullable byte[] value) {
+    getOrCreateRow(row).put(copy(column), new PutValue(copy(value)));
+  }
+
+  @Override
+  void increment(byte[] row, byte[] column, long amount) {
+    NavigableMap<byte[], Update> colVals = getOrCreateRow(row);
+    colVals.put(copy(column), Updates.mergeUpdates(colVals.get(column), new IncrementValue(amount)));
+  }
+
+  @Nullable
+  @Override
+  NavigableMap<byte[], Update> get(byte[] row) {
+    return buff.get(row);
+  }
+
+  @Override
+  NavigableMap<byte[], NavigableMap<byte[], Update>> getRows(@Nullable byte[] startRow, @Nullable byte[] stopRow) {
+    if (startRow == null && stopRow == null) {
+      return buff;
+    }
+    if (startRow == null) {
+      return buff.headMap(stopRow, false);
+    }
+    if (stopRow == null) {
+      return buff.tailMap(startRow, true);
+    }
+    return buff.subMap(startRow, true, stopRow, false);
+  }
+
+  @Override
+  NavigableMap<byte[], NavigableMap<byte[], Update>> getRowsView() {
+    return buff;
+  }
+
+  @Override
+  Collection<byte[]> getRowKeys() {
+    return buff.keySet();
+  }
+
+  @Override
+  boolean isEmpty() {
+    return buff.isEmpty();
+  }
+
+  @Override
+  void clear() {
+    buff.clear();
+  }
+
+  private NavigableMap<byte[], Update> getOrCreateRow(byte[] row) {
+    NavigableMap<byte[], Update> colVals = buff.get(row);
+    if (colVals == null) {
+      colVals = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      // NOTE: we copy passed row's byte arrays to protect buffer against possible changes of this array on client
+      buff.put(copy(row), colVals);
+    }
+    return colVals;
+  }
+
+  @Nullable
+  private static byte[] copy(@Nullable byte[] bytes) {
+    return bytes == null ? null : Arrays.copyOf(bytes, bytes.length);
+  }
+}
@@ -53,24 +53,28 @@ public class MetadataStoreDataset extends AbstractDataset {
   private static final byte[] COLUMN = Bytes.toBytes("c");
 
   private final Table table;
-  private final Gson gson;
+  private final MetadataStoreCodec codec;
 
   public MetadataStoreDataset(Table table) {
     this(table, new Gson());
   }
 
   public MetadataStoreDataset(Table table, Gson gson) {
+    this(table, new GsonMetadataStoreCodec(gson, GsonMetadataStoreCodec.Format.JSON));
+  }
+
+  public MetadataStoreDataset(Table table, MetadataStoreCodec codec) {
     super("ignored", table);
     this.table = table;
-    this.gson = gson;
+    this.codec = codec;
   }
 
   protected <T> byte[] serialize(T value) {
-    return Bytes.toBytes(gson.toJson(value));
+    return codec.encode(value);
   }
 
   protected <T> T deserialize(byte[] serialized, Type typeOfT) {
-    return gson.fromJson(Bytes.toString(serialized), typeOfT);
+    return codec.decode(serialized, typeOfT);
   }
 
   public boolean exists(MDSKey id) {
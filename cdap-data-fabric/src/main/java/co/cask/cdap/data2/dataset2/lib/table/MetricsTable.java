@@ -19,6 +19,7 @@ package co.cask.cdap.data2.dataset2.lib.table;
 import co.cask.cdap.api.dataset.Dataset;
 import co.cask.cdap.api.dataset.table.Scanner;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.SortedMap;
@@ -35,6 +36,13 @@ public interface MetricsTable extends Dataset {
   @Nullable
   byte[] get(byte[] row, byte[] column);
 
+  /**
+   * Read single column of multiple rows.
+   *
+   * @return map from row key to the value of the column, containing only the rows that have the column
+   */
+  NavigableMap<byte[], byte[]> get(Collection<byte[]> rows, byte[] column);
+
   /**
    * Write multiple rows, each with multiple individual columns to write.
    */
@@ -20,6 +20,7 @@ import co.cask.cdap.api.annotation.Beta;
 import co.cask.cdap.api.annotation.ReadOnly;
 import co.cask.cdap.api.annotation.WriteOnly;
 import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.batch.KeyRangeScannable;
 import co.cask.cdap.api.data.batch.RecordScanner;
 import co.cask.cdap.api.data.batch.Split;
 import co.cask.cdap.api.data.batch.SplitReader;
@@ -55,7 +56,7 @@ import javax.annotation.Nullable;
  * @param <T> the type of objects in the table
  */
 @Beta
-public class ObjectMappedTableDataset<T> extends AbstractDataset implements ObjectMappedTable<T> {
+public class ObjectMappedTableDataset<T> extends AbstractDataset implements ObjectMappedTable<T>, KeyRangeScannable {
   private static final Logger LOG = LoggerFactory.getLogger(ObjectMappedTableDataset.class);
 
   private final Table table;
@@ -185,6 +186,12 @@ public class ObjectMappedTableDataset<T> extends AbstractDataset implements Obje
     return table.getSplits(numSplits, start, stop);
   }
 
+  @Nullable
+  @Override
+  public String getKeyField() {
+    return table instanceof KeyRangeScannable ? ((KeyRangeScannable) table).getKeyField() : null;
+  }
+
   @ReadOnly
   @Override
   public RecordScanner<StructuredRecord> createSplitRecordScanner(Split split) {
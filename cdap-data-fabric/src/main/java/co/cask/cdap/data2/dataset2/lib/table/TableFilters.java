@@ -0,0 +1,295 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.DataSetException;
+import co.cask.cdap.api.dataset.table.ColumnLimitFilter;
+import co.cask.cdap.api.dataset.table.ColumnRangeFilter;
+import co.cask.cdap.api.dataset.table.ColumnValueFilter;
+import co.cask.cdap.api.dataset.table.Filter;
+import co.cask.cdap.api.dataset.table.FilterList;
+import co.cask.cdap.api.dataset.table.Result;
+import co.cask.cdap.api.dataset.table.Row;
+import co.cask.cdap.api.dataset.table.RowPrefixFilter;
+import co.cask.cdap.api.dataset.table.Scan;
+import co.cask.cdap.api.dataset.table.Scanner;
+import com.google.common.collect.Maps;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import javax.annotation.Nullable;
+
+/**
+ * Evaluates the scan {@link Filter}s on rows, for the table implementations that do not push them down
+ * to the storage, and for rows that have buffered writes.
+ */
+public final class TableFilters {
+
+  private TableFilters() {
+  }
+
+  /**
+   * Validates that the given filter is supported.
+   *
+   * @throws DataSetException if the filter or one of its members is of an unknown type, or if a
+   *                          {@link FilterList.Operator#MUST_PASS_ONE} list has a member that selects columns
+   */
+  public static void validate(@Nullable Filter filter) {
+    if (filter == null || filter instanceof FuzzyRowFilter || filter instanceof RowPrefixFilter
+      || filter instanceof ColumnValueFilter || filter instanceof ColumnRangeFilter
+      || filter instanceof ColumnLimitFilter) {
+      return;
+    }
+    if (filter instanceof FilterList) {
+      FilterList filterList = (FilterList) filter;
+      for (Filter member : filterList.getFilters()) {
+        validate(member);
+        if (filterList.getOperator() == FilterList.Operator.MUST_PASS_ONE && selectsColumns(member)) {
+          throw new DataSetException("Filter " + member + " selects columns and cannot be combined with "
+                                       + FilterList.Operator.MUST_PASS_ONE);
+        }
+      }
+      return;
+    }
+    throw new DataSetException("Unknown filter type: " + filter);
+  }
+
+  /**
+   * Returns whether the given filter decides on rows by their keys only, and does not select columns.
+   */
+  public static boolean isRowKeyFilter(Filter filter) {
+    if (filter instanceof FuzzyRowFilter || filter instanceof RowPrefixFilter) {
+      return true;
+    }
+    if (filter instanceof FilterList) {
+      for (Filter member : ((FilterList) filter).getFilters()) {
+        if (!isRowKeyFilter(member)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether the given filter selects columns of the rows, rather than only deciding on the rows.
+   */
+  public static boolean selectsColumns(Filter filter) {
+    if (filter instanceof ColumnRangeFilter || filter instanceof ColumnLimitFilter) {
+      return true;
+    }
+    if (filter instanceof FilterList) {
+      for (Filter member : ((FilterList) filter).getFilters()) {
+        if (selectsColumns(member)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether a row key filter includes the given row.
+   *
+   * @see #isRowKeyFilter(Filter)
+   */
+  public static boolean matchesRow(Filter filter, byte[] row) {
+    if (filter instanceof FuzzyRowFilter) {
+      return ((FuzzyRowFilter) filter).filterRow(row) == FuzzyRowFilter.ReturnCode.INCLUDE;
+    }
+    if (filter instanceof RowPrefixFilter) {
+      return Bytes.startsWith(row, ((RowPrefixFilter) filter).getPrefix());
+    }
+    if (filter instanceof FilterList) {
+      FilterList filterList = (FilterList) filter;
+      boolean all = filterList.getOperator() == FilterList.Operator.MUST_PASS_ALL;
+      for (Filter member : filterList.getFilters()) {
+        if (matchesRow(member, row) != all) {
+          return !all;
+        }
+      }
+      return all;
+    }
+    throw new IllegalArgumentException("Not a row key filter: " + filter);
+  }
+
+  /**
+   * Applies the given filter to a row.
+   *
+   * @param filter the filter to apply
+   * @param row the row key
+   * @param columns all columns of the row, without deleted columns
+   * @return the columns of the row to return, or {@code null} if the row is excluded
+   */
+  @Nullable
+  public static NavigableMap<byte[], byte[]> apply(Filter filter, byte[] row, NavigableMap<byte[], byte[]> columns) {
+    if (!matches(filter, row, columns)) {
+      return null;
+    }
+    NavigableMap<byte[], byte[]> result = selectColumns(filter, columns);
+    return result.isEmpty() ? null : result;
+  }
+
+  /**
+   * Returns a scan over the same rows as the given scan, with the row range narrowed to the row prefix
+   * that all rows included by the filter must have, if any.
+   */
+  public static Scan narrow(Scan scan) {
+    byte[] prefix = getRowPrefix(scan.getFilter());
+    if (prefix == null) {
+      return scan;
+    }
+    byte[] startRow = scan.getStartRow();
+    if (startRow == null || Bytes.compareTo(startRow, prefix) < 0) {
+      startRow = prefix;
+    }
+    byte[] stopRow = scan.getStopRow();
+    byte[] prefixStopRow = Bytes.stopKeyForPrefix(prefix);
+    if (stopRow == null || (prefixStopRow != null && Bytes.compareTo(prefixStopRow, stopRow) < 0)) {
+      stopRow = prefixStopRow;
+    }
+    if (stopRow != null && Bytes.compareTo(startRow, stopRow) >= 0) {
+      // No row in the range has the prefix, but not all tables accept an inverted range
+      return scan;
+    }
+    return new Scan(startRow, stopRow, scan.getFilter());
+  }
+
+  /**
+   * Returns a {@link Scanner} that applies the given filter to the rows of the given scanner.
+   */
+  public static Scanner filter(final Scanner scanner, final Filter filter) {
+    return new Scanner() {
+      @Nullable
+      @Override
+      public Row next() {
+        Row row;
+        while ((row = scanner.next()) != null) {
+          NavigableMap<byte[], byte[]> columns = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+          for (Map.Entry<byte[], byte[]> column : row.getColumns().entrySet()) {
+            // Rows merged from buffered writes can have deleted columns
+            if (column.getValue() != null) {
+              columns.put(column.getKey(), column.getValue());
+            }
+          }
+          NavigableMap<byte[], byte[]> result = apply(filter, row.getRow(), columns);
+          if (result != null) {
+            return new Result(row.getRow(), result);
+          }
+        }
+        return null;
+      }
+
+      @Override
+      public void close() {
+        scanner.close();
+      }
+    };
+  }
+
+  /**
+   * Returns whether the filter includes the row, evaluated on all columns of the row.
+   */
+  private static boolean matches(Filter filter, byte[] row, NavigableMap<byte[], byte[]> columns) {
+    if (filter instanceof ColumnValueFilter) {
+      ColumnValueFilter valueFilter = (ColumnValueFilter) filter;
+      return valueFilter.matches(columns.get(valueFilter.getColumn()));
+    }
+    if (filter instanceof ColumnRangeFilter || filter instanceof ColumnLimitFilter) {
+      return true;
+    }
+    if (filter instanceof FilterList) {
+      FilterList filterList = (FilterList) filter;
+      boolean all = filterList.getOperator() == FilterList.Operator.MUST_PASS_ALL;
+      for (Filter member : filterList.getFilters()) {
+        if (matches(member, row, columns) != all) {
+          return !all;
+        }
+      }
+      return all;
+    }
+    return matchesRow(filter, row);
+  }
+
+  /**
+   * Returns the columns selected by the filter, applying the column selections in order.
+   */
+  private static NavigableMap<byte[], byte[]> selectColumns(Filter filter, NavigableMap<byte[], byte[]> columns) {
+    if (filter instanceof ColumnRangeFilter) {
+      ColumnRangeFilter rangeFilter = (ColumnRangeFilter) filter;
+      byte[] startColumn = rangeFilter.getStartColumn();
+      byte[] stopColumn = rangeFilter.getStopColumn();
+      NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      for (Map.Entry<byte[], byte[]> column : columns.entrySet()) {
+        if (stopColumn != null && Bytes.compareTo(column.getKey(), stopColumn) >= 0) {
+          break;
+        }
+        if (startColumn == null || Bytes.compareTo(column.getKey(), startColumn) >= 0) {
+          result.put(column.getKey(), column.getValue());
+        }
+      }
+      return result;
+    }
+    if (filter instanceof ColumnLimitFilter) {
+      int limit = ((ColumnLimitFilter) filter).getLimit();
+      if (columns.size() <= limit) {
+        return columns;
+      }
+      NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      Iterator<Map.Entry<byte[], byte[]>> iterator = columns.entrySet().iterator();
+      while (result.size() < limit) {
+        Map.Entry<byte[], byte[]> column = iterator.next();
+        result.put(column.getKey(), column.getValue());
+      }
+      return result;
+    }
+    if (filter instanceof FilterList && ((FilterList) filter).getOperator() == FilterList.Operator.MUST_PASS_ALL) {
+      NavigableMap<byte[], byte[]> result = columns;
+      for (Filter member : ((FilterList) filter).getFilters()) {
+        result = selectColumns(member, result);
+      }
+      return result;
+    }
+    // Other filters only decide on the row
+    return columns;
+  }
+
+  /**
+   * Returns the prefix that all rows included by the filter must have, or {@code null} if there is none.
+   */
+  @Nullable
+  private static byte[] getRowPrefix(@Nullable Filter filter) {
+    if (filter instanceof RowPrefixFilter) {
+      return ((RowPrefixFilter) filter).getPrefix();
+    }
+    if (filter instanceof FilterList && ((FilterList) filter).getOperator() == FilterList.Operator.MUST_PASS_ALL) {
+      byte[] longest = null;
+      // With multiple prefixes, the longest one is the most narrow, if the prefixes are compatible at all
+      for (Filter member : ((FilterList) filter).getFilters()) {
+        byte[] prefix = getRowPrefix(member);
+        if (prefix != null && (longest == null || prefix.length > longest.length)) {
+          longest = prefix;
+        }
+      }
+      return longest;
+    }
+    return null;
+  }
+}
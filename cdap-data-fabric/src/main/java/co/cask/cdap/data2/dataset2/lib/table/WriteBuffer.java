@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import java.util.Collection;
+import java.util.NavigableMap;
+import javax.annotation.Nullable;
+
+/**
+ * The in-memory buffer used by {@link BufferingTable} to keep changes made in a transaction until they are persisted.
+ * Changes are kept as row->(column->{@link Update}) and a delete of a column is represented by
+ * a {@link PutValue} with {@code null} value.
+ */
+abstract class WriteBuffer {
+
+  /**
+   * Buffers a put to a cell. The arrays passed in are copied.
+   *
+   * @param row the row key
+   * @param column the column key
+   * @param value the value or {@code null} to delete the cell
+   */
+  abstract void put(byte[] row, byte[] column, @Nullable byte[] value);
+
+  /**
+   * Buffers an increment to a cell. It is merged with the update already buffered for the same cell according to
+   * {@link Updates#mergeUpdates(Update, Update)}. The arrays passed in are copied.
+   *
+   * @throws NumberFormatException if the buffered value of the cell is not a long
+   */
+  abstract void increment(byte[] row, byte[] column, long amount);
+
+  /**
+   * Returns the buffered updates of the given row or {@code null} if there is no update to the row.
+   * The map returned must not be modified.
+   */
+  @Nullable
+  abstract NavigableMap<byte[], Update> get(byte[] row);
+
+  /**
+   * Returns the buffered updates of rows in the given range. The map returned must not be modified.
+   *
+   * @param startRow the start row (inclusive) or {@code null} to start from the first row
+   * @param stopRow the stop row (exclusive) or {@code null} to end with the last row
+   */
+  abstract NavigableMap<byte[], NavigableMap<byte[], Update>> getRows(@Nullable byte[] startRow,
+                                                                      @Nullable byte[] stopRow);
+
+  /**
+   * Returns all buffered updates, for persisting or undoing them. Unlike {@link #getRows(byte[], byte[])}, the map
+   * returned may be a view that decodes rows as its entries are iterated, hence it must not be used after the buffer
+   * is modified. The map returned must not be modified.
+   */
+  abstract NavigableMap<byte[], NavigableMap<byte[], Update>> getRowsView();
+
+  /**
+   * Returns the keys of all rows having buffered updates, in sorted order.
+   */
+  abstract Collection<byte[]> getRowKeys();
+
+  /**
+   * Returns {@code true} if there is no buffered update.
+   */
+  abstract boolean isEmpty();
+
+  /**
+   * Removes all buffered updates.
+   */
+  abstract void clear();
+}
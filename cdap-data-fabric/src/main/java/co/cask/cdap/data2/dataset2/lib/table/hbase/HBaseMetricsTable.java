@@ -43,10 +43,13 @@ import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.util.Pair;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.SortedMap;
+import java.util.TreeMap;
 import javax.annotation.Nullable;
 
 /**
@@ -89,6 +92,28 @@ public class HBaseMetricsTable implements MetricsTable {
     }
   }
 
+  @Override
+  public NavigableMap<byte[], byte[]> get(Collection<byte[]> rows, byte[] column) {
+    try {
+      List<Get> gets = new ArrayList<>(rows.size());
+      for (byte[] row : rows) {
+        gets.add(tableUtil.buildGet(row)
+                   .addColumn(columnFamily, column)
+                   .setMaxVersions(1)
+                   .build());
+      }
+      NavigableMap<byte[], byte[]> result = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+      for (Result getResult : hTable.get(gets)) {
+        if (!getResult.isEmpty()) {
+          result.put(getResult.getRow(), getResult.getValue(columnFamily, column));
+        }
+      }
+      return result;
+    } catch (IOException e) {
+      throw new DataSetException("Multi-get failed on table " + tableId, e);
+    }
+  }
+
   @Override
   public void put(SortedMap<byte[], ? extends SortedMap<byte[], Long>> updates) {
     List<Put> puts = Lists.newArrayList();
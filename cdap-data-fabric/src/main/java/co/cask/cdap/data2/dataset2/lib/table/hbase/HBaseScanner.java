@@ -16,26 +16,45 @@
 
 package co.cask.cdap.data2.dataset2.lib.table.hbase;
 
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.dataset.table.Row;
 import co.cask.cdap.api.dataset.table.Scanner;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.NavigableMap;
 
 /**
- * Implements Scanner on top of HBase resultSetScanner.
+ * Implements Scanner on top of HBase resultSetScanner. If the HBase scan has a batch size, a row may be
+ * returned in multiple partial results, which this scanner merges back into one row.
  */
 public class HBaseScanner implements Scanner {
 
   private final ResultScanner scanner;
   private final byte[] columnFamily;
+  private final boolean mergePartialRows;
+  // The result read ahead while merging partial results of the previous row
+  private Result lookahead;
 
   public HBaseScanner(ResultScanner scanner, byte[] columnFamily) {
+    this(scanner, columnFamily, false);
+  }
+
+  /**
+   * Creates a new instance.
+   *
+   * @param scanner the HBase scanner to read from
+   * @param columnFamily the column family of the table
+   * @param mergePartialRows whether consecutive results of the same row should be merged into one row
+   */
+  public HBaseScanner(ResultScanner scanner, byte[] columnFamily, boolean mergePartialRows) {
     this.scanner = scanner;
     this.columnFamily = columnFamily;
+    this.mergePartialRows = mergePartialRows;
   }
 
   @Override
@@ -48,12 +67,16 @@ public class HBaseScanner implements Scanner {
 
       //Loop until one row is read completely or until end is reached.
       while (true) {
-        Result result = scanner.next();
+        Result result = lookahead == null ? scanner.next() : lookahead;
+        lookahead = null;
         if (result == null || result.isEmpty()) {
           break;
         }
 
         Map<byte[], byte[]> rowMap = HBaseTable.getRowMap(result, columnFamily);
+        if (mergePartialRows) {
+          rowMap = mergePartialRows(result.getRow(), rowMap);
+        }
         if (rowMap.size() > 0) {
           return new co.cask.cdap.api.dataset.table.Result(result.getRow(), rowMap);
         }
@@ -67,6 +90,23 @@ public class HBaseScanner implements Scanner {
     }
   }
 
+  /**
+   * Reads the following results of the given row and merges their columns with the given columns.
+   */
+  private Map<byte[], byte[]> mergePartialRows(byte[] row, Map<byte[], byte[]> rowMap) throws IOException {
+    NavigableMap<byte[], byte[]> merged = null;
+    Result result;
+    while ((result = scanner.next()) != null && !result.isEmpty() && Bytes.equals(row, result.getRow())) {
+      if (merged == null) {
+        merged = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        merged.putAll(rowMap);
+      }
+      merged.putAll(HBaseTable.getRowMap(result, columnFamily));
+    }
+    lookahead = result;
+    return merged == null ? rowMap : merged;
+  }
+
   @Override
   public void close() {
     scanner.close();
@@ -22,7 +22,12 @@ import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.dataset.DataSetException;
 import co.cask.cdap.api.dataset.DatasetContext;
 import co.cask.cdap.api.dataset.DatasetSpecification;
+import co.cask.cdap.api.dataset.table.ColumnLimitFilter;
+import co.cask.cdap.api.dataset.table.ColumnRangeFilter;
+import co.cask.cdap.api.dataset.table.ColumnValueFilter;
 import co.cask.cdap.api.dataset.table.Filter;
+import co.cask.cdap.api.dataset.table.FilterList;
+import co.cask.cdap.api.dataset.table.RowPrefixFilter;
 import co.cask.cdap.api.dataset.table.Scanner;
 import co.cask.cdap.api.dataset.table.TableProperties;
 import co.cask.cdap.common.conf.CConfiguration;
@@ -31,6 +36,7 @@ import co.cask.cdap.data2.dataset2.lib.table.BufferingTable;
 import co.cask.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
 import co.cask.cdap.data2.dataset2.lib.table.IncrementValue;
 import co.cask.cdap.data2.dataset2.lib.table.PutValue;
+import co.cask.cdap.data2.dataset2.lib.table.TableFilters;
 import co.cask.cdap.data2.dataset2.lib.table.Update;
 import co.cask.cdap.data2.dataset2.lib.table.inmemory.PrefixedNamespaces;
 import co.cask.cdap.data2.util.TableId;
@@ -41,6 +47,7 @@ import co.cask.cdap.data2.util.hbase.IncrementBuilder;
 import co.cask.cdap.data2.util.hbase.PutBuilder;
 import co.cask.cdap.data2.util.hbase.ScanBuilder;
 import co.cask.cdap.proto.id.NamespaceId;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
@@ -55,9 +62,14 @@ import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.filter.ColumnPaginationFilter;
+import org.apache.hadoop.hbase.filter.CompareFilter;
+import org.apache.hadoop.hbase.filter.PrefixFilter;
+import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
 import org.apache.hadoop.hbase.util.Pair;
 import org.apache.tephra.TransactionCodec;
 import org.apache.tephra.TxConstants;
+import org.apache.twill.common.Threads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -68,6 +80,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
@@ -86,6 +100,20 @@ public class HBaseTable extends BufferingTable {
 
   public static final String SAFE_INCREMENTS = "dataset.table.safe.readless.increments";
 
+  // Hints for scans, given as dataset runtime arguments or, as defaults, as dataset properties
+  public static final String SCAN_CACHING = "dataset.table.scan.caching";
+  public static final String SCAN_BATCH = "dataset.table.scan.batch";
+  public static final String SCAN_CACHE_BLOCKS = "dataset.table.scan.cache.blocks";
+  public static final String SCAN_PREFETCH = "dataset.table.scan.prefetch";
+
+  // NOTE: by default we assume scanner is used in mapreduce job, hence large caching and no cache blocks
+  private static final int DEFAULT_SCAN_CACHING = 1000;
+  private static final boolean DEFAULT_SCAN_CACHE_BLOCKS = false;
+
+  // Shared by all tables for fetching the next batch of scans with prefetch enabled. Idle threads are released.
+  private static final ExecutorService SCAN_PREFETCH_EXECUTOR =
+    Executors.newCachedThreadPool(Threads.createDaemonThreadFactory("hbase-table-scan-prefetch-%d"));
+
   private final HBaseTableUtil tableUtil;
   private final HTable hTable;
   private final String hTableName;
@@ -94,10 +122,15 @@ public class HBaseTable extends BufferingTable {
   // name length + name of the table: handy to have one cached
   private final byte[] nameAsTxChangePrefix;
   private final boolean safeReadlessIncrements;
+  private final boolean readlessIncrements;
   // tx max lifetime property comes usually from cConf in DefaultTransactionProcessor but if it is not available
   // briefly during startup, the coprocessor gets it from the operation's attribute.
   private final byte[] txMaxLifetimeMillis;
-
+  private final int scanCaching;
+  // batch of columns per result for scans, or -1 for all columns of a row in one result
+  private final int scanBatch;
+  private final boolean scanCacheBlocks;
+  private final boolean scanPrefetch;
 
   public HBaseTable(DatasetContext datasetContext, DatasetSpecification spec, Map<String, String> args,
                     CConfiguration cConf, Configuration hConf, HBaseTableUtil tableUtil) throws IOException {
@@ -117,8 +150,14 @@ public class HBaseTable extends BufferingTable {
     // table name is not the same as the dataset name anymore
     this.nameAsTxChangePrefix = Bytes.add(new byte[]{(byte) this.hTableName.length()}, Bytes.toBytes(this.hTableName));
     this.safeReadlessIncrements = args.containsKey(SAFE_INCREMENTS) && Boolean.valueOf(args.get(SAFE_INCREMENTS));
+    this.readlessIncrements = TableProperties.getReadlessIncrementSupport(spec.getProperties());
     this.txMaxLifetimeMillis = Bytes.toBytes(TimeUnit.SECONDS.toMillis(
       cConf.getInt(TxConstants.Manager.CFG_TX_MAX_LIFETIME, TxConstants.Manager.DEFAULT_TX_MAX_LIFETIME)));
+    this.scanCaching = getScanHint(args, spec, SCAN_CACHING, DEFAULT_SCAN_CACHING);
+    this.scanBatch = getScanHint(args, spec, SCAN_BATCH, -1);
+    this.scanCacheBlocks = getScanHint(args, spec, SCAN_CACHE_BLOCKS, DEFAULT_SCAN_CACHE_BLOCKS);
+    this.scanPrefetch = getScanHint(args, spec, SCAN_PREFETCH, false);
+    Preconditions.checkArgument(scanCaching > 0, "Scan caching must be positive: %s", scanCaching);
   }
 
   @Override
@@ -347,10 +386,8 @@ public class HBaseTable extends BufferingTable {
   protected Scanner scanPersisted(co.cask.cdap.api.dataset.table.Scan scan) throws Exception {
     ScanBuilder hScan = tableUtil.buildScan();
     hScan.addFamily(columnFamily);
-    // todo: should be configurable
-    // NOTE: by default we assume scanner is used in mapreduce job, hence no cache blocks
-    hScan.setCacheBlocks(false);
-    hScan.setCaching(1000);
+    hScan.setCacheBlocks(scanCacheBlocks);
+    hScan.setCaching(scanCaching);
 
     byte[] startRow = scan.getStartRow();
     byte[] stopRow = scan.getStopRow();
@@ -361,18 +398,41 @@ public class HBaseTable extends BufferingTable {
       hScan.setStopRow(stopRow);
     }
 
-    setFilterIfNeeded(hScan, scan.getFilter());
+    Filter filter = scan.getFilter();
+    org.apache.hadoop.hbase.filter.Filter hFilter = filter == null ? null : toHBaseFilter(filter);
+    boolean filterOnClient = filter != null && hFilter == null;
+    if (filterOnClient) {
+      hFilter = toHBaseRowFilter(filter);
+    }
+    if (hFilter != null) {
+      hScan.setFilter(hFilter);
+    }
+    // Filters on values or on the columns of a row, such as SingleColumnValueFilter and ColumnPaginationFilter,
+    // need to see whole rows, hence the batch hint is only applied if no filter is pushed down
+    boolean batched = scanBatch > 0 && hFilter == null;
+    if (batched) {
+      hScan.setBatch(scanBatch);
+    }
     hScan.setAttribute(TxConstants.TX_OPERATION_ATTRIBUTE_KEY, txCodec.encode(tx));
 
-    ResultScanner resultScanner = wrapResultScanner(hTable.getScanner(hScan.build()));
-    return new HBaseScanner(resultScanner, columnFamily);
-  }
-
-  private void setFilterIfNeeded(ScanBuilder scan, @Nullable Filter filter) {
-    if (filter == null) {
-      return;
+    // The prefetch only fetches raw results in the background. Reading them from the prefetching scanner goes
+    // through the @ReadOnly methods on the caller's thread, which carries the dataset call context.
+    ResultScanner resultScanner = hTable.getScanner(hScan.build());
+    if (scanPrefetch) {
+      resultScanner = new PrefetchingResultScanner(resultScanner, scanCaching, SCAN_PREFETCH_EXECUTOR);
     }
+    Scanner scanner = new HBaseScanner(wrapResultScanner(resultScanner), columnFamily, batched);
+    return filterOnClient ? TableFilters.filter(scanner, filter) : scanner;
+  }
 
+  /**
+   * Translates the given filter into an HBase filter that gives the same result, or returns {@code null}
+   * if there is none. HBase filters only see the latest visible version of each cell, without deleted cells,
+   * since they run after the transaction visibility filter.
+   */
+  @VisibleForTesting
+  @Nullable
+  org.apache.hadoop.hbase.filter.Filter toHBaseFilter(Filter filter) {
     if (filter instanceof FuzzyRowFilter) {
       FuzzyRowFilter fuzzyRowFilter = (FuzzyRowFilter) filter;
       List<Pair<byte[], byte[]>> fuzzyPairs =
@@ -380,10 +440,82 @@ public class HBaseTable extends BufferingTable {
       for (ImmutablePair<byte[], byte[]> pair : fuzzyRowFilter.getFuzzyKeysData()) {
         fuzzyPairs.add(Pair.newPair(pair.getFirst(), pair.getSecond()));
       }
-      scan.setFilter(new org.apache.hadoop.hbase.filter.FuzzyRowFilter(fuzzyPairs));
-    } else {
-      throw new IllegalArgumentException("Unsupported filter: " + filter);
+      return new org.apache.hadoop.hbase.filter.FuzzyRowFilter(fuzzyPairs);
+    }
+    if (filter instanceof RowPrefixFilter) {
+      return new PrefixFilter(((RowPrefixFilter) filter).getPrefix());
+    }
+    if (filter instanceof ColumnRangeFilter) {
+      ColumnRangeFilter rangeFilter = (ColumnRangeFilter) filter;
+      return new org.apache.hadoop.hbase.filter.ColumnRangeFilter(rangeFilter.getStartColumn(), true,
+                                                                  rangeFilter.getStopColumn(), false);
+    }
+    // With readless increments, filters would see the increment deltas instead of the values
+    if (filter instanceof ColumnValueFilter && !readlessIncrements) {
+      ColumnValueFilter valueFilter = (ColumnValueFilter) filter;
+      SingleColumnValueFilter hFilter = new SingleColumnValueFilter(
+        columnFamily, valueFilter.getColumn(), CompareFilter.CompareOp.valueOf(valueFilter.getOp().name()),
+        valueFilter.getValue());
+      hFilter.setFilterIfMissing(valueFilter.isFilterIfMissing());
+      hFilter.setLatestVersionOnly(true);
+      return hFilter;
+    }
+    if (filter instanceof ColumnLimitFilter && !readlessIncrements) {
+      return new ColumnPaginationFilter(((ColumnLimitFilter) filter).getLimit(), 0);
+    }
+    if (filter instanceof FilterList
+      && ((FilterList) filter).getOperator() == FilterList.Operator.MUST_PASS_ALL) {
+      // HBase applies the filters of a list cell by cell, and a filter that selects columns skips cells for
+      // the filters after it. With column selections, only keep the lists where this cannot change the result.
+      boolean selectsColumns = TableFilters.selectsColumns(filter);
+      boolean limited = false;
+      List<org.apache.hadoop.hbase.filter.Filter> hFilters = new ArrayList<>();
+      for (Filter member : ((FilterList) filter).getFilters()) {
+        if (selectsColumns) {
+          if (limited || member instanceof FilterList || member instanceof ColumnValueFilter) {
+            return null;
+          }
+          limited = member instanceof ColumnLimitFilter;
+        }
+        org.apache.hadoop.hbase.filter.Filter hFilter = toHBaseFilter(member);
+        if (hFilter == null) {
+          return null;
+        }
+        hFilters.add(hFilter);
+      }
+      return new org.apache.hadoop.hbase.filter.FilterList(
+        org.apache.hadoop.hbase.filter.FilterList.Operator.MUST_PASS_ALL, hFilters);
+    }
+    // Lists of alternatives are evaluated on the client
+    return null;
+  }
+
+  /**
+   * Translates the parts of the given filter that only decide on rows into an HBase filter that includes
+   * at least all rows the filter includes, or returns {@code null} if there is none.
+   * The returned filter does not change the columns of the rows.
+   */
+  @Nullable
+  private org.apache.hadoop.hbase.filter.Filter toHBaseRowFilter(Filter filter) {
+    List<Filter> members = Collections.singletonList(filter);
+    if (filter instanceof FilterList && ((FilterList) filter).getOperator() == FilterList.Operator.MUST_PASS_ALL) {
+      members = ((FilterList) filter).getFilters();
+    }
+    List<org.apache.hadoop.hbase.filter.Filter> hFilters = new ArrayList<>();
+    for (Filter member : members) {
+      if (TableFilters.selectsColumns(member)) {
+        continue;
+      }
+      org.apache.hadoop.hbase.filter.Filter hFilter = toHBaseFilter(member);
+      if (hFilter != null) {
+        hFilters.add(hFilter);
+      }
+    }
+    if (hFilters.isEmpty()) {
+      return null;
     }
+    return hFilters.size() == 1 ? hFilters.get(0) : new org.apache.hadoop.hbase.filter.FilterList(
+      org.apache.hadoop.hbase.filter.FilterList.Operator.MUST_PASS_ALL, hFilters);
   }
 
   /**
@@ -454,6 +586,27 @@ public class HBaseTable extends BufferingTable {
     return unwrapDeletes(rowMap);
   }
 
+  /**
+   * Returns the value of a scan hint from the runtime arguments, or from the dataset properties if it is not
+   * in the runtime arguments, or the given default value if it is in neither.
+   */
+  private static int getScanHint(Map<String, String> args, DatasetSpecification spec, String key, int defaultValue) {
+    String value = getScanHint(args, spec, key);
+    return value == null ? defaultValue : Integer.parseInt(value);
+  }
+
+  private static boolean getScanHint(Map<String, String> args, DatasetSpecification spec,
+                                     String key, boolean defaultValue) {
+    String value = getScanHint(args, spec, key);
+    return value == null ? defaultValue : Boolean.parseBoolean(value);
+  }
+
+  @Nullable
+  private static String getScanHint(Map<String, String> args, DatasetSpecification spec, String key) {
+    String value = args.get(key);
+    return value == null ? spec.getProperty(key) : value;
+  }
+
   // The following methods assist the Dataset authorization when the ResultScanner is used.
 
   @ReadOnly
@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table.hbase;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link ResultScanner} that fetches the next batch of results from the underlying scanner in the background,
+ * while the current batch is being consumed. This overlaps the RPC of the region server with the processing
+ * of the results by the caller.
+ *
+ * At most one fetch is outstanding at any time, hence the underlying scanner is never used concurrently.
+ * This class itself is not thread safe, same as other {@link ResultScanner}s.
+ *
+ * The fetches run on the threads of the given executor, hence the underlying scanner should be the raw HBase
+ * scanner. Anything that depends on the calling thread, such as the dataset call context, belongs on top of
+ * this scanner.
+ */
+final class PrefetchingResultScanner implements ResultScanner {
+
+  private static final Result[] EMPTY = new Result[0];
+
+  private final ResultScanner scanner;
+  private final int batchSize;
+  private final ExecutorService executor;
+
+  private Result[] batch;
+  private int index;
+  // The outstanding fetch of the next batch, or null if the scanner is exhausted or closed
+  @Nullable
+  private Future<Result[]> nextBatch;
+
+  /**
+   * Creates a new instance and starts fetching the first batch.
+   *
+   * @param scanner the scanner to fetch results from
+   * @param batchSize number of results to fetch in each batch
+   * @param executor executor for fetching the batches
+   */
+  PrefetchingResultScanner(ResultScanner scanner, int batchSize, ExecutorService executor) {
+    this.scanner = scanner;
+    this.batchSize = batchSize;
+    this.executor = executor;
+    this.batch = EMPTY;
+    this.nextBatch = fetch();
+  }
+
+  @Nullable
+  @Override
+  public Result next() throws IOException {
+    if (index >= batch.length) {
+      if (nextBatch == null) {
+        return null;
+      }
+      batch = await(nextBatch);
+      index = 0;
+      // The underlying scanner only returns less than the requested number of results when it is exhausted
+      nextBatch = batch.length < batchSize ? null : fetch();
+      if (batch.length == 0) {
+        return null;
+      }
+    }
+    Result result = batch[index];
+    // Release the reference as soon as possible, since batches can be large
+    batch[index++] = null;
+    return result;
+  }
+
+  @Override
+  public Result[] next(int nbRows) throws IOException {
+    List<Result> results = new ArrayList<>(nbRows);
+    Result result;
+    while (results.size() < nbRows && (result = next()) != null) {
+      results.add(result);
+    }
+    return results.toArray(new Result[results.size()]);
+  }
+
+  @Override
+  public void close() {
+    // Wait for the outstanding fetch, since the underlying scanner cannot be closed while it is in use
+    if (nextBatch != null) {
+      try {
+        Uninterruptibles.getUninterruptibly(nextBatch);
+      } catch (ExecutionException e) {
+        // Ignore, as the scanner is being closed anyway
+      }
+      nextBatch = null;
+    }
+    batch = EMPTY;
+    scanner.close();
+  }
+
+  @Override
+  public Iterator<Result> iterator() {
+    return new AbstractIterator<Result>() {
+      @Override
+      protected Result computeNext() {
+        try {
+          Result result = PrefetchingResultScanner.this.next();
+          return result == null ? endOfData() : result;
+        } catch (IOException e) {
+          throw Throwables.propagate(e);
+        }
+      }
+    };
+  }
+
+  private Future<Result[]> fetch() {
+    return executor.submit(new Callable<Result[]>() {
+      @Override
+      public Result[] call() throws Exception {
+        Result[] results = scanner.next(batchSize);
+        return results == null ? EMPTY : results;
+      }
+    });
+  }
+
+  private Result[] await(Future<Result[]> future) throws IOException {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      nextBatch = null;
+      Throwables.propagateIfPossible(e.getCause(), IOException.class);
+      throw new IOException(e.getCause());
+    }
+  }
+}
@@ -28,6 +28,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.SortedMap;
@@ -67,6 +68,18 @@ public class InMemoryMetricsTable implements MetricsTable {
     return null;
   }
 
+  @Override
+  public NavigableMap<byte[], byte[]> get(Collection<byte[]> rows, byte[] column) {
+    NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    for (byte[] row : rows) {
+      byte[] value = get(row, column);
+      if (value != null) {
+        result.put(row, value);
+      }
+    }
+    return result;
+  }
+
   @Override
   public void put(SortedMap<byte[], ? extends SortedMap<byte[], Long>> updates) {
     SortedMap<byte[], SortedMap<byte[], Update>> convertedUpdates = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
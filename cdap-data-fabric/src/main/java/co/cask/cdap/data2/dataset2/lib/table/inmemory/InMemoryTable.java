@@ -19,7 +19,6 @@ package co.cask.cdap.data2.dataset2.lib.table.inmemory;
 import co.cask.cdap.api.annotation.ReadOnly;
 import co.cask.cdap.api.annotation.WriteOnly;
 import co.cask.cdap.api.common.Bytes;
-import co.cask.cdap.api.dataset.DataSetException;
 import co.cask.cdap.api.dataset.DatasetContext;
 import co.cask.cdap.api.dataset.DatasetSpecification;
 import co.cask.cdap.api.dataset.table.ConflictDetection;
@@ -28,7 +27,7 @@ import co.cask.cdap.api.dataset.table.Scan;
 import co.cask.cdap.api.dataset.table.Scanner;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.data2.dataset2.lib.table.BufferingTable;
-import co.cask.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
+import co.cask.cdap.data2.dataset2.lib.table.TableFilters;
 import co.cask.cdap.data2.dataset2.lib.table.Update;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.AbstractIterator;
@@ -155,18 +154,14 @@ public class InMemoryTable extends BufferingTable {
       return map;
     }
 
-    // todo: currently we support only FuzzyRowFilter as an experimental feature
-    if (filter instanceof FuzzyRowFilter) {
-      NavigableMap<byte[], NavigableMap<byte[], byte[]>> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      for (Map.Entry<byte[], NavigableMap<byte[], byte[]>> entry : map.entrySet()) {
-        if (FuzzyRowFilter.ReturnCode.INCLUDE == ((FuzzyRowFilter) filter).filterRow(entry.getKey())) {
-          result.put(entry.getKey(), entry.getValue());
-        }
+    NavigableMap<byte[], NavigableMap<byte[], byte[]>> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    for (Map.Entry<byte[], NavigableMap<byte[], byte[]>> entry : map.entrySet()) {
+      NavigableMap<byte[], byte[]> columns = TableFilters.apply(filter, entry.getKey(), entry.getValue());
+      if (columns != null) {
+        result.put(entry.getKey(), columns);
       }
-      return result;
-    } else {
-      throw new DataSetException("Unknown filter type: " + filter);
     }
+    return result;
   }
 
   @ReadOnly
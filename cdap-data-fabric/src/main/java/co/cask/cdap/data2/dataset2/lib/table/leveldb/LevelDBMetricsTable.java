@@ -29,6 +29,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.SortedMap;
@@ -76,6 +77,22 @@ public class LevelDBMetricsTable implements MetricsTable {
     }
   }
 
+  @Override
+  public NavigableMap<byte[], byte[]> get(Collection<byte[]> rows, byte[] column) {
+    NavigableMap<byte[], byte[]> result = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+    try {
+      for (byte[] row : rows) {
+        byte[] value = core.getRow(row, new byte[][]{column}, null, null, -1, null).get(column);
+        if (value != null) {
+          result.put(row, value);
+        }
+      }
+      return result;
+    } catch (IOException e) {
+      throw new DataSetException("Multi-get failed on table " + tableName, e);
+    }
+  }
+
   @Override
   public void put(SortedMap<byte[], ? extends SortedMap<byte[], Long>> updates) {
     SortedMap<byte[], ? extends SortedMap<byte[], byte[]>> convertedUpdates =
@@ -97,7 +114,7 @@ public class LevelDBMetricsTable implements MetricsTable {
   }
 
   @Override
-  public synchronized boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) {
+  public boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) {
     try {
       return core.swap(row, column, oldValue, newValue);
     } catch (IOException e) {
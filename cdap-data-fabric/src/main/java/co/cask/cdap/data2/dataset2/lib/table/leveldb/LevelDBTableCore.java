@@ -17,11 +17,13 @@
 package co.cask.cdap.data2.dataset2.lib.table.leveldb;
 
 import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.table.Filter;
 import co.cask.cdap.api.dataset.table.Result;
 import co.cask.cdap.api.dataset.table.Row;
 import co.cask.cdap.api.dataset.table.Scanner;
 import co.cask.cdap.common.utils.ImmutablePair;
 import co.cask.cdap.data2.dataset2.lib.table.FuzzyRowFilter;
+import co.cask.cdap.data2.dataset2.lib.table.TableFilters;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
@@ -36,12 +38,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.concurrent.locks.Lock;
 import javax.annotation.Nullable;
 
 /**
@@ -92,48 +97,97 @@ public class LevelDBTableCore {
   }
 
 
-  public synchronized boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
-    byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
-    // verify
-    if (oldValue == null && existing != null) {
-      return false;
-    }
-    if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
-      return false;
-    }
-    // write
-    if (newValue == null) {
-      // to-do
-      deleteColumn(row, column);
-    } else {
-      persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)), System.currentTimeMillis());
+  public boolean swap(byte[] row, byte[] column, byte[] oldValue, byte[] newValue) throws IOException {
+    Lock lock = getRowLock(row);
+    lock.lock();
+    try {
+      byte[] existing = getRow(row, new byte[][] { column }, null, null, -1, null).get(column);
+      // verify
+      if (oldValue == null && existing != null) {
+        return false;
+      }
+      if (oldValue != null && (existing == null || !Bytes.equals(oldValue, existing))) {
+        return false;
+      }
+      // write
+      if (newValue == null) {
+        // to-do
+        deleteColumn(row, column);
+      } else {
+        persist(Collections.singletonMap(row, Collections.singletonMap(column, newValue)),
+                System.currentTimeMillis());
+      }
+      return true;
+    } finally {
+      lock.unlock();
     }
-    return true;
   }
 
-  public synchronized Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
-    Map<byte[], Long> result = getResultMap(row, increments);
-    Map<byte[], byte[]> replacing = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-    for (Map.Entry<byte[], Long> entry : result.entrySet()) {
-      replacing.put(entry.getKey(), Bytes.toBytes(entry.getValue()));
+  public Map<byte[], Long> increment(byte[] row, Map<byte[], Long> increments) throws IOException {
+    Lock lock = getRowLock(row);
+    lock.lock();
+    try {
+      Map<byte[], Long> result = getResultMap(row, increments);
+      Map<byte[], byte[]> replacing = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+      for (Map.Entry<byte[], Long> entry : result.entrySet()) {
+        replacing.put(entry.getKey(), Bytes.toBytes(entry.getValue()));
+      }
+      persist(ImmutableMap.of(row, replacing), System.currentTimeMillis());
+      return result;
+    } finally {
+      lock.unlock();
     }
-    persist(ImmutableMap.of(row, replacing), System.currentTimeMillis());
-    return result;
   }
 
 
-  public synchronized void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
-    Map<byte[], Map<byte[], byte[]>> resultMap = Maps.newHashMap();
-    for (NavigableMap.Entry<byte[], NavigableMap<byte[], Long>> row : updates.entrySet()) {
-      NavigableMap<byte[], Long> increments = row.getValue();
-      Map<byte[], byte[]> replacing = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
-      Map<byte[], Long> result = getResultMap(row.getKey(), increments);
-      for (Map.Entry<byte[], Long> entry : result.entrySet()) {
-        replacing.put(entry.getKey(), Bytes.toBytes(entry.getValue()));
+  public void increment(NavigableMap<byte[], NavigableMap<byte[], Long>> updates) throws IOException {
+    // The locks of all rows are held while reading the current values, until all new values are written
+    // in a single write batch
+    Iterable<Lock> locks = getRowLocks(updates.keySet());
+    for (Lock lock : locks) {
+      lock.lock();
+    }
+    try {
+      Map<byte[], Map<byte[], byte[]>> resultMap = Maps.newHashMap();
+      for (NavigableMap.Entry<byte[], NavigableMap<byte[], Long>> row : updates.entrySet()) {
+        NavigableMap<byte[], Long> increments = row.getValue();
+        Map<byte[], byte[]> replacing = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
+        Map<byte[], Long> result = getResultMap(row.getKey(), increments);
+        for (Map.Entry<byte[], Long> entry : result.entrySet()) {
+          replacing.put(entry.getKey(), Bytes.toBytes(entry.getValue()));
+        }
+        resultMap.put(row.getKey(), replacing);
+      }
+      persist(resultMap, System.currentTimeMillis());
+    } finally {
+      for (Lock lock : locks) {
+        lock.unlock();
       }
-      resultMap.put(row.getKey(), replacing);
     }
-    persist(resultMap, System.currentTimeMillis());
+  }
+
+  /**
+   * Returns the lock for the read-modify-write operations on the given row. The locks are shared by all
+   * instances for the same table, and are striped, so that operations on different rows mostly do not contend.
+   */
+  private Lock getRowLock(byte[] row) {
+    return service.getRowLocks().get(getRowLockKey(row));
+  }
+
+  /**
+   * Returns the locks for the given rows, in the order in which they must be acquired to avoid deadlocks.
+   * The same lock may be returned more than once. It is reentrant, hence it is acquired and released that many times.
+   */
+  private Iterable<Lock> getRowLocks(Collection<byte[]> rows) {
+    List<Integer> keys = new ArrayList<>(rows.size());
+    for (byte[] row : rows) {
+      keys.add(getRowLockKey(row));
+    }
+    return service.getRowLocks().bulkGet(keys);
+  }
+
+  private Integer getRowLockKey(byte[] row) {
+    return 31 * tableName.hashCode() + Bytes.hashCode(row);
   }
 
   private Map<byte[], Long> getResultMap(byte[] row, Map<byte[], Long> increments) throws IOException {
@@ -190,7 +244,7 @@ public class LevelDBTableCore {
   }
 
   public Scanner scan(byte[] startRow, byte[] stopRow,
-                      @Nullable FuzzyRowFilter filter, @Nullable byte[][] columns, @Nullable Transaction tx)
+                      @Nullable Filter filter, @Nullable byte[][] columns, @Nullable Transaction tx)
     throws IOException {
     if (columns != null) {
       if (columns.length == 0) {
@@ -489,14 +543,17 @@ public class LevelDBTableCore {
     private byte[] endKey;
     private final DBIterator iterator;
     private final byte[][] columns;
+    // The fuzzy row filter can seek to the next possible matching row, other filters are applied to each row
     private final FuzzyRowFilter filter;
+    private final Filter rowFilter;
 
     LevelDBScanner(DBIterator iterator, byte[] endKey,
-                   @Nullable FuzzyRowFilter filter, @Nullable byte[][] columns, @Nullable Transaction tx) {
+                   @Nullable Filter filter, @Nullable byte[][] columns, @Nullable Transaction tx) {
       this.tx = tx;
       this.endKey = endKey;
       this.iterator = iterator;
-      this.filter = filter;
+      this.filter = filter instanceof FuzzyRowFilter ? (FuzzyRowFilter) filter : null;
+      this.rowFilter = filter instanceof FuzzyRowFilter ? null : filter;
       this.columns = columns;
     }
 
@@ -526,6 +583,14 @@ public class LevelDBTableCore {
               }
             }
           }
+          if (rowFilter != null) {
+            NavigableMap<byte[], byte[]> filtered =
+              TableFilters.apply(rowFilter, result.getFirst(), result.getSecond());
+            if (filtered == null) {
+              continue;
+            }
+            return new Result(result.getFirst(), filtered);
+          }
           return new Result(result.getFirst(), result.getSecond());
         }
       } catch (Exception e) {
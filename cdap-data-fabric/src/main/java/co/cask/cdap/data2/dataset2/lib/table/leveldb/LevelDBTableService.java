@@ -16,6 +16,7 @@
 
 package co.cask.cdap.data2.dataset2.lib.table.leveldb;
 
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.data2.transaction.stream.leveldb.LevelDBNameConverter;
@@ -26,11 +27,14 @@ import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Striped;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBComparator;
+import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
+import org.iq80.leveldb.Range;
 import org.iq80.leveldb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +47,7 @@ import java.net.URLEncoder;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 
 import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
 
@@ -53,13 +58,23 @@ import static org.iq80.leveldb.impl.Iq80DBFactory.factory;
 public class LevelDBTableService {
 
   private static final Logger LOG = LoggerFactory.getLogger(LevelDBTableService.class);
+  private static final int ROW_LOCK_STRIPES = 1024;
+  // Directory of the database shared by all tables. URLEncoder never produces it from a table name.
+  private static final String SHARED_DB_DIR = "~shared";
+  // In the shared database, the names of the tables are stored as a table with the empty name
+  private static final String CATALOG_TABLE = "";
+  private static final byte[] EMPTY_BYTES = new byte[0];
 
   private int blockSize;
   private long cacheSize;
   private String basePath;
   private WriteOptions writeOptions;
+  private boolean singleDB;
+  private DB sharedDB;
 
   private final ConcurrentMap<String, DB> tables = Maps.newConcurrentMap();
+  // Locks for the read-modify-write operations on rows, such as increments and compare-and-swap
+  private final Striped<Lock> rowLocks = Striped.lock(ROW_LOCK_STRIPES);
 
   /**
    * To avoid database locking issues make sure that the single LevelDBTableService instance
@@ -89,6 +104,14 @@ public class LevelDBTableService {
     cacheSize = config.getLong(Constants.CFG_DATA_LEVELDB_CACHESIZE, Constants.DEFAULT_DATA_LEVELDB_CACHESIZE);
     writeOptions = new WriteOptions().sync(
       config.getBoolean(Constants.CFG_DATA_LEVELDB_FSYNC, Constants.DEFAULT_DATA_LEVELDB_FSYNC));
+    singleDB = config.getBoolean(Constants.CFG_DATA_LEVELDB_SINGLE_DB, Constants.DEFAULT_DATA_LEVELDB_SINGLE_DB);
+  }
+
+  /**
+   * Returns the locks for the read-modify-write operations on the rows of all tables.
+   */
+  Striped<Lock> getRowLocks() {
+    return rowLocks;
   }
 
   /**
@@ -99,6 +122,16 @@ public class LevelDBTableService {
   }
 
   public Collection<String> list() throws Exception {
+    if (singleDB) {
+      ImmutableCollection.Builder<String> builder = ImmutableList.builder();
+      try (DBIterator iterator = getCatalog().iterator()) {
+        iterator.seekToFirst();
+        while (iterator.hasNext()) {
+          builder.add(Bytes.toString(iterator.next().getValue()));
+        }
+      }
+      return builder.build();
+    }
     File baseDir = new File(basePath);
     String[] subDirs = baseDir.list();
     if (subDirs == null) {
@@ -118,6 +151,15 @@ public class LevelDBTableService {
    * @throws Exception
    */
   public Map<TableId, TableStats> getTableStats() throws Exception {
+    if (singleDB) {
+      ImmutableMap.Builder<TableId, TableStats> builder = ImmutableMap.builder();
+      DB db = getSharedDB();
+      for (String tableName : list()) {
+        Range range = new Range(PrefixedLevelDB.getPrefix(tableName), PrefixedLevelDB.getStopKey(tableName));
+        builder.put(LevelDBNameConverter.from(tableName), new TableStats(db.getApproximateSizes(range)[0]));
+      }
+      return builder.build();
+    }
     File baseDir = new File(basePath);
     File[] subDirs = baseDir.listFiles();
     if (subDirs == null) {
@@ -183,6 +225,11 @@ public class LevelDBTableService {
   }
 
   private DB openTable(String tableName) throws IOException {
+    if (singleDB) {
+      DB db = openPrefixedTable(tableName, false);
+      tables.put(tableName, db);
+      return db;
+    }
     String dbPath = getDBPath(basePath, tableName);
 
     Options options = new Options();
@@ -206,6 +253,10 @@ public class LevelDBTableService {
   }
 
   private void createTable(String name) throws IOException {
+    if (singleDB) {
+      tables.put(name, openPrefixedTable(name, true));
+      return;
+    }
     String dbPath = getDBPath(basePath, name);
 
     Options options = new Options();
@@ -220,6 +271,15 @@ public class LevelDBTableService {
   }
 
   public void dropTable(String name) throws IOException {
+    if (singleDB) {
+      // the catalog entry is removed last, so that a failed drop leaves the table listed and can be retried
+      synchronized (tables) {
+        tables.remove(name);
+        new PrefixedLevelDB(getSharedDB(), name).deleteAll(writeOptions);
+        getCatalog().delete(getCatalogKey(name), writeOptions);
+      }
+      return;
+    }
     DB db = tables.remove(name);
     if (db != null) {
       db.close();
@@ -229,6 +289,57 @@ public class LevelDBTableService {
   }
 
 
+  /**
+   * Opens a table in the shared database.
+   *
+   * @param createIfMissing whether to create the table if it does not exist
+   * @throws IOException if the table does not exist and createIfMissing is false
+   */
+  private DB openPrefixedTable(String tableName, boolean createIfMissing) throws IOException {
+    DB catalog = getCatalog();
+    byte[] catalogKey = getCatalogKey(tableName);
+    if (catalog.get(catalogKey) == null) {
+      if (!createIfMissing) {
+        throw new IOException("Table " + tableName + " does not exist in the shared database and the create if "
+                                + "missing option is disabled");
+      }
+      // clear any rows left behind by an interrupted drop before registering the table
+      PrefixedLevelDB table = new PrefixedLevelDB(getSharedDB(), tableName);
+      table.deleteAll(writeOptions);
+      catalog.put(catalogKey, Bytes.toBytes(tableName), writeOptions);
+      return table;
+    }
+    return new PrefixedLevelDB(getSharedDB(), tableName);
+  }
+
+  private DB getCatalog() throws IOException {
+    return new PrefixedLevelDB(getSharedDB(), CATALOG_TABLE);
+  }
+
+  private static byte[] getCatalogKey(String tableName) {
+    // Keys in the shared database must be key/value keys to be comparable
+    return new KeyValue(Bytes.toBytes(tableName), EMPTY_BYTES, EMPTY_BYTES, 0L, KeyValue.Type.Put).getKey();
+  }
+
+  /**
+   * Returns the database shared by all tables, opening it if needed. All tables share its block cache,
+   * memtable and files.
+   */
+  private DB getSharedDB() throws IOException {
+    synchronized (tables) {
+      if (sharedDB == null) {
+        Options options = new Options();
+        options.createIfMissing(true);
+        options.errorIfExists(false);
+        options.comparator(new PrefixedKeyValueDBComparator());
+        options.blockSize(blockSize);
+        options.cacheSize(cacheSize);
+        sharedDB = factory.open(new File(basePath, SHARED_DB_DIR), options);
+      }
+      return sharedDB;
+    }
+  }
+
   private static String getDBPath(String basePath, String tableName) {
     String encodedTableName;
     try {
@@ -266,6 +377,44 @@ public class LevelDBTableService {
     }
   }
 
+  /**
+   * A comparator for the keys of the database shared by all tables. The keys are prefixed with the length and
+   * the name of the table, see {@link PrefixedLevelDB}. They are ordered by the table name, then as the keys
+   * of key/value pairs.
+   */
+  public static class PrefixedKeyValueDBComparator implements DBComparator {
+    @Override
+    public int compare(byte[] left, byte[] right) {
+      int leftNameLength = Bytes.toInt(left, 0);
+      int rightNameLength = Bytes.toInt(right, 0);
+      int compare = Bytes.compareTo(left, Bytes.SIZEOF_INT, leftNameLength, right, Bytes.SIZEOF_INT, rightNameLength);
+      if (compare != 0) {
+        return compare;
+      }
+      int leftOffset = Bytes.SIZEOF_INT + leftNameLength;
+      int rightOffset = Bytes.SIZEOF_INT + rightNameLength;
+      int leftLength = left.length - leftOffset;
+      int rightLength = right.length - rightOffset;
+      // A prefix alone sorts before all keys of the table
+      if (leftLength == 0 || rightLength == 0) {
+        return leftLength - rightLength;
+      }
+      return KeyValue.KEY_COMPARATOR.compare(left, leftOffset, leftLength, right, rightOffset, rightLength);
+    }
+    @Override
+    public byte[] findShortSuccessor(byte[] key) {
+      return key;
+    }
+    @Override
+    public byte[] findShortestSeparator(byte[] start, byte[] limit) {
+      return start;
+    }
+    @Override
+    public String name() {
+      return "prefixed-hbase-kv";
+    }
+  }
+
   /**
    * Represents LevelDB's table stats.
    */
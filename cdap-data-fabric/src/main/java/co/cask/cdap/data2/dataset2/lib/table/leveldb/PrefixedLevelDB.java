@@ -0,0 +1,298 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table.leveldb;
+
+import co.cask.cdap.api.common.Bytes;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBException;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.Range;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link DB} of one table that is stored in a LevelDB database shared by multiple tables. The keys of the table
+ * are stored with a prefix of the length and the UTF-8 bytes of the table name. The database must be opened with
+ * {@link LevelDBTableService.PrefixedKeyValueDBComparator}, which orders the keys by table name first.
+ *
+ * Closing this {@link DB} does not close the shared database. Iterating backwards is not supported,
+ * as with the LevelDB implementation itself.
+ */
+final class PrefixedLevelDB implements DB {
+
+  private static final int DELETE_BATCH_SIZE = 1000;
+
+  private final DB db;
+  private final byte[] prefix;
+
+  PrefixedLevelDB(DB db, String tableName) {
+    this.db = db;
+    this.prefix = getPrefix(tableName);
+  }
+
+  /**
+   * Returns the prefix of the keys of the given table in the shared database.
+   */
+  static byte[] getPrefix(String tableName) {
+    byte[] name = Bytes.toBytes(tableName);
+    return Bytes.add(Bytes.toBytes(name.length), name);
+  }
+
+  /**
+   * Returns a key that sorts after all keys of the given table in the shared database, and before the keys
+   * of the next table.
+   */
+  static byte[] getStopKey(String tableName) {
+    return getPrefix(tableName + '\0');
+  }
+
+  /**
+   * Deletes all keys of the table.
+   */
+  void deleteAll(WriteOptions writeOptions) throws IOException {
+    // LevelDB has no range deletion, hence the keys are deleted in batches while iterating
+    try (DBIterator iterator = db.iterator()) {
+      iterator.seek(prefix);
+      while (iterator.hasNext() && Bytes.startsWith(iterator.peekNext().getKey(), prefix)) {
+        try (WriteBatch batch = db.createWriteBatch()) {
+          for (int i = 0; i < DELETE_BATCH_SIZE && iterator.hasNext(); i++) {
+            byte[] key = iterator.next().getKey();
+            if (!Bytes.startsWith(key, prefix)) {
+              break;
+            }
+            batch.delete(key);
+          }
+          db.write(batch, writeOptions);
+        }
+      }
+    }
+  }
+
+  @Override
+  public byte[] get(byte[] key) throws DBException {
+    return db.get(addPrefix(key));
+  }
+
+  @Override
+  public byte[] get(byte[] key, ReadOptions options) throws DBException {
+    return db.get(addPrefix(key), options);
+  }
+
+  @Override
+  public DBIterator iterator() {
+    return new PrefixedIterator(db.iterator());
+  }
+
+  @Override
+  public DBIterator iterator(ReadOptions options) {
+    return new PrefixedIterator(db.iterator(options));
+  }
+
+  @Override
+  public void put(byte[] key, byte[] value) throws DBException {
+    db.put(addPrefix(key), value);
+  }
+
+  @Override
+  public void delete(byte[] key) throws DBException {
+    db.delete(addPrefix(key));
+  }
+
+  @Override
+  public void write(WriteBatch updates) throws DBException {
+    db.write(((PrefixedWriteBatch) updates).batch);
+  }
+
+  @Override
+  public WriteBatch createWriteBatch() {
+    return new PrefixedWriteBatch(db.createWriteBatch());
+  }
+
+  @Override
+  public Snapshot put(byte[] key, byte[] value, WriteOptions options) throws DBException {
+    return db.put(addPrefix(key), value, options);
+  }
+
+  @Override
+  public Snapshot delete(byte[] key, WriteOptions options) throws DBException {
+    return db.delete(addPrefix(key), options);
+  }
+
+  @Override
+  public Snapshot write(WriteBatch updates, WriteOptions options) throws DBException {
+    return db.write(((PrefixedWriteBatch) updates).batch, options);
+  }
+
+  @Override
+  public Snapshot getSnapshot() {
+    return db.getSnapshot();
+  }
+
+  @Override
+  public long[] getApproximateSizes(Range... ranges) {
+    Range[] prefixedRanges = new Range[ranges.length];
+    for (int i = 0; i < ranges.length; i++) {
+      prefixedRanges[i] = new Range(addPrefix(ranges[i].start()), addPrefix(ranges[i].limit()));
+    }
+    return db.getApproximateSizes(prefixedRanges);
+  }
+
+  @Override
+  public String getProperty(String name) {
+    return db.getProperty(name);
+  }
+
+  @Override
+  public void suspendCompactions() throws InterruptedException {
+    db.suspendCompactions();
+  }
+
+  @Override
+  public void resumeCompactions() {
+    db.resumeCompactions();
+  }
+
+  @Override
+  public void compactRange(byte[] begin, byte[] end) throws DBException {
+    db.compactRange(addPrefix(begin), addPrefix(end));
+  }
+
+  @Override
+  public void close() {
+    // no-op, the shared database is closed by the LevelDBTableService
+  }
+
+  private byte[] addPrefix(byte[] key) {
+    return Bytes.add(prefix, key);
+  }
+
+  private Map.Entry<byte[], byte[]> removePrefix(Map.Entry<byte[], byte[]> entry) {
+    byte[] key = entry.getKey();
+    return new AbstractMap.SimpleImmutableEntry<>(Arrays.copyOfRange(key, prefix.length, key.length),
+                                                  entry.getValue());
+  }
+
+  /**
+   * A {@link DBIterator} over the keys of the table.
+   */
+  private final class PrefixedIterator implements DBIterator {
+
+    private final DBIterator iterator;
+
+    PrefixedIterator(DBIterator iterator) {
+      this.iterator = iterator;
+    }
+
+    @Override
+    public void seek(byte[] key) {
+      iterator.seek(addPrefix(key));
+    }
+
+    @Override
+    public void seekToFirst() {
+      iterator.seek(prefix);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext() && Bytes.startsWith(iterator.peekNext().getKey(), prefix);
+    }
+
+    @Override
+    public Map.Entry<byte[], byte[]> peekNext() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return removePrefix(iterator.peekNext());
+    }
+
+    @Override
+    public Map.Entry<byte[], byte[]> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return removePrefix(iterator.next());
+    }
+
+    @Override
+    public boolean hasPrev() {
+      throw new UnsupportedOperationException("Backward iteration is not supported");
+    }
+
+    @Override
+    public Map.Entry<byte[], byte[]> prev() {
+      throw new UnsupportedOperationException("Backward iteration is not supported");
+    }
+
+    @Override
+    public Map.Entry<byte[], byte[]> peekPrev() {
+      throw new UnsupportedOperationException("Backward iteration is not supported");
+    }
+
+    @Override
+    public void seekToLast() {
+      throw new UnsupportedOperationException("Backward iteration is not supported");
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Remove is not supported");
+    }
+
+    @Override
+    public void close() throws IOException {
+      iterator.close();
+    }
+  }
+
+  /**
+   * A {@link WriteBatch} for the keys of the table.
+   */
+  private final class PrefixedWriteBatch implements WriteBatch {
+
+    private final WriteBatch batch;
+
+    PrefixedWriteBatch(WriteBatch batch) {
+      this.batch = batch;
+    }
+
+    @Override
+    public WriteBatch put(byte[] key, byte[] value) {
+      batch.put(addPrefix(key), value);
+      return this;
+    }
+
+    @Override
+    public WriteBatch delete(byte[] key) {
+      batch.delete(addPrefix(key));
+      return this;
+    }
+
+    @Override
+    public void close() throws IOException {
+      batch.close();
+    }
+  }
+}
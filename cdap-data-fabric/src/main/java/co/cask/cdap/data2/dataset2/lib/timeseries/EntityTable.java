@@ -16,18 +16,30 @@
 package co.cask.cdap.data2.dataset2.lib.timeseries;
 
 import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.metrics.MetricsCollector;
 import co.cask.cdap.data2.dataset2.lib.table.MetricsTable;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Table;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
@@ -44,6 +56,13 @@ import javax.annotation.Nullable;
  * <h5>Entity mapping rows</h5>
  * Each entity would have two rows. One is keyed by {@code [type].[entityName]} and have one "id" column which
  * stores the unique ID. The other is a reverse map from {@code [type].id} to entity name in "name" column.
+ *
+ * <h5>Caching</h5>
+ * Both mappings are cached in memory. Each cache is bounded by a maximum weight, which is an estimate of the
+ * memory used by the cached entries in bytes. When a {@link MetricsCollector} is set, statistics of the caches
+ * are reported periodically as metrics named {@code entityTable.[cache].[stat]}, where cache is {@code id}
+ * for the name to ID cache and {@code name} for the ID to name cache, and stat is one of {@code hit},
+ * {@code miss}, {@code eviction}, {@code load}, {@code load.us} (total time spent loading) and {@code size}.
  */
 public final class EntityTable implements Closeable {
 
@@ -54,7 +73,13 @@ public final class EntityTable implements Closeable {
   private static final byte[] NAME = Bytes.toBytes("name");
   private static final byte[] DOT = { '.' };
   // max number of distinct values of entity of a single type
-  private static final long MAX_ID_COUNT = 0x1000000L;
+  public static final long MAX_ID_COUNT = 0x1000000L;
+  // default maximum weight of each cache
+  public static final long DEFAULT_CACHE_MAX_WEIGHT = 64L * 1024 * 1024;
+
+  // estimated memory overhead of a cache entry, on top of the characters of the entity name
+  private static final int CACHE_ENTRY_OVERHEAD = 128;
+  private static final long METRICS_REPORT_INTERVAL_MS = TimeUnit.SECONDS.toMillis(10);
 
   private final MetricsTable table;
   private final LoadingCache<EntityName, Long> entityCache;
@@ -62,31 +87,74 @@ public final class EntityTable implements Closeable {
   private final long maxId;
   private final int size;
 
+  private volatile MetricsCollector metrics;
+  private CacheStats reportedEntityCacheStats;
+  private CacheStats reportedIdCacheStats;
+  private long lastMetricsReportTime;
 
   /**
-   * Creates an EntityTable with max id = 16777215.
+   * Creates an EntityTable with max id = 16777215 and the default cache max weight.
    *
-   * See {@link #EntityTable(MetricsTable, long)}.
+   * See {@link #EntityTable(MetricsTable, long, long)}.
    */
   public EntityTable(MetricsTable table) {
     this(table, MAX_ID_COUNT);
   }
 
+  /**
+   * Creates an EntityTable with the default cache max weight.
+   *
+   * See {@link #EntityTable(MetricsTable, long, long)}.
+   */
+  EntityTable(MetricsTable table, long maxId) {
+    this(table, maxId, DEFAULT_CACHE_MAX_WEIGHT);
+  }
+
   /**
    * Creates an EntityTable backed by the given {@link MetricsTable}.
    *
    * @param table The storage table
    * @param maxId Maximum ID (exclusive) that can be generated.
+   * @param cacheMaxWeight Maximum weight of each of the name to ID and ID to name caches,
+   *                       which is an estimate of the memory used by the cached entries in bytes.
    */
-  EntityTable(MetricsTable table, long maxId) {
+  public EntityTable(MetricsTable table, long maxId, long cacheMaxWeight) {
     Preconditions.checkArgument(table != null, "Table cannot be null.");
     Preconditions.checkArgument(maxId > 0, "maxId must be > 0.");
+    Preconditions.checkArgument(cacheMaxWeight > 0, "cacheMaxWeight must be > 0.");
 
     this.table = table;
-    this.entityCache = CacheBuilder.newBuilder().build(createEntityCacheLoader());
-    this.idCache = CacheBuilder.newBuilder().build(createIdCacheLoader());
+    this.entityCache = CacheBuilder.newBuilder()
+      .maximumWeight(cacheMaxWeight)
+      .weigher(new Weigher<EntityName, Long>() {
+        @Override
+        public int weigh(EntityName key, Long value) {
+          return key.getWeight();
+        }
+      })
+      .recordStats()
+      .build(createEntityCacheLoader());
+    this.idCache = CacheBuilder.newBuilder()
+      .maximumWeight(cacheMaxWeight)
+      .weigher(new Weigher<EntityId, EntityName>() {
+        @Override
+        public int weigh(EntityId key, EntityName value) {
+          return value.getWeight();
+        }
+      })
+      .recordStats()
+      .build(createIdCacheLoader());
     this.maxId = maxId;
     this.size = computeSize(maxId);
+    this.reportedEntityCacheStats = entityCache.stats();
+    this.reportedIdCacheStats = idCache.stats();
+  }
+
+  /**
+   * Sets the {@link MetricsCollector} for reporting cache statistics.
+   */
+  public void setMetricsCollector(MetricsCollector metrics) {
+    this.metrics = metrics;
   }
 
   /**
@@ -101,6 +169,37 @@ public final class EntityTable implements Closeable {
     return entityCache.getUnchecked(new EntityName(type, name)) % maxId;
   }
 
+  /**
+   * Returns unique ids for multiple names. Names that are not cached are looked up with a single multi-get on the
+   * underlying table, and only the ones not found there are assigned new ids one by one.
+   *
+   * @param names Multimap from entity type to names of that type. {@code null} names are treated as in
+   *              {@link #getId(String, String)}.
+   * @return A table from type and name to the unique ID. It contains no entries for {@code null} names.
+   */
+  public Table<String, String, Long> getIds(Multimap<String, String> names) {
+    List<EntityName> keys = new ArrayList<>(names.size());
+    for (Map.Entry<String, String> entry : names.entries()) {
+      if (entry.getValue() != null) {
+        keys.add(new EntityName(entry.getKey(), entry.getValue()));
+      }
+    }
+
+    Map<EntityName, Long> ids;
+    try {
+      ids = entityCache.getAll(keys);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Failed to load ids for " + names, e.getCause());
+    }
+
+    Table<String, String, Long> result = HashBasedTable.create();
+    for (Map.Entry<EntityName, Long> entry : ids.entrySet()) {
+      result.put(entry.getKey().getType(), entry.getKey().getName(), entry.getValue() % maxId);
+    }
+    reportMetrics();
+    return result;
+  }
+
   /**
    * Returns the entity name for the given id and type.
    * @param id The id to lookup
@@ -131,7 +230,7 @@ public final class EntityTable implements Closeable {
     return new CacheLoader<EntityName, Long>() {
       @Override
       public Long load(EntityName key) throws Exception {
-        byte[] rowKey = Bytes.toBytes(key.getType() + '.' + key.getName());
+        byte[] rowKey = getEntityRowKey(key);
 
         byte[] result = table.get(rowKey, ID);
 
@@ -139,6 +238,27 @@ public final class EntityTable implements Closeable {
         if (result != null) {
           return Bytes.toLong(result);
         }
+        return generateId(key, rowKey);
+      }
+
+      @Override
+      public Map<EntityName, Long> loadAll(Iterable<? extends EntityName> keys) throws Exception {
+        Map<EntityName, byte[]> rowKeys = new HashMap<>();
+        for (EntityName key : keys) {
+          rowKeys.put(key, getEntityRowKey(key));
+        }
+
+        NavigableMap<byte[], byte[]> found = table.get(rowKeys.values(), ID);
+        Map<EntityName, Long> result = new HashMap<>();
+        for (Map.Entry<EntityName, byte[]> entry : rowKeys.entrySet()) {
+          byte[] id = found.get(entry.getValue());
+          result.put(entry.getKey(), id == null ? generateId(entry.getKey(), entry.getValue()) : Bytes.toLong(id));
+        }
+        return result;
+      }
+
+      private long generateId(EntityName key, byte[] rowKey) {
+        byte[] result;
 
         // Not found, generate a new ID
         byte[] maxIdRowKey = Bytes.toBytes(key.getType() + ".maxId");
@@ -203,6 +323,39 @@ public final class EntityTable implements Closeable {
     };
   }
 
+  private static byte[] getEntityRowKey(EntityName key) {
+    return Bytes.toBytes(key.getType() + '.' + key.getName());
+  }
+
+  /**
+   * Reports the changes in cache statistics since the last report, if the report interval has passed.
+   */
+  private synchronized void reportMetrics() {
+    MetricsCollector metrics = this.metrics;
+    long now = System.currentTimeMillis();
+    if (metrics == null || now - lastMetricsReportTime < METRICS_REPORT_INTERVAL_MS) {
+      return;
+    }
+    lastMetricsReportTime = now;
+
+    CacheStats entityCacheStats = entityCache.stats();
+    reportMetrics(metrics, "entityTable.id.", entityCacheStats.minus(reportedEntityCacheStats), entityCache.size());
+    reportedEntityCacheStats = entityCacheStats;
+
+    CacheStats idCacheStats = idCache.stats();
+    reportMetrics(metrics, "entityTable.name.", idCacheStats.minus(reportedIdCacheStats), idCache.size());
+    reportedIdCacheStats = idCacheStats;
+  }
+
+  private static void reportMetrics(MetricsCollector metrics, String prefix, CacheStats stats, long size) {
+    metrics.increment(prefix + "hit", stats.hitCount());
+    metrics.increment(prefix + "miss", stats.missCount());
+    metrics.increment(prefix + "eviction", stats.evictionCount());
+    metrics.increment(prefix + "load", stats.loadCount());
+    metrics.increment(prefix + "load.us", TimeUnit.NANOSECONDS.toMicros(stats.totalLoadTime()));
+    metrics.gauge(prefix + "size", size);
+  }
+
   static int computeSize() {
     return computeSize(MAX_ID_COUNT);
   }
@@ -247,6 +400,13 @@ public final class EntityTable implements Closeable {
       return name;
     }
 
+    /**
+     * Returns the estimated memory in bytes used by a cache entry of this name.
+     */
+    int getWeight() {
+      return CACHE_ENTRY_OVERHEAD + 2 * (type.length() + name.length());
+    }
+
     @Override
     public boolean equals(Object o) {
       if (this == o) {
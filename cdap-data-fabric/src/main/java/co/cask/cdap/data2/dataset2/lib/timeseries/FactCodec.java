@@ -18,12 +18,16 @@ package co.cask.cdap.data2.dataset2.lib.timeseries;
 
 import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.dataset.lib.cube.DimensionValue;
+import co.cask.cdap.api.dataset.lib.cube.Measurement;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import javax.annotation.Nullable;
@@ -105,6 +109,25 @@ public class FactCodec {
     return entityTable.getId(TYPE_MEASURE_NAME, measureName);
   }
 
+  /**
+   * Loads the ids of all entities in the row keys of the given facts into the entity table cache with one bulk
+   * lookup, so that building the row keys does not need a table lookup per entity.
+   * @param facts facts to be written
+   */
+  public void loadEntityIds(Collection<Fact> facts) {
+    Multimap<String, String> entities = HashMultimap.create();
+    for (Fact fact : facts) {
+      entities.put(TYPE_DIMENSIONS_GROUP, getAggGroup(fact.getDimensionValues()));
+      for (DimensionValue dimensionValue : fact.getDimensionValues()) {
+        entities.put(dimensionValue.getName(), dimensionValue.getValue());
+      }
+      for (Measurement measurement : fact.getMeasurements()) {
+        entities.put(TYPE_MEASURE_NAME, measurement.getName());
+      }
+    }
+    entityTable.getIds(entities);
+  }
+
   private byte[] createRowKey(List<DimensionValue> dimensionValues, String measureName, long ts, boolean stopKey,
                               boolean anyAggGroup) {
     // Row key format:
@@ -291,13 +314,16 @@ public class FactCodec {
   }
 
   private int writeEncodedAggGroup(List<DimensionValue> dimensionValues, byte[] rowKey, int offset) {
+    return writeEncoded(TYPE_DIMENSIONS_GROUP, getAggGroup(dimensionValues), rowKey, offset);
+  }
+
+  private static String getAggGroup(List<DimensionValue> dimensionValues) {
     // aggregation group is defined by list of dimension names
     StringBuilder sb = new StringBuilder();
     for (DimensionValue dimensionValue : dimensionValues) {
       sb.append(dimensionValue.getName()).append(".");
     }
-
-    return writeEncoded(TYPE_DIMENSIONS_GROUP, sb.toString(), rowKey, offset);
+    return sb.toString();
   }
 
   /**
@@ -116,9 +116,13 @@ public final class FactTable implements Closeable {
 
   public void setMetricsCollector(MetricsCollector metrics) {
     this.metrics = metrics;
+    entityTable.setMetricsCollector(metrics);
   }
 
   public void add(List<Fact> facts) {
+    // Resolve all entity ids used in the row keys at once
+    codec.loadEntityIds(facts);
+
     // Simply collecting all rows/cols/values that need to be put to the underlying table.
     NavigableMap<byte[], NavigableMap<byte[], byte[]>> gaugesTable = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
     NavigableMap<byte[], NavigableMap<byte[], byte[]>> incrementsTable = Maps.newTreeMap(Bytes.BYTES_COMPARATOR);
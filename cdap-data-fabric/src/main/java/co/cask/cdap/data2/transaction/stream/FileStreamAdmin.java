@@ -27,6 +27,7 @@ import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.namespace.NamespacedLocationFactory;
 import co.cask.cdap.common.utils.OSDetector;
 import co.cask.cdap.data.stream.CoordinatorStreamProperties;
+import co.cask.cdap.data.stream.StreamCompressionCodec;
 import co.cask.cdap.data.stream.StreamCoordinatorClient;
 import co.cask.cdap.data.stream.StreamFileOffset;
 import co.cask.cdap.data.stream.StreamUtils;
@@ -320,7 +321,8 @@ public class FileStreamAdmin implements StreamAdmin {
           }
 
           return new StreamConfig(streamId, config.getPartitionDuration(), config.getIndexInterval(),
-                                  config.getTTL(), getStreamLocation(streamId), config.getFormat(), threshold);
+                                  config.getTTL(), getStreamLocation(streamId), config.getFormat(), threshold,
+                                  config.getCompression());
         }
       });
     } catch (Exception ex) {
@@ -338,7 +340,7 @@ public class FileStreamAdmin implements StreamAdmin {
     StreamConfig config = getConfig(streamId);
     StreamSpecification spec = streamMetaStore.getStream(streamId);
     return new StreamProperties(config.getTTL(), config.getFormat(), config.getNotificationThresholdMB(),
-                                spec.getDescription(), ownerPrincipal);
+                                spec.getDescription(), ownerPrincipal, config.getCompression());
   }
 
   @Override
@@ -612,9 +614,12 @@ public class FileStreamAdmin implements StreamAdmin {
             formatSpec = GSON.fromJson(properties.getProperty(Constants.Stream.FORMAT_SPECIFICATION),
                                        FormatSpecification.class);
           }
+          String compression = properties.getProperty(Constants.Stream.COMPRESSION);
+          // Validates the compression codec
+          StreamCompressionCodec.get(compression);
 
           final StreamConfig config = new StreamConfig(streamId, partitionDuration, indexInterval,
-                                                       ttl, streamLocation, formatSpec, threshold);
+                                                       ttl, streamLocation, formatSpec, threshold, compression);
           impersonator.doAs(streamId, new Callable<Void>() {
             @Override
             public Void call() throws Exception {
@@ -747,6 +752,11 @@ public class FileStreamAdmin implements StreamAdmin {
     if (properties.getNotificationThresholdMB() != null) {
       builder.setNotificationThreshold(properties.getNotificationThresholdMB());
     }
+    if (properties.getCompression() != null) {
+      // Validates the compression codec. It applies to stream files created after the update.
+      StreamCompressionCodec.get(properties.getCompression());
+      builder.setCompression(properties.getCompression());
+    }
 
     // update stream description
     String description = properties.getDescription();
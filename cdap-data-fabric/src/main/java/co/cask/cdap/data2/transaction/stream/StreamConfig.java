@@ -23,6 +23,7 @@ import com.google.common.base.Objects;
 import org.apache.twill.filesystem.Location;
 
 import java.util.Collections;
+import javax.annotation.Nullable;
 
 /**
  * Represents the configuration of a stream. This class needs to be GSON serializable.
@@ -41,11 +42,18 @@ public final class StreamConfig {
   private final long ttl;
   private final FormatSpecification format;
   private final int notificationThresholdMB;
+  private final String compression;
 
   private final transient Location location;
 
   public StreamConfig(StreamId streamId, long partitionDuration, long indexInterval, long ttl,
                       Location location, FormatSpecification format, int notificationThresholdMB) {
+    this(streamId, partitionDuration, indexInterval, ttl, location, format, notificationThresholdMB, null);
+  }
+
+  public StreamConfig(StreamId streamId, long partitionDuration, long indexInterval, long ttl,
+                      Location location, FormatSpecification format, int notificationThresholdMB,
+                      @Nullable String compression) {
     this.streamId = streamId;
     this.partitionDuration = partitionDuration;
     this.indexInterval = indexInterval;
@@ -53,6 +61,7 @@ public final class StreamConfig {
     this.location = location;
     this.notificationThresholdMB = notificationThresholdMB;
     this.format = format;
+    this.compression = compression;
   }
 
   /**
@@ -104,6 +113,14 @@ public final class StreamConfig {
     return notificationThresholdMB;
   }
 
+  /**
+   * @return The codec for compressing the data blocks of new stream files, or {@code null} for no compression.
+   */
+  @Nullable
+  public String getCompression() {
+    return compression;
+  }
+
   @Override
   public String toString() {
     return Objects.toStringHelper(this)
@@ -114,6 +131,7 @@ public final class StreamConfig {
       .add("location", location)
       .add("format", format)
       .add("notificationThresholdMB", notificationThresholdMB)
+      .add("compression", compression)
       .toString();
   }
 
@@ -130,6 +148,7 @@ public final class StreamConfig {
     private Long ttl;
     private FormatSpecification formatSpec;
     private Integer notificationThreshold;
+    private String compression;
 
     private Builder(StreamConfig config) {
       this.config = config;
@@ -147,12 +166,17 @@ public final class StreamConfig {
       this.notificationThreshold = notificationThreshold;
     }
 
+    public void setCompression(String compression) {
+      this.compression = compression;
+    }
+
     public StreamConfig build() {
       return new StreamConfig(config.getStreamId(), config.getPartitionDuration(), config.getIndexInterval(),
                               Objects.firstNonNull(ttl, config.getTTL()),
                               config.getLocation(),
                               Objects.firstNonNull(formatSpec, config.getFormat()),
-                              Objects.firstNonNull(notificationThreshold, config.getNotificationThresholdMB()));
+                              Objects.firstNonNull(notificationThreshold, config.getNotificationThresholdMB()),
+                              compression == null ? config.getCompression() : compression);
     }
   }
 }
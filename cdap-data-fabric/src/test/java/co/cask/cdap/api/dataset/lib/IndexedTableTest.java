@@ -828,6 +828,130 @@ public class IndexedTableTest {
       dsFrameworkUtil.deleteInstance(incrTabInstance);
     }
   }
+  @Test
+  public void testCoveredColumns() throws Exception {
+    DatasetId coveredTabInstance = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("coveredtab");
+    // use a small batch size, so that the index scans take multiple batches
+    dsFrameworkUtil.createInstance("indexedTable", coveredTabInstance, DatasetProperties.builder()
+      .add(IndexedTable.INDEX_COLUMNS_CONF_KEY, idxColString)
+      .add(IndexedTable.COVERED_COLUMNS_CONF_KEY, "val,other")
+      .add(IndexedTable.INDEX_SCAN_BATCH_SIZE_CONF_KEY, "2")
+      .build());
+    final byte[] otherCol = Bytes.toBytes("other");
+    final byte[] extraCol = Bytes.toBytes("extra");
+    final byte[][] coveredCols = new byte[][] { valCol, otherCol };
+
+    final IndexedTable coveredTable = dsFrameworkUtil.getInstance(coveredTabInstance);
+    try {
+      TransactionExecutor tx = dsFrameworkUtil.newTransactionExecutor(coveredTable);
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // row1 to row4 are indexed by a, row5 by b
+          for (int i = 1; i <= 5; i++) {
+            Put put = new Put(Bytes.toBytes("row" + i));
+            put.add(idxCol, i < 5 ? valA : valB);
+            put.add(valCol, Bytes.toBytes("v" + i));
+            put.add(otherCol, Bytes.toBytes("o" + i));
+            put.add(extraCol, Bytes.toBytes("x" + i));
+            coveredTable.put(put);
+          }
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // covered columns only
+          Scanner scanner = coveredTable.readByIndex(idxCol, valA, coveredCols);
+          for (int i = 1; i <= 4; i++) {
+            Row row = scanner.next();
+            assertNotNull(row);
+            assertArrayEquals(Bytes.toBytes("row" + i), row.getRow());
+            assertEquals(2, row.getColumns().size());
+            assertArrayEquals(Bytes.toBytes("v" + i), row.get(valCol));
+            assertArrayEquals(Bytes.toBytes("o" + i), row.get(otherCol));
+          }
+          assertEmpty(scanner);
+          scanner.close();
+
+          // all columns
+          scanner = coveredTable.readByIndex(idxCol, valA);
+          for (int i = 1; i <= 4; i++) {
+            Row row = scanner.next();
+            assertNotNull(row);
+            assertEquals(4, row.getColumns().size());
+            assertArrayEquals(Bytes.toBytes("x" + i), row.get(extraCol));
+          }
+          assertEmpty(scanner);
+          scanner.close();
+
+          // a column that is not covered
+          Row row = readFirst(coveredTable.readByIndex(idxCol, valB, new byte[][] { idxCol, extraCol }));
+          assertArrayEquals(Bytes.toBytes("row5"), row.getRow());
+          assertEquals(2, row.getColumns().size());
+          assertArrayEquals(valB, row.get(idxCol));
+          assertArrayEquals(Bytes.toBytes("x5"), row.get(extraCol));
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          // change covered columns in all possible ways, and an indexed column
+          coveredTable.put(Bytes.toBytes("row1"), valCol, Bytes.toBytes("new1"));
+          coveredTable.delete(Bytes.toBytes("row2"), otherCol);
+          Assert.assertTrue(coveredTable.compareAndSwap(Bytes.toBytes("row3"), valCol,
+                                                        Bytes.toBytes("v3"), Bytes.toBytes("cas3")));
+          Assert.assertFalse(coveredTable.compareAndSwap(Bytes.toBytes("row3"), otherCol,
+                                                         Bytes.toBytes("v3"), Bytes.toBytes("cas3")));
+          coveredTable.put(Bytes.toBytes("row4"), idxCol, valB);
+          coveredTable.delete(Bytes.toBytes("row5"), otherCol);
+          coveredTable.incrementAndGet(Bytes.toBytes("row5"), otherCol, 1L);
+        }
+      });
+
+      tx.execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          Scanner scanner = coveredTable.scanByIndex(idxCol, valA, valC, new byte[][] { idxCol, valCol, otherCol });
+          Row row = scanner.next();
+          assertArrayEquals(Bytes.toBytes("row1"), row.getRow());
+          assertArrayEquals(valA, row.get(idxCol));
+          assertArrayEquals(Bytes.toBytes("new1"), row.get(valCol));
+          assertArrayEquals(Bytes.toBytes("o1"), row.get(otherCol));
+          row = scanner.next();
+          assertArrayEquals(Bytes.toBytes("row2"), row.getRow());
+          assertEquals(2, row.getColumns().size());
+          assertArrayEquals(Bytes.toBytes("v2"), row.get(valCol));
+          row = scanner.next();
+          assertArrayEquals(Bytes.toBytes("row3"), row.getRow());
+          assertArrayEquals(Bytes.toBytes("cas3"), row.get(valCol));
+          row = scanner.next();
+          assertArrayEquals(Bytes.toBytes("row4"), row.getRow());
+          assertArrayEquals(valB, row.get(idxCol));
+          assertArrayEquals(Bytes.toBytes("v4"), row.get(valCol));
+          assertArrayEquals(Bytes.toBytes("o4"), row.get(otherCol));
+          row = scanner.next();
+          assertArrayEquals(Bytes.toBytes("row5"), row.getRow());
+          assertEquals(1L, Bytes.toLong(row.get(otherCol)));
+          assertEmpty(scanner);
+          scanner.close();
+
+          // read-less increments are not supported on covered columns
+          try {
+            coveredTable.increment(Bytes.toBytes("row5"), otherCol, 1L);
+            fail("Expected IllegalArgumentException for read-less increment on a covered column");
+          } catch (IllegalArgumentException e) {
+            // expected
+          }
+        }
+      });
+    } finally {
+      dsFrameworkUtil.deleteInstance(coveredTabInstance);
+    }
+  }
+
   /**
    * Asserts that the given scanner contains no more rows.
    */
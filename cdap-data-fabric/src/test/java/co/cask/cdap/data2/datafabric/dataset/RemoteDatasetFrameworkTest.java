@@ -26,6 +26,7 @@ import co.cask.cdap.common.discovery.EndpointStrategy;
 import co.cask.cdap.common.discovery.RandomEndpointStrategy;
 import co.cask.cdap.common.guice.ConfigModule;
 import co.cask.cdap.common.guice.DiscoveryRuntimeModule;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.common.metrics.NoOpMetricsCollectionService;
 import co.cask.cdap.data.dataset.SystemDatasetInstantiatorFactory;
 import co.cask.cdap.data.runtime.DynamicTransactionExecutorFactory;
@@ -145,12 +146,13 @@ public class RemoteDatasetFrameworkTest extends AbstractDatasetFrameworkTest {
     AuthenticationContext authenticationContext = injector.getInstance(AuthenticationContext.class);
 
     framework = new RemoteDatasetFramework(cConf, discoveryServiceClient, registryFactory, authenticationContext);
+    UnpackedJarCache unpackedJarCache = injector.getInstance(UnpackedJarCache.class);
     SystemDatasetInstantiatorFactory datasetInstantiatorFactory =
-      new SystemDatasetInstantiatorFactory(locationFactory, framework, cConf);
+      new SystemDatasetInstantiatorFactory(locationFactory, framework, unpackedJarCache);
 
     DatasetAdminService datasetAdminService =
-      new DatasetAdminService(framework, cConf, locationFactory, datasetInstantiatorFactory, new NoOpMetadataStore(),
-                              impersonator);
+      new DatasetAdminService(framework, unpackedJarCache, locationFactory, datasetInstantiatorFactory,
+                              new NoOpMetadataStore(), impersonator);
     ImmutableSet<HttpHandler> handlers =
       ImmutableSet.<HttpHandler>of(new DatasetAdminOpHTTPHandler(datasetAdminService));
     opExecutorService = new DatasetOpExecutorService(cConf, discoveryService, metricsCollectionService, handlers);
@@ -27,6 +27,7 @@ import co.cask.cdap.common.guice.ConfigModule;
 import co.cask.cdap.common.guice.DiscoveryRuntimeModule;
 import co.cask.cdap.common.guice.NonCustomLocationUnitTestModule;
 import co.cask.cdap.common.io.Locations;
+import co.cask.cdap.common.lang.jar.UnpackedJarCache;
 import co.cask.cdap.common.metrics.NoOpMetricsCollectionService;
 import co.cask.cdap.common.namespace.NamespaceAdmin;
 import co.cask.cdap.common.namespace.NamespaceQueryAdmin;
@@ -192,14 +193,15 @@ public abstract class DatasetServiceTestBase {
       new DelegatingTransactionSystemClientService(txSystemClient);
 
     NamespacedLocationFactory namespacedLocationFactory = injector.getInstance(NamespacedLocationFactory.class);
+    UnpackedJarCache unpackedJarCache = injector.getInstance(UnpackedJarCache.class);
     SystemDatasetInstantiatorFactory datasetInstantiatorFactory =
-      new SystemDatasetInstantiatorFactory(locationFactory, dsFramework, cConf);
+      new SystemDatasetInstantiatorFactory(locationFactory, dsFramework, unpackedJarCache);
 
     // ok to pass null, since the impersonator won't actually be called, if kerberos security is not enabled
     Impersonator impersonator = new DefaultImpersonator(cConf, null);
     DatasetAdminService datasetAdminService =
-      new DatasetAdminService(dsFramework, cConf, locationFactory, datasetInstantiatorFactory, new NoOpMetadataStore(),
-                              impersonator);
+      new DatasetAdminService(dsFramework, unpackedJarCache, locationFactory, datasetInstantiatorFactory,
+                              new NoOpMetadataStore(), impersonator);
     ImmutableSet<HttpHandler> handlers =
       ImmutableSet.<HttpHandler>of(new DatasetAdminOpHTTPHandler(datasetAdminService));
     MetricsCollectionService metricsCollectionService = injector.getInstance(MetricsCollectionService.class);
@@ -29,6 +29,7 @@ import org.apache.tephra.TransactionExecutor;
 import org.junit.ClassRule;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.SortedMap;
@@ -82,6 +83,16 @@ public class MetricsTableOnTableTest extends MetricsTableTest {
       });
     }
 
+    @Override
+    public NavigableMap<byte[], byte[]> get(final Collection<byte[]> rows, final byte[] column) {
+      return txnl.executeUnchecked(new Callable<NavigableMap<byte[], byte[]>>() {
+        @Override
+        public NavigableMap<byte[], byte[]> call() {
+          return delegate.get(rows, column);
+        }
+      });
+    }
+
     @Override
     public void put(final SortedMap<byte[], ? extends SortedMap<byte[], Long>> updates) {
       txnl.executeUnchecked(new TransactionExecutor.Subroutine() {
@@ -18,6 +18,7 @@ package co.cask.cdap.data2.dataset2.lib.partitioned;
 
 import co.cask.cdap.api.Predicate;
 import co.cask.cdap.api.dataset.DataSetException;
+import co.cask.cdap.api.dataset.InstanceConflictException;
 import co.cask.cdap.api.dataset.PartitionNotFoundException;
 import co.cask.cdap.api.dataset.lib.FileSetArguments;
 import co.cask.cdap.api.dataset.lib.Partition;
@@ -29,17 +30,22 @@ import co.cask.cdap.api.dataset.lib.PartitionedFileSet;
 import co.cask.cdap.api.dataset.lib.PartitionedFileSetArguments;
 import co.cask.cdap.api.dataset.lib.PartitionedFileSetProperties;
 import co.cask.cdap.api.dataset.lib.Partitioning;
+import co.cask.cdap.api.dataset.lib.partitioned.PartitionKeyCodec;
 import co.cask.cdap.api.dataset.table.TableProperties;
 import co.cask.cdap.common.namespace.NamespacedLocationFactory;
 import co.cask.cdap.data2.dataset2.DatasetFrameworkTestUtil;
 import co.cask.cdap.proto.id.DatasetId;
 import co.cask.cdap.test.SlowTests;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.tephra.TransactionAware;
 import org.apache.tephra.TransactionContext;
@@ -61,6 +67,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -103,6 +111,10 @@ public class PartitionedFileSetTest {
     .addStringField("s", "x")
     .build();
 
+  private static final Gson GSON =
+    new GsonBuilder().registerTypeAdapter(PartitionKey.class, new PartitionKeyCodec()).create();
+  private static final Type STRING_PARTITION_KEY_MAP_TYPE = new TypeToken<Map<String, PartitionKey>>() { }.getType();
+
   private static final DatasetId pfsInstance = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("pfs");
   private static final DatasetId pfsExternalInstance = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("ext");
   private static Location pfsBaseLocation;
@@ -745,6 +757,187 @@ public class PartitionedFileSetTest {
     txContext.finish();
   }
 
+  @Test
+  public void testInputPartitions() throws Exception {
+    final PartitionedFileSet pfs = dsFrameworkUtil.getInstance(pfsInstance);
+    final Map<PartitionKey, String> paths = new HashMap<>();
+    dsFrameworkUtil.newTransactionExecutor((TransactionAware) pfs).execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        for (int i = 0; i < 10; i++) {
+          PartitionKey key = generateUniqueKey();
+          String path = "input/" + key.getField("i");
+          pfs.addPartition(key, path);
+          paths.put(key, path);
+        }
+      }
+    });
+
+    // input partitions selected by a filter are resolved by the scan for the filter
+    final Map<String, String> filterArgs = new HashMap<>();
+    PartitionedFileSetArguments.setInputPartitionFilter(
+      filterArgs, PartitionFilter.builder().addRangeCondition("i", 3, 7).build());
+    final Map<PartitionKey, String> expected = new HashMap<>();
+    for (Map.Entry<PartitionKey, String> entry : paths.entrySet()) {
+      int i = (Integer) entry.getKey().getField("i");
+      if (i >= 3 && i < 7) {
+        expected.put(entry.getKey(), entry.getValue());
+      }
+    }
+    final PartitionedFileSet filterPfs = dsFrameworkUtil.getInstance(pfsInstance, filterArgs);
+    dsFrameworkUtil.newTransactionExecutor((TransactionAware) filterPfs).execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        Assert.assertEquals(expected, getInputPartitionPaths(filterPfs));
+      }
+    });
+
+    // input partitions given as a list of keys are resolved with batched gets
+    final Map<String, String> listArgs = new HashMap<>();
+    final List<PartitionDetail> partitions = new ArrayList<>();
+    dsFrameworkUtil.newTransactionExecutor((TransactionAware) pfs).execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        partitions.addAll(pfs.getPartitions(null));
+      }
+    });
+    PartitionedFileSetArguments.addInputPartitions(listArgs, partitions);
+    final PartitionedFileSet listPfs = dsFrameworkUtil.getInstance(pfsInstance, listArgs);
+    dsFrameworkUtil.newTransactionExecutor((TransactionAware) listPfs).execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        Assert.assertEquals(paths, getInputPartitionPaths(listPfs));
+      }
+    });
+
+    // an input partition that does not exist fails the resolution
+    PartitionedFileSetArguments.addInputPartition(listArgs, new BasicPartition(null, "x", generateUniqueKey()));
+    final PartitionedFileSet missingPfs = dsFrameworkUtil.getInstance(pfsInstance, listArgs);
+    dsFrameworkUtil.newTransactionExecutor((TransactionAware) missingPfs).execute(new TransactionExecutor.Subroutine() {
+      @Override
+      public void apply() throws Exception {
+        try {
+          missingPfs.getInputFormatConfiguration();
+          Assert.fail("Expected the resolution of a missing partition to fail");
+        } catch (DataSetException e) {
+          // expected
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns the relative paths of the input partitions, from the partition mapping of the input configuration.
+   */
+  private Map<PartitionKey, String> getInputPartitionPaths(PartitionedFileSet pfs) {
+    String mapping = pfs.getInputFormatConfiguration().get(PartitionedFileSetDataset.PATH_TO_PARTITIONING_MAPPING);
+    Map<String, PartitionKey> pathToKey = GSON.fromJson(mapping, STRING_PARTITION_KEY_MAP_TYPE);
+    String basePath = pfs.getEmbeddedFileSet().getBaseLocation().toURI().toString();
+    Map<PartitionKey, String> result = new HashMap<>();
+    for (Map.Entry<String, PartitionKey> entry : pathToKey.entrySet()) {
+      Assert.assertTrue(entry.getKey().startsWith(basePath));
+      result.put(entry.getValue(), entry.getKey().substring(basePath.length()).replaceAll("^/", ""));
+    }
+    return result;
+  }
+
+  @Test
+  public void testIndexedFields() throws Exception {
+    DatasetId indexedInstance = DatasetFrameworkTestUtil.NAMESPACE_ID.dataset("indexed");
+    dsFrameworkUtil.createInstance("partitionedFileSet", indexedInstance, PartitionedFileSetProperties.builder()
+      .setPartitioning(PARTITIONING_1)
+      .setIndexedFields("i", "l")
+      .setBasePath("indexedDir")
+      .build());
+    try {
+      final PartitionedFileSet pfs = dsFrameworkUtil.getInstance(indexedInstance);
+      final Set<PartitionKey> keys = new HashSet<>();
+      for (String s : new String[] { "a", "b", "c" }) {
+        for (int i = -2; i < 3; i++) {
+          for (long l = 0; l < 4; l++) {
+            keys.add(PartitionKey.builder().addStringField("s", s).addIntField("i", i).addLongField("l", l).build());
+          }
+        }
+      }
+      dsFrameworkUtil.newTransactionExecutor((TransactionAware) pfs).execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          for (PartitionKey key : keys) {
+            pfs.addPartition(key, key.getField("s") + "/" + key.getField("i") + "/" + key.getField("l"));
+          }
+        }
+      });
+
+      final List<PartitionFilter> filters = ImmutableList.of(
+        PartitionFilter.builder().addValueCondition("i", -1).build(),
+        PartitionFilter.builder().addValueCondition("i", 1).addRangeCondition("l", 1L, 3L).build(),
+        PartitionFilter.builder().addRangeCondition("i", -2, 1).addValueCondition("l", 2L).build(),
+        PartitionFilter.builder().addRangeCondition("i", null, 0).build(),
+        PartitionFilter.builder().addValueCondition("s", "b").addRangeCondition("l", 3L, null).build(),
+        PartitionFilter.builder().addValueCondition("s", "c").addValueCondition("i", 2).build(),
+        PartitionFilter.builder().addValueCondition("i", 7).build());
+      dsFrameworkUtil.newTransactionExecutor((TransactionAware) pfs).execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          for (PartitionFilter filter : filters) {
+            Assert.assertEquals(filter.toString(), filterKeys(keys, filter), getPartitionKeys(pfs, filter));
+          }
+        }
+      });
+
+      // dropped partitions are removed from the indexes
+      final PartitionKey dropped = PartitionKey.builder()
+        .addStringField("s", "a").addIntField("i", -1).addLongField("l", 2L).build();
+      dsFrameworkUtil.newTransactionExecutor((TransactionAware) pfs).execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          pfs.dropPartition(dropped);
+        }
+      });
+      keys.remove(dropped);
+      dsFrameworkUtil.newTransactionExecutor((TransactionAware) pfs).execute(new TransactionExecutor.Subroutine() {
+        @Override
+        public void apply() throws Exception {
+          for (PartitionFilter filter : filters) {
+            Assert.assertEquals(filter.toString(), filterKeys(keys, filter), getPartitionKeys(pfs, filter));
+          }
+        }
+      });
+
+      // the indexed fields cannot be changed, because existing partitions would be missing from the index
+      try {
+        dsFrameworkUtil.getFramework().updateInstance(indexedInstance, PartitionedFileSetProperties.builder()
+          .setPartitioning(PARTITIONING_1)
+          .setIndexedFields("i")
+          .setBasePath("indexedDir")
+          .build());
+        Assert.fail("Expected the update of the indexed fields to fail");
+      } catch (InstanceConflictException e) {
+        // expected
+      }
+    } finally {
+      dsFrameworkUtil.deleteInstance(indexedInstance);
+    }
+  }
+
+  private static Set<PartitionKey> filterKeys(Set<PartitionKey> keys, PartitionFilter filter) {
+    Set<PartitionKey> result = new HashSet<>();
+    for (PartitionKey key : keys) {
+      if (filter.match(key)) {
+        result.add(key);
+      }
+    }
+    return result;
+  }
+
+  private static Set<PartitionKey> getPartitionKeys(PartitionedFileSet pfs, PartitionFilter filter) {
+    Set<PartitionKey> result = new HashSet<>();
+    for (PartitionDetail partition : pfs.getPartitions(filter)) {
+      result.add(partition.getPartitionKey());
+    }
+    return result;
+  }
+
   @Test
   public void testInvalidPartitionFilter() throws Exception {
     final PartitionedFileSet pfs = dsFrameworkUtil.getInstance(pfsInstance);
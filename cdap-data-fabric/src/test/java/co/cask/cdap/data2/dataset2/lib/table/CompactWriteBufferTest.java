@@ -0,0 +1,280 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import co.cask.cdap.api.common.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import javax.annotation.Nullable;
+
+/**
+ * Tests for {@link CompactWriteBuffer}, by comparing it against {@link MapWriteBuffer}.
+ */
+public class CompactWriteBufferTest {
+
+  @Test
+  public void testRandomUpdates() {
+    Random random = new Random(System.nanoTime());
+    WriteBuffer expected = new MapWriteBuffer();
+    WriteBuffer actual = new CompactWriteBuffer();
+
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 10000; i++) {
+        byte[] row = Bytes.toBytes("r" + random.nextInt(200));
+        byte[] column = Bytes.toBytes("c" + random.nextInt(10));
+        int op = random.nextInt(10);
+        if (op < 4) {
+          byte[] value = Bytes.toBytes(random.nextLong());
+          expected.put(row, column, value);
+          actual.put(row, column, value);
+        } else if (op < 5) {
+          expected.put(row, column, null);
+          actual.put(row, column, null);
+        } else if (op < 8) {
+          long amount = random.nextInt(100);
+          expected.increment(row, column, amount);
+          actual.increment(row, column, amount);
+        } else if (op < 9) {
+          assertRowEquals(expected.get(row), actual.get(row));
+        } else {
+          byte[] stopRow = Bytes.toBytes("r" + random.nextInt(200));
+          if (Bytes.compareTo(row, stopRow) > 0) {
+            byte[] tmp = row;
+            row = stopRow;
+            stopRow = tmp;
+          }
+          assertRowsEquals(expected.getRows(row, stopRow), actual.getRows(row, stopRow));
+        }
+      }
+
+      assertRowsEquals(expected.getRows(null, null), actual.getRows(null, null));
+      assertRowKeysEquals(expected.getRowKeys(), actual.getRowKeys());
+      assertRowsViewEquals(expected.getRowsView(), actual.getRowsView());
+    }
+
+    expected.clear();
+    actual.clear();
+    Assert.assertTrue(actual.isEmpty());
+    Assert.assertNull(actual.get(Bytes.toBytes("r0")));
+    Assert.assertTrue(actual.getRows(null, null).isEmpty());
+    Assert.assertTrue(actual.getRowsView().isEmpty());
+    Assert.assertFalse(actual.getRowsView().entrySet().iterator().hasNext());
+  }
+
+  @Test
+  public void testRowsView() {
+    WriteBuffer buffer = new CompactWriteBuffer();
+    // Write rows out of order, with multiple updates to the same cells
+    for (int i = 9; i >= 0; i--) {
+      for (int j = 0; j < 3; j++) {
+        buffer.put(Bytes.toBytes("r" + i), Bytes.toBytes("c" + j), Bytes.toBytes("v" + i + j));
+        buffer.increment(Bytes.toBytes("r" + i), Bytes.toBytes("n"), j);
+      }
+    }
+    buffer.put(Bytes.toBytes("r5"), Bytes.toBytes("c1"), null);
+
+    NavigableMap<byte[], NavigableMap<byte[], Update>> view = buffer.getRowsView();
+    Assert.assertFalse(view.isEmpty());
+    int i = 0;
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> entry : view.entrySet()) {
+      Assert.assertEquals("r" + i, Bytes.toString(entry.getKey()));
+      NavigableMap<byte[], Update> columns = entry.getValue();
+      Assert.assertEquals(4, columns.size());
+      Assert.assertEquals(3L, ((IncrementValue) columns.get(Bytes.toBytes("n"))).getValue().longValue());
+      for (int j = 0; j < 3; j++) {
+        byte[] value = (byte[]) columns.get(Bytes.toBytes("c" + j)).getValue();
+        if (i == 5 && j == 1) {
+          Assert.assertNull(value);
+        } else {
+          Assert.assertEquals("v" + i + j, Bytes.toString(value));
+        }
+      }
+      i++;
+    }
+    Assert.assertEquals(10, i);
+
+    // Accesses other than iteration are served by the materialized rows
+    Assert.assertEquals(10, view.size());
+    Assert.assertEquals("r0", Bytes.toString(view.firstKey()));
+    assertRowsEquals(buffer.getRows(null, null), view);
+  }
+
+  @Test
+  public void testLargeValues() {
+    // Values larger than the slab size must be handled
+    WriteBuffer buffer = new CompactWriteBuffer();
+    byte[] value = new byte[3 * 1024 * 1024];
+    new Random().nextBytes(value);
+    buffer.put(Bytes.toBytes("r1"), Bytes.toBytes("c1"), Bytes.toBytes("small"));
+    buffer.put(Bytes.toBytes("r0"), Bytes.toBytes("c1"), value);
+
+    NavigableMap<byte[], Update> row = buffer.get(Bytes.toBytes("r0"));
+    Assert.assertNotNull(row);
+    Assert.assertArrayEquals(value, (byte[]) row.get(Bytes.toBytes("c1")).getValue());
+    row = buffer.get(Bytes.toBytes("r1"));
+    Assert.assertNotNull(row);
+    Assert.assertArrayEquals(Bytes.toBytes("small"), (byte[]) row.get(Bytes.toBytes("c1")).getValue());
+  }
+
+  @Test
+  public void testIncrementNonLong() {
+    WriteBuffer buffer = new CompactWriteBuffer();
+    byte[] row = Bytes.toBytes("r");
+    byte[] column = Bytes.toBytes("c");
+    byte[] otherColumn = Bytes.toBytes("d");
+    buffer.put(row, column, Bytes.toBytes("value"));
+    buffer.increment(row, otherColumn, 1L);
+
+    // The failure is raised by the increment, both while the put is unsorted and after it is merged
+    assertIncrementFails(buffer, row, column);
+    NavigableMap<byte[], Update> columns = buffer.get(row);
+    Assert.assertNotNull(columns);
+    Assert.assertArrayEquals(Bytes.toBytes("value"), (byte[]) columns.get(column).getValue());
+    Assert.assertEquals(1L, ((IncrementValue) columns.get(otherColumn)).getValue().longValue());
+
+    buffer.getRows(null, null);
+    assertIncrementFails(buffer, row, column);
+    buffer.increment(row, otherColumn, 1L);
+    columns = buffer.get(row);
+    Assert.assertNotNull(columns);
+    Assert.assertArrayEquals(Bytes.toBytes("value"), (byte[]) columns.get(column).getValue());
+    Assert.assertEquals(2L, ((IncrementValue) columns.get(otherColumn)).getValue().longValue());
+
+    // A newer put of a long value or a delete make the cell incrementable again
+    buffer.put(row, column, null);
+    buffer.increment(row, column, 3L);
+    columns = buffer.get(row);
+    Assert.assertNotNull(columns);
+    Assert.assertArrayEquals(Bytes.toBytes(3L), (byte[]) columns.get(column).getValue());
+
+    // Incrementing a long value should work
+    buffer.put(row, column, Bytes.toBytes(10L));
+    buffer.increment(row, column, 5L);
+    columns = buffer.get(row);
+    Assert.assertNotNull(columns);
+    Assert.assertArrayEquals(Bytes.toBytes(15L), (byte[]) columns.get(column).getValue());
+  }
+
+  @Test
+  public void testIncrementValidation() {
+    Random random = new Random(System.nanoTime());
+    WriteBuffer expected = new MapWriteBuffer();
+    WriteBuffer actual = new CompactWriteBuffer();
+
+    // Mostly writes to many cells, so that increments are validated against a large unsorted part
+    for (int i = 0; i < 50000; i++) {
+      byte[] row = Bytes.toBytes("r" + random.nextInt(2000));
+      byte[] column = Bytes.toBytes("c" + random.nextInt(5));
+      int op = random.nextInt(100);
+      if (op < 30) {
+        byte[] value = Bytes.toBytes("v" + random.nextInt(100));
+        expected.put(row, column, value);
+        actual.put(row, column, value);
+      } else if (op < 40) {
+        byte[] value = Bytes.toBytes(random.nextLong());
+        expected.put(row, column, value);
+        actual.put(row, column, value);
+      } else if (op < 45) {
+        expected.put(row, column, null);
+        actual.put(row, column, null);
+      } else if (op < 99) {
+        long amount = random.nextInt(100);
+        boolean failed = false;
+        try {
+          expected.increment(row, column, amount);
+        } catch (NumberFormatException e) {
+          failed = true;
+        }
+        if (failed) {
+          assertIncrementFails(actual, row, column);
+        } else {
+          actual.increment(row, column, amount);
+        }
+      } else {
+        assertRowEquals(expected.get(row), actual.get(row));
+      }
+    }
+
+    assertRowsEquals(expected.getRows(null, null), actual.getRows(null, null));
+  }
+
+  private void assertIncrementFails(WriteBuffer buffer, byte[] row, byte[] column) {
+    try {
+      buffer.increment(row, column, 1L);
+      Assert.fail("Expected NumberFormatException");
+    } catch (NumberFormatException e) {
+      // expected
+    }
+  }
+
+  private void assertRowsViewEquals(NavigableMap<byte[], NavigableMap<byte[], Update>> expected,
+                                    NavigableMap<byte[], NavigableMap<byte[], Update>> actual) {
+    // Compare by iteration only, which is how the view is consumed on persist and undo
+    Iterator<Map.Entry<byte[], NavigableMap<byte[], Update>>> actualIterator = actual.entrySet().iterator();
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> entry : expected.entrySet()) {
+      Assert.assertTrue(actualIterator.hasNext());
+      Map.Entry<byte[], NavigableMap<byte[], Update>> actualEntry = actualIterator.next();
+      Assert.assertEquals(Bytes.toStringBinary(entry.getKey()), Bytes.toStringBinary(actualEntry.getKey()));
+      assertRowEquals(entry.getValue(), actualEntry.getValue());
+    }
+    Assert.assertFalse(actualIterator.hasNext());
+  }
+
+  private void assertRowsEquals(NavigableMap<byte[], NavigableMap<byte[], Update>> expected,
+                                NavigableMap<byte[], NavigableMap<byte[], Update>> actual) {
+    assertRowKeysEquals(expected.keySet(), actual.keySet());
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> entry : expected.entrySet()) {
+      assertRowEquals(entry.getValue(), actual.get(entry.getKey()));
+    }
+  }
+
+  private void assertRowKeysEquals(Collection<byte[]> expected, Collection<byte[]> actual) {
+    Assert.assertEquals(toStrings(expected), toStrings(actual));
+  }
+
+  private void assertRowEquals(@Nullable NavigableMap<byte[], Update> expected,
+                               @Nullable NavigableMap<byte[], Update> actual) {
+    if (expected == null) {
+      Assert.assertNull(actual);
+      return;
+    }
+    Assert.assertNotNull(actual);
+    assertRowKeysEquals(expected.keySet(), actual.keySet());
+    for (Map.Entry<byte[], Update> entry : expected.entrySet()) {
+      Update expectedUpdate = entry.getValue();
+      Update actualUpdate = actual.get(entry.getKey());
+      Assert.assertEquals(expectedUpdate.getClass(), actualUpdate.getClass());
+      Assert.assertArrayEquals(expectedUpdate.getBytes(), actualUpdate.getBytes());
+    }
+  }
+
+  private List<String> toStrings(Collection<byte[]> keys) {
+    List<String> result = new ArrayList<>(keys.size());
+    for (byte[] key : keys) {
+      result.add(Bytes.toStringBinary(key));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link GsonMetadataStoreCodec}.
+ */
+public class GsonMetadataStoreCodecTest {
+
+  private static final Gson GSON = new GsonBuilder().serializeNulls().create();
+
+  @Test
+  public void testRoundTrip() {
+    MetadataStoreCodec json = new GsonMetadataStoreCodec(GSON, GsonMetadataStoreCodec.Format.JSON);
+    MetadataStoreCodec binary = new GsonMetadataStoreCodec(GSON, GsonMetadataStoreCodec.Format.BINARY);
+
+    Record record = createRecord(20);
+    byte[] jsonBytes = json.encode(record);
+    byte[] binaryBytes = binary.encode(record);
+    // Repeated field names and values are only written once in the binary format
+    Assert.assertTrue(binaryBytes.length < jsonBytes.length / 2);
+
+    // Either codec decodes both formats
+    for (MetadataStoreCodec codec : new MetadataStoreCodec[] { json, binary }) {
+      Assert.assertEquals(record, codec.decode(jsonBytes, Record.class));
+      Assert.assertEquals(record, codec.decode(binaryBytes, Record.class));
+    }
+
+    Assert.assertEquals(Long.MIN_VALUE, (long) binary.<Long>decode(binary.encode(Long.MIN_VALUE), Long.class));
+    Assert.assertEquals("", binary.decode(binary.encode(""), String.class));
+    Assert.assertNull(binary.decode(binary.encode(null), Record.class));
+  }
+
+  private Record createRecord(int children) {
+    List<Record> list = new ArrayList<>();
+    for (int i = 0; i < children; i++) {
+      list.add(createRecord(0));
+    }
+    return new Record("récord-" + children, children, Long.MAX_VALUE - children, 0.25 * children,
+                      children % 2 == 0, null, ImmutableMap.of("key", "value", "other", "value"), list);
+  }
+
+  private static final class Record {
+    private final String name;
+    private final int intValue;
+    private final long longValue;
+    private final double doubleValue;
+    private final boolean flag;
+    private final String nullValue;
+    private final Map<String, String> properties;
+    private final List<Record> children;
+
+    Record(String name, int intValue, long longValue, double doubleValue, boolean flag, String nullValue,
+           Map<String, String> properties, List<Record> children) {
+      this.name = name;
+      this.intValue = intValue;
+      this.longValue = longValue;
+      this.doubleValue = doubleValue;
+      this.flag = flag;
+      this.nullValue = nullValue;
+      this.properties = properties;
+      this.children = children;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Record other = (Record) o;
+      return intValue == other.intValue && longValue == other.longValue && doubleValue == other.doubleValue
+        && flag == other.flag && Objects.equal(name, other.name) && Objects.equal(nullValue, other.nullValue)
+        && Objects.equal(properties, other.properties) && Objects.equal(children, other.children);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(name, intValue, longValue, doubleValue, flag, nullValue, properties, children);
+    }
+  }
+}
@@ -99,6 +99,22 @@ public abstract class MetricsTableTest {
     Assert.assertArrayEquals(Y, table.get(A, Q));
   }
 
+  @Test
+  public void testMultiGet() throws Exception {
+    MetricsTable table = getTable("testMultiGet");
+    table.put(ImmutableSortedMap.<byte[], SortedMap<byte[], Long>>orderedBy(Bytes.BYTES_COMPARATOR)
+                .put(A, mapOf(P, Bytes.toLong(X), Q, Bytes.toLong(Y)))
+                .put(B, mapOf(Q, Bytes.toLong(Z)))
+                .put(C, mapOf(P, Bytes.toLong(Z))).build());
+
+    NavigableMap<byte[], byte[]> result = table.get(ImmutableList.of(A, B, C, R), P);
+    Assert.assertEquals(2, result.size());
+    Assert.assertArrayEquals(X, result.get(A));
+    Assert.assertArrayEquals(Z, result.get(C));
+
+    Assert.assertTrue(table.get(ImmutableList.<byte[]>of(), P).isEmpty());
+  }
+
   protected class IncThread extends Thread implements Closeable {
     final MetricsTable table;
     final byte[] row;
@@ -17,17 +17,24 @@
 package co.cask.cdap.data2.dataset2.lib.table;
 
 import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.DataSetException;
 import co.cask.cdap.api.dataset.DatasetAdmin;
 import co.cask.cdap.api.dataset.DatasetContext;
 import co.cask.cdap.api.dataset.DatasetProperties;
 import co.cask.cdap.api.dataset.metrics.MeteredDataset;
+import co.cask.cdap.api.dataset.table.ColumnLimitFilter;
+import co.cask.cdap.api.dataset.table.ColumnRangeFilter;
+import co.cask.cdap.api.dataset.table.ColumnValueFilter;
 import co.cask.cdap.api.dataset.table.ConflictDetection;
 import co.cask.cdap.api.dataset.table.Delete;
+import co.cask.cdap.api.dataset.table.Filter;
+import co.cask.cdap.api.dataset.table.FilterList;
 import co.cask.cdap.api.dataset.table.Get;
 import co.cask.cdap.api.dataset.table.Increment;
 import co.cask.cdap.api.dataset.table.Put;
 import co.cask.cdap.api.dataset.table.Result;
 import co.cask.cdap.api.dataset.table.Row;
+import co.cask.cdap.api.dataset.table.RowPrefixFilter;
 import co.cask.cdap.api.dataset.table.Scan;
 import co.cask.cdap.api.dataset.table.Scanner;
 import co.cask.cdap.api.dataset.table.Table;
@@ -75,6 +82,11 @@ public abstract class TableTest<T extends Table> {
   static final byte[] R4 = Bytes.toBytes("r4");
   static final byte[] R5 = Bytes.toBytes("r5");
 
+  static final byte[] A1 = Bytes.toBytes("a1");
+  static final byte[] A2 = Bytes.toBytes("a2");
+  static final byte[] A3 = Bytes.toBytes("a3");
+  static final byte[] B1 = Bytes.toBytes("b1");
+
   static final byte[] C1 = Bytes.toBytes("c1");
   static final byte[] C2 = Bytes.toBytes("c2");
   static final byte[] C3 = Bytes.toBytes("c3");
@@ -1283,6 +1295,102 @@ public abstract class TableTest<T extends Table> {
     Assert.assertEquals(9, count);
   }
 
+  @Test
+  public void testScanWithFilters() throws Exception {
+    DatasetAdmin admin = getTableAdmin(CONTEXT1, MY_TABLE);
+    admin.create();
+    try {
+      Transaction tx1 = txClient.startShort();
+      Table table = getTable(CONTEXT1, MY_TABLE);
+      ((TransactionAware) table).startTx(tx1);
+
+      table.put(new Put(A1).add(C1, V1).add(C2, V2).add(C3, V3));
+      table.put(new Put(A2).add(C1, V2).add(C2, V2));
+      table.put(new Put(A3).add(C2, V3));
+      table.put(new Put(B1).add(C1, V1).add(C4, V4));
+
+      // check that filters work against data written in same tx
+      verifyScanWithFilters(table);
+
+      // commit tx, start new and verify scan again against "persisted" data
+      Assert.assertTrue(txClient.canCommit(tx1, ((TransactionAware) table).getTxChanges()));
+      Assert.assertTrue(((TransactionAware) table).commitTx());
+      Assert.assertTrue(txClient.commit(tx1));
+      ((TransactionAware) table).postTxCommit();
+
+      Transaction tx2 = txClient.startShort();
+      ((TransactionAware) table).startTx(tx2);
+      verifyScanWithFilters(table);
+
+      // writes in the tx can change which rows match the filters
+      table.put(new Put(A3).add(C1, V1));
+      table.delete(new Delete(A1).add(C1));
+      Filter filter = new ColumnValueFilter(C1, ColumnValueFilter.CompareOp.EQUAL, V1);
+      TableAssert.assertScan(a(A3, B1), aa(a(C1, V1, C2, V3), a(C1, V1, C4, V4)),
+                             table, new Scan(null, null, filter));
+      filter = new ColumnValueFilter(C1, ColumnValueFilter.CompareOp.EQUAL, V1, false);
+      TableAssert.assertScan(a(A1, A3, B1), aa(a(C2, V2, C3, V3), a(C1, V1, C2, V3), a(C1, V1, C4, V4)),
+                             table, new Scan(null, null, filter));
+    } finally {
+      admin.drop();
+    }
+  }
+
+  private static void verifyScanWithFilters(Table table) {
+    // row prefix
+    TableAssert.assertScan(a(A1, A2, A3), aa(a(C1, V1, C2, V2, C3, V3), a(C1, V2, C2, V2), a(C2, V3)),
+                           table, new Scan(null, null, new RowPrefixFilter(Bytes.toBytes("a"))));
+    TableAssert.assertScan(a(A2), aa(a(C1, V2, C2, V2)),
+                           table, new Scan(A2, A3, new RowPrefixFilter(Bytes.toBytes("a"))));
+    // column value
+    TableAssert.assertScan(a(A1, B1), aa(a(C1, V1, C2, V2, C3, V3), a(C1, V1, C4, V4)),
+                           table, new Scan(null, null,
+                                           new ColumnValueFilter(C1, ColumnValueFilter.CompareOp.EQUAL, V1)));
+    TableAssert.assertScan(a(A1, A3, B1), aa(a(C1, V1, C2, V2, C3, V3), a(C2, V3), a(C1, V1, C4, V4)),
+                           table, new Scan(null, null,
+                                           new ColumnValueFilter(C1, ColumnValueFilter.CompareOp.EQUAL, V1, false)));
+    TableAssert.assertScan(a(A2), aa(a(C1, V2, C2, V2)),
+                           table, new Scan(null, null,
+                                           new ColumnValueFilter(C1, ColumnValueFilter.CompareOp.GREATER, V1)));
+    // column range, rows without columns in the range are excluded
+    TableAssert.assertScan(a(A1, A2, A3), aa(a(C2, V2, C3, V3), a(C2, V2), a(C2, V3)),
+                           table, new Scan(null, null, new ColumnRangeFilter(C2, C4)));
+    // column limit
+    TableAssert.assertScan(a(A1, A2, A3, B1), aa(a(C1, V1), a(C1, V2), a(C2, V3), a(C1, V1)),
+                           table, new Scan(null, null, new ColumnLimitFilter(1)));
+    // column selections are applied in order
+    TableAssert.assertScan(a(A1, A2, A3, B1), aa(a(C2, V2), a(C2, V2), a(C2, V3), a(C4, V4)),
+                           table, new Scan(null, null, new FilterList(FilterList.Operator.MUST_PASS_ALL,
+                                                                      new ColumnRangeFilter(C2, null),
+                                                                      new ColumnLimitFilter(1))));
+    TableAssert.assertScan(a(A3), aa(a(C2, V3)),
+                           table, new Scan(null, null, new FilterList(FilterList.Operator.MUST_PASS_ALL,
+                                                                      new ColumnLimitFilter(1),
+                                                                      new ColumnRangeFilter(C2, null))));
+    // column values are evaluated on all columns of the row
+    TableAssert.assertScan(a(A1, A2), aa(a(C2, V2, C3, V3), a(C2, V2)),
+                           table, new Scan(null, null, new FilterList(
+                             FilterList.Operator.MUST_PASS_ALL,
+                             new RowPrefixFilter(Bytes.toBytes("a")),
+                             new ColumnRangeFilter(C2, null),
+                             new ColumnValueFilter(C1, ColumnValueFilter.CompareOp.LESS_OR_EQUAL, V2))));
+    // alternatives
+    TableAssert.assertScan(a(A3, B1), aa(a(C2, V3), a(C1, V1, C4, V4)),
+                           table, new Scan(null, null, new FilterList(
+                             FilterList.Operator.MUST_PASS_ONE,
+                             new RowPrefixFilter(Bytes.toBytes("b")),
+                             new ColumnValueFilter(C2, ColumnValueFilter.CompareOp.EQUAL, V3))));
+    // alternatives cannot select columns
+    try {
+      table.scan(new Scan(null, null, new FilterList(FilterList.Operator.MUST_PASS_ONE,
+                                                     new RowPrefixFilter(Bytes.toBytes("b")),
+                                                     new ColumnLimitFilter(1))));
+      Assert.fail("Expected the scan to be rejected");
+    } catch (DataSetException e) {
+      // expected
+    }
+  }
+
   private static int countRows(Table table) throws Exception {
     Scanner scanner = table.scan(null, null);
     int count = 0;
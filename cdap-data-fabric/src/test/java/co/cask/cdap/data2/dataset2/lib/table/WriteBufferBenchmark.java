@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table;
+
+import co.cask.cdap.api.common.Bytes;
+import com.google.common.base.Stopwatch;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A benchmark comparing {@link MapWriteBuffer} and {@link CompactWriteBuffer}. It buffers a large number of cells,
+ * as a MapReduce or Spark task would do in one transaction, then iterates over the buffer as it happens on persist.
+ * It runs once with puts only, and once with puts mixed with increments of a counter column in each row.
+ * It reports the time taken by each phase and the heap used by the buffer.
+ *
+ * Usage: {@code WriteBufferBenchmark [cells] [columnsPerRow] [valueSize]}
+ */
+public class WriteBufferBenchmark {
+
+  public static void main(String[] args) {
+    int cells = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+    int columnsPerRow = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+    int valueSize = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+
+    // Run each one twice, the first one is for warming up
+    for (int i = 0; i < 2; i++) {
+      run("map", new MapWriteBuffer(), cells, columnsPerRow, valueSize, false);
+      run("compact", new CompactWriteBuffer(), cells, columnsPerRow, valueSize, false);
+      run("map", new MapWriteBuffer(), cells, columnsPerRow, valueSize, true);
+      run("compact", new CompactWriteBuffer(), cells, columnsPerRow, valueSize, true);
+    }
+  }
+
+  private static void run(String name, WriteBuffer buffer, int cells, int columnsPerRow, int valueSize,
+                          boolean increments) {
+    // Use a fixed seed so that both buffers get the same writes in the same (random) row order
+    Random random = new Random(0L);
+    byte[] value = new byte[valueSize];
+    byte[][] columns = new byte[columnsPerRow][];
+    for (int i = 0; i < columnsPerRow; i++) {
+      columns[i] = Bytes.toBytes("column" + i);
+    }
+
+    long heapBefore = usedHeap();
+
+    Stopwatch stopwatch = new Stopwatch().start();
+    for (int i = 0; i < cells; i += columnsPerRow) {
+      byte[] row = Bytes.toBytes("row" + random.nextInt(cells));
+      for (int j = 0; j < columnsPerRow; j++) {
+        if (increments && j == 0) {
+          buffer.increment(row, columns[j], 1L);
+        } else {
+          random.nextBytes(value);
+          buffer.put(row, columns[j], value);
+        }
+      }
+    }
+    long writeTime = stopwatch.elapsedTime(TimeUnit.MILLISECONDS);
+
+    // Read-your-writes on the first read after writes
+    stopwatch = new Stopwatch().start();
+    buffer.get(Bytes.toBytes("row" + random.nextInt(cells)));
+    long firstReadTime = stopwatch.elapsedTime(TimeUnit.MILLISECONDS);
+
+    long heapUsed = usedHeap() - heapBefore;
+
+    // Iterates over the buffer as on persist
+    stopwatch = new Stopwatch().start();
+    NavigableMap<byte[], NavigableMap<byte[], Update>> rows = buffer.getRowsView();
+    long count = 0;
+    for (Map.Entry<byte[], NavigableMap<byte[], Update>> row : rows.entrySet()) {
+      count += row.getValue().size();
+    }
+    long persistTime = stopwatch.elapsedTime(TimeUnit.MILLISECONDS);
+
+    System.out.printf("%-8s%s: %d cells, write %d ms, first read %d ms, persist %d ms, heap used %d MB%n",
+                      name, increments ? " (with increments)" : "", count, writeTime, firstReadTime, persistTime,
+                      heapUsed / 1024 / 1024);
+    buffer.clear();
+  }
+
+  private static long usedHeap() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table.hbase;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.table.Row;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Lists;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Unit tests for {@link PrefetchingResultScanner} and for merging partial rows in {@link HBaseScanner}.
+ */
+public class PrefetchingResultScannerTest {
+
+  private static final byte[] FAMILY = Bytes.toBytes("d");
+  private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool();
+
+  @AfterClass
+  public static void finish() {
+    EXECUTOR.shutdownNow();
+  }
+
+  @Test
+  public void testPrefetch() throws IOException {
+    List<Result> results = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      results.add(createResult(i, 0));
+    }
+    for (int batchSize : new int[] { 1, 5, 7, 25, 100 }) {
+      ListResultScanner listScanner = new ListResultScanner(results);
+      ResultScanner scanner = new PrefetchingResultScanner(listScanner, batchSize, EXECUTOR);
+      List<Result> scanned = new ArrayList<>();
+      // Mix single and multi row reads
+      Result result;
+      while ((result = scanner.next()) != null) {
+        scanned.add(result);
+        scanned.addAll(Lists.newArrayList(scanner.next(3)));
+      }
+      Assert.assertNull(scanner.next());
+      Assert.assertEquals(0, scanner.next(10).length);
+      scanner.close();
+      Assert.assertTrue(listScanner.closed);
+      Assert.assertEquals(results, scanned);
+    }
+
+    // Closing before exhausting the scanner
+    ListResultScanner listScanner = new ListResultScanner(results);
+    ResultScanner scanner = new PrefetchingResultScanner(listScanner, 10, EXECUTOR);
+    Assert.assertEquals(results.subList(0, 5), Lists.newArrayList(scanner.next(5)));
+    scanner.close();
+    Assert.assertTrue(listScanner.closed);
+  }
+
+  @Test
+  public void testPrefetchFailure() throws IOException {
+    List<Result> results = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      results.add(createResult(i, 0));
+    }
+    ListResultScanner listScanner = new ListResultScanner(results);
+    listScanner.failAfter = 5;
+    ResultScanner scanner = new PrefetchingResultScanner(listScanner, 5, EXECUTOR);
+    Assert.assertEquals(5, scanner.next(5).length);
+    try {
+      scanner.next();
+      Assert.fail("Expected failure of the prefetch to be propagated");
+    } catch (IOException e) {
+      // expected
+    }
+    scanner.close();
+    Assert.assertTrue(listScanner.closed);
+  }
+
+  @Test
+  public void testMergePartialRows() throws IOException {
+    // Three rows, each split into results of two columns
+    List<Result> results = new ArrayList<>();
+    for (int row = 0; row < 3; row++) {
+      for (int column = 0; column < 5; column += 2) {
+        results.add(column + 1 < 5 ? createResult(row, column, column + 1) : createResult(row, column));
+      }
+    }
+    HBaseScanner scanner = new HBaseScanner(new PrefetchingResultScanner(new ListResultScanner(results), 2, EXECUTOR),
+                                            FAMILY, true);
+    for (int row = 0; row < 3; row++) {
+      Row result = scanner.next();
+      Assert.assertNotNull(result);
+      Assert.assertArrayEquals(Bytes.toBytes(row), result.getRow());
+      Assert.assertEquals(5, result.getColumns().size());
+      for (int column = 0; column < 5; column++) {
+        Assert.assertEquals(column, Bytes.toInt(result.get(Bytes.toBytes(column))));
+      }
+    }
+    Assert.assertNull(scanner.next());
+    scanner.close();
+  }
+
+  private Result createResult(int row, int... columns) {
+    List<Cell> cells = new ArrayList<>();
+    for (int column : columns) {
+      cells.add(new KeyValue(Bytes.toBytes(row), FAMILY, Bytes.toBytes(column), 1L, Bytes.toBytes(column)));
+    }
+    return Result.create(cells);
+  }
+
+  /**
+   * A {@link ResultScanner} over a list of results, which fails if used concurrently.
+   */
+  private static final class ListResultScanner implements ResultScanner {
+
+    private final List<Result> results;
+    private int index;
+    private int failAfter = Integer.MAX_VALUE;
+    private volatile boolean inUse;
+    private volatile boolean closed;
+
+    ListResultScanner(List<Result> results) {
+      this.results = results;
+    }
+
+    @Override
+    public Result next() throws IOException {
+      Result[] next = next(1);
+      return next.length == 0 ? null : next[0];
+    }
+
+    @Override
+    public Result[] next(int nbRows) throws IOException {
+      Assert.assertFalse(inUse || closed);
+      inUse = true;
+      try {
+        if (index >= failAfter) {
+          throw new IOException("Scan failure");
+        }
+        int end = Math.min(results.size(), index + nbRows);
+        Result[] next = results.subList(index, end).toArray(new Result[end - index]);
+        index = end;
+        return next;
+      } finally {
+        inUse = false;
+      }
+    }
+
+    @Override
+    public void close() {
+      Assert.assertFalse(inUse);
+      closed = true;
+    }
+
+    @Override
+    public Iterator<Result> iterator() {
+      return new AbstractIterator<Result>() {
+        @Override
+        protected Result computeNext() {
+          try {
+            Result result = ListResultScanner.this.next();
+            return result == null ? endOfData() : result;
+          } catch (IOException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      };
+    }
+  }
+}
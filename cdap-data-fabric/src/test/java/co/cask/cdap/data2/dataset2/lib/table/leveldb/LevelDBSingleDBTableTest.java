@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table.leveldb;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.data2.util.TableId;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Test for LevelDB tables stored in a single LevelDB database.
+ */
+public class LevelDBSingleDBTableTest extends LevelDBTableTest {
+
+  @BeforeClass
+  public static void init() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.setBoolean(Constants.CFG_DATA_LEVELDB_SINGLE_DB, true);
+    init(cConf);
+  }
+
+  @Test
+  public void testDropAndTruncateIsolation() throws Exception {
+    String[] tableNames = { "cdap_default.a", "cdap_default.ab", "cdap_default.b" };
+    byte[] row = Bytes.toBytes("row");
+    byte[] column = Bytes.toBytes("col");
+    for (String tableName : tableNames) {
+      service.ensureTableExists(tableName);
+      new LevelDBTableCore(tableName, service).increment(row, ImmutableMap.of(column, 1L));
+    }
+    Collection<String> tables = service.list();
+    for (String tableName : tableNames) {
+      Assert.assertTrue(tables.contains(tableName));
+    }
+    Assert.assertTrue(service.getTableStats().containsKey(TableId.from("default", "ab")));
+
+    // Dropping a table leaves the tables before and after it intact
+    service.dropTable("cdap_default.ab");
+    Assert.assertFalse(service.list().contains("cdap_default.ab"));
+    try {
+      service.getTable("cdap_default.ab");
+      Assert.fail("Expected the dropped table to not exist");
+    } catch (IOException e) {
+      // expected
+    }
+    for (String tableName : new String[] { "cdap_default.a", "cdap_default.b" }) {
+      Assert.assertEquals(1L, Bytes.toLong(getValue(tableName, row, column)));
+    }
+
+    // A recreated table is empty
+    service.ensureTableExists("cdap_default.ab");
+    Assert.assertNull(getValue("cdap_default.ab", row, column));
+    Assert.assertEquals(2L, (long) new LevelDBTableCore("cdap_default.a", service)
+      .increment(row, ImmutableMap.of(column, 1L)).get(column));
+  }
+
+  private byte[] getValue(String tableName, byte[] row, byte[] column) throws IOException {
+    return new LevelDBTableCore(tableName, service).getRow(row, new byte[][] { column }, null, null, -1, null)
+      .get(column);
+  }
+}
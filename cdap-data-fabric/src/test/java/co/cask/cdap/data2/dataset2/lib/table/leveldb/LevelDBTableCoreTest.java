@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.data2.dataset2.lib.table.leveldb;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrency tests for the read-modify-write operations of {@link LevelDBTableCore}.
+ */
+public class LevelDBTableCoreTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LevelDBTableCoreTest.class);
+
+  private static final int ROWS = 16;
+  private static final int OPS_PER_THREAD = 2000;
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static LevelDBTableService service;
+
+  @BeforeClass
+  public static void init() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_DATA_LEVELDB_DIR, TMP_FOLDER.newFolder().getAbsolutePath());
+    service = new LevelDBTableService();
+    service.setConfiguration(cConf);
+  }
+
+  @Test
+  public void testConcurrentIncrementAndSwap() throws Exception {
+    String tableName = "testConcurrentIncrementAndSwap";
+    service.ensureTableExists(tableName);
+    // Operations go through two instances for the same table, which must not lose updates of each other
+    final LevelDBTableCore[] cores = {
+      new LevelDBTableCore(tableName, service), new LevelDBTableCore(tableName, service)
+    };
+
+    for (int threads : new int[] { 1, 2, 4, 8 }) {
+      final byte[] incColumn = Bytes.toBytes("inc" + threads);
+      final byte[] casColumn = Bytes.toBytes("cas" + threads);
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+        List<Future<Void>> futures = new ArrayList<>();
+        long startTime = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+          final int thread = t;
+          futures.add(executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+              LevelDBTableCore core = cores[thread % cores.length];
+              for (int i = 0; i < OPS_PER_THREAD; i++) {
+                byte[] row = Bytes.toBytes("row" + ((thread + i) % ROWS));
+                switch (i % 3) {
+                  case 0:
+                    core.increment(row, ImmutableMap.of(incColumn, 1L));
+                    break;
+                  case 1:
+                    // Increments two rows at once
+                    NavigableMap<byte[], NavigableMap<byte[], Long>> updates = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+                    for (byte[] updateRow : new byte[][] { row, Bytes.toBytes("row" + ((thread + i + 1) % ROWS)) }) {
+                      NavigableMap<byte[], Long> increments = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+                      increments.put(incColumn, 1L);
+                      updates.put(updateRow, increments);
+                    }
+                    core.increment(updates);
+                    break;
+                  default:
+                    // Increments with compare-and-swap
+                    boolean swapped;
+                    do {
+                      byte[] existing = core.getRow(row, new byte[][] { casColumn }, null, null, -1, null)
+                        .get(casColumn);
+                      long value = existing == null ? 0L : Bytes.toLong(existing);
+                      swapped = core.swap(row, casColumn, existing, Bytes.toBytes(value + 1));
+                    } while (!swapped);
+                }
+              }
+              return null;
+            }
+          }));
+        }
+        for (Future<Void> future : futures) {
+          future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+        LOG.info("{} threads: {} operations per second", threads,
+                 threads * OPS_PER_THREAD * TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+      } finally {
+        executor.shutdownNow();
+      }
+
+      long incTotal = 0;
+      long casTotal = 0;
+      for (int i = 0; i < ROWS; i++) {
+        NavigableMap<byte[], byte[]> columns =
+          cores[0].getRow(Bytes.toBytes("row" + i), new byte[][] { incColumn, casColumn }, null, null, -1, null);
+        incTotal += columns.containsKey(incColumn) ? Bytes.toLong(columns.get(incColumn)) : 0L;
+        casTotal += columns.containsKey(casColumn) ? Bytes.toLong(columns.get(casColumn)) : 0L;
+      }
+      int expectedIncrements = 0;
+      int expectedSwaps = 0;
+      for (int i = 0; i < OPS_PER_THREAD; i++) {
+        expectedIncrements += i % 3 == 0 ? 1 : i % 3 == 1 ? 2 : 0;
+        expectedSwaps += i % 3 == 2 ? 1 : 0;
+      }
+      Assert.assertEquals((long) threads * expectedIncrements, incTotal);
+      Assert.assertEquals((long) threads * expectedSwaps, casTotal);
+    }
+  }
+}
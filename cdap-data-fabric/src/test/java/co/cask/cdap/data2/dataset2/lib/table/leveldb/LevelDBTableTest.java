@@ -59,7 +59,11 @@ public class LevelDBTableTest extends BufferingTableTest<LevelDBTable> {
 
   @BeforeClass
   public static void init() throws Exception {
-    cConf = CConfiguration.create();
+    init(CConfiguration.create());
+  }
+
+  static void init(CConfiguration conf) throws Exception {
+    cConf = conf;
     cConf.set(Constants.CFG_LOCAL_DATA_DIR, tmpFolder.newFolder().getAbsolutePath());
     injector = Guice.createInjector(
       new ConfigModule(cConf),
@@ -15,12 +15,19 @@
  */
 package co.cask.cdap.data2.dataset2.lib.timeseries;
 
+import co.cask.cdap.api.metrics.MetricsCollector;
 import co.cask.cdap.data2.dataset2.lib.table.MetricsTable;
 import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryMetricsTable;
 import co.cask.cdap.data2.dataset2.lib.table.inmemory.InMemoryTableService;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Table;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  *
  */
@@ -91,4 +98,70 @@ public class EntityTableTest {
       Assert.assertEquals("app" + i, entityTable.getName(i, "app"));
     }
   }
+
+  @Test
+  public void testGetIds() throws Exception {
+    InMemoryTableService.create("testGetIds");
+    MetricsTable table = new InMemoryMetricsTable("testGetIds");
+
+    EntityTable entityTable = new EntityTable(table);
+    for (int i = 1; i <= 5; i++) {
+      Assert.assertEquals((long) i, entityTable.getId("app", "app" + i));
+    }
+
+    // Resolve a mix of cached, new and null names
+    Multimap<String, String> names = HashMultimap.create();
+    for (int i = 1; i <= 10; i++) {
+      names.put("app", "app" + i);
+      names.put("flow", "flow" + i);
+    }
+    names.put("flow", null);
+    final Map<String, Long> metrics = new HashMap<>();
+    entityTable.setMetricsCollector(new MetricsCollector() {
+      @Override
+      public void increment(String metricName, long value) {
+        Long current = metrics.get(metricName);
+        metrics.put(metricName, current == null ? value : current + value);
+      }
+
+      @Override
+      public void gauge(String metricName, long value) {
+        metrics.put(metricName, value);
+      }
+    });
+    Table<String, String, Long> ids = entityTable.getIds(names);
+    Assert.assertEquals(20, ids.size());
+    for (String type : new String[] { "app", "flow" }) {
+      for (int i = 1; i <= 10; i++) {
+        Assert.assertEquals(entityTable.getId(type, type + i), (long) ids.get(type, type + i));
+        Assert.assertEquals(type + i, entityTable.getName(ids.get(type, type + i), type));
+      }
+    }
+    // The 5 cached app names are hits, the rest are loaded. Misses include the 5 getId calls before.
+    Assert.assertEquals(5L, (long) metrics.get("entityTable.id.hit"));
+    Assert.assertEquals(20L, (long) metrics.get("entityTable.id.miss"));
+    Assert.assertEquals(20L, (long) metrics.get("entityTable.id.size"));
+
+    // A new entityTable should find all existing ids with the bulk lookup
+    entityTable = new EntityTable(table);
+    Assert.assertEquals(ids, entityTable.getIds(names));
+  }
+
+  @Test
+  public void testCacheEviction() throws Exception {
+    InMemoryTableService.create("testCacheEviction");
+    MetricsTable table = new InMemoryMetricsTable("testCacheEviction");
+
+    // A cache that can only hold a few entries
+    EntityTable entityTable = new EntityTable(table, EntityTable.MAX_ID_COUNT, 1024);
+    for (int i = 1; i <= 100; i++) {
+      Assert.assertEquals((long) i, entityTable.getId("app", "app" + i));
+    }
+
+    // Evicted entries should be reloaded from the table
+    for (int i = 1; i <= 100; i++) {
+      Assert.assertEquals((long) i, entityTable.getId("app", "app" + i));
+      Assert.assertEquals("app" + i, entityTable.getName(i, "app"));
+    }
+  }
 }
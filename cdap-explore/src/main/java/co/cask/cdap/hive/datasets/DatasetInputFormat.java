@@ -16,9 +16,11 @@
 
 package co.cask.cdap.hive.datasets;
 
+import co.cask.cdap.api.data.batch.KeyRangeScannable;
 import co.cask.cdap.api.data.batch.RecordScannable;
 import co.cask.cdap.api.data.batch.RecordScanner;
 import co.cask.cdap.api.data.batch.Split;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.gson.Gson;
 import org.apache.hadoop.conf.Configuration;
@@ -39,6 +41,7 @@ import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -61,7 +64,7 @@ public class DatasetInputFormat implements InputFormat<Void, ObjectWritable> {
         JobContext jobContext = ShimLoader.getHadoopShims().newJobContext(job);
         Path[] tablePaths = FileInputFormat.getInputPaths(jobContext);
 
-        List<Split> dsSplits = recordScannable.getSplits();
+        List<Split> dsSplits = getSplits(recordScannable, jobConf);
 
         InputSplit[] inputSplits = new InputSplit[dsSplits.size()];
         for (int i = 0; i < dsSplits.size(); i++) {
@@ -72,6 +75,26 @@ public class DatasetInputFormat implements InputFormat<Void, ObjectWritable> {
     }
   }
 
+  /**
+   * Returns the splits of the dataset. If the dataset is a {@link KeyRangeScannable} and the query has predicates
+   * on its key field, only the splits of the matching key range are returned.
+   */
+  @VisibleForTesting
+  static List<Split> getSplits(RecordScannable<?> recordScannable, Configuration conf) {
+    if (recordScannable instanceof KeyRangeScannable) {
+      KeyRangeScannable keyRangeScannable = (KeyRangeScannable) recordScannable;
+      String keyField = keyRangeScannable.getKeyField();
+      KeyRange keyRange = keyField == null ? null : KeyRange.fromPredicate(conf, keyField);
+      if (keyRange != null) {
+        if (keyRange.isEmpty()) {
+          return Collections.emptyList();
+        }
+        return keyRangeScannable.getSplits(-1, keyRange.getStart(), keyRange.getStop());
+      }
+    }
+    return recordScannable.getSplits();
+  }
+
   @Override
   public RecordReader<Void, ObjectWritable> getRecordReader(final InputSplit split, JobConf jobConf, Reporter reporter)
     throws IOException {
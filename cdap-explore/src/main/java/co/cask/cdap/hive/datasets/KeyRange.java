@@ -0,0 +1,235 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.hive.datasets;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.batch.KeyRangeScannable;
+import co.cask.cdap.explore.HiveUtilities;
+import com.google.common.collect.Lists;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.ql.index.IndexPredicateAnalyzer;
+import org.apache.hadoop.hive.ql.index.IndexSearchCondition;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.ql.plan.TableScanDesc;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqual;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqualOrGreaterThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqualOrLessThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPGreaterThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPLessThan;
+import org.apache.hadoop.hive.serde.serdeConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * The range of keys to read from a {@link KeyRangeScannable} dataset, derived from the predicates of a query
+ * on its key field. Only predicates that compare the key field with a constant, combined with AND, are used.
+ * Hive still applies the full predicate to every record, so the range only needs to include all matching keys.
+ */
+final class KeyRange {
+
+  private static final Logger LOG = LoggerFactory.getLogger(KeyRange.class);
+
+  private byte[] start;
+  private byte[] stop;
+  private boolean empty;
+
+  /**
+   * Analyzes the query predicate in the given configuration.
+   *
+   * @param conf the configuration of the query
+   * @param keyField the name of the key field of the dataset
+   * @return the key range, or {@code null} if the query has no usable predicates on the key field
+   */
+  @Nullable
+  static KeyRange fromPredicate(Configuration conf, String keyField) {
+    // the conf contains a 'hive.io.filter.expr.serialized' key which contains the serialized form of ExprNodeDesc
+    String serializedExpr = conf.get(TableScanDesc.FILTER_EXPR_CONF_STR);
+    if (serializedExpr == null) {
+      return null;
+    }
+
+    try {
+      ExprNodeGenericFuncDesc expr = HiveUtilities.deserializeExpression(serializedExpr, conf);
+
+      IndexPredicateAnalyzer analyzer = new IndexPredicateAnalyzer();
+      for (CompareOp op : CompareOp.values()) {
+        analyzer.addComparisonOp(op.getOpClassName());
+      }
+      // Hive column names are always in lower case
+      analyzer.clearAllowedColumnNames();
+      analyzer.allowColumnName(keyField.toLowerCase());
+
+      List<IndexSearchCondition> conditions = Lists.newArrayList();
+      analyzer.analyzePredicate(expr, conditions);
+
+      KeyRange range = new KeyRange();
+      boolean restricted = false;
+      for (IndexSearchCondition condition : conditions) {
+        CompareOp op = CompareOp.from(condition.getComparisonOp());
+        if (op == null || condition.getConstantDesc() == null) {
+          continue;
+        }
+        String type = condition.getColumnDesc().getTypeString();
+        Object value = condition.getConstantDesc().getValue();
+        byte[] key = toKey(type, value);
+        if (key == null) {
+          // Not a supported value
+          continue;
+        }
+        // Numbers are encoded with their sign bit first, so only equality maps to a key range
+        if (op != CompareOp.EQUAL && !isOrdered(type)) {
+          continue;
+        }
+        range.restrict(op, key);
+        restricted = true;
+      }
+      return restricted ? range : null;
+    } catch (Throwable t) {
+      LOG.warn("Exception analyzing query predicate. A full table scan will be performed.", t);
+      return null;
+    }
+  }
+
+  private KeyRange() {
+  }
+
+  /**
+   * Returns the key to start from, inclusive, or {@code null} to start from the first key.
+   */
+  @Nullable
+  byte[] getStart() {
+    return start;
+  }
+
+  /**
+   * Returns the key to stop at, exclusive, or {@code null} to read up to the last key.
+   */
+  @Nullable
+  byte[] getStop() {
+    return stop;
+  }
+
+  /**
+   * Returns whether the predicates exclude all keys.
+   */
+  boolean isEmpty() {
+    return empty;
+  }
+
+  private void restrict(CompareOp op, byte[] key) {
+    // The smallest key greater than the given key is the key followed by a zero byte
+    byte[] next = Bytes.add(key, new byte[] { 0 });
+    switch (op) {
+      case EQUAL:
+        restrictStart(key);
+        restrictStop(next);
+        break;
+      case GREATER:
+        restrictStart(next);
+        break;
+      case EQUAL_OR_GREATER:
+        restrictStart(key);
+        break;
+      case LESS:
+        restrictStop(key);
+        break;
+      case EQUAL_OR_LESS:
+        restrictStop(next);
+        break;
+      default:
+        // Not reachable
+    }
+    empty = start != null && stop != null && Bytes.compareTo(start, stop) >= 0;
+  }
+
+  private void restrictStart(byte[] key) {
+    if (start == null || Bytes.compareTo(key, start) > 0) {
+      start = key;
+    }
+  }
+
+  private void restrictStop(byte[] key) {
+    if (stop == null || Bytes.compareTo(key, stop) < 0) {
+      stop = key;
+    }
+  }
+
+  /**
+   * Returns whether the byte order of the encoded keys of the given type is the same as the order of the values.
+   */
+  private static boolean isOrdered(String type) {
+    return !serdeConstants.INT_TYPE_NAME.equals(type) && !serdeConstants.BIGINT_TYPE_NAME.equals(type);
+  }
+
+  /**
+   * Encodes a constant of the given column type the same way as the key of a record is encoded,
+   * or returns {@code null} if the type is not supported.
+   */
+  @Nullable
+  private static byte[] toKey(String type, @Nullable Object value) {
+    if (value == null) {
+      return null;
+    }
+    if (serdeConstants.STRING_TYPE_NAME.equals(type) && value instanceof String) {
+      return Bytes.toBytes((String) value);
+    }
+    if (serdeConstants.BINARY_TYPE_NAME.equals(type) && value instanceof byte[]) {
+      return (byte[]) value;
+    }
+    if (serdeConstants.INT_TYPE_NAME.equals(type) && value instanceof Integer) {
+      return Bytes.toBytes((Integer) value);
+    }
+    if (serdeConstants.BIGINT_TYPE_NAME.equals(type) && (value instanceof Long || value instanceof Integer)) {
+      return Bytes.toBytes(((Number) value).longValue());
+    }
+    return null;
+  }
+
+  private enum CompareOp {
+    EQUAL(GenericUDFOPEqual.class.getName()),
+    EQUAL_OR_GREATER(GenericUDFOPEqualOrGreaterThan.class.getName()),
+    EQUAL_OR_LESS(GenericUDFOPEqualOrLessThan.class.getName()),
+    GREATER(GenericUDFOPGreaterThan.class.getName()),
+    LESS(GenericUDFOPLessThan.class.getName());
+
+    private final String opClassName;
+
+    CompareOp(String opClassName) {
+      this.opClassName = opClassName;
+    }
+
+    public String getOpClassName() {
+      return opClassName;
+    }
+
+    /**
+     * Returns a {@link CompareOp} by matching the given class name or {@code null} if there is none matching.
+     */
+    @Nullable
+    public static CompareOp from(String opClassName) {
+      for (CompareOp op : values()) {
+        if (op.getOpClassName().equals(opClassName)) {
+          return op;
+        }
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.hive.datasets;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.data.batch.KeyRangeScannable;
+import co.cask.cdap.api.data.batch.RecordScannable;
+import co.cask.cdap.api.data.batch.RecordScanner;
+import co.cask.cdap.api.data.batch.Split;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqual;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqualOrGreaterThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPLessThan;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * Tests the selection of splits in {@link DatasetInputFormat}.
+ */
+public class DatasetInputFormatTest {
+
+  @Test
+  public void testKeyRangeSplits() {
+    KeyRangeDataset dataset = new KeyRangeDataset("key");
+    Configuration conf = KeyRangeTest.toConf(KeyRangeTest.and(compareKey(new GenericUDFOPEqualOrGreaterThan(), "b"),
+                                                              compareKey(new GenericUDFOPLessThan(), "d")));
+    List<Split> splits = DatasetInputFormat.getSplits(dataset, conf);
+    Assert.assertEquals(1, splits.size());
+    RangeSplit split = (RangeSplit) splits.get(0);
+    Assert.assertArrayEquals(Bytes.toBytes("b"), split.start);
+    Assert.assertArrayEquals(Bytes.toBytes("d"), split.stop);
+  }
+
+  @Test
+  public void testEmptyKeyRange() {
+    KeyRangeDataset dataset = new KeyRangeDataset("key");
+    Configuration conf = KeyRangeTest.toConf(KeyRangeTest.and(compareKey(new GenericUDFOPEqual(), "b"),
+                                                              compareKey(new GenericUDFOPEqual(), "c")));
+    Assert.assertTrue(DatasetInputFormat.getSplits(dataset, conf).isEmpty());
+  }
+
+  @Test
+  public void testAllSplits() {
+    Configuration keyPredicate = KeyRangeTest.toConf(compareKey(new GenericUDFOPEqual(), "b"));
+    Configuration otherPredicate = KeyRangeTest.toConf(
+      KeyRangeTest.compare(new GenericUDFOPEqual(),
+                           new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, "value", "t", false),
+                           KeyRangeTest.string("b")));
+
+    // no predicate
+    assertAllSplits(DatasetInputFormat.getSplits(new KeyRangeDataset("key"), new Configuration()));
+    // no predicate on the key field
+    assertAllSplits(DatasetInputFormat.getSplits(new KeyRangeDataset("key"), otherPredicate));
+    // no key field
+    assertAllSplits(DatasetInputFormat.getSplits(new KeyRangeDataset(null), keyPredicate));
+    // not a KeyRangeScannable
+    assertAllSplits(DatasetInputFormat.getSplits(new AllSplitsDataset(), keyPredicate));
+  }
+
+  private static ExprNodeGenericFuncDesc compareKey(GenericUDF op, String value) {
+    return KeyRangeTest.compare(op, KeyRangeTest.stringKey(), KeyRangeTest.string(value));
+  }
+
+  private static void assertAllSplits(List<Split> splits) {
+    Assert.assertEquals(Collections.singletonList(AllSplitsDataset.ALL), splits);
+  }
+
+  /**
+   * A {@link RecordScannable} that returns a single split of all its records.
+   */
+  private static class AllSplitsDataset implements RecordScannable<String> {
+    static final Split ALL = new Split() { };
+
+    @Override
+    public Type getRecordType() {
+      return String.class;
+    }
+
+    @Override
+    public List<Split> getSplits() {
+      return Collections.singletonList(ALL);
+    }
+
+    @Override
+    public RecordScanner<String> createSplitRecordScanner(Split split) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+      // no-op
+    }
+  }
+
+  /**
+   * An {@link AllSplitsDataset} that returns a {@link RangeSplit} for key ranges.
+   */
+  private static final class KeyRangeDataset extends AllSplitsDataset implements KeyRangeScannable {
+    private final String keyField;
+
+    private KeyRangeDataset(@Nullable String keyField) {
+      this.keyField = keyField;
+    }
+
+    @Nullable
+    @Override
+    public String getKeyField() {
+      return keyField;
+    }
+
+    @Override
+    public List<Split> getSplits(int numSplits, @Nullable byte[] start, @Nullable byte[] stop) {
+      return Collections.<Split>singletonList(new RangeSplit(start, stop));
+    }
+  }
+
+  /**
+   * A {@link Split} of the keys in a range.
+   */
+  private static final class RangeSplit extends Split {
+    private final byte[] start;
+    private final byte[] stop;
+
+    private RangeSplit(@Nullable byte[] start, @Nullable byte[] stop) {
+      this.start = start;
+      this.stop = stop;
+    }
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.hive.datasets;
+
+import co.cask.cdap.api.common.Bytes;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.ql.exec.Utilities;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeConstantDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.ql.plan.TableScanDesc;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDF;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPAnd;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqual;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqualOrGreaterThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPEqualOrLessThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPGreaterThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPLessThan;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDFOPOr;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * Tests for {@link KeyRange}.
+ */
+public class KeyRangeTest {
+
+  @Test
+  public void testNoPredicate() {
+    Assert.assertNull(KeyRange.fromPredicate(new Configuration(), "key"));
+  }
+
+  @Test
+  public void testStringKey() {
+    // equality
+    assertRange("b", next("b"), fromPredicate(compare(new GenericUDFOPEqual(), stringKey(), string("b"))));
+
+    // each comparison operator
+    assertRange(next("b"), null, fromPredicate(compare(new GenericUDFOPGreaterThan(), stringKey(), string("b"))));
+    assertRange("b", null,
+                fromPredicate(compare(new GenericUDFOPEqualOrGreaterThan(), stringKey(), string("b"))));
+    assertRange(null, "b", fromPredicate(compare(new GenericUDFOPLessThan(), stringKey(), string("b"))));
+    assertRange(null, next("b"),
+                fromPredicate(compare(new GenericUDFOPEqualOrLessThan(), stringKey(), string("b"))));
+
+    // ranges combined with AND are intersected
+    assertRange("b", "d", fromPredicate(and(compare(new GenericUDFOPEqualOrGreaterThan(), stringKey(), string("b")),
+                                            compare(new GenericUDFOPLessThan(), stringKey(), string("d")))));
+    assertRange("c", next("c"), fromPredicate(and(compare(new GenericUDFOPGreaterThan(), stringKey(), string("b")),
+                                                  compare(new GenericUDFOPEqual(), stringKey(), string("c")))));
+  }
+
+  @Test
+  public void testBinaryKey() {
+    byte[] key = new byte[] { 1, 2, (byte) 0xff };
+    KeyRange range = fromPredicate(compare(new GenericUDFOPEqual(), binaryKey(), binary(key)));
+    Assert.assertArrayEquals(key, range.getStart());
+    Assert.assertArrayEquals(Bytes.add(key, new byte[] { 0 }), range.getStop());
+    Assert.assertFalse(range.isEmpty());
+
+    range = fromPredicate(compare(new GenericUDFOPLessThan(), binaryKey(), binary(key)));
+    Assert.assertNull(range.getStart());
+    Assert.assertArrayEquals(key, range.getStop());
+  }
+
+  @Test
+  public void testNumberKey() {
+    // int and bigint keys are encoded the same way as Bytes.toBytes
+    KeyRange range = fromPredicate(compare(new GenericUDFOPEqual(), intKey(), intValue(5)));
+    Assert.assertArrayEquals(Bytes.toBytes(5), range.getStart());
+    Assert.assertArrayEquals(Bytes.add(Bytes.toBytes(5), new byte[] { 0 }), range.getStop());
+
+    range = fromPredicate(compare(new GenericUDFOPEqual(), bigintKey(), bigintValue(-5L)));
+    Assert.assertArrayEquals(Bytes.toBytes(-5L), range.getStart());
+    Assert.assertArrayEquals(Bytes.add(Bytes.toBytes(-5L), new byte[] { 0 }), range.getStop());
+
+    // the byte order of negative numbers differs from their numeric order, so ranges are not used
+    Assert.assertNull(fromPredicate(compare(new GenericUDFOPGreaterThan(), intKey(), intValue(5))));
+    Assert.assertNull(fromPredicate(compare(new GenericUDFOPEqualOrLessThan(), bigintKey(), bigintValue(5L))));
+
+    // but equality is still used when combined with a range
+    range = fromPredicate(and(compare(new GenericUDFOPGreaterThan(), intKey(), intValue(1)),
+                              compare(new GenericUDFOPEqual(), intKey(), intValue(5))));
+    Assert.assertArrayEquals(Bytes.toBytes(5), range.getStart());
+    Assert.assertArrayEquals(Bytes.add(Bytes.toBytes(5), new byte[] { 0 }), range.getStop());
+  }
+
+  @Test
+  public void testEmptyRange() {
+    // contradicting equalities
+    assertEmpty(and(compare(new GenericUDFOPEqual(), stringKey(), string("b")),
+                    compare(new GenericUDFOPEqual(), stringKey(), string("c"))));
+    // disjoint ranges
+    assertEmpty(and(compare(new GenericUDFOPGreaterThan(), stringKey(), string("d")),
+                    compare(new GenericUDFOPLessThan(), stringKey(), string("b"))));
+    // no key between the bounds
+    assertEmpty(and(compare(new GenericUDFOPGreaterThan(), stringKey(), string("b")),
+                    compare(new GenericUDFOPLessThan(), stringKey(), string(next("b")))));
+    // touching bounds still contain a key
+    ExprNodeGenericFuncDesc touching = and(compare(new GenericUDFOPEqualOrGreaterThan(), stringKey(), string("b")),
+                                           compare(new GenericUDFOPEqualOrLessThan(), stringKey(), string("b")));
+    assertRange("b", next("b"), fromPredicate(touching));
+  }
+
+  @Test
+  public void testUnusablePredicates() {
+    // predicates on other columns
+    ExprNodeDesc otherColumn = new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, "value", "t", false);
+    Assert.assertNull(fromPredicate(compare(new GenericUDFOPEqual(), otherColumn, string("b"))));
+    // disjunctions
+    Assert.assertNull(fromPredicate(or(compare(new GenericUDFOPEqual(), stringKey(), string("b")),
+                                       compare(new GenericUDFOPEqual(), stringKey(), string("c")))));
+    // unsupported key types
+    ExprNodeDesc doubleKey = new ExprNodeColumnDesc(TypeInfoFactory.doubleTypeInfo, "key", "t", false);
+    Assert.assertNull(fromPredicate(compare(new GenericUDFOPEqual(), doubleKey,
+                                            constant(TypeInfoFactory.doubleTypeInfo, 1.0d))));
+  }
+
+  @Test
+  public void testKeyFieldCase() {
+    // Hive column names are in lower case, the key field may not be
+    Configuration conf = toConf(compare(new GenericUDFOPEqual(), stringKey(), string("b")));
+    assertRange("b", next("b"), KeyRange.fromPredicate(conf, "KEY"));
+  }
+
+  static Configuration toConf(ExprNodeGenericFuncDesc expr) {
+    Configuration conf = new Configuration();
+    conf.set(TableScanDesc.FILTER_EXPR_CONF_STR, Utilities.serializeExpression(expr));
+    return conf;
+  }
+
+  static ExprNodeGenericFuncDesc compare(GenericUDF op, ExprNodeDesc column, ExprNodeDesc constant) {
+    return new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, op, Arrays.asList(column, constant));
+  }
+
+  static ExprNodeGenericFuncDesc and(ExprNodeDesc left, ExprNodeDesc right) {
+    return new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPAnd(),
+                                      Arrays.asList(left, right));
+  }
+
+  static ExprNodeDesc stringKey() {
+    return new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, "key", "t", false);
+  }
+
+  static ExprNodeDesc string(String value) {
+    return constant(TypeInfoFactory.stringTypeInfo, value);
+  }
+
+  private static ExprNodeGenericFuncDesc or(ExprNodeDesc left, ExprNodeDesc right) {
+    return new ExprNodeGenericFuncDesc(TypeInfoFactory.booleanTypeInfo, new GenericUDFOPOr(),
+                                      Arrays.asList(left, right));
+  }
+
+  private static ExprNodeDesc binaryKey() {
+    return new ExprNodeColumnDesc(TypeInfoFactory.binaryTypeInfo, "key", "t", false);
+  }
+
+  private static ExprNodeDesc intKey() {
+    return new ExprNodeColumnDesc(TypeInfoFactory.intTypeInfo, "key", "t", false);
+  }
+
+  private static ExprNodeDesc bigintKey() {
+    return new ExprNodeColumnDesc(TypeInfoFactory.longTypeInfo, "key", "t", false);
+  }
+
+  private static ExprNodeDesc binary(byte[] value) {
+    return constant(TypeInfoFactory.binaryTypeInfo, value);
+  }
+
+  private static ExprNodeDesc intValue(int value) {
+    return constant(TypeInfoFactory.intTypeInfo, value);
+  }
+
+  private static ExprNodeDesc bigintValue(long value) {
+    return constant(TypeInfoFactory.longTypeInfo, value);
+  }
+
+  private static ExprNodeDesc constant(TypeInfo typeInfo, Object value) {
+    return new ExprNodeConstantDesc(typeInfo, value);
+  }
+
+  private static ExprNodeDesc string(byte[] value) {
+    return string(Bytes.toString(value));
+  }
+
+  @Nullable
+  private static KeyRange fromPredicate(ExprNodeGenericFuncDesc expr) {
+    return KeyRange.fromPredicate(toConf(expr), "key");
+  }
+
+  // the smallest string key after the given one
+  private static byte[] next(String key) {
+    return Bytes.add(Bytes.toBytes(key), new byte[] { 0 });
+  }
+
+  private static void assertRange(@Nullable Object start, @Nullable Object stop, @Nullable KeyRange range) {
+    Assert.assertNotNull(range);
+    Assert.assertArrayEquals(toBytes(start), range.getStart());
+    Assert.assertArrayEquals(toBytes(stop), range.getStop());
+    Assert.assertFalse(range.isEmpty());
+  }
+
+  private static void assertEmpty(ExprNodeGenericFuncDesc expr) {
+    KeyRange range = fromPredicate(expr);
+    Assert.assertNotNull(range);
+    Assert.assertTrue(range.isEmpty());
+  }
+
+  @Nullable
+  private static byte[] toBytes(@Nullable Object key) {
+    return key instanceof String ? Bytes.toBytes((String) key) : (byte[]) key;
+  }
+}
@@ -42,6 +42,87 @@ public final class RouterPathLookup extends AbstractHttpHandler {
   public static final RouteDestination PREVIEW_HTTP = new RouteDestination(Constants.Service.PREVIEW_HTTP);
   public static final RouteDestination DONT_ROUTE = new RouteDestination(Constants.Router.DONT_ROUTE_SERVICE);
 
+  // Markers for routes that are resolved from the path
+  private static final RouteDestination FEEDS = new RouteDestination("feeds");
+  private static final RouteDestination USER_SERVICE = new RouteDestination("user-service");
+  private static final RouteDestination VERSIONED_USER_SERVICE = new RouteDestination("versioned-user-service");
+
+  // Routing rules for v3 paths, in the order of precedence
+  private static final RouterPathTrie<RouteDestination> V3_ROUTES = RouterPathTrie.<RouteDestination>builder()
+    // TODO find a better way to handle that - this looks hackish
+    .add("/v3/feeds", FEEDS)
+    // User defined services (version specific) handle methods on them:
+    // Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/versions/{version-id}/services/{service-id}/methods/
+    //       <user-defined-method-path>"
+    .add("/v3/*/*/*/*/versions/*/services/*/methods/*", VERSIONED_USER_SERVICE)
+    // User defined services handle methods on them:
+    // Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/services/{service-id}/methods/<user-defined-method-path>"
+    .add("/v3/*/*/*/*/services/*/methods/*", USER_SERVICE)
+    // Log Handler Path /v3/system/services/<service-id>/logs
+    .add("/v3/system/services/*/logs", METRICS)
+
+    .add("/v3/namespaces/*/apps/*/metadata", METADATA_SERVICE)
+    .add("/v3/namespaces/*/apps/*/*/*/metadata", METADATA_SERVICE)
+    .add("/v3/namespaces/*/artifacts/*/versions/*/metadata", METADATA_SERVICE)
+    .add("/v3/namespaces/*/datasets/*/metadata", METADATA_SERVICE)
+    .add("/v3/namespaces/*/streams/*/metadata", METADATA_SERVICE)
+    .add("/v3/namespaces/*/streams/*/views/*/metadata", METADATA_SERVICE)
+    .add("/v3/namespaces/*/metadata/search", METADATA_SERVICE)
+    .add("/v3/namespaces/*/datasets/*/lineage", METADATA_SERVICE)
+    .add("/v3/namespaces/*/streams/*/lineage", METADATA_SERVICE)
+    .add("/v3/namespaces/*/apps/*/*/*/runs/*/metadata", METADATA_SERVICE)
+
+    // Authorization and Secure Store Handlers currently run in App Fabric
+    .add("/v3/security/authorization", APP_FABRIC_HTTP)
+    .add("/v3/namespaces/*/securekeys", APP_FABRIC_HTTP)
+    .add("/v3/security/store/namespaces/*", APP_FABRIC_HTTP)
+    .add("GET", "/v3/namespaces/*/streams/*/programs", APP_FABRIC_HTTP)
+    .add("GET", "/v3/namespaces/*/data/datasets/*/programs", APP_FABRIC_HTTP)
+    .add("/v3/namespaces/*/previews", PREVIEW_HTTP)
+    .add("/v3/system/serviceproviders", APP_FABRIC_HTTP)
+    .add("/v3/namespaces/*/streams", STREAMS_SERVICE)
+
+    // Log Handler Paths:
+    // /v3/namespaces/<namespaceid>/apps/<appid>/<programid-type>/<programid>/logs
+    // /v3/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/runs/{run-id}/logs
+    .add("/v3/*/*/*/*/*/*/logs", METRICS)
+    .add("/v3/*/*/*/*/*/*/*/*/logs", METRICS)
+    .add("/v3/*/*/*/*/logs", METRICS)
+    // Metrics Search Handler Path /v3/metrics
+    .add("/v3/metrics", METRICS)
+
+    // non-namespaced explore operations. For example, /v3/data/explore/queries/{id}
+    .add("/v3/data/explore/queries/*", EXPLORE_HTTP_USER_SERVICE)
+    .add("/v3/data/explore/jdbc/*", EXPLORE_HTTP_USER_SERVICE)
+    .add("/v3/data/explore/namespaces/*", EXPLORE_HTTP_USER_SERVICE)
+    // namespaced explore operations. For example, /v3/namespaces/{namespace-id}/data/explore/streams/{stream}/enable
+    .add("/v3/*/*/data/explore/queries", EXPLORE_HTTP_USER_SERVICE)
+    .add("/v3/*/*/data/explore/streams", EXPLORE_HTTP_USER_SERVICE)
+    .add("/v3/*/*/data/explore/datasets", EXPLORE_HTTP_USER_SERVICE)
+    .add("/v3/*/*/data/explore/tables", EXPLORE_HTTP_USER_SERVICE)
+    .add("/v3/*/*/data/explore/jdbc", EXPLORE_HTTP_USER_SERVICE)
+    .addExact("/v3/explore/status", EXPLORE_HTTP_USER_SERVICE)
+
+    // namespaced app fabric data operations:
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/flows
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/workers
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/mapreduce
+    .addExact("/v3/*/*/data/datasets/*/flows", APP_FABRIC_HTTP)
+    .addExact("/v3/*/*/data/datasets/*/workers", APP_FABRIC_HTTP)
+    .addExact("/v3/*/*/data/datasets/*/mapreduce", APP_FABRIC_HTTP)
+    // other data operations. For example:
+    // /v3/namespaces/{namespace-id}/data/datasets
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/properties
+    // /v3/namespaces/{namespace-id}/data/datasets/{name}/admin/{method}
+    .add("/v3/*/*/data", DATASET_MANAGER)
+    // we don't want to expose endpoints in artifact handler that are internal and can only by called by programs
+    // /v3/namespaces/{namespace-id}/artifact-internals/list/artifacts
+    // /v3/namespaces/{namespace-id}/artifact-internals/artifact/{artifact-name}
+    .add("/v3/*/*/artifact-internals", DONT_ROUTE)
+    .add("/v3", APP_FABRIC_HTTP)
+    .build();
+
   /**
    * Returns the CDAP service which will handle the HttpRequest
    *
@@ -52,20 +133,29 @@ public final class RouterPathLookup extends AbstractHttpHandler {
    */
   public RouteDestination getRoutingService(String fallbackService, String requestPath, HttpRequest httpRequest) {
     try {
-      String method = httpRequest.getMethod().getName();
-      AllowedMethod requestMethod = AllowedMethod.valueOf(method);
-      String[] uriParts = StringUtils.split(requestPath, '/');
+      AllowedMethod method = AllowedMethod.valueOf(httpRequest.getMethod().getName());
 
       //Check if the call should go to webapp
       //If service contains "$HOST" and if first split element is NOT the gateway version, then send it to WebApp
       //WebApp serves only static files (HTML, CSS, JS) and so /<appname> calls should go to WebApp
       //But stream calls issued by the UI should be routed to the appropriate CDAP service
-      if (fallbackService.contains("$HOST") && (uriParts.length >= 1)
-        && !("/" + uriParts[0]).equals(Constants.Gateway.API_VERSION_3)) {
+      if (fallbackService.contains("$HOST") && hasSegment(requestPath) && !isV3Path(requestPath)) {
         return new RouteDestination(fallbackService);
       }
-      if (uriParts[0].equals(Constants.Gateway.API_VERSION_3_TOKEN)) {
-        return getV3RoutingService(uriParts, requestMethod);
+      RouteDestination destination = V3_ROUTES.lookup(requestPath, method.name());
+      if (destination == FEEDS) {
+        return null;
+      }
+      if (destination == VERSIONED_USER_SERVICE) {
+        String[] uriParts = StringUtils.split(requestPath, '/');
+        return new RouteDestination(ServiceDiscoverable.getName(uriParts[2], uriParts[4], uriParts[8]), uriParts[6]);
+      }
+      if (destination == USER_SERVICE) {
+        String[] uriParts = StringUtils.split(requestPath, '/');
+        return new RouteDestination(ServiceDiscoverable.getName(uriParts[2], uriParts[4], uriParts[6]));
+      }
+      if (destination != null) {
+        return destination;
       }
     } catch (Exception e) {
       // Ignore exception. Default routing to app-fabric.
@@ -73,134 +163,28 @@ public final class RouterPathLookup extends AbstractHttpHandler {
     return APP_FABRIC_HTTP;
   }
 
-  private RouteDestination getV3RoutingService(String [] uriParts, AllowedMethod requestMethod) {
-    if ((uriParts.length >= 2) && uriParts[1].equals("feeds")) {
-      // TODO find a better way to handle that - this looks hackish
-      return null;
-    } else if ((uriParts.length >= 11) && "versions".equals(uriParts[5]) && "services".equals(uriParts[7])
-      && "methods".equals(uriParts[9])) {
-      // User defined services (version specific) handle methods on them:
-      //Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/versions/{version-id}/services/{service-id}/methods/
-      //       <user-defined-method-path>"
-      String serviceName = ServiceDiscoverable.getName(uriParts[2], uriParts[4], uriParts[8]);
-      String version = uriParts[6];
-      return new RouteDestination(serviceName, version);
-    } else if ((uriParts.length >= 9) && "services".equals(uriParts[5]) && "methods".equals(uriParts[7])) {
-      //User defined services handle methods on them:
-      //Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/services/{service-id}/methods/<user-defined-method-path>"
-      return new RouteDestination(ServiceDiscoverable.getName(uriParts[2], uriParts[4], uriParts[6]));
-    } else if (matches(uriParts, "v3", "system", "services", null, "logs")) {
-      //Log Handler Path /v3/system/services/<service-id>/logs
-      return METRICS;
-    } else if (matches(uriParts, "v3", "namespaces", null, "apps", null, "metadata") ||
-      matches(uriParts, "v3", "namespaces", null, "apps", null, null, null, "metadata") ||
-      matches(uriParts, "v3", "namespaces", null, "artifacts", null, "versions", null, "metadata") ||
-      matches(uriParts, "v3", "namespaces", null, "datasets", null, "metadata") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "metadata") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "views", null, "metadata") ||
-
-      matches(uriParts, "v3", "namespaces", null, "apps", null, "metadata", "properties") ||
-      matches(uriParts, "v3", "namespaces", null, "artifacts", null, "versions", null, "metadata", "properties") ||
-      matches(uriParts, "v3", "namespaces", null, "apps", null, null, null, "metadata", "properties") ||
-      matches(uriParts, "v3", "namespaces", null, "datasets", null, "metadata", "properties") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "metadata", "properties") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "views", null, "metadata", "properties") ||
-
-      matches(uriParts, "v3", "namespaces", null, "apps", null, "metadata", "tags") ||
-      matches(uriParts, "v3", "namespaces", null, "artifacts", null, "versions", null, "metadata", "tags") ||
-      matches(uriParts, "v3", "namespaces", null, "apps", null, null, null, "metadata", "tags") ||
-      matches(uriParts, "v3", "namespaces", null, "datasets", null, "metadata", "tags") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "metadata", "tags") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "views", null, "metadata", "tags") ||
-
-      matches(uriParts, "v3", "namespaces", null, "metadata", "search") ||
-      matches(uriParts, "v3", "namespaces", null, "datasets", null, "lineage") ||
-      matches(uriParts, "v3", "namespaces", null, "streams", null, "lineage") ||
-      matches(uriParts, "v3", "namespaces", null, "apps", null, null, null, "runs", null, "metadata")) {
-      return METADATA_SERVICE;
-    } else if (matches(uriParts, "v3", "security", "authorization") ||
-      matches(uriParts, "v3", "namespaces", null, "securekeys")) {
-      // Authorization and Secure Store Handlers currently run in App Fabric
-      return APP_FABRIC_HTTP;
-    } else if (matches(uriParts, "v3", "security", "store", "namespaces", null)) {
-      return APP_FABRIC_HTTP;
-    } else if ((matches(uriParts, "v3", "namespaces", null, "streams", null, "programs")
-      || matches(uriParts, "v3", "namespaces", null, "data", "datasets", null, "programs")) &&
-      requestMethod.equals(AllowedMethod.GET)) {
-      return APP_FABRIC_HTTP;
-    } else if (matches(uriParts, "v3", "namespaces", null, "previews")) {
-      return PREVIEW_HTTP;
-    } else if (matches(uriParts, "v3", "system", "serviceproviders")) {
-      return APP_FABRIC_HTTP;
-    } else if ((uriParts.length >= 4) && uriParts[1].equals("namespaces") && uriParts[3].equals("streams")) {
-      return STREAMS_SERVICE;
-    } else if ((uriParts.length >= 8 && uriParts[7].equals("logs")) ||
-      (uriParts.length >= 10 && uriParts[9].equals("logs")) ||
-      (uriParts.length >= 6 && uriParts[5].equals("logs"))) {
-      //Log Handler Paths:
-      // /v3/namespaces/<namespaceid>/apps/<appid>/<programid-type>/<programid>/logs
-      // /v3/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/runs/{run-id}/logs
-      return METRICS;
-    } else if (uriParts.length >= 2 && uriParts[1].equals("metrics")) {
-      //Metrics Search Handler Path /v3/metrics
-      return METRICS;
-    } else if (uriParts.length >= 5 && uriParts[1].equals("data") && uriParts[2].equals("explore") &&
-      (uriParts[3].equals("queries") || uriParts[3].equals("jdbc") || uriParts[3].equals("namespaces"))) {
-      // non-namespaced explore operations. For example, /v3/data/explore/queries/{id}
-      return EXPLORE_HTTP_USER_SERVICE;
-    } else if (uriParts.length >= 6 && uriParts[3].equals("data") && uriParts[4].equals("explore") &&
-      (uriParts[5].equals("queries") || uriParts[5].equals("streams") || uriParts[5].equals("datasets")
-        || uriParts[5].equals("tables") || uriParts[5].equals("jdbc"))) {
-      // namespaced explore operations. For example, /v3/namespaces/{namespace-id}/data/explore/streams/{stream}/enable
-      return EXPLORE_HTTP_USER_SERVICE;
-    } else if ((uriParts.length == 3) && uriParts[1].equals("explore") && uriParts[2].equals("status")) {
-      return EXPLORE_HTTP_USER_SERVICE;
-    } else if (uriParts.length == 7 && uriParts[3].equals("data") && uriParts[4].equals("datasets") &&
-      (uriParts[6].equals("flows") || uriParts[6].equals("workers") || uriParts[6].equals("mapreduce"))) {
-      // namespaced app fabric data operations:
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/flows
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/workers
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/mapreduce
-      return APP_FABRIC_HTTP;
-    } else if ((uriParts.length >= 4) && uriParts[3].equals("data")) {
-      // other data operations. For example:
-      // /v3/namespaces/{namespace-id}/data/datasets
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/properties
-      // /v3/namespaces/{namespace-id}/data/datasets/{name}/admin/{method}
-      return DATASET_MANAGER;
-    } else if ((uriParts.length >= 4) && uriParts[3].equals("artifact-internals")) {
-      // we don't want to expose endpoints in artifact handler that are internal and can only by called by programs
-      // /v3/namespaces/{namespace-id}/artifact-internals/list/artifacts
-      // /v3/namespaces/{namespace-id}/artifact-internals/artifact/{artifact-name}
-      return DONT_ROUTE;
+  /**
+   * Returns whether the given path has at least one non-empty segment.
+   */
+  private static boolean hasSegment(String path) {
+    for (int i = 0; i < path.length(); i++) {
+      if (path.charAt(i) != '/') {
+        return true;
+      }
     }
-    return APP_FABRIC_HTTP;
+    return false;
   }
 
   /**
-   * Determines if actual matches expected.
-   *
-   * - actual may be longer than expected, but we'll return true as long as expected was found
-   * - null in expected means "accept any string"
-   *
-   * @param actual actual string array to check
-   * @param expected expected string array format
-   * @return true if actual matches expected
+   * Returns whether the first non-empty segment of the given path is the v3 API version.
    */
-  private boolean matches(String[] actual, String... expected) {
-    if (actual.length < expected.length) {
-      return false;
-    }
-
-    for (int i = 0; i < expected.length; i++) {
-      if (expected[i] == null) {
-        continue;
-      }
-      if (!expected[i].equals(actual[i])) {
-        return false;
-      }
+  private static boolean isV3Path(String path) {
+    int start = 0;
+    while (start < path.length() && path.charAt(start) == '/') {
+      start++;
     }
-    return true;
+    String version = Constants.Gateway.API_VERSION_3_TOKEN;
+    int end = start + version.length();
+    return path.regionMatches(start, version, 0, version.length()) && (end == path.length() || path.charAt(end) == '/');
   }
 }
@@ -0,0 +1,326 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.gateway.router;
+
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Matches request paths against an ordered list of path patterns. The patterns are compiled into a deterministic
+ * trie over path segments, so that a lookup walks the path once, without splitting it into strings.
+ *
+ * A pattern is a list of segments separated by {@code /}, where {@code *} matches any segment. A pattern matches
+ * any path that starts with matching segments, unless it is added as exact, in which case the path must have
+ * the same number of segments as the pattern. A pattern can be restricted to a given HTTP method. Empty segments
+ * in paths are ignored. When multiple patterns match, the one added first wins.
+ *
+ * @param <T> type of the value associated with each pattern
+ */
+final class RouterPathTrie<T> {
+
+  private final Node<T> root;
+
+  private RouterPathTrie(Node<T> root) {
+    this.root = root;
+  }
+
+  static <T> Builder<T> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Returns the value of the first pattern that matches the given path and method, or {@code null} if there is none.
+   */
+  @Nullable
+  T lookup(String path, String method) {
+    Node<T> node = root;
+    int length = path.length();
+    int start = 0;
+    while (true) {
+      while (start < length && path.charAt(start) == '/') {
+        start++;
+      }
+      if (start == length) {
+        return Candidate.find(node.endCandidates, method);
+      }
+      int end = path.indexOf('/', start);
+      if (end < 0) {
+        end = length;
+      }
+      Node<T> next = node.getChild(path, start, end);
+      if (next == null) {
+        return Candidate.find(node.prefixCandidates, method);
+      }
+      node = next;
+      start = end;
+    }
+  }
+
+  /**
+   * A node of the trie, reached after matching a number of segments.
+   */
+  private static final class Node<T> {
+    private final String[] literals;
+    private final Node<T>[] literalChildren;
+    @Nullable
+    private final Node<T> wildcardChild;
+    // Patterns that matched and accept any further segments
+    private final Candidate<T>[] prefixCandidates;
+    // Patterns that match if the path ends at this node
+    private final Candidate<T>[] endCandidates;
+
+    private Node(String[] literals, Node<T>[] literalChildren, @Nullable Node<T> wildcardChild,
+                 Candidate<T>[] prefixCandidates, Candidate<T>[] endCandidates) {
+      this.literals = literals;
+      this.literalChildren = literalChildren;
+      this.wildcardChild = wildcardChild;
+      this.prefixCandidates = prefixCandidates;
+      this.endCandidates = endCandidates;
+    }
+
+    @Nullable
+    Node<T> getChild(String path, int start, int end) {
+      int length = end - start;
+      for (int i = 0; i < literals.length; i++) {
+        String literal = literals[i];
+        if (literal.length() == length && path.regionMatches(start, literal, 0, length)) {
+          return literalChildren[i];
+        }
+      }
+      return wildcardChild;
+    }
+  }
+
+  /**
+   * A value with the HTTP method it is restricted to.
+   */
+  private static final class Candidate<T> {
+    @Nullable
+    private final String method;
+    private final T value;
+
+    private Candidate(@Nullable String method, T value) {
+      this.method = method;
+      this.value = value;
+    }
+
+    @Nullable
+    static <T> T find(Candidate<T>[] candidates, String method) {
+      for (Candidate<T> candidate : candidates) {
+        if (candidate.method == null || candidate.method.equals(method)) {
+          return candidate.value;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * A pattern added to the builder.
+   */
+  private static final class Rule<T> {
+    private final int priority;
+    // null for a wildcard segment
+    private final String[] segments;
+    private final boolean exact;
+    @Nullable
+    private final String method;
+    private final T value;
+
+    private Rule(int priority, String[] segments, boolean exact, @Nullable String method, T value) {
+      this.priority = priority;
+      this.segments = segments;
+      this.exact = exact;
+      this.method = method;
+      this.value = value;
+    }
+
+    /**
+     * Returns whether the rule matches any path that starts with the given number of matched segments.
+     */
+    boolean acceptsPrefix(int depth) {
+      return !exact && segments.length <= depth;
+    }
+
+    /**
+     * Returns whether the rule matches a path of the given number of matched segments.
+     */
+    boolean acceptsEnd(int depth) {
+      return exact ? segments.length == depth : segments.length <= depth;
+    }
+  }
+
+  /**
+   * Builder for {@link RouterPathTrie}.
+   *
+   * @param <T> type of the value associated with each pattern
+   */
+  static final class Builder<T> {
+
+    private final List<Rule<T>> rules = new ArrayList<>();
+
+    /**
+     * Adds a pattern that matches paths starting with the given segments.
+     */
+    Builder<T> add(String pattern, T value) {
+      return add(pattern, false, null, value);
+    }
+
+    /**
+     * Adds a pattern that matches paths starting with the given segments, for the given HTTP method only.
+     */
+    Builder<T> add(String method, String pattern, T value) {
+      return add(pattern, false, method, value);
+    }
+
+    /**
+     * Adds a pattern that only matches paths with exactly the given segments.
+     */
+    Builder<T> addExact(String pattern, T value) {
+      return add(pattern, true, null, value);
+    }
+
+    private Builder<T> add(String pattern, boolean exact, @Nullable String method, T value) {
+      Preconditions.checkArgument(value != null, "Value cannot be null for pattern %s", pattern);
+      List<String> segments = new ArrayList<>();
+      for (String segment : pattern.split("/")) {
+        if (!segment.isEmpty()) {
+          segments.add("*".equals(segment) ? null : segment);
+        }
+      }
+      rules.add(new Rule<>(rules.size(), segments.toArray(new String[segments.size()]), exact, method, value));
+      return this;
+    }
+
+    RouterPathTrie<T> build() {
+      return new RouterPathTrie<>(build(rules, 0, new HashMap<String, Node<T>>()));
+    }
+
+    /**
+     * Builds the node reached with the given rules still matching after the given number of segments.
+     * Nodes with the same rules at the same depth are shared.
+     */
+    private Node<T> build(List<Rule<T>> alive, int depth, Map<String, Node<T>> nodes) {
+      StringBuilder key = new StringBuilder().append(depth);
+      for (Rule<T> rule : alive) {
+        key.append(',').append(rule.priority);
+      }
+      Node<T> node = nodes.get(key.toString());
+      if (node != null) {
+        return node;
+      }
+
+      List<Candidate<T>> prefixCandidates = new ArrayList<>();
+      List<Candidate<T>> endCandidates = new ArrayList<>();
+      // Rules that come after a rule accepting any path from here can never win
+      int maxPriority = Integer.MAX_VALUE;
+      for (Rule<T> rule : alive) {
+        if (rule.acceptsPrefix(depth)) {
+          prefixCandidates.add(new Candidate<>(rule.method, rule.value));
+          if (rule.method == null) {
+            maxPriority = rule.priority;
+            break;
+          }
+        }
+      }
+      for (Rule<T> rule : alive) {
+        if (rule.priority > maxPriority) {
+          break;
+        }
+        if (rule.acceptsEnd(depth)) {
+          endCandidates.add(new Candidate<>(rule.method, rule.value));
+          if (rule.method == null) {
+            break;
+          }
+        }
+      }
+
+      // Rules that already matched stay in the children, since they match any further segments
+      List<Rule<T>> accepted = new ArrayList<>();
+      List<Rule<T>> continuing = new ArrayList<>();
+      Set<String> literals = new LinkedHashSet<>();
+      boolean hasWildcard = false;
+      for (Rule<T> rule : alive) {
+        if (rule.priority > maxPriority) {
+          break;
+        }
+        if (rule.acceptsPrefix(depth)) {
+          accepted.add(rule);
+        } else if (rule.segments.length > depth) {
+          continuing.add(rule);
+          String segment = rule.segments[depth];
+          if (segment == null) {
+            hasWildcard = true;
+          } else {
+            literals.add(segment);
+          }
+        }
+      }
+
+      @SuppressWarnings("unchecked")
+      Node<T>[] literalChildren = new Node[literals.size()];
+      int i = 0;
+      for (String literal : literals) {
+        literalChildren[i++] = build(select(accepted, continuing, depth, literal), depth + 1, nodes);
+      }
+      // Without wildcard rules, paths with other segments only match the accepted rules, as given by this node
+      Node<T> wildcardChild = hasWildcard ? build(select(accepted, continuing, depth, null), depth + 1, nodes) : null;
+
+      node = new Node<>(literals.toArray(new String[literals.size()]), literalChildren, wildcardChild,
+                        toArray(prefixCandidates), toArray(endCandidates));
+      nodes.put(key.toString(), node);
+      return node;
+    }
+
+    /**
+     * Selects the rules that still match after matching the given segment at the given depth,
+     * in priority order. A {@code null} segment stands for any segment that is not a literal of the continuing rules.
+     */
+    private List<Rule<T>> select(List<Rule<T>> accepted, List<Rule<T>> continuing, int depth,
+                                 @Nullable String segment) {
+      List<Rule<T>> result = new ArrayList<>(accepted);
+      for (Rule<T> rule : continuing) {
+        String ruleSegment = rule.segments[depth];
+        if (ruleSegment == null || ruleSegment.equals(segment)) {
+          result.add(rule);
+        }
+      }
+      // Keep the priority order
+      Collections.sort(result, new Comparator<Rule<T>>() {
+        @Override
+        public int compare(Rule<T> r1, Rule<T> r2) {
+          return Integer.compare(r1.priority, r2.priority);
+        }
+      });
+      return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Candidate<T>[] toArray(List<Candidate<T>> candidates) {
+      return candidates.toArray(new Candidate[candidates.size()]);
+    }
+  }
+}
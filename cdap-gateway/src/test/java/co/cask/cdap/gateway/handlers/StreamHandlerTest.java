@@ -20,8 +20,12 @@ import co.cask.cdap.api.data.format.FormatSpecification;
 import co.cask.cdap.api.data.format.Formats;
 import co.cask.cdap.api.data.schema.Schema;
 import co.cask.cdap.api.flow.flowlet.StreamEvent;
+import co.cask.cdap.api.stream.StreamEventData;
 import co.cask.cdap.common.NamespaceNotFoundException;
 import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.io.BinaryDecoder;
+import co.cask.cdap.common.io.Decoder;
+import co.cask.cdap.common.stream.StreamEventDataCodec;
 import co.cask.cdap.common.stream.StreamEventTypeAdapter;
 import co.cask.cdap.common.utils.Tasks;
 import co.cask.cdap.data2.transaction.stream.StreamConfig;
@@ -49,12 +53,14 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import org.apache.commons.lang3.ArrayUtils;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
 import org.jboss.netty.handler.codec.http.HttpMethod;
 import org.jboss.netty.handler.codec.http.HttpResponseStatus;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
@@ -244,6 +250,39 @@ public class StreamHandlerTest extends GatewayTestBase {
     urlConn.disconnect();
   }
 
+  @Test
+  public void testBinaryFetch() throws Exception {
+    HttpURLConnection urlConn = openURL(createURL("streams/test_stream_binary"), HttpMethod.PUT);
+    Assert.assertEquals(HttpResponseStatus.OK.getCode(), urlConn.getResponseCode());
+    urlConn.disconnect();
+
+    for (int i = 0; i < 10; ++i) {
+      urlConn = openURL(createURL("streams/test_stream_binary"), HttpMethod.POST);
+      urlConn.setDoOutput(true);
+      urlConn.addRequestProperty("test_stream_binary.header1", Integer.toString(i));
+      urlConn.getOutputStream().write(Integer.toString(i).getBytes(Charsets.UTF_8));
+      Assert.assertEquals(HttpResponseStatus.OK.getCode(), urlConn.getResponseCode());
+      urlConn.disconnect();
+    }
+
+    // Fetch the events with Avro binary encoding
+    urlConn = openURL(createURL("streams/test_stream_binary/events?limit=10"), HttpMethod.GET);
+    urlConn.setRequestProperty(HttpHeaders.Names.ACCEPT, "avro/binary");
+    Assert.assertEquals("avro/binary", urlConn.getContentType());
+    byte[] response = ByteStreams.toByteArray(urlConn.getInputStream());
+    urlConn.disconnect();
+
+    ByteArrayInputStream input = new ByteArrayInputStream(response);
+    Decoder decoder = new BinaryDecoder(input);
+    for (int i = 0; i < 10; i++) {
+      StreamEventData data = StreamEventDataCodec.decode(decoder);
+      Assert.assertTrue(decoder.readLong() > 0);
+      Assert.assertEquals(i, Integer.parseInt(Charsets.UTF_8.decode(data.getBody()).toString()));
+      Assert.assertEquals(Integer.toString(i), data.getHeaders().get("header1"));
+    }
+    Assert.assertEquals(0, input.available());
+  }
+
   @Test
   public void testListStreams() throws Exception {
     List<StreamDetail> specs = listStreams(NamespaceId.DEFAULT);
@@ -0,0 +1,255 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.gateway.router;
+
+import co.cask.cdap.common.service.ServiceDiscoverable;
+import com.google.common.base.Objects;
+import com.google.common.base.Stopwatch;
+import org.apache.commons.lang.StringUtils;
+import org.jboss.netty.handler.codec.http.DefaultHttpRequest;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpVersion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A benchmark of {@link RouterPathLookup} over a mix of request paths, compared with the chain of rules that it was
+ * using before the rules were compiled into a {@link RouterPathTrie}. It also verifies that both give the same routes.
+ *
+ * Usage: {@code RouterPathLookupBenchmark [lookups]}
+ */
+public class RouterPathLookupBenchmark {
+
+  // Paths with the relative frequency at which they are requested, dominated by stream ingest and service calls
+  private static final Object[][] PATHS = {
+    { "POST", "/v3/namespaces/default/streams/purchases", 40 },
+    { "POST", "/v3/namespaces/default/streams/purchases/batch", 10 },
+    { "GET", "/v3/namespaces/default/apps/PurchaseHistory/services/CatalogLookup/methods/v1/product/1", 15 },
+    { "GET", "/v3/namespaces/ns1/apps/app1/versions/1.0/services/svc/methods/ping", 5 },
+    { "POST", "/v3/metrics/query", 8 },
+    { "GET", "/v3/namespaces/default/apps/PurchaseHistory/flows/PurchaseFlow/status", 5 },
+    { "GET", "/v3/namespaces/default/apps/PurchaseHistory/flows/PurchaseFlow/runs/abc/logs", 3 },
+    { "GET", "/v3/namespaces/default/data/datasets/history", 3 },
+    { "GET", "/v3/namespaces/default/data/datasets/history/programs", 1 },
+    { "GET", "/v3/namespaces/default/apps/PurchaseHistory/metadata/tags", 2 },
+    { "GET", "/v3/namespaces/default/metadata/search", 2 },
+    { "POST", "/v3/namespaces/default/data/explore/queries", 2 },
+    { "GET", "/v3/data/explore/queries/abc/status", 1 },
+    { "GET", "/v3/namespaces/default/apps", 2 },
+    { "GET", "/v3/system/services/metrics/logs", 1 },
+  };
+
+  public static void main(String[] args) {
+    int lookups = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+
+    List<String> methods = new ArrayList<>();
+    List<String> paths = new ArrayList<>();
+    for (Object[] path : PATHS) {
+      for (int i = 0; i < (Integer) path[2]; i++) {
+        methods.add((String) path[0]);
+        paths.add((String) path[1]);
+      }
+    }
+    int size = paths.size();
+    HttpRequest[] requests = new HttpRequest[size];
+    String[] requestPaths = new String[size];
+    // Shuffle with a fixed seed so that both lookups see the same sequence
+    Random random = new Random(0L);
+    for (int i = 0; i < size; i++) {
+      int idx = random.nextInt(paths.size());
+      requestPaths[i] = paths.remove(idx);
+      requests[i] = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.valueOf(methods.remove(idx)),
+                                           requestPaths[i]);
+    }
+
+    RouterPathLookup lookup = new RouterPathLookup();
+    for (int i = 0; i < size; i++) {
+      RouteDestination expected = ruleChainLookup(requestPaths[i], requests[i]);
+      RouteDestination actual = lookup.getRoutingService("gateway", requestPaths[i], requests[i]);
+      if (!Objects.equal(expected, actual)) {
+        throw new IllegalStateException("Route mismatch for " + requestPaths[i] + ": expected " + expected
+                                          + " but got " + actual);
+      }
+    }
+
+    // Run each one twice, the first one is for warming up
+    for (int round = 0; round < 2; round++) {
+      Stopwatch stopwatch = new Stopwatch().start();
+      int hash = 0;
+      for (int i = 0; i < lookups; i++) {
+        RouteDestination destination = ruleChainLookup(requestPaths[i % size], requests[i % size]);
+        hash += destination.getServiceName().length();
+      }
+      long ruleChainTime = stopwatch.elapsedTime(TimeUnit.MILLISECONDS);
+
+      stopwatch = new Stopwatch().start();
+      for (int i = 0; i < lookups; i++) {
+        RouteDestination destination = lookup.getRoutingService("gateway", requestPaths[i % size], requests[i % size]);
+        hash += destination.getServiceName().length();
+      }
+      long trieTime = stopwatch.elapsedTime(TimeUnit.MILLISECONDS);
+
+      System.out.printf("%d lookups: rule chain %d ms (%d ns/lookup), trie %d ms (%d ns/lookup) [%d]%n",
+                        lookups, ruleChainTime, TimeUnit.MILLISECONDS.toNanos(ruleChainTime) / lookups,
+                        trieTime, TimeUnit.MILLISECONDS.toNanos(trieTime) / lookups, hash);
+    }
+  }
+
+  /**
+   * The routing as done by evaluating the rules one after another on the split path.
+   */
+  private static RouteDestination ruleChainLookup(String requestPath, HttpRequest httpRequest) {
+    String method = httpRequest.getMethod().getName();
+    String[] uriParts = StringUtils.split(requestPath, '/');
+    return getV3RoutingService(uriParts, method);
+  }
+
+  private static RouteDestination getV3RoutingService(String [] uriParts, String method) {
+    if ((uriParts.length >= 2) && uriParts[1].equals("feeds")) {
+      // TODO find a better way to handle that - this looks hackish
+      return null;
+    } else if ((uriParts.length >= 11) && "versions".equals(uriParts[5]) && "services".equals(uriParts[7])
+      && "methods".equals(uriParts[9])) {
+      // User defined services (version specific) handle methods on them:
+      //Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/versions/{version-id}/services/{service-id}/methods/
+      //       <user-defined-method-path>"
+      String serviceName = ServiceDiscoverable.getName(uriParts[2], uriParts[4], uriParts[8]);
+      String version = uriParts[6];
+      return new RouteDestination(serviceName, version);
+    } else if ((uriParts.length >= 9) && "services".equals(uriParts[5]) && "methods".equals(uriParts[7])) {
+      //User defined services handle methods on them:
+      //Path: "/v3/namespaces/{namespace-id}/apps/{app-id}/services/{service-id}/methods/<user-defined-method-path>"
+      return new RouteDestination(ServiceDiscoverable.getName(uriParts[2], uriParts[4], uriParts[6]));
+    } else if (matches(uriParts, "v3", "system", "services", null, "logs")) {
+      //Log Handler Path /v3/system/services/<service-id>/logs
+      return RouterPathLookup.METRICS;
+    } else if (matches(uriParts, "v3", "namespaces", null, "apps", null, "metadata") ||
+      matches(uriParts, "v3", "namespaces", null, "apps", null, null, null, "metadata") ||
+      matches(uriParts, "v3", "namespaces", null, "artifacts", null, "versions", null, "metadata") ||
+      matches(uriParts, "v3", "namespaces", null, "datasets", null, "metadata") ||
+      matches(uriParts, "v3", "namespaces", null, "streams", null, "metadata") ||
+      matches(uriParts, "v3", "namespaces", null, "streams", null, "views", null, "metadata") ||
+
+      matches(uriParts, "v3", "namespaces", null, "apps", null, "metadata", "properties") ||
+      matches(uriParts, "v3", "namespaces", null, "artifacts", null, "versions", null, "metadata", "properties") ||
+      matches(uriParts, "v3", "namespaces", null, "apps", null, null, null, "metadata", "properties") ||
+      matches(uriParts, "v3", "namespaces", null, "datasets", null, "metadata", "properties") ||
+      matches(uriParts, "v3", "namespaces", null, "streams", null, "metadata", "properties") ||
+      matches(uriParts, "v3", "namespaces", null, "streams", null, "views", null, "metadata", "properties") ||
+
+      matches(uriParts, "v3", "namespaces", null, "apps", null, "metadata", "tags") ||
+      matches(uriParts, "v3", "namespaces", null, "artifacts", null, "versions", null, "metadata", "tags") ||
+      matches(uriParts, "v3", "namespaces", null, "apps", null, null, null, "metadata", "tags") ||
+      matches(uriParts, "v3", "namespaces", null, "datasets", null, "metadata", "tags") ||
+      matches(uriParts, "v3", "namespaces", null, "streams", null, "metadata", "tags") ||
+      matches(uriParts, "v3", "namespaces", null, "streams", null, "views", null, "metadata", "tags") ||
+
+      matches(uriParts, "v3", "namespaces", null, "metadata", "search") ||
+      matches(uriParts, "v3", "namespaces", null, "datasets", null, "lineage") ||
+      matches(uriParts, "v3", "namespaces", null, "streams", null, "lineage") ||
+      matches(uriParts, "v3", "namespaces", null, "apps", null, null, null, "runs", null, "metadata")) {
+      return RouterPathLookup.METADATA_SERVICE;
+    } else if (matches(uriParts, "v3", "security", "authorization") ||
+      matches(uriParts, "v3", "namespaces", null, "securekeys")) {
+      // Authorization and Secure Store Handlers currently run in App Fabric
+      return RouterPathLookup.APP_FABRIC_HTTP;
+    } else if (matches(uriParts, "v3", "security", "store", "namespaces", null)) {
+      return RouterPathLookup.APP_FABRIC_HTTP;
+    } else if ((matches(uriParts, "v3", "namespaces", null, "streams", null, "programs")
+      || matches(uriParts, "v3", "namespaces", null, "data", "datasets", null, "programs")) &&
+      "GET".equals(method)) {
+      return RouterPathLookup.APP_FABRIC_HTTP;
+    } else if (matches(uriParts, "v3", "namespaces", null, "previews")) {
+      return RouterPathLookup.PREVIEW_HTTP;
+    } else if (matches(uriParts, "v3", "system", "serviceproviders")) {
+      return RouterPathLookup.APP_FABRIC_HTTP;
+    } else if ((uriParts.length >= 4) && uriParts[1].equals("namespaces") && uriParts[3].equals("streams")) {
+      return RouterPathLookup.STREAMS_SERVICE;
+    } else if ((uriParts.length >= 8 && uriParts[7].equals("logs")) ||
+      (uriParts.length >= 10 && uriParts[9].equals("logs")) ||
+      (uriParts.length >= 6 && uriParts[5].equals("logs"))) {
+      //Log Handler Paths:
+      // /v3/namespaces/<namespaceid>/apps/<appid>/<programid-type>/<programid>/logs
+      // /v3/namespaces/{namespace-id}/apps/{app-id}/{program-type}/{program-id}/runs/{run-id}/logs
+      return RouterPathLookup.METRICS;
+    } else if (uriParts.length >= 2 && uriParts[1].equals("metrics")) {
+      //Metrics Search Handler Path /v3/metrics
+      return RouterPathLookup.METRICS;
+    } else if (uriParts.length >= 5 && uriParts[1].equals("data") && uriParts[2].equals("explore") &&
+      (uriParts[3].equals("queries") || uriParts[3].equals("jdbc") || uriParts[3].equals("namespaces"))) {
+      // non-namespaced explore operations. For example, /v3/data/explore/queries/{id}
+      return RouterPathLookup.EXPLORE_HTTP_USER_SERVICE;
+    } else if (uriParts.length >= 6 && uriParts[3].equals("data") && uriParts[4].equals("explore") &&
+      (uriParts[5].equals("queries") || uriParts[5].equals("streams") || uriParts[5].equals("datasets")
+        || uriParts[5].equals("tables") || uriParts[5].equals("jdbc"))) {
+      // namespaced explore operations. For example, /v3/namespaces/{namespace-id}/data/explore/streams/{stream}/enable
+      return RouterPathLookup.EXPLORE_HTTP_USER_SERVICE;
+    } else if ((uriParts.length == 3) && uriParts[1].equals("explore") && uriParts[2].equals("status")) {
+      return RouterPathLookup.EXPLORE_HTTP_USER_SERVICE;
+    } else if (uriParts.length == 7 && uriParts[3].equals("data") && uriParts[4].equals("datasets") &&
+      (uriParts[6].equals("flows") || uriParts[6].equals("workers") || uriParts[6].equals("mapreduce"))) {
+      // namespaced app fabric data operations:
+      // /v3/namespaces/{namespace-id}/data/datasets/{name}/flows
+      // /v3/namespaces/{namespace-id}/data/datasets/{name}/workers
+      // /v3/namespaces/{namespace-id}/data/datasets/{name}/mapreduce
+      return RouterPathLookup.APP_FABRIC_HTTP;
+    } else if ((uriParts.length >= 4) && uriParts[3].equals("data")) {
+      // other data operations. For example:
+      // /v3/namespaces/{namespace-id}/data/datasets
+      // /v3/namespaces/{namespace-id}/data/datasets/{name}
+      // /v3/namespaces/{namespace-id}/data/datasets/{name}/properties
+      // /v3/namespaces/{namespace-id}/data/datasets/{name}/admin/{method}
+      return RouterPathLookup.DATASET_MANAGER;
+    } else if ((uriParts.length >= 4) && uriParts[3].equals("artifact-internals")) {
+      // we don't want to expose endpoints in artifact handler that are internal and can only by called by programs
+      // /v3/namespaces/{namespace-id}/artifact-internals/list/artifacts
+      // /v3/namespaces/{namespace-id}/artifact-internals/artifact/{artifact-name}
+      return RouterPathLookup.DONT_ROUTE;
+    }
+    return RouterPathLookup.APP_FABRIC_HTTP;
+  }
+
+  /**
+   * Determines if actual matches expected.
+   *
+   * - actual may be longer than expected, but we'll return true as long as expected was found
+   * - null in expected means "accept any string"
+   *
+   * @param actual actual string array to check
+   * @param expected expected string array format
+   * @return true if actual matches expected
+   */
+  private static boolean matches(String[] actual, String... expected) {
+    if (actual.length < expected.length) {
+      return false;
+    }
+
+    for (int i = 0; i < expected.length; i++) {
+      if (expected[i] == null) {
+        continue;
+      }
+      if (!expected[i].equals(actual[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -36,12 +36,79 @@ public class RouterPathTest {
   private static final HttpVersion VERSION = HttpVersion.HTTP_1_1;
   private static final String API_KEY = "SampleTestApiKey";
   private static final String FALLBACKSERVICE = "gateway";
+  private static final RouteDestination SERVICE_S1 =
+    new RouteDestination(ServiceDiscoverable.getName("n1", "a1", "s1"));
+  private static final RouteDestination VERSIONED_SERVICE_S1 =
+    new RouteDestination(ServiceDiscoverable.getName("n1", "a1", "s1"), "v1");
+
+  // Request method, path and the expected destination, covering every routing rule and the precedence among them
+  private static final Object[][] ROUTES = {
+    { "GET", "/v3/feeds", null },
+    { "GET", "/v3/feeds/x", null },
+    { "GET", "/v3/namespaces/n1/apps/a1/services/s1/methods/m1", SERVICE_S1 },
+    { "GET", "/v3/namespaces/n1/apps/a1/versions/v1/services/s1/methods/m1/x", VERSIONED_SERVICE_S1 },
+    { "POST", "/v3/namespaces/n1/apps/a1/services/s1/methods", RouterPathLookup.APP_FABRIC_HTTP },
+    { "GET", "/v3/system/services/foo/logs", RouterPathLookup.METRICS },
+    { "GET", "/v3/system/services/foo/live-info", RouterPathLookup.APP_FABRIC_HTTP },
+    { "GET", "/v3/namespaces/n1/apps/a1/metadata", RouterPathLookup.METADATA_SERVICE },
+    { "GET", "/v3/namespaces/n1/apps/a1/flows/f1/metadata/properties", RouterPathLookup.METADATA_SERVICE },
+    { "GET", "/v3/namespaces/n1/artifacts/art/versions/1.0/metadata/tags", RouterPathLookup.METADATA_SERVICE },
+    { "GET", "/v3/namespaces/n1/datasets/d1/metadata", RouterPathLookup.METADATA_SERVICE },
+    { "GET", "/v3/namespaces/n1/streams/s1/metadata", RouterPathLookup.METADATA_SERVICE },
+    { "GET", "/v3/namespaces/n1/streams/s1/views/v1/metadata/tags", RouterPathLookup.METADATA_SERVICE },
+    { "GET", "/v3/namespaces/n1/metadata/search", RouterPathLookup.METADATA_SERVICE },
+    { "GET", "/v3/namespaces/n1/datasets/d1/lineage", RouterPathLookup.METADATA_SERVICE },
+    { "GET", "/v3/namespaces/n1/streams/s1/lineage", RouterPathLookup.METADATA_SERVICE },
+    { "GET", "/v3/namespaces/n1/apps/a1/flows/f1/runs/r1/metadata", RouterPathLookup.METADATA_SERVICE },
+    { "GET", "/v3/security/authorization/privileges", RouterPathLookup.APP_FABRIC_HTTP },
+    { "GET", "/v3/namespaces/n1/securekeys/k1", RouterPathLookup.APP_FABRIC_HTTP },
+    { "PUT", "/v3/security/store/namespaces/n1/keys", RouterPathLookup.APP_FABRIC_HTTP },
+    { "GET", "/v3/namespaces/n1/streams/s1/programs", RouterPathLookup.APP_FABRIC_HTTP },
+    { "POST", "/v3/namespaces/n1/streams/s1/programs", RouterPathLookup.STREAMS_SERVICE },
+    { "GET", "/v3/namespaces/n1/data/datasets/d1/programs", RouterPathLookup.APP_FABRIC_HTTP },
+    { "PUT", "/v3/namespaces/n1/data/datasets/d1/programs", RouterPathLookup.DATASET_MANAGER },
+    { "POST", "/v3/namespaces/n1/previews", RouterPathLookup.PREVIEW_HTTP },
+    { "GET", "/v3/system/serviceproviders", RouterPathLookup.APP_FABRIC_HTTP },
+    { "POST", "/v3/namespaces/n1/streams/s1", RouterPathLookup.STREAMS_SERVICE },
+    { "POST", "/v3/namespaces/n1/streams/s1/batch", RouterPathLookup.STREAMS_SERVICE },
+    { "GET", "/v3/namespaces/n1/streams", RouterPathLookup.STREAMS_SERVICE },
+    { "GET", "/v3/namespaces/n1/apps/a1/flows/f1/logs", RouterPathLookup.METRICS },
+    { "GET", "/v3/namespaces/n1/apps/a1/flows/f1/runs/r1/logs", RouterPathLookup.METRICS },
+    { "GET", "/v3/namespaces/n1/logs/x", RouterPathLookup.APP_FABRIC_HTTP },
+    { "POST", "/v3/metrics/query", RouterPathLookup.METRICS },
+    { "GET", "/v3/data/explore/queries/q1/status", RouterPathLookup.EXPLORE_HTTP_USER_SERVICE },
+    { "GET", "/v3/data/explore/queries", RouterPathLookup.APP_FABRIC_HTTP },
+    { "GET", "/v3/namespaces/n1/data/explore/tables", RouterPathLookup.EXPLORE_HTTP_USER_SERVICE },
+    { "GET", "/v3/namespaces/n1/data/explore/queries/q1", RouterPathLookup.EXPLORE_HTTP_USER_SERVICE },
+    { "GET", "/v3/explore/status", RouterPathLookup.EXPLORE_HTTP_USER_SERVICE },
+    { "GET", "/v3/namespaces/n1/data/datasets/d1/flows", RouterPathLookup.APP_FABRIC_HTTP },
+    { "GET", "/v3/namespaces/n1/data/datasets/d1/flows/x", RouterPathLookup.DATASET_MANAGER },
+    { "GET", "/v3/namespaces/n1/data/datasets", RouterPathLookup.DATASET_MANAGER },
+    { "GET", "/v3/namespaces/n1/artifact-internals/list/artifacts", RouterPathLookup.DONT_ROUTE },
+    { "GET", "/v3/namespaces/n1/apps", RouterPathLookup.APP_FABRIC_HTTP },
+    { "DELETE", "/v3/namespaces/n1/apps/a1", RouterPathLookup.APP_FABRIC_HTTP },
+    { "GET", "/v3/namespaces/n1/apps/a1/flows/f1/status", RouterPathLookup.APP_FABRIC_HTTP },
+    { "GET", "/v3", RouterPathLookup.APP_FABRIC_HTTP },
+    { "GET", "/v3/namespaces/n1/apps/a1/services/s1/methods/logs", SERVICE_S1 },
+    // unsupported methods go to app fabric
+    { "PATCH", "/v3/namespaces/n1/streams/s1", RouterPathLookup.APP_FABRIC_HTTP },
+  };
 
   @BeforeClass
   public static void init() throws Exception {
     pathLookup = new RouterPathLookup();
   }
 
+  @Test
+  public void testRoutes() {
+    for (Object[] route : ROUTES) {
+      String path = (String) route[1];
+      HttpRequest httpRequest = new DefaultHttpRequest(VERSION, new HttpMethod((String) route[0]), path);
+      Assert.assertEquals(route[0] + " " + path, route[2],
+                          pathLookup.getRoutingService(FALLBACKSERVICE, path, httpRequest));
+    }
+  }
+
   @Test
   public void testUserServicePath() {
     String path = "/v3/namespaces/n1/apps/a1/services/s1/methods/m1";
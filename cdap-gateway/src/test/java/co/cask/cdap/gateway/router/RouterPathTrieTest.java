@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.gateway.router;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RouterPathTrie}.
+ */
+public class RouterPathTrieTest {
+
+  @Test
+  public void testPrecedence() {
+    RouterPathTrie<String> trie = RouterPathTrie.<String>builder()
+      .add("/a/*/c", "wildcard")
+      .add("/a/b", "prefix")
+      .add("/a/b/c", "never")
+      .add("/*/*/*/d", "deep")
+      .build();
+
+    Assert.assertEquals("wildcard", trie.lookup("/a/b/c", "GET"));
+    Assert.assertEquals("wildcard", trie.lookup("/a/x/c/d", "GET"));
+    Assert.assertEquals("prefix", trie.lookup("/a/b", "GET"));
+    Assert.assertEquals("prefix", trie.lookup("/a/b/x/d", "GET"));
+    Assert.assertEquals("deep", trie.lookup("/x/b/c/d", "GET"));
+    Assert.assertNull(trie.lookup("/a", "GET"));
+    Assert.assertNull(trie.lookup("/a/x/y/z", "GET"));
+    Assert.assertNull(trie.lookup("/", "GET"));
+    Assert.assertNull(trie.lookup("", "GET"));
+  }
+
+  @Test
+  public void testExactAndMethod() {
+    RouterPathTrie<String> trie = RouterPathTrie.<String>builder()
+      .addExact("/a/b", "exact")
+      .add("GET", "/a/*", "get")
+      .add("/a", "any")
+      .build();
+
+    Assert.assertEquals("exact", trie.lookup("/a/b", "PUT"));
+    Assert.assertEquals("get", trie.lookup("/a/b/c", "GET"));
+    Assert.assertEquals("any", trie.lookup("/a/b/c", "PUT"));
+    Assert.assertEquals("get", trie.lookup("/a/c", "GET"));
+    Assert.assertEquals("any", trie.lookup("/a", "GET"));
+  }
+
+  @Test
+  public void testEmptySegments() {
+    RouterPathTrie<String> trie = RouterPathTrie.<String>builder()
+      .add("/a/b", "ab")
+      .add("/abc", "abc")
+      .build();
+
+    Assert.assertEquals("ab", trie.lookup("//a///b/", "GET"));
+    Assert.assertEquals("ab", trie.lookup("a/b", "GET"));
+    Assert.assertEquals("abc", trie.lookup("/abc/", "GET"));
+    Assert.assertNull(trie.lookup("/ab", "GET"));
+    Assert.assertNull(trie.lookup("/abcd", "GET"));
+  }
+}
@@ -35,6 +35,7 @@ public class StreamProperties {
   @SerializedName("notification.threshold.mb")
   private final Integer notificationThresholdMB;
   private final String description;
+  private final String compression;
 
   public StreamProperties(Long ttl, FormatSpecification format, Integer notificationThresholdMB) {
     this(ttl, format, notificationThresholdMB, null, null);
@@ -47,11 +48,18 @@ public class StreamProperties {
 
   public StreamProperties(Long ttl, FormatSpecification format, Integer notificationThresholdMB,
                           @Nullable String description, @Nullable String ownerPrincipal) {
+    this(ttl, format, notificationThresholdMB, description, ownerPrincipal, null);
+  }
+
+  public StreamProperties(Long ttl, FormatSpecification format, Integer notificationThresholdMB,
+                          @Nullable String description, @Nullable String ownerPrincipal,
+                          @Nullable String compression) {
     this.ttl = ttl;
     this.format = format;
     this.notificationThresholdMB = notificationThresholdMB;
     this.description = description;
     this.ownerPrincipal = ownerPrincipal;
+    this.compression = compression;
   }
 
   /**
@@ -92,6 +100,14 @@ public class StreamProperties {
     return ownerPrincipal;
   }
 
+  /**
+   * @return The codec for compressing the data blocks of new stream files, or {@code "none"} for no compression
+   */
+  @Nullable
+  public String getCompression() {
+    return compression;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -107,12 +123,13 @@ public class StreamProperties {
       Objects.equals(format, that.format) &&
       Objects.equals(notificationThresholdMB, that.notificationThresholdMB) &&
       Objects.equals(description, that.description) &&
-      Objects.equals(ownerPrincipal, that.ownerPrincipal);
+      Objects.equals(ownerPrincipal, that.ownerPrincipal) &&
+      Objects.equals(compression, that.compression);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(ttl, format, notificationThresholdMB, description, ownerPrincipal);
+    return Objects.hash(ttl, format, notificationThresholdMB, description, ownerPrincipal, compression);
   }
 
   @Override
@@ -123,6 +140,7 @@ public class StreamProperties {
       ", notificationThresholdMB=" + notificationThresholdMB +
       ", description=" + description +
       ", ownerPrincipal=" + ownerPrincipal +
+      ", compression=" + compression +
       '}';
   }
 }
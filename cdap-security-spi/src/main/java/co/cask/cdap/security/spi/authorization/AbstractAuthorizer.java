@@ -27,13 +27,15 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Abstract class that implements {@link Authorizer} and provides default no-op implementations of
  * {@link Authorizer#initialize(AuthorizationContext)} and {@link Authorizer#destroy()} so classes extending it do not
- * have to implement these methods unless necessary.
+ * have to implement these methods unless necessary. It also implements {@link VisibilityChecker} by checking each
+ * entity, which classes extending it can override to check all entities at once.
  */
-public abstract class AbstractAuthorizer implements Authorizer {
+public abstract class AbstractAuthorizer implements Authorizer, VisibilityChecker {
 
   protected static final Predicate<EntityId> ALLOW_ALL = new Predicate<EntityId>() {
     @Override
@@ -79,4 +81,26 @@ public abstract class AbstractAuthorizer implements Authorizer {
       }
     };
   }
+
+  /**
+   * Default implementation of {@link VisibilityChecker#isVisible(Set, Principal)}, which enforces each
+   * {@link Action} on each entity until one is allowed. Authorizers that can check multiple entities at once should
+   * override it.
+   */
+  @Override
+  public Set<EntityId> isVisible(Set<? extends EntityId> entityIds, Principal principal) throws Exception {
+    Set<EntityId> visible = new HashSet<>();
+    for (EntityId entityId : entityIds) {
+      for (Action action : Action.values()) {
+        try {
+          enforce(entityId, principal, action);
+          visible.add(entityId);
+          break;
+        } catch (UnauthorizedException e) {
+          // The principal does not have this particular privilege, but any privilege makes the entity visible
+        }
+      }
+    }
+    return visible;
+  }
 }
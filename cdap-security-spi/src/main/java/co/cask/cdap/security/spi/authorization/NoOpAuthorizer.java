@@ -41,6 +41,11 @@ public class NoOpAuthorizer extends AbstractAuthorizer {
     return ALLOW_ALL;
   }
 
+  @Override
+  public Set<EntityId> isVisible(Set<? extends EntityId> entityIds, Principal principal) throws Exception {
+    return Collections.unmodifiableSet(entityIds);
+  }
+
   @Override
   public void grant(EntityId entity, Principal principal, Set<Action> actions) {
     //no-op
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.security.spi.authorization;
+
+import co.cask.cdap.api.annotation.Beta;
+import co.cask.cdap.proto.id.EntityId;
+import co.cask.cdap.proto.security.Principal;
+
+import java.util.Set;
+
+/**
+ * Optional interface for an {@link AuthorizationEnforcer} or an {@link Authorizer} that can check whether multiple
+ * entities are visible to a {@link Principal} at once. Implementations that don't implement it are asked for each
+ * entity separately.
+ */
+@Beta
+public interface VisibilityChecker {
+
+  /**
+   * Returns the subset of the specified entities that the specified {@link Principal} has access
+   * (READ/WRITE/ADMIN/EXECUTE) to.
+   *
+   * @param entityIds the {@link EntityId entities} to check
+   * @param principal the {@link Principal} for which to check
+   * @return the set of {@link EntityId entities} that the specified principal has access to
+   * @throws Exception if any errors occurred while performing the check
+   */
+  Set<EntityId> isVisible(Set<? extends EntityId> entityIds, Principal principal) throws Exception;
+}
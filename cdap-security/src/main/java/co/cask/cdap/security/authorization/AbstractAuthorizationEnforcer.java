@@ -24,15 +24,18 @@ import co.cask.cdap.proto.security.Action;
 import co.cask.cdap.proto.security.Principal;
 import co.cask.cdap.security.spi.authorization.AuthorizationEnforcer;
 import co.cask.cdap.security.spi.authorization.UnauthorizedException;
+import co.cask.cdap.security.spi.authorization.VisibilityChecker;
 
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
 
 /**
- * Abstract Class that implements common methods for the {@link AuthorizationEnforcer} interface.
+ * Abstract Class that implements common methods for the {@link AuthorizationEnforcer} and {@link VisibilityChecker}
+ * interfaces.
  */
-public abstract class AbstractAuthorizationEnforcer implements AuthorizationEnforcer {
+public abstract class AbstractAuthorizationEnforcer implements AuthorizationEnforcer, VisibilityChecker {
 
   private static final Predicate<EntityId> ALLOW_ALL = new Predicate<EntityId>() {
     @Override
@@ -94,6 +97,21 @@ public abstract class AbstractAuthorizationEnforcer implements AuthorizationEnfo
     };
   }
 
+  @Override
+  public Set<EntityId> isVisible(Set<? extends EntityId> entityIds, Principal principal) throws Exception {
+    if (!isSecurityAuthorizationEnabled()) {
+      return Collections.unmodifiableSet(entityIds);
+    }
+    Predicate<EntityId> filter = createFilter(principal);
+    Set<EntityId> visible = new HashSet<>();
+    for (EntityId entityId : entityIds) {
+      if (filter.apply(entityId)) {
+        visible.add(entityId);
+      }
+    }
+    return visible;
+  }
+
   boolean isSecurityAuthorizationEnabled() {
     return securityEnabled && authorizationEnabled;
   }
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.security.authorization;
+
+import co.cask.cdap.api.Predicate;
+import co.cask.cdap.proto.id.EntityId;
+import co.cask.cdap.proto.security.Principal;
+import co.cask.cdap.security.spi.authorization.AuthorizationEnforcer;
+import co.cask.cdap.security.spi.authorization.VisibilityChecker;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Utility methods for authorization enforcement.
+ */
+public final class AuthorizationUtil {
+
+  private AuthorizationUtil() {
+    // no-op
+  }
+
+  /**
+   * Returns the subset of the specified entities that the specified {@link Principal} has access to. If the
+   * {@link AuthorizationEnforcer} is a {@link VisibilityChecker}, all entities are checked at once, otherwise each
+   * entity is checked with the filter of the enforcer.
+   *
+   * @param authorizationEnforcer the {@link AuthorizationEnforcer} to use for the check
+   * @param entityIds the {@link EntityId entities} to check
+   * @param principal the {@link Principal} for which to check
+   * @return the set of {@link EntityId entities} that the specified principal has access to
+   */
+  public static Set<EntityId> isVisible(AuthorizationEnforcer authorizationEnforcer,
+                                        Set<? extends EntityId> entityIds, Principal principal) throws Exception {
+    if (authorizationEnforcer instanceof VisibilityChecker) {
+      return ((VisibilityChecker) authorizationEnforcer).isVisible(entityIds, principal);
+    }
+    Predicate<EntityId> filter = authorizationEnforcer.createFilter(principal);
+    Set<EntityId> visible = new HashSet<>();
+    for (EntityId entityId : entityIds) {
+      if (filter.apply(entityId)) {
+        visible.add(entityId);
+      }
+    }
+    return visible;
+  }
+}
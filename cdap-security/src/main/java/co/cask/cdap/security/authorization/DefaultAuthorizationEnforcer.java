@@ -23,13 +23,18 @@ import co.cask.cdap.proto.id.ParentedId;
 import co.cask.cdap.proto.security.Action;
 import co.cask.cdap.proto.security.Principal;
 import co.cask.cdap.security.spi.authorization.AuthorizationEnforcer;
+import co.cask.cdap.security.spi.authorization.Authorizer;
 import co.cask.cdap.security.spi.authorization.UnauthorizedException;
+import co.cask.cdap.security.spi.authorization.VisibilityChecker;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -59,6 +64,37 @@ public class DefaultAuthorizationEnforcer extends AbstractAuthorizationEnforcer
     doEnforce(entity, principal, Collections.singleton(action));
   }
 
+  @Override
+  public Set<EntityId> isVisible(Set<? extends EntityId> entityIds, Principal principal) throws Exception {
+    if (!isSecurityAuthorizationEnabled() || entityIds.isEmpty()) {
+      return Collections.unmodifiableSet(entityIds);
+    }
+    Authorizer authorizer = authorizerInstantiator.get();
+    if (!(authorizer instanceof VisibilityChecker)) {
+      // The authorizer can only check one entity at a time
+      return super.isVisible(entityIds, principal);
+    }
+    LOG.debug("Checking visibility of {} entities for principal {}.", entityIds.size(), principal);
+    Set<EntityId> visible = new HashSet<>(((VisibilityChecker) authorizer).isVisible(entityIds, principal));
+    if (!propagatePrivileges) {
+      return visible;
+    }
+    // If privilege propagation is enabled then an entity is also visible if its parent is visible.
+    // Check the parents of all the entities that are not visible at once.
+    Multimap<EntityId, EntityId> parentToChildren = HashMultimap.create();
+    for (EntityId entityId : entityIds) {
+      if (!visible.contains(entityId) && entityId instanceof ParentedId) {
+        parentToChildren.put(((ParentedId) entityId).getParent(), entityId);
+      }
+    }
+    if (!parentToChildren.isEmpty()) {
+      for (EntityId parent : isVisible(parentToChildren.keySet(), principal)) {
+        visible.addAll(parentToChildren.get(parent));
+      }
+    }
+    return visible;
+  }
+
   private void doEnforce(EntityId entity, Principal principal, Set<Action> actions) throws Exception {
     LOG.debug("Enforcing actions {} on {} for principal {}.", actions, entity, principal);
     try {
@@ -20,30 +20,39 @@ import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.http.DefaultHttpRequestConfig;
 import co.cask.cdap.common.internal.remote.RemoteClient;
+import co.cask.cdap.common.utils.ImmutablePair;
 import co.cask.cdap.proto.codec.EntityIdTypeAdapter;
 import co.cask.cdap.proto.id.EntityId;
 import co.cask.cdap.proto.security.Action;
 import co.cask.cdap.proto.security.AuthorizationPrivilege;
 import co.cask.cdap.proto.security.Principal;
+import co.cask.cdap.proto.security.VisibilityRequest;
 import co.cask.cdap.security.spi.authorization.UnauthorizedException;
 import co.cask.common.http.HttpMethod;
 import co.cask.common.http.HttpRequest;
+import co.cask.common.http.HttpResponse;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
 import com.google.inject.Inject;
 import org.apache.twill.discovery.DiscoveryServiceClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 
 /**
@@ -57,11 +66,14 @@ public class RemoteAuthorizationEnforcer extends AbstractAuthorizationEnforcer {
   private static final Gson GSON = new GsonBuilder()
     .registerTypeAdapter(EntityId.class, new EntityIdTypeAdapter())
     .create();
+  private static final Type SET_OF_ENTITY_IDS = new TypeToken<Set<EntityId>>() { }.getType();
 
   private final RemoteClient remoteClient;
   private final boolean cacheEnabled;
 
   private final LoadingCache<AuthorizationPrivilege, Boolean> authPolicyCache;
+  // Whether an entity is visible to a principal, for the entities that were checked by isVisible
+  private final Cache<ImmutablePair<Principal, EntityId>, Boolean> visibilityCache;
 
   @Inject
   public RemoteAuthorizationEnforcer(CConfiguration cConf, final DiscoveryServiceClient discoveryClient) {
@@ -84,6 +96,10 @@ public class RemoteAuthorizationEnforcer extends AbstractAuthorizationEnforcer {
           return doEnforce(authorizationPrivilege);
         }
       });
+    visibilityCache = CacheBuilder.newBuilder()
+      .expireAfterWrite(cacheTTLSecs, TimeUnit.SECONDS)
+      .maximumSize(cacheMaxEntries)
+      .build();
   }
 
   @Override
@@ -99,6 +115,80 @@ public class RemoteAuthorizationEnforcer extends AbstractAuthorizationEnforcer {
     }
   }
 
+  @Override
+  public Set<EntityId> isVisible(Set<? extends EntityId> entityIds, Principal principal) throws Exception {
+    if (!isSecurityAuthorizationEnabled() || entityIds.isEmpty()) {
+      return Collections.unmodifiableSet(entityIds);
+    }
+    Set<EntityId> visible = new HashSet<>();
+    Set<EntityId> uncached = new HashSet<>();
+    for (EntityId entityId : entityIds) {
+      Boolean cached = cacheEnabled ? getCachedVisibility(principal, entityId) : null;
+      if (cached == null) {
+        uncached.add(entityId);
+      } else if (cached) {
+        visible.add(entityId);
+      }
+    }
+    if (uncached.isEmpty()) {
+      return visible;
+    }
+
+    // Check all the entities that are not in the cache in one call
+    LOG.trace("Cache miss for visibility of {} entities for {}", uncached.size(), principal);
+    Set<EntityId> visibleUncached = doIsVisible(new VisibilityRequest(principal, uncached));
+    visible.addAll(visibleUncached);
+    if (cacheEnabled) {
+      for (EntityId entityId : uncached) {
+        boolean isVisible = visibleUncached.contains(entityId);
+        visibilityCache.put(ImmutablePair.of(principal, entityId), isVisible);
+        if (!isVisible) {
+          // An entity is only invisible if none of the actions is allowed on it
+          for (Action action : Action.values()) {
+            authPolicyCache.put(new AuthorizationPrivilege(principal, entityId, action), false);
+          }
+        }
+      }
+    }
+    return visible;
+  }
+
+  /**
+   * Returns whether the given entity is visible to the given principal, as known from the caches, or {@code null}
+   * if it is not known.
+   */
+  @Nullable
+  private Boolean getCachedVisibility(Principal principal, EntityId entityId) {
+    Boolean visible = visibilityCache.getIfPresent(ImmutablePair.of(principal, entityId));
+    if (visible != null) {
+      return visible;
+    }
+    // Any allowed action makes the entity visible, and it is invisible only if all actions are known to be denied
+    boolean allDenied = true;
+    for (Action action : Action.values()) {
+      Boolean allowed = authPolicyCache.getIfPresent(new AuthorizationPrivilege(principal, entityId, action));
+      if (allowed == null) {
+        allDenied = false;
+      } else if (allowed) {
+        return true;
+      }
+    }
+    return allDenied ? false : null;
+  }
+
+  private Set<EntityId> doIsVisible(VisibilityRequest visibilityRequest) throws IOException {
+    HttpRequest request = remoteClient.requestBuilder(HttpMethod.POST, "isVisible")
+      .withBody(GSON.toJson(visibilityRequest))
+      .build();
+    HttpResponse response = remoteClient.execute(request);
+    if (response.getResponseCode() != HttpURLConnection.HTTP_OK) {
+      throw new IOException(String.format("Failed to check visibility of entities for %s. Response code: %d, %s",
+                                          visibilityRequest.getPrincipal(), response.getResponseCode(),
+                                          response.getResponseBodyAsString()));
+    }
+    return GSON.fromJson(response.getResponseBodyAsString(), SET_OF_ENTITY_IDS);
+  }
+
   private boolean doEnforce(AuthorizationPrivilege authorizationPrivilege) throws IOException {
     HttpRequest request = remoteClient.requestBuilder(HttpMethod.POST, "enforce")
       .withBody(GSON.toJson(authorizationPrivilege))
@@ -31,6 +31,7 @@ import co.cask.cdap.security.spi.authorization.AuthorizationEnforcer;
 import co.cask.cdap.security.spi.authorization.Authorizer;
 import co.cask.cdap.security.spi.authorization.PrivilegesManager;
 import co.cask.cdap.security.spi.authorization.UnauthorizedException;
+import co.cask.cdap.security.spi.authorization.VisibilityChecker;
 import com.google.common.collect.ImmutableSet;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.twill.filesystem.Location;
@@ -198,6 +199,40 @@ public class DefaultAuthorizationEnforcerTest extends AuthorizationTestBase {
       for (DatasetId datasetId : ImmutableSet.of(ds21, ds23)) {
         Assert.assertFalse(bobFilter.apply(datasetId));
       }
+
+      // Visibility checks in batch should give the same results as the filters
+      Set<EntityId> allEntities = ImmutableSet.<EntityId>of(ns1, ns2, ds11, ds12, ds21, ds22, ds23);
+      Assert.assertEquals(allEntities, authEnforcementService.isVisible(allEntities, ALICE));
+      Assert.assertEquals(ImmutableSet.of(ds11, ds12, ds22), authEnforcementService.isVisible(allEntities, BOB));
+    }
+  }
+
+  @Test
+  public void testVisibilityWithPerEntityAuthorizer() throws Exception {
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, PerEntityAuthorizer.class.getName());
+    Location authJar = AppJarHelper.createDeploymentJar(locationFactory, PerEntityAuthorizer.class, manifest);
+    CConfiguration cConfCopy = CConfiguration.copy(CCONF);
+    cConfCopy.set(Constants.Security.Authorization.EXTENSION_JAR_PATH, authJar.toString());
+    cConfCopy.setBoolean(Constants.Security.Authorization.PROPAGATE_PRIVILEGES, true);
+    try (AuthorizerInstantiator authorizerInstantiator = new AuthorizerInstantiator(cConfCopy,
+                                                                                    AUTH_CONTEXT_FACTORY)) {
+      Authorizer authorizer = authorizerInstantiator.get();
+      Assert.assertFalse(authorizer instanceof VisibilityChecker);
+      NamespaceId ns1 = new NamespaceId("ns1");
+      NamespaceId ns2 = new NamespaceId("ns2");
+      DatasetId ds11 = ns1.dataset("ds1");
+      DatasetId ds21 = ns2.dataset("ds1");
+      DatasetId ds22 = ns2.dataset("ds2");
+      authorizer.grant(ns1, ALICE, Collections.singleton(Action.READ));
+      authorizer.grant(ds22, ALICE, Collections.singleton(Action.EXECUTE));
+      DefaultAuthorizationEnforcer authEnforcementService =
+        new DefaultAuthorizationEnforcer(cConfCopy, authorizerInstantiator);
+
+      // The enforcer falls back to checking each entity, including the privileges propagated from the parents
+      Set<EntityId> allEntities = ImmutableSet.<EntityId>of(ns1, ns2, ds11, ds21, ds22);
+      Assert.assertEquals(ImmutableSet.of(ns1, ds11, ds22), authEnforcementService.isVisible(allEntities, ALICE));
+      Assert.assertEquals(Collections.emptySet(), authEnforcementService.isVisible(allEntities, BOB));
     }
   }
 
@@ -236,6 +271,7 @@ public class DefaultAuthorizationEnforcerTest extends AuthorizationTestBase {
       Predicate<EntityId> filter = authEnforcementService.createFilter(BOB);
       Assert.assertTrue(filter.apply(NS));
       Assert.assertTrue(filter.apply(ds));
+      Assert.assertEquals(ImmutableSet.of(NS, ds), authEnforcementService.isVisible(ImmutableSet.of(NS, ds), BOB));
     }
   }
 
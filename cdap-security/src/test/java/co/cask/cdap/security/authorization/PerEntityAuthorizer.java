@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.security.authorization;
+
+import co.cask.cdap.api.Predicate;
+import co.cask.cdap.proto.id.EntityId;
+import co.cask.cdap.proto.security.Action;
+import co.cask.cdap.proto.security.Principal;
+import co.cask.cdap.proto.security.Privilege;
+import co.cask.cdap.proto.security.Role;
+import co.cask.cdap.security.spi.authorization.AuthorizationContext;
+import co.cask.cdap.security.spi.authorization.Authorizer;
+import co.cask.cdap.security.spi.authorization.VisibilityChecker;
+
+import java.util.Set;
+
+/**
+ * An {@link Authorizer} that delegates to {@link InMemoryAuthorizer}, but does not implement
+ * {@link VisibilityChecker}, like authorizer extensions that can only check one entity at a time.
+ */
+public class PerEntityAuthorizer implements Authorizer {
+
+  private final InMemoryAuthorizer delegate = new InMemoryAuthorizer();
+
+  @Override
+  public void initialize(AuthorizationContext context) throws Exception {
+    delegate.initialize(context);
+  }
+
+  @Override
+  public void enforce(EntityId entity, Principal principal, Action action) throws Exception {
+    delegate.enforce(entity, principal, action);
+  }
+
+  @Override
+  public void enforce(EntityId entity, Principal principal, Set<Action> actions) throws Exception {
+    delegate.enforce(entity, principal, actions);
+  }
+
+  @Override
+  public Predicate<EntityId> createFilter(Principal principal) throws Exception {
+    return delegate.createFilter(principal);
+  }
+
+  @Override
+  public void grant(EntityId entity, Principal principal, Set<Action> actions) throws Exception {
+    delegate.grant(entity, principal, actions);
+  }
+
+  @Override
+  public void revoke(EntityId entity, Principal principal, Set<Action> actions) throws Exception {
+    delegate.revoke(entity, principal, actions);
+  }
+
+  @Override
+  public void revoke(EntityId entity) throws Exception {
+    delegate.revoke(entity);
+  }
+
+  @Override
+  public Set<Privilege> listPrivileges(Principal principal) throws Exception {
+    return delegate.listPrivileges(principal);
+  }
+
+  @Override
+  public void createRole(Role role) throws Exception {
+    delegate.createRole(role);
+  }
+
+  @Override
+  public void dropRole(Role role) throws Exception {
+    delegate.dropRole(role);
+  }
+
+  @Override
+  public void addRoleToPrincipal(Role role, Principal principal) throws Exception {
+    delegate.addRoleToPrincipal(role, principal);
+  }
+
+  @Override
+  public void removeRoleFromPrincipal(Role role, Principal principal) throws Exception {
+    delegate.removeRoleFromPrincipal(role, principal);
+  }
+
+  @Override
+  public Set<Role> listRoles(Principal principal) throws Exception {
+    return delegate.listRoles(principal);
+  }
+
+  @Override
+  public Set<Role> listAllRoles() throws Exception {
+    return delegate.listAllRoles();
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    delegate.destroy();
+  }
+}
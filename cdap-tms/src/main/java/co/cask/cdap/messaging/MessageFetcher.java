@@ -22,6 +22,7 @@ import co.cask.cdap.messaging.data.RawMessage;
 import org.apache.tephra.Transaction;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 
 /**
@@ -39,6 +40,9 @@ public abstract class MessageFetcher {
   // by default there is virtually no limit
   private int limit = Integer.MAX_VALUE;
 
+  // by default return immediately if there is no message
+  private long pollTimeoutMillis;
+
   /**
    * Setup the message fetching starting point based on the given message id. Calling this method
    * will clear the start time set by the {@link #setStartTime(long)} method.
@@ -96,6 +100,24 @@ public abstract class MessageFetcher {
     return this;
   }
 
+  /**
+   * Sets the maximum time to wait for new messages to be published if there is no message available
+   * when fetching. The wait ends as soon as new messages are published to the topic. By default, this is
+   * set to {@code 0}, meaning fetching returns immediately even if there is no message available.
+   * The messaging service may cap the timeout to a smaller value.
+   *
+   * @param timeout maximum time to wait for messages; {@code 0} for not waiting
+   * @param unit the unit of the timeout
+   * @return this instance
+   */
+  public MessageFetcher setPollTimeout(long timeout, TimeUnit unit) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Invalid message fetching poll timeout. Timeout must be >= 0");
+    }
+    this.pollTimeoutMillis = unit.toMillis(timeout);
+    return this;
+  }
+
   @Nullable
   protected byte[] getStartOffset() {
     return startOffset;
@@ -119,6 +141,10 @@ public abstract class MessageFetcher {
     return limit;
   }
 
+  protected long getPollTimeoutMillis() {
+    return pollTimeoutMillis;
+  }
+
   /**
    * Returns a {@link CloseableIterator} that iterates over messages fetched from the messaging system.
    *
@@ -20,6 +20,7 @@ import co.cask.cdap.proto.id.TopicId;
 import com.google.common.collect.AbstractIterator;
 
 import java.util.Iterator;
+import java.util.Random;
 import javax.annotation.Nullable;
 
 /**
@@ -28,15 +29,39 @@ import javax.annotation.Nullable;
  */
 public abstract class StoreRequest extends AbstractIterator<byte[]> {
 
+  /**
+   * HTTP header for carrying the publisher id of a request to the messaging service.
+   */
+  public static final String PUBLISHER_ID_HEADER = "CDAP-Publisher-Id";
+
+  // Random per process, so that threads with the same id in different processes are different publishers
+  private static final long PROCESS_PUBLISHER_ID = new Random().nextLong();
+
   private final TopicId topicId;
   private final boolean transactional;
   private final long transactionWritePointer;
+  private final long publisherId;
   private boolean computedFirst;
 
+  /**
+   * Creates a request published by the current thread.
+   */
   protected StoreRequest(TopicId topicId, boolean transactional, long transactionWritePointer) {
+    this(topicId, transactional, transactionWritePointer, getThreadPublisherId());
+  }
+
+  protected StoreRequest(TopicId topicId, boolean transactional, long transactionWritePointer, long publisherId) {
     this.topicId = topicId;
     this.transactional = transactional;
     this.transactionWritePointer = transactionWritePointer;
+    this.publisherId = publisherId;
+  }
+
+  /**
+   * Returns the publisher id of the current thread.
+   */
+  public static long getThreadPublisherId() {
+    return PROCESS_PUBLISHER_ID ^ Thread.currentThread().getId();
   }
 
   public TopicId getTopicId() {
@@ -58,6 +83,14 @@ public abstract class StoreRequest extends AbstractIterator<byte[]> {
     return transactionWritePointer;
   }
 
+  /**
+   * Returns the id of the publisher of this request. Requests of the same publisher to a partitioned topic are
+   * written to the same partition, so that their messages are ordered in the order they were published.
+   */
+  public long getPublisherId() {
+    return publisherId;
+  }
+
   @Override
   protected final byte[] computeNext() {
     byte[] next = doComputeNext();
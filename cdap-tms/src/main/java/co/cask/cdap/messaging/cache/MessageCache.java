@@ -45,8 +45,9 @@ import javax.annotation.Nullable;
  * - Ordered, unique entry (row key)
  *
  * This cache uses three memory limits to balance between publish and consume efficiency as well as
- * bounding the memory usage. It uses a provided {@link Weigher} to compute the weight of each entry
- * being stored inside the cache.
+ * bounding the memory usage. The entries are stored in an {@link EntryStore}, which also computes the weight
+ * of each entry being stored inside the cache. By default, entries are stored on heap and weighed by a
+ * provided {@link Weigher}.
  *
  * - Hard limit. This is the upper bound weight for the cache and it won't grow beyond this.
  * - Min retain. This is the minimum weight that the cache will try to maintain.
@@ -73,14 +74,13 @@ public class MessageCache<T> {
   private static final String METRICS_SCAN_REQUESTS = "cache.scan.requests";
   private static final String METRICS_SCAN_REDUCE_WEIGHT = "cache.scan.reduce.weight";
 
-  private final NavigableSet<CacheEntry<T>> cache;
+  private final EntryStore<T> store;
   private final Comparator<T> comparator;
   private final AtomicReference<Limits> limits;
   private final MetricsContext metricsContext;
   private final AtomicLong currentWeight;
   private final AtomicBoolean needReduceWeight;
   private final AtomicBoolean adding;
-  private final Weigher<T> weigher;
   private final ReadWriteLock cacheLock;
 
   /**
@@ -92,14 +92,25 @@ public class MessageCache<T> {
    * @param metricsContext a {@link MetricsContext} for emitting metrics about this cache.
    */
   public MessageCache(Comparator<T> comparator, Weigher<T> weigher, Limits limits, MetricsContext metricsContext) {
-    this.cache = new ConcurrentSkipListSet<>(new CacheEntryComparator<>(comparator));
+    this(comparator, new HeapEntryStore<>(comparator, weigher), limits, metricsContext);
+  }
+
+  /**
+   * Creates a new instance of the cache that stores entries in the given {@link EntryStore}.
+   *
+   * @param comparator a {@link Comparator} for ordering cache entries
+   * @param store the {@link EntryStore} for storing cache entries, which must be ordered by the given comparator
+   * @param limits the limits for maintaining cache weight; see class description for more detail
+   * @param metricsContext a {@link MetricsContext} for emitting metrics about this cache.
+   */
+  public MessageCache(Comparator<T> comparator, EntryStore<T> store, Limits limits, MetricsContext metricsContext) {
+    this.store = store;
     this.comparator = comparator;
     this.limits = new AtomicReference<>(limits);
     this.metricsContext = metricsContext;
     this.currentWeight = new AtomicLong();
     this.needReduceWeight = new AtomicBoolean();
     this.adding = new AtomicBoolean();
-    this.weigher = weigher;
     this.cacheLock = new ReentrantReadWriteLock();
   }
 
@@ -128,41 +139,41 @@ public class MessageCache<T> {
 
     try {
       long newWeight = 0L;
-      CacheEntry<T> largestCacheEntry = null;
+      T largestEntry = null;
+      boolean first = true;
 
       int entriesAdded = 0;
       while (entries.hasNext()) {
         T entry = entries.next();
-        CacheEntry<T> cacheEntry = new CacheEntry<>(entry, weigher.weight(entry));
-        newWeight = currentWeight.addAndGet(cacheEntry.getWeight());
-        if (newWeight > limits.get().getHardLimit()) {
-          reduceWeight();
-          metricsContext.increment(METRICS_ADD_REDUCE_WEIGHT, 1L);
-          newWeight = currentWeight.get();
-        }
 
         // Make sure new entries are also in increasing order.
-        // For the first entry from the provided iterator, it must be larger than everything in the cache, hence
-        // the ceiling call must be returning null.
+        // For the first entry from the provided iterator, it must be larger than everything in the cache.
         // For sub-sequence entries in the iterator, they must be in strictly increasing order
-        largestCacheEntry = largestCacheEntry == null ? cache.ceiling(cacheEntry) : largestCacheEntry;
-        if (largestCacheEntry != null && comparator.compare(largestCacheEntry.getEntry(), cacheEntry.getEntry()) >= 0) {
+        if (first) {
+          largestEntry = store.last();
+          first = false;
+        }
+        if (largestEntry != null && comparator.compare(largestEntry, entry) >= 0) {
           // Entries must be in strictly increasing order
           // Clear the cache to reset state. This is just for precaution, as this shouldn't happen,
           // unless there is bug in the TMS system (from the caller side).
-          currentWeight.addAndGet(-1 * cacheEntry.getWeight());
           clear();
           throw new IllegalArgumentException("Cache entry must be in strictly increasing order. " +
-                                               "Entry " + entry + " is smaller than or equal to " +
-                                               largestCacheEntry.getEntry());
+                                               "Entry " + entry + " is smaller than or equal to " + largestEntry);
         }
 
         // It's ok to "leak" this to reader even if the new weight is larger than the hard limit
         // The entry will get removed eventually and the read/write operations as a whole still give valid
         // results
-        cache.add(cacheEntry);
+        newWeight = currentWeight.addAndGet(store.append(entry));
         entriesAdded++;
-        largestCacheEntry = cacheEntry;
+        largestEntry = entry;
+
+        if (newWeight > limits.get().getHardLimit()) {
+          reduceWeight();
+          metricsContext.increment(METRICS_ADD_REDUCE_WEIGHT, 1L);
+          newWeight = currentWeight.get();
+        }
       }
 
       metricsContext.increment(METRICS_ADD_REQUESTS, 1L);
@@ -197,15 +208,17 @@ public class MessageCache<T> {
     cacheLock.readLock().lock();
     T firstInCache;
     try {
-      firstInCache = cache.isEmpty() ? null : cache.first().getEntry();
-      for (CacheEntry<T> cacheEntry : cache.tailSet(new CacheEntry<>(startEntry, 0), includeStart)) {
+      firstInCache = store.first();
+      Iterator<T> iterator = store.tailIterator(startEntry, includeStart);
+      while (iterator.hasNext()) {
         if (entries.size() >= limit) {
           break;
         }
 
-        MessageFilter.Result result = filter.apply(cacheEntry.getEntry());
+        T entry = iterator.next();
+        MessageFilter.Result result = filter.apply(entry);
         if (result == MessageFilter.Result.ACCEPT) {
-          entries.add(cacheEntry.getEntry());
+          entries.add(entry);
         } else if (result == MessageFilter.Result.HOLD) {
           // Hold means not to scan more, so just break
           break;
@@ -239,38 +252,12 @@ public class MessageCache<T> {
    * @param updater a {@link EntryUpdater} to update the content of a entry
    */
   public void updateEntries(T startEntry, T endEntry, EntryUpdater<T> updater) {
-    CacheEntry<T> startCacheEntry = new CacheEntry<>(startEntry, 0);
-
     cacheLock.writeLock().lock();
     try {
-      CacheEntry<T> lower = cache.lower(startCacheEntry);
-      Iterator<CacheEntry<T>> iterator = cache.subSet(startCacheEntry, true,
-                                                      new CacheEntry<>(endEntry, 0), true).iterator();
-      CacheEntry<T> cacheEntry = iterator.hasNext() ? iterator.next() : null;
-      while (cacheEntry != null) {
-        CacheEntry<T> nextCacheEntry = iterator.hasNext() ? iterator.next() : null;
-        CacheEntry<T> higher = nextCacheEntry == null ? cache.higher(cacheEntry) : nextCacheEntry;
-
-        try {
-          updater.updateEntry(cacheEntry.getEntry());
-        } catch (RuntimeException e) {
-          clear();
-          throw e;
-        }
-
-        // A quick check that the ordering hasn't been altered.
-        // It doesn't cover all possible case though. This is just a quick catch for bug in the caller.
-        if ((lower != null && comparator.compare(lower.getEntry(), cacheEntry.getEntry()) >= 0)
-            || (higher != null && comparator.compare(higher.getEntry(), cacheEntry.getEntry()) <= 0)) {
-          // This shouldn't happen, unless there is bug in the caller.
-          clear();
-          throw new IllegalStateException("Entry order should not be altered after update.");
-        }
-
-        lower = cacheEntry;
-        cacheEntry = nextCacheEntry;
-      }
-
+      store.updateEntries(startEntry, endEntry, updater);
+    } catch (RuntimeException e) {
+      clear();
+      throw e;
     } finally {
       cacheLock.writeLock().unlock();
     }
@@ -325,16 +312,13 @@ public class MessageCache<T> {
     cacheLock.writeLock().lock();
     try {
       long newWeight = currentWeight.get();
-      Iterator<CacheEntry<T>> iterator = cache.iterator();
-      while (iterator.hasNext()) {
-        CacheEntry<T> cacheEntry = iterator.next();
+      while (!store.isEmpty()) {
         // If removing the next entry is smaller than the min weight, we are done with the reduce logic
-        if (newWeight - cacheEntry.getWeight() < limits.get().getMinRetain()) {
+        if (newWeight - store.firstWeight() < limits.get().getMinRetain()) {
           break;
         }
-        iterator.remove();
         entriesRemoved++;
-        newWeight = currentWeight.addAndGet(-1 * cacheEntry.getWeight());
+        newWeight = currentWeight.addAndGet(-1 * store.removeFirst());
       }
     } finally {
       cacheLock.writeLock().unlock();
@@ -383,6 +367,74 @@ public class MessageCache<T> {
     int weight(T entry);
   }
 
+  /**
+   * The storage of entries in a {@link MessageCache}. Entries are always appended in strictly increasing order
+   * and removed from the smallest one. The {@link #append(Object)} method is only called by the single writer of
+   * the cache, but it can be concurrent with calls to other methods. The {@link #removeFirst()} and
+   * {@link #updateEntries(Object, Object, EntryUpdater)} methods are never concurrent with reads through
+   * {@link #tailIterator(Object, boolean)}.
+   *
+   * @param <T> type of the entry
+   */
+  public interface EntryStore<T> {
+
+    /**
+     * Appends an entry to the store. The entry must be larger than all entries in the store.
+     *
+     * @param entry the entry to append
+     * @return the weight of the entry in the store
+     */
+    int append(T entry);
+
+    /**
+     * Returns {@code true} if there is no entry in the store.
+     */
+    boolean isEmpty();
+
+    /**
+     * Returns the smallest entry in the store or {@code null} if the store is empty.
+     */
+    @Nullable
+    T first();
+
+    /**
+     * Returns the largest entry in the store or {@code null} if the store is empty.
+     */
+    @Nullable
+    T last();
+
+    /**
+     * Returns the weight of the smallest entry in the store. This method must only be called
+     * when the store is not empty.
+     */
+    int firstWeight();
+
+    /**
+     * Removes the smallest entry from the store. This method must only be called when the store is not empty.
+     *
+     * @return the weight of the entry removed
+     */
+    int removeFirst();
+
+    /**
+     * Returns an {@link Iterator} of entries in ascending order, starting from the given entry.
+     *
+     * @param startEntry the entry to start iterating from
+     * @param inclusive {@code true} to include the start entry if it exists in the store
+     */
+    Iterator<T> tailIterator(T startEntry, boolean inclusive);
+
+    /**
+     * Updates entries in the given range. Update to each entry shouldn't change the ordering of the entry.
+     *
+     * @param startEntry the starting entry for the update to start (inclusive)
+     * @param endEntry the ending entry for the update to end (inclusive)
+     * @param updater a {@link EntryUpdater} to update the content of a entry
+     * @throws IllegalStateException if the ordering of entries was altered by the update
+     */
+    void updateEntries(T startEntry, T endEntry, EntryUpdater<T> updater);
+  }
+
   /**
    * This interface is for accessing cached entries.
    *
@@ -460,6 +512,97 @@ public class MessageCache<T> {
     abstract void doClose();
   }
 
+  /**
+   * The default {@link EntryStore} that keeps entries on heap in a {@link NavigableSet}.
+   *
+   * @param <T> type of the entry
+   */
+  private static final class HeapEntryStore<T> implements EntryStore<T> {
+
+    private final NavigableSet<CacheEntry<T>> cache;
+    private final Comparator<T> comparator;
+    private final Weigher<T> weigher;
+
+    private HeapEntryStore(Comparator<T> comparator, Weigher<T> weigher) {
+      this.cache = new ConcurrentSkipListSet<>(new CacheEntryComparator<>(comparator));
+      this.comparator = comparator;
+      this.weigher = weigher;
+    }
+
+    @Override
+    public int append(T entry) {
+      CacheEntry<T> cacheEntry = new CacheEntry<>(entry, weigher.weight(entry));
+      cache.add(cacheEntry);
+      return cacheEntry.getWeight();
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return cache.isEmpty();
+    }
+
+    @Nullable
+    @Override
+    public T first() {
+      CacheEntry<T> cacheEntry = cache.isEmpty() ? null : cache.first();
+      return cacheEntry == null ? null : cacheEntry.getEntry();
+    }
+
+    @Nullable
+    @Override
+    public T last() {
+      CacheEntry<T> cacheEntry = cache.isEmpty() ? null : cache.last();
+      return cacheEntry == null ? null : cacheEntry.getEntry();
+    }
+
+    @Override
+    public int firstWeight() {
+      return cache.first().getWeight();
+    }
+
+    @Override
+    public int removeFirst() {
+      return cache.pollFirst().getWeight();
+    }
+
+    @Override
+    public Iterator<T> tailIterator(T startEntry, boolean inclusive) {
+      final Iterator<CacheEntry<T>> iterator = cache.tailSet(new CacheEntry<>(startEntry, 0), inclusive).iterator();
+      return new AbstractIterator<T>() {
+        @Override
+        protected T computeNext() {
+          return iterator.hasNext() ? iterator.next().getEntry() : endOfData();
+        }
+      };
+    }
+
+    @Override
+    public void updateEntries(T startEntry, T endEntry, EntryUpdater<T> updater) {
+      CacheEntry<T> startCacheEntry = new CacheEntry<>(startEntry, 0);
+      CacheEntry<T> lower = cache.lower(startCacheEntry);
+      Iterator<CacheEntry<T>> iterator = cache.subSet(startCacheEntry, true,
+                                                      new CacheEntry<>(endEntry, 0), true).iterator();
+      CacheEntry<T> cacheEntry = iterator.hasNext() ? iterator.next() : null;
+      while (cacheEntry != null) {
+        CacheEntry<T> nextCacheEntry = iterator.hasNext() ? iterator.next() : null;
+        CacheEntry<T> higher = nextCacheEntry == null ? cache.higher(cacheEntry) : nextCacheEntry;
+
+        updater.updateEntry(cacheEntry.getEntry());
+
+        // A quick check that the ordering hasn't been altered.
+        // It doesn't cover all possible case though. This is just a quick catch for bug in the caller.
+        if ((lower != null && comparator.compare(lower.getEntry(), cacheEntry.getEntry()) >= 0)
+          || (higher != null && comparator.compare(higher.getEntry(), cacheEntry.getEntry()) <= 0)) {
+          // This shouldn't happen, unless there is bug in the caller.
+          throw new IllegalStateException("Entry order should not be altered after update.");
+        }
+
+        lower = cacheEntry;
+        cacheEntry = nextCacheEntry;
+      }
+    }
+  }
+
   /**
    * A private class that wraps a user provided entry of type {@code T} with an associated weight.
    *
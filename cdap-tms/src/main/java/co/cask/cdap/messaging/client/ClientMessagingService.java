@@ -32,6 +32,7 @@ import co.cask.cdap.messaging.Schemas;
 import co.cask.cdap.messaging.StoreRequest;
 import co.cask.cdap.messaging.TopicMetadata;
 import co.cask.cdap.messaging.data.RawMessage;
+import co.cask.cdap.messaging.data.RawMessageCodec;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.proto.id.TopicId;
 import co.cask.common.http.HttpMethod;
@@ -61,7 +62,9 @@ import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.TransactionCodec;
 import org.apache.twill.discovery.DiscoveryServiceClient;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Type;
@@ -92,12 +95,26 @@ public final class ClientMessagingService implements MessagingService {
   private static final Type TOPIC_LIST_TYPE = new TypeToken<List<String>>() { }.getType();
 
   private final RemoteClient remoteClient;
+  private final boolean binaryFetch;
 
   @VisibleForTesting
   @Inject
   public ClientMessagingService(final DiscoveryServiceClient discoveryServiceClient) {
+    this(discoveryServiceClient, true);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param discoveryServiceClient the {@link DiscoveryServiceClient} for discovering the messaging service
+   * @param binaryFetch {@code true} to request messages in the binary format defined by {@link RawMessageCodec}
+   *                    when fetching; {@code false} to always use avro
+   */
+  @VisibleForTesting
+  public ClientMessagingService(DiscoveryServiceClient discoveryServiceClient, boolean binaryFetch) {
     this.remoteClient = new RemoteClient(discoveryServiceClient, Constants.Service.MESSAGING_SERVICE,
                                          HTTP_REQUEST_CONFIG, "/v1/namespaces/");
+    this.binaryFetch = binaryFetch;
   }
 
   @Override
@@ -244,6 +261,7 @@ public final class ClientMessagingService implements MessagingService {
     TopicId topicId = request.getTopicId();
     HttpRequest httpRequest = remoteClient.requestBuilder(HttpMethod.POST, createTopicPath(topicId) + "/" + writeType)
       .addHeader(HttpHeaders.CONTENT_TYPE, "avro/binary")
+      .addHeader(StoreRequest.PUBLISHER_ID_HEADER, Long.toString(request.getPublisherId()))
       .withBody(os.toByteBuffer())
       .build();
 
@@ -396,12 +414,26 @@ public final class ClientMessagingService implements MessagingService {
 
       // The cask common http library doesn't support read streaming, and we don't want to buffer all messages
       // in memory, hence we use the HttpURLConnection directly instead.
-      URL url = remoteClient.resolve(createTopicPath(topicId) + "/poll");
+      String path = createTopicPath(topicId) + "/poll";
+      int readTimeout = HTTP_REQUEST_CONFIG.getReadTimeout();
+      long pollTimeout = getPollTimeoutMillis();
+      if (pollTimeout > 0) {
+        path += "?timeout=" + pollTimeout;
+        // The server can hold the request for up to the poll timeout before responding
+        if (readTimeout > 0) {
+          readTimeout = (int) Math.min(Integer.MAX_VALUE, readTimeout + pollTimeout);
+        }
+      }
+      URL url = remoteClient.resolve(path);
       final HttpURLConnection urlConn = (HttpURLConnection)  url.openConnection();
       urlConn.setConnectTimeout(HTTP_REQUEST_CONFIG.getConnectTimeout());
-      urlConn.setReadTimeout(HTTP_REQUEST_CONFIG.getReadTimeout());
+      urlConn.setReadTimeout(readTimeout);
       urlConn.setRequestMethod("POST");
       urlConn.setRequestProperty(HttpHeaders.CONTENT_TYPE, "avro/binary");
+      if (binaryFetch) {
+        // Server that doesn't understand the binary format would ignore it and respond with avro
+        urlConn.setRequestProperty(HttpHeaders.ACCEPT, RawMessageCodec.CONTENT_TYPE);
+      }
       urlConn.setDoInput(true);
       urlConn.setDoOutput(true);
 
@@ -428,6 +460,10 @@ public final class ClientMessagingService implements MessagingService {
           }
         }
       }, "Failed to update topic " + topicId);
+
+      if (binaryFetch && RawMessageCodec.CONTENT_TYPE.equals(urlConn.getContentType())) {
+        return decodeBinaryMessages(urlConn);
+      }
       verifyContentType(urlConn.getHeaderFields(), "avro/binary");
 
       // Decode the avro array manually instead of using DatumReader in order to support streaming decode.
@@ -472,5 +508,29 @@ public final class ClientMessagingService implements MessagingService {
         }
       };
     }
+
+    /**
+     * Returns a {@link CloseableIterator} that decodes messages in the binary format defined by
+     * {@link RawMessageCodec} from the response body.
+     */
+    private CloseableIterator<RawMessage> decodeBinaryMessages(final HttpURLConnection urlConn) throws IOException {
+      final DataInputStream input = new DataInputStream(new BufferedInputStream(urlConn.getInputStream()));
+      return new AbstractCloseableIterator<RawMessage>() {
+        @Override
+        protected RawMessage computeNext() {
+          try {
+            RawMessage message = RawMessageCodec.decode(input);
+            return message == null ? endOfData() : message;
+          } catch (IOException e) {
+            throw Throwables.propagate(e);
+          }
+        }
+
+        @Override
+        public void close() {
+          urlConn.disconnect();
+        }
+      };
+    }
   }
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.data;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
+
+/**
+ * Encoding and decoding of the length-prefixed binary format for streaming {@link RawMessage} in fetch responses.
+ * Clients request this format by setting the {@code Accept} header to {@link #CONTENT_TYPE}.
+ *
+ * The format is a sequence of messages, followed by an end marker:
+ *
+ * <pre>
+ * {@code
+ * message    = id-length (int) id (bytes) payload-length (int) payload (bytes)
+ * end-marker = -1 (int)
+ * }
+ * </pre>
+ *
+ * All integers are written as 4 bytes in big-endian order.
+ */
+public final class RawMessageCodec {
+
+  public static final String CONTENT_TYPE = "application/x-cdap-tms-raw-messages";
+
+  /**
+   * The value written in place of the id length to signal the end of the message stream.
+   */
+  public static final int END_MARKER = -1;
+
+  /**
+   * Returns the number of bytes needed to encode the header part of the given message,
+   * which includes everything except the payload bytes.
+   */
+  public static int getHeaderSize(RawMessage message) {
+    return Integer.SIZE / Byte.SIZE * 2 + message.getId().length;
+  }
+
+  /**
+   * Encodes the header part of the given message, which includes everything except the payload bytes,
+   * to the given {@link ByteBuffer}.
+   */
+  public static void encodeHeader(RawMessage message, ByteBuffer buffer) {
+    byte[] id = message.getId();
+    buffer.putInt(id.length)
+      .put(id)
+      .putInt(message.getPayload().length);
+  }
+
+  /**
+   * Decodes a {@link RawMessage} from the given {@link DataInput}.
+   *
+   * @return the decoded {@link RawMessage} or {@code null} if reached the end marker
+   * @throws EOFException if the input ended before the end marker is reached
+   * @throws IOException if failed to decode
+   */
+  @Nullable
+  public static RawMessage decode(DataInput input) throws IOException {
+    int idLength = input.readInt();
+    if (idLength == END_MARKER) {
+      return null;
+    }
+    if (idLength < 0) {
+      throw new IOException("Invalid message id length " + idLength);
+    }
+    byte[] id = new byte[idLength];
+    input.readFully(id);
+
+    int payloadLength = input.readInt();
+    if (payloadLength < 0) {
+      throw new IOException("Invalid message payload length " + payloadLength);
+    }
+    byte[] payload = new byte[payloadLength];
+    input.readFully(payload);
+    return new RawMessage(id, payload);
+  }
+
+  private RawMessageCodec() {
+    // protect the constructor
+  }
+}
@@ -16,6 +16,7 @@
 
 package co.cask.cdap.messaging.guice;
 
+import co.cask.cdap.api.metrics.MetricsCollectionService;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.runtime.RuntimeModule;
@@ -34,6 +35,7 @@ import co.cask.cdap.messaging.store.TableFactory;
 import co.cask.cdap.messaging.store.cache.CachingTableFactory;
 import co.cask.cdap.messaging.store.cache.DefaultMessageTableCacheProvider;
 import co.cask.cdap.messaging.store.cache.MessageTableCacheProvider;
+import co.cask.cdap.messaging.store.cache.OffHeapMessageTableCacheProvider;
 import co.cask.cdap.messaging.store.hbase.HBaseTableFactory;
 import co.cask.cdap.messaging.store.leveldb.LevelDBTableFactory;
 import co.cask.cdap.proto.id.TopicId;
@@ -75,7 +77,7 @@ public class MessagingServerRuntimeModule extends RuntimeModule {
           .to(HBaseTableFactory.class);
 
         // The cache must be in singleton scope
-        bind(MessageTableCacheProvider.class).to(DefaultMessageTableCacheProvider.class).in(Scopes.SINGLETON);
+        bind(MessageTableCacheProvider.class).toProvider(MessageTableCacheProviderProvider.class).in(Scopes.SINGLETON);
         bind(TableFactory.class).to(CachingTableFactory.class).in(Scopes.SINGLETON);
         expose(TableFactory.class);
 
@@ -132,6 +134,30 @@ public class MessagingServerRuntimeModule extends RuntimeModule {
     }
   }
 
+  /**
+   * A guice provider for {@link MessageTableCacheProvider}, which provides either the on-heap or the off-heap
+   * implementation based on the configuration.
+   */
+  private static final class MessageTableCacheProviderProvider implements Provider<MessageTableCacheProvider> {
+
+    private final CConfiguration cConf;
+    private final MetricsCollectionService metricsCollectionService;
+
+    @Inject
+    MessageTableCacheProviderProvider(CConfiguration cConf, MetricsCollectionService metricsCollectionService) {
+      this.cConf = cConf;
+      this.metricsCollectionService = metricsCollectionService;
+    }
+
+    @Override
+    public MessageTableCacheProvider get() {
+      if (cConf.getBoolean(Constants.MessagingSystem.CACHE_OFFHEAP_ENABLED)) {
+        return new OffHeapMessageTableCacheProvider(cConf, metricsCollectionService);
+      }
+      return new DefaultMessageTableCacheProvider(cConf, metricsCollectionService);
+    }
+  }
+
   /**
    * A guice provider for {@link HBaseTableUtil}. We don't use {@link HBaseTableUtilFactory} as a provider
    * directly because the {@code @Inject} constructor of {@link HBaseTableUtilFactory} requires a
@@ -20,6 +20,7 @@ import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.dataset.lib.CloseableIterator;
 import co.cask.cdap.api.messaging.TopicNotFoundException;
 import co.cask.cdap.common.BadRequestException;
+import co.cask.cdap.common.HttpExceptionHandler;
 import co.cask.cdap.common.conf.CConfiguration;
 import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.io.ByteBuffers;
@@ -27,10 +28,12 @@ import co.cask.cdap.messaging.MessageFetcher;
 import co.cask.cdap.messaging.MessagingService;
 import co.cask.cdap.messaging.Schemas;
 import co.cask.cdap.messaging.data.RawMessage;
+import co.cask.cdap.messaging.data.RawMessageCodec;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.proto.id.TopicId;
 import co.cask.http.AbstractHttpHandler;
 import co.cask.http.BodyProducer;
+import co.cask.http.HandlerContext;
 import co.cask.http.HttpResponder;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.inject.Inject;
@@ -45,6 +48,7 @@ import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.Encoder;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.tephra.TransactionCodec;
+import org.apache.twill.common.Threads;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBufferInputStream;
 import org.jboss.netty.buffer.ChannelBufferOutputStream;
@@ -56,38 +60,73 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.SocketException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
 
 /**
  * A netty http handler for handling message fetching REST API for the messaging system.
+ *
+ * If the {@code timeout} query parameter is provided, the request is held until new messages are available
+ * or the timeout expires. Such long poll requests are served by a separate thread pool so that they won't block
+ * the http threads. If that thread pool is exhausted, the request is served without waiting.
  */
 @Path("/v1/namespaces/{namespace}/topics/{topic}")
 public final class FetchHandler extends AbstractHttpHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(FetchHandler.class);
   private static final TransactionCodec TRANSACTION_CODEC = new TransactionCodec();
+  private static final HttpExceptionHandler EXCEPTION_HANDLER = new HttpExceptionHandler();
 
   private final MessagingService messagingService;
-  private int messageChunkSize;
+  private final int messageChunkSize;
+  private final int pollThreads;
+  private final long maxPollTimeoutMillis;
+  private ExecutorService pollExecutor;
 
   @Inject
   FetchHandler(CConfiguration cConf, MessagingService messagingService) {
     this.messagingService = messagingService;
     this.messageChunkSize = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_CONSUME_CHUNK_SIZE);
+    this.pollThreads = cConf.getInt(Constants.MessagingSystem.HTTP_SERVER_POLL_THREADS);
+    this.maxPollTimeoutMillis = cConf.getLong(Constants.MessagingSystem.HTTP_SERVER_MAX_POLL_TIMEOUT_MS);
+  }
+
+  @Override
+  public void init(HandlerContext context) {
+    super.init(context);
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(pollThreads, pollThreads, 60L, TimeUnit.SECONDS,
+                                                         new SynchronousQueue<Runnable>(),
+                                                         Threads.createDaemonThreadFactory("messaging-poll-%d"));
+    executor.allowCoreThreadTimeOut(true);
+    pollExecutor = executor;
+  }
+
+  @Override
+  public void destroy(HandlerContext context) {
+    super.destroy(context);
+    pollExecutor.shutdownNow();
   }
 
   @POST
   @Path("poll")
-  public void poll(HttpRequest request, HttpResponder responder,
+  public void poll(final HttpRequest request, final HttpResponder responder,
                    @PathParam("namespace") String namespace,
-                   @PathParam("topic") String topic) throws Exception {
+                   @PathParam("topic") String topic,
+                   @QueryParam("timeout") @DefaultValue("0") long timeout) throws Exception {
 
     TopicId topicId = new NamespaceId(namespace).topic(topic);
 
@@ -97,15 +136,53 @@ public final class FetchHandler extends AbstractHttpHandler {
     }
 
     // Decode the poll request
-    Decoder decoder = DecoderFactory.get().directBinaryDecoder(new ChannelBufferInputStream(request.getContent()),
-                                                               null);
     DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.ConsumeRequest.SCHEMA);
+    GenericRecord fetchRequest = datumReader.read(null, createDecoder(request.getContent()));
+
+    if (timeout < 0) {
+      throw new BadRequestException("Poll timeout must be >= 0");
+    }
+
+    // The binary format is only used if the client asked for it, so that older clients still get avro
+    final boolean binary = RawMessageCodec.CONTENT_TYPE.equals(request.getHeader(HttpHeaders.Names.ACCEPT));
+    final MessageFetcher fetcher = prepareFetch(fetchRequest, topicId);
+
+    if (timeout > 0 && maxPollTimeoutMillis > 0) {
+      fetcher.setPollTimeout(Math.min(timeout, maxPollTimeoutMillis), TimeUnit.MILLISECONDS);
+      try {
+        pollExecutor.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              sendMessages(fetcher.fetch(), binary, responder);
+            } catch (Throwable t) {
+              EXCEPTION_HANDLER.handle(t, request, responder);
+            }
+          }
+        });
+        return;
+      } catch (RejectedExecutionException e) {
+        LOG.debug("No thread available for long poll on topic {}. Fetch without waiting.", topicId);
+        fetcher.setPollTimeout(0L, TimeUnit.MILLISECONDS);
+      }
+    }
 
-    // Fetch the messages
-    CloseableIterator<RawMessage> iterator = fetchMessages(datumReader.read(null, decoder), topicId);
+    sendMessages(fetcher.fetch(), binary, responder);
+  }
+
+  /**
+   * Sends the messages from the given {@link CloseableIterator} back to the client. The iterator will be closed
+   * when all messages are sent or when there is failure.
+   */
+  private void sendMessages(CloseableIterator<RawMessage> iterator, boolean binary, HttpResponder responder) {
     try {
-      responder.sendContent(HttpResponseStatus.OK, new MessagesBodyProducer(iterator, messageChunkSize),
-                            ImmutableMultimap.of(HttpHeaders.Names.CONTENT_TYPE, "avro/binary"));
+      if (binary) {
+        responder.sendContent(HttpResponseStatus.OK, new BinaryMessagesBodyProducer(iterator, messageChunkSize),
+                              ImmutableMultimap.of(HttpHeaders.Names.CONTENT_TYPE, RawMessageCodec.CONTENT_TYPE));
+      } else {
+        responder.sendContent(HttpResponseStatus.OK, new MessagesBodyProducer(iterator, messageChunkSize),
+                              ImmutableMultimap.of(HttpHeaders.Names.CONTENT_TYPE, "avro/binary"));
+      }
     } catch (Throwable t) {
       iterator.close();
       throw t;
@@ -113,10 +190,22 @@ public final class FetchHandler extends AbstractHttpHandler {
   }
 
   /**
-   * Creates a {@link CloseableIterator} of {@link RawMessage} based on the given fetch request.
+   * Creates a {@link Decoder} for decoding the given request content. It avoids going through an
+   * {@link InputStream} if the content is backed by an array.
+   */
+  private Decoder createDecoder(ChannelBuffer content) {
+    if (content.hasArray()) {
+      return DecoderFactory.get().binaryDecoder(content.array(), content.arrayOffset() + content.readerIndex(),
+                                                content.readableBytes(), null);
+    }
+    return DecoderFactory.get().directBinaryDecoder(new ChannelBufferInputStream(content), null);
+  }
+
+  /**
+   * Creates a {@link MessageFetcher} based on the given fetch request.
    */
-  private CloseableIterator<RawMessage> fetchMessages(GenericRecord fetchRequest,
-                                                      TopicId topicId) throws IOException, TopicNotFoundException {
+  private MessageFetcher prepareFetch(GenericRecord fetchRequest,
+                                      TopicId topicId) throws IOException, TopicNotFoundException {
     MessageFetcher fetcher = messagingService.prepareFetch(topicId);
 
     Object startFrom = fetchRequest.get("startFrom");
@@ -143,7 +232,36 @@ public final class FetchHandler extends AbstractHttpHandler {
       fetcher.setTransaction(TRANSACTION_CODEC.decode(ByteBuffers.getByteArray(encodedTx)));
     }
 
-    return fetcher.fetch();
+    return fetcher;
+  }
+
+  /**
+   * Base class for {@link BodyProducer} that sends back messages from a {@link CloseableIterator}.
+   */
+  private abstract static class AbstractMessagesBodyProducer extends BodyProducer {
+
+    protected final CloseableIterator<RawMessage> iterator;
+
+    AbstractMessagesBodyProducer(CloseableIterator<RawMessage> iterator) {
+      this.iterator = iterator;
+    }
+
+    @Override
+    public void finished() throws Exception {
+      iterator.close();
+    }
+
+    @Override
+    public void handleError(@Nullable Throwable cause) {
+      iterator.close();
+      // Since response header is already sent, there is nothing we can send back to client. Simply log the failure
+      if (cause instanceof SocketException) {
+        // This can easily caused by client close connection prematurely. Don't want to flood the log.
+        LOG.debug("Socket exception raised when sending messages back to client", cause);
+      } else {
+        LOG.warn("Exception raised when sending messages back to client", cause);
+      }
+    }
   }
 
   /**
@@ -151,9 +269,8 @@ public final class FetchHandler extends AbstractHttpHandler {
    * Instead of using GenericDatumWriter, we perform the array encoding manually so that we don't have to buffer
    * all messages in memory before sending out.
    */
-  private static class MessagesBodyProducer extends BodyProducer {
+  private static class MessagesBodyProducer extends AbstractMessagesBodyProducer {
 
-    private final CloseableIterator<RawMessage> iterator;
     private final List<RawMessage> messages;
     private final int messageChunkSize;
     private final ChannelBuffer chunk;
@@ -164,7 +281,7 @@ public final class FetchHandler extends AbstractHttpHandler {
     private boolean arrayEnded;
 
     MessagesBodyProducer(CloseableIterator<RawMessage> iterator, int messageChunkSize) {
-      this.iterator = iterator;
+      super(iterator);
       this.messages = new ArrayList<>();
       this.messageChunkSize = messageChunkSize;
       this.chunk = ChannelBuffers.dynamicBuffer(messageChunkSize);
@@ -230,22 +347,66 @@ public final class FetchHandler extends AbstractHttpHandler {
 
       return chunk;
     }
+  }
 
-    @Override
-    public void finished() throws Exception {
-      iterator.close();
+  /**
+   * A {@link BodyProducer} to send back messages in the length-prefixed binary format as defined
+   * by {@link RawMessageCodec}. Message headers of a chunk are written into one buffer and payloads are
+   * sent as wrapped buffers, without copying them.
+   */
+  private static class BinaryMessagesBodyProducer extends AbstractMessagesBodyProducer {
+
+    private final int messageChunkSize;
+    private final List<RawMessage> messages;
+    private final List<ChannelBuffer> buffers;
+    private boolean ended;
+
+    BinaryMessagesBodyProducer(CloseableIterator<RawMessage> iterator, int messageChunkSize) {
+      super(iterator);
+      this.messageChunkSize = messageChunkSize;
+      this.messages = new ArrayList<>();
+      this.buffers = new ArrayList<>();
     }
 
     @Override
-    public void handleError(@Nullable Throwable cause) {
-      iterator.close();
-      // Since response header is already sent, there is nothing we can send back to client. Simply log the failure
-      if (cause instanceof SocketException) {
-        // This can easily caused by client close connection prematurely. Don't want to flood the log.
-        LOG.debug("Socket exception raised when sending messages back to client", cause);
-      } else {
-        LOG.warn("Exception raised when sending messages back to client", cause);
+    public ChannelBuffer nextChunk() throws Exception {
+      // Already sent all messages, return empty to signal the end of response
+      if (ended) {
+        return ChannelBuffers.EMPTY_BUFFER;
       }
+
+      // Try to buffer up to buffer size
+      int size = 0;
+      int headerSize = 0;
+      messages.clear();
+      while (iterator.hasNext() && size < messageChunkSize) {
+        RawMessage message = iterator.next();
+        messages.add(message);
+        headerSize += RawMessageCodec.getHeaderSize(message);
+        size += message.getId().length + message.getPayload().length;
+      }
+
+      ended = !iterator.hasNext();
+      if (ended) {
+        headerSize += Integer.SIZE / Byte.SIZE;
+      }
+
+      // All headers share one array. Each payload is wrapped and sent in between the headers.
+      ByteBuffer headers = ByteBuffer.allocate(headerSize);
+      buffers.clear();
+      for (RawMessage message : messages) {
+        int position = headers.position();
+        RawMessageCodec.encodeHeader(message, headers);
+        buffers.add(ChannelBuffers.wrappedBuffer(headers.array(), position, headers.position() - position));
+        buffers.add(ChannelBuffers.wrappedBuffer(message.getPayload()));
+      }
+      if (ended) {
+        int position = headers.position();
+        headers.putInt(RawMessageCodec.END_MARKER);
+        buffers.add(ChannelBuffers.wrappedBuffer(headers.array(), position, headers.position() - position));
+      }
+
+      return ChannelBuffers.wrappedBuffer(true, buffers.toArray(new ChannelBuffer[buffers.size()]));
     }
   }
 }
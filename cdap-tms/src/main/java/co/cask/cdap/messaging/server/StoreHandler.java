@@ -138,7 +138,18 @@ public final class StoreHandler extends AbstractHttpHandler {
     Decoder decoder = DecoderFactory.get().directBinaryDecoder(new ChannelBufferInputStream(request.getContent()),
                                                                null);
     DatumReader<GenericRecord> datumReader = new GenericDatumReader<>(Schemas.V1.PublishRequest.SCHEMA);
-    return new GenericRecordStoreRequest(topicId, datumReader.read(null, decoder));
+    GenericRecord record = datumReader.read(null, decoder);
+
+    // Requests from clients that don't send a publisher id are treated as published by the handler thread
+    String publisherId = request.getHeader(StoreRequest.PUBLISHER_ID_HEADER);
+    if (publisherId == null) {
+      return new GenericRecordStoreRequest(topicId, record, StoreRequest.getThreadPublisherId());
+    }
+    try {
+      return new GenericRecordStoreRequest(topicId, record, Long.parseLong(publisherId));
+    } catch (NumberFormatException e) {
+      throw new BadRequestException("Invalid publisher id " + publisherId + " for publishing to topic " + topicId);
+    }
   }
 
   /**
@@ -177,11 +188,12 @@ public final class StoreHandler extends AbstractHttpHandler {
     private final Iterator<ByteBuffer> payloadIterator;
 
     @SuppressWarnings("unchecked")
-    GenericRecordStoreRequest(TopicId topicId, GenericRecord genericRecord) {
+    GenericRecordStoreRequest(TopicId topicId, GenericRecord genericRecord, long publisherId) {
       super(topicId, genericRecord.get("transactionWritePointer") != null,
             genericRecord.get("transactionWritePointer") == null
               ? -1L
-              : Long.parseLong(genericRecord.get("transactionWritePointer").toString()));
+              : Long.parseLong(genericRecord.get("transactionWritePointer").toString()),
+            publisherId);
 
       this.payloadIterator = ((List<ByteBuffer>) genericRecord.get("messages")).iterator();
     }
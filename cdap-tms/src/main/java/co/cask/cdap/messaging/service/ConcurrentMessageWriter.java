@@ -31,15 +31,18 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
  * Class to support writing to message/payload tables with high concurrency.
  *
- * It uses a non-blocking algorithm to batch writes from concurrent threads. The algorithm is the same as
- * the one used in ConcurrentStreamWriter.
+ * It uses a group commit algorithm to batch writes from concurrent threads. The algorithm is similar to
+ * the one used in ConcurrentStreamWriter, except that threads waiting for their writes are parked instead of spinning.
  *
  * The algorithm is like this:
  *
@@ -48,20 +51,36 @@ import javax.annotation.concurrent.ThreadSafe;
  * <pre>
  * 1. Constructs a PendingStoreRequest locally and enqueue it to a ConcurrentLinkedQueue.
  * 2. Use CAS to set an AtomicBoolean flag to true.
- * 3. If successfully set the flag to true, this thread becomes the writer and proceed to run step 4-7.
- * 4. Provides an Iterator of PendingStoreRequest, which consumes from the ConcurrentLinkedQueue mentioned in step 1.
- * 5. The message table store method will consume the Iterator until it is empty
- * 6. Set the state of each PendingStoreRequest that are written to COMPLETED (succeed/failure).
- * 7. Set the AtomicBoolean flag back to false.
- * 8. If the PendingStoreRequest enqueued by this thread is NOT COMPLETED, go back to step 2.
+ * 3. If successfully set the flag to true, this thread becomes the writer and proceed to run step 4-8.
+ * 4. Optionally lingers for up to the max linger time for more requests to arrive, until the max batch size is reached.
+ * 5. Provides an Iterator of PendingStoreRequest, which consumes at most max batch size requests from the
+ *    ConcurrentLinkedQueue mentioned in step 1.
+ * 6. The message table store method will consume the Iterator until it is empty
+ * 7. Set the state of each PendingStoreRequest that are written to COMPLETED (succeed/failure) and unpark the
+ *    threads waiting for them.
+ * 8. Set the AtomicBoolean flag back to false and unpark the thread of the request at the head of the queue, if any,
+ *    so that it can become the next writer.
+ * 9. If the PendingStoreRequest enqueued by this thread is NOT COMPLETED, park until being unparked and go back
+ *    to step 2.
  * </pre>
  *
- * The spin lock between step 2 to step 8 is necessary as it guarantees events enqueued by all threads would eventually
+ * The hand-off in step 8 is necessary as it guarantees events enqueued by all threads would eventually
  * get written and flushed.
+ *
+ * After each successful write in step 6, the optional {@link TopicNotifier.Signal} is fired to wake up fetchers
+ * that are waiting for new messages. The write in step 6 is also registered with the signal while it is in progress,
+ * so that fetchers of a partitioned topic won't read past messages that are still being written by other writers.
  */
 @ThreadSafe
 final class ConcurrentMessageWriter implements Closeable {
 
+  static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+  static final long DEFAULT_MAX_LINGER_MILLIS = 0L;
+
+  // Maximum time for a waiting thread to be parked before rechecking its request. This is just a safety net,
+  // as waiting threads are always unparked when their requests complete or when they should become the writer.
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
   private final StoreRequestWriter<?> messagesWriter;
   private final MetricsCollector metricsCollector;
   private final PendingStoreQueue pendingStoreQueue;
@@ -76,16 +95,36 @@ final class ConcurrentMessageWriter implements Closeable {
     this(messagesWriter, new NoopMetricsContext());
   }
 
+  /**
+   * Constructor with default max batch size and max linger time. This constructor should only be used in unit-testing.
+   */
+  @VisibleForTesting
+  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector) {
+    this(messagesWriter, metricsCollector, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_LINGER_MILLIS, null);
+  }
+
   /**
    * Constructor.
    *
    * @param messagesWriter the {@link StoreRequestWriter} for persisting {@link StoreRequest}.
    * @param metricsCollector the {@link MetricsCollector} for collecting metrics emitted by this class.
+   * @param maxBatchSize maximum number of {@link StoreRequest} to be persisted in one write
+   * @param maxLingerMillis maximum time in milliseconds for the writer to wait for more requests to arrive
+   *                        before writing a batch that is smaller than the max batch size
+   * @param publishSignal an optional {@link TopicNotifier.Signal} to fire after each successful write
    */
-  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector) {
+  ConcurrentMessageWriter(StoreRequestWriter<?> messagesWriter, MetricsCollector metricsCollector,
+                          int maxBatchSize, long maxLingerMillis, @Nullable TopicNotifier.Signal publishSignal) {
+    if (maxBatchSize <= 0) {
+      throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+    }
+    if (maxLingerMillis < 0) {
+      throw new IllegalArgumentException("Max linger time must not be negative: " + maxLingerMillis);
+    }
     this.messagesWriter = messagesWriter;
     this.metricsCollector = metricsCollector;
-    this.pendingStoreQueue = new PendingStoreQueue(metricsCollector);
+    this.pendingStoreQueue = new PendingStoreQueue(metricsCollector, maxBatchSize,
+                                                   TimeUnit.MILLISECONDS.toNanos(maxLingerMillis), publishSignal);
     this.writerFlag = new AtomicBoolean();
     this.closed = new AtomicBoolean();
   }
@@ -106,17 +145,21 @@ final class ConcurrentMessageWriter implements Closeable {
       throw new IOException("Message writer is already closed");
     }
 
-    PendingStoreRequest pendingStoreRequest = new PendingStoreRequest(storeRequest, metadata);
+    long startTime = System.nanoTime();
+    PendingStoreRequest pendingStoreRequest = new PendingStoreRequest(storeRequest, metadata, Thread.currentThread());
     pendingStoreQueue.enqueue(pendingStoreRequest);
 
     metricsCollector.increment("persist.requested", 1L);
 
     while (!pendingStoreRequest.isCompleted()) {
       if (!tryWrite()) {
-        Thread.yield();
+        // Park until either the request is completed or this thread is signaled to become the writer
+        LockSupport.parkNanos(this, MAX_PARK_NANOS);
       }
     }
 
+    metricsCollector.gauge("persist.wait.latency.ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+
     if (pendingStoreRequest.isSuccess()) {
       metricsCollector.increment("persist.success", 1L);
       if (!pendingStoreRequest.isTransactional()) {
@@ -148,6 +191,9 @@ final class ConcurrentMessageWriter implements Closeable {
     } finally {
       writerFlag.set(false);
     }
+    // Hand off the writer role to the thread of the next pending request.
+    // It is needed since that thread may have been parked while this thread was holding the writer flag.
+    pendingStoreQueue.wakeupHead();
     return true;
   }
 
@@ -157,29 +203,44 @@ final class ConcurrentMessageWriter implements Closeable {
       return;
     }
     // Flush everything in the queue.
-    // When this thread can grab the writer flag, all pending write requests must be completed since the closed
-    // flag was already set to false.
-    while (!tryWrite()) {
-      Thread.yield();
+    // When this thread can grab the writer flag and the queue is empty, all pending write requests must be completed
+    // since the closed flag was already set to true.
+    // Since each write is bounded by the max batch size, keep writing until the queue is empty.
+    boolean flushed = false;
+    while (!flushed) {
+      if (tryWrite()) {
+        flushed = pendingStoreQueue.isEmpty();
+      } else {
+        Thread.yield();
+      }
     }
     messagesWriter.close();
   }
 
   /**
    * A resettable {@link Iterator} to provide {@link StoreRequest} to {@link StoreRequestWriter}.
-   * Except the {@link #enqueue(PendingStoreRequest)} method, all methods on this class can only be
-   * called while holding the writer flag.
+   * Except the {@link #enqueue(PendingStoreRequest)}, {@link #wakeupHead()} and {@link #isEmpty()} methods,
+   * all methods on this class can only be called while holding the writer flag.
    */
   private static final class PendingStoreQueue {
 
     private final MetricsCollector metricsCollector;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
     private final Queue<PendingStoreRequest> writeQueue;
+    private final AtomicInteger writeQueueSize;
     private final List<PendingStoreRequest> inflightRequests;
+    private final TopicNotifier.Signal publishSignal;
 
-    private PendingStoreQueue(MetricsCollector metricsCollector) {
+    private PendingStoreQueue(MetricsCollector metricsCollector, int maxBatchSize, long maxLingerNanos,
+                              @Nullable TopicNotifier.Signal publishSignal) {
       this.metricsCollector = metricsCollector;
+      this.maxBatchSize = maxBatchSize;
+      this.maxLingerNanos = maxLingerNanos;
+      this.publishSignal = publishSignal;
       this.writeQueue = new ConcurrentLinkedQueue<>();
-      this.inflightRequests = new ArrayList<>(100);
+      this.writeQueueSize = new AtomicInteger();
+      this.inflightRequests = new ArrayList<>(Math.min(maxBatchSize, 100));
     }
 
     /**
@@ -187,32 +248,86 @@ final class ConcurrentMessageWriter implements Closeable {
      */
     void enqueue(PendingStoreRequest storeRequest) {
       writeQueue.add(storeRequest);
+      writeQueueSize.incrementAndGet();
+    }
+
+    /**
+     * Returns {@code true} if there is no pending request in the queue.
+     */
+    boolean isEmpty() {
+      return writeQueue.isEmpty();
+    }
+
+    /**
+     * Unparks the thread of the {@link PendingStoreRequest} at the head of the queue, if there is one.
+     */
+    void wakeupHead() {
+      PendingStoreRequest request = writeQueue.peek();
+      if (request != null) {
+        request.wakeup();
+      }
     }
 
     /**
-     * Persists all {@link PendingStoreRequest} currently in the queue with the given writer.
+     * Persists at most max batch size {@link PendingStoreRequest} currently in the queue with the given writer.
      */
     void persist(StoreRequestWriter<?> writer) {
-      // Capture all current events.
+      linger();
+
+      // Capture the current events, up to the max batch size.
       // The reason for capturing instead of using a live iterator is to avoid the possible case of infinite write
       // time. E.g. while generating the entry to write to the storage table, a new store request get enqueued.
       // The number of requests in the queue is bounded by the number of threads that call this method.
       // Since this method is expected to be called (indirectly) from a http handler thread, that is bounded by
       // the thread pool size used by the http service.
+      metricsCollector.gauge("persist.queue.size", writeQueueSize.get());
+
       inflightRequests.clear();
-      PendingStoreRequest request = writeQueue.poll();
-      while (request != null) {
+      PendingStoreRequest request;
+      while (inflightRequests.size() < maxBatchSize && (request = writeQueue.poll()) != null) {
+        writeQueueSize.decrementAndGet();
         inflightRequests.add(request);
-        request = writeQueue.poll();
       }
 
-      metricsCollector.gauge("persist.queue.size", inflightRequests.size());
+      metricsCollector.gauge("persist.batch.size", inflightRequests.size());
 
+      Throwable failure = null;
+      if (publishSignal != null) {
+        publishSignal.writeStarted(this);
+      }
       try {
         writer.write(inflightRequests.iterator());
-        completeAll(null);
       } catch (Throwable t) {
-        completeAll(t);
+        failure = t;
+      } finally {
+        if (publishSignal != null) {
+          publishSignal.writeCompleted(this);
+        }
+      }
+
+      completeAll(failure);
+      if (failure != null) {
+        return;
+      }
+
+      if (publishSignal != null) {
+        publishSignal.fire();
+      }
+    }
+
+    /**
+     * Waits for up to the max linger time for more requests to arrive, until there are max batch size
+     * requests in the queue.
+     */
+    private void linger() {
+      if (maxLingerNanos <= 0L) {
+        return;
+      }
+      long deadline = System.nanoTime() + maxLingerNanos;
+      long remaining = maxLingerNanos;
+      while (remaining > 0L && writeQueueSize.get() < maxBatchSize) {
+        LockSupport.parkNanos(this, Math.min(remaining, TimeUnit.MICROSECONDS.toNanos(100)));
+        remaining = deadline - System.nanoTime();
       }
     }
 
@@ -223,7 +338,9 @@ final class ConcurrentMessageWriter implements Closeable {
     void completeAll(@Nullable Throwable failureCause) {
       Iterator<PendingStoreRequest> iterator = inflightRequests.iterator();
       while (iterator.hasNext()) {
-        iterator.next().completed(failureCause);
+        PendingStoreRequest request = iterator.next();
+        request.completed(failureCause);
+        request.wakeup();
         iterator.remove();
       }
     }
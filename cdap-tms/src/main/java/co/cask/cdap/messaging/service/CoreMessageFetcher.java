@@ -35,7 +35,14 @@ import javax.annotation.Nullable;
 
 /**
  * Implementation of {@link MessageFetcher} that fetch messages directly
- * from {@link MessageTable} and {@link PayloadTable}.
+ * from {@link MessageTable} and {@link PayloadTable}. If a poll timeout is set and there is no message available,
+ * it waits on the {@link TopicNotifier.Signal} of the topic for new messages before fetching again.
+ *
+ * For a topic with multiple partitions, messages are written by multiple writers concurrently, hence a message
+ * can become visible after messages with larger message ids. To preserve the ordering of messages, the fetch stops
+ * at the first message with publish timestamp not smaller than {@link TopicNotifier.Signal#getVisibleTimestamp()}.
+ * A fetch with a poll timeout then waits for that message to become visible, instead of returning nothing.
+ * See {@link TopicNotifier.Signal} for the limitations of the visible timestamp.
  */
 final class CoreMessageFetcher extends MessageFetcher {
 
@@ -44,17 +51,64 @@ final class CoreMessageFetcher extends MessageFetcher {
   private final TopicMetadata topicMetadata;
   private final TableProvider<MessageTable> messageTableProvider;
   private final TableProvider<PayloadTable> payloadTableProvider;
+  private final TopicNotifier.Signal publishSignal;
 
   CoreMessageFetcher(TopicMetadata topicMetadata,
                      TableProvider<MessageTable> messageTableProvider,
-                     TableProvider<PayloadTable> payloadTableProvider) {
+                     TableProvider<PayloadTable> payloadTableProvider,
+                     TopicNotifier.Signal publishSignal) {
     this.topicMetadata = topicMetadata;
     this.messageTableProvider = messageTableProvider;
     this.payloadTableProvider = payloadTableProvider;
+    this.publishSignal = publishSignal;
   }
 
   @Override
   public CloseableIterator<RawMessage> fetch() throws IOException {
+    long pollTimeoutMillis = getPollTimeoutMillis();
+    if (pollTimeoutMillis <= 0L) {
+      return fetchMessages();
+    }
+
+    long deadline = System.currentTimeMillis() + pollTimeoutMillis;
+    while (true) {
+      // Capture the signal version before fetching, so that messages published after the fetch won't be missed
+      long version = publishSignal.getVersion();
+      MessageCloseableIterator iterator = fetchMessages();
+      try {
+        if (iterator.hasNext()) {
+          return iterator;
+        }
+      } catch (Throwable t) {
+        iterator.close();
+        throw t;
+      }
+
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0L) {
+        return iterator;
+      }
+      iterator.close();
+
+      try {
+        if (iterator.isHeld()) {
+          // Messages are held back by writes in progress, which can complete without a new message being published
+          publishSignal.awaitVisible(iterator.getHeldTimestamp(), version, remaining, TimeUnit.MILLISECONDS);
+        } else {
+          publishSignal.await(version, remaining, TimeUnit.MILLISECONDS);
+        }
+      } catch (InterruptedException e) {
+        // Stop waiting and return whatever is available
+        Thread.currentThread().interrupt();
+        return fetchMessages();
+      }
+    }
+  }
+
+  /**
+   * Creates a {@link CloseableIterator} for fetching messages from the tables without waiting.
+   */
+  private MessageCloseableIterator fetchMessages() throws IOException {
     MessageTable messageTable = messageTableProvider.get();
     try {
       return new MessageCloseableIterator(messageTable);
@@ -116,7 +170,10 @@ final class CoreMessageFetcher extends MessageFetcher {
     private final CloseableIterator<MessageTable.Entry> messageIterator;
     private final TopicId topicId;
     private final MessageTable messageTable;
+    private final long visibleTimestamp;
     private RawMessage nextMessage;
+    private boolean held;
+    private long heldTimestamp;
     private MessageTable.Entry messageEntry;
     private CloseableIterator<PayloadTable.Entry> payloadIterator;
     private boolean inclusive;
@@ -128,6 +185,8 @@ final class CoreMessageFetcher extends MessageFetcher {
       this.messageTable = messageTable;
       this.inclusive = isIncludeStart();
       this.messageLimit = getLimit();
+      // The watermark must be acquired before scanning so that no message below it can be missed
+      this.visibleTimestamp = topicMetadata.getPartitions() > 1 ? publishSignal.getVisibleTimestamp() : Long.MAX_VALUE;
 
       long ttl = topicMetadata.getTTL();
       MessageId startOffset = getStartOffset() == null ? null : new MessageId(getStartOffset());
@@ -158,7 +217,7 @@ final class CoreMessageFetcher extends MessageFetcher {
 
     @Override
     public boolean hasNext() {
-      if (messageLimit <= 0) {
+      if (messageLimit <= 0 || held) {
         return false;
       }
 
@@ -175,6 +234,12 @@ final class CoreMessageFetcher extends MessageFetcher {
         // If there is no payload iterator or it has been exhausted, read the next message from the message iterator
         if (messageIterator.hasNext()) {
           messageEntry = messageIterator.next();
+          if (messageEntry.getPublishTimestamp() >= visibleTimestamp) {
+            // Messages from this point could still be interleaved by writes in progress
+            held = true;
+            heldTimestamp = messageEntry.getPublishTimestamp();
+            break;
+          }
           if (messageEntry.isPayloadReference()) {
             // If the message entry is a reference to payload table, create the payload iterator
             try {
@@ -200,6 +265,21 @@ final class CoreMessageFetcher extends MessageFetcher {
       return nextMessage != null;
     }
 
+    /**
+     * Returns {@code true} if the fetch stopped before the end of the message table because of writes in progress.
+     */
+    boolean isHeld() {
+      return held;
+    }
+
+    /**
+     * Returns the publish timestamp of the first message held back. It is only valid if {@link #isHeld()} is
+     * {@code true}.
+     */
+    long getHeldTimestamp() {
+      return heldTimestamp;
+    }
+
     @Override
     public RawMessage next() {
       if (!hasNext()) {
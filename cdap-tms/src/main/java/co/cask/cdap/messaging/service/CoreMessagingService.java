@@ -34,6 +34,7 @@ import co.cask.cdap.messaging.store.MessageTable;
 import co.cask.cdap.messaging.store.MetadataTable;
 import co.cask.cdap.messaging.store.PayloadTable;
 import co.cask.cdap.messaging.store.TableFactory;
+import co.cask.cdap.messaging.store.cache.CachingTableFactory;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.proto.id.TopicId;
 import com.google.common.annotations.VisibleForTesting;
@@ -45,6 +46,7 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.inject.Inject;
 import org.apache.tephra.TxConstants;
@@ -80,8 +82,9 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   private final CConfiguration cConf;
   private final TableFactory tableFactory;
   private final LoadingCache<TopicId, TopicMetadata> topicCache;
-  private final LoadingCache<TopicId, ConcurrentMessageWriter> messageTableWriterCache;
-  private final LoadingCache<TopicId, ConcurrentMessageWriter> payloadTableWriterCache;
+  private final LoadingCache<WriterKey, ConcurrentMessageWriter> messageTableWriterCache;
+  private final LoadingCache<WriterKey, ConcurrentMessageWriter> payloadTableWriterCache;
+  private final TopicNotifier topicNotifier;
   private final TimeProvider timeProvider;
   private final MetricsCollectionService metricsCollectionService;
   private final long txMaxLifeTimeInMillis;
@@ -98,9 +101,10 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     this.cConf = cConf;
     this.tableFactory = tableFactory;
     this.topicCache = createTopicCache();
+    this.timeProvider = timeProvider;
+    this.topicNotifier = new TopicNotifier(timeProvider);
     this.messageTableWriterCache = createTableWriterCache(true, cConf);
     this.payloadTableWriterCache = createTableWriterCache(false, cConf);
-    this.timeProvider = timeProvider;
 
     // Due to circular dependency in our class hierarchy (which is bad), we cannot use metricsCollectionService
     // to construct metricsContext in here. The circular dependency is
@@ -130,7 +134,15 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     try (MetadataTable metadataTable = createMetadataTable()) {
       Map<String, String> properties = createDefaultProperties();
       properties.putAll(topicMetadata.getProperties());
-      metadataTable.updateTopic(new TopicMetadata(topicMetadata.getTopicId(), properties, true));
+      TopicMetadata newMetadata = new TopicMetadata(topicMetadata.getTopicId(), properties, true);
+
+      // Changing the number of partitions would make writers of different partitions generate the same message ids
+      int partitions = metadataTable.getMetadata(topicMetadata.getTopicId()).getPartitions();
+      if (newMetadata.getPartitions() != partitions) {
+        throw new IllegalArgumentException(String.format("Number of partitions of topic %s cannot be changed from %d",
+                                                         topicMetadata.getTopicId(), partitions));
+      }
+      metadataTable.updateTopic(newMetadata);
       topicCache.invalidate(topicMetadata.getTopicId());
     }
   }
@@ -140,8 +152,8 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     try (MetadataTable metadataTable = createMetadataTable()) {
       metadataTable.deleteTopic(topicId);
       topicCache.invalidate(topicId);
-      messageTableWriterCache.invalidate(topicId);
-      payloadTableWriterCache.invalidate(topicId);
+      invalidateWriters(messageTableWriterCache, topicId);
+      invalidateWriters(payloadTableWriterCache, topicId);
     }
   }
 
@@ -176,7 +188,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
       public PayloadTable get() throws IOException {
         return createPayloadTable(metadata);
       }
-    });
+    }, topicNotifier.getSignal(topicId));
   }
 
   @Nullable
@@ -187,7 +199,12 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
       if (request.isTransactional()) {
         ensureValidTxLifetime(request.getTransactionWritePointer());
       }
-      return messageTableWriterCache.get(request.getTopicId()).persist(request, metadata);
+      // Spread the publish load of a partitioned topic across the writers of all partitions by publisher.
+      // Each partition has its own range of sequence ids, hence messages of the same publisher must go to the same
+      // partition to get increasing message ids when published within the same millisecond.
+      int partitions = metadata.getPartitions();
+      int partition = partitions > 1 ? Hashing.consistentHash(request.getPublisherId(), partitions) : 0;
+      return messageTableWriterCache.get(new WriterKey(request.getTopicId(), partition)).persist(request, metadata);
     } catch (ExecutionException e) {
       Throwable cause = Objects.firstNonNull(e.getCause(), e);
       Throwables.propagateIfPossible(cause, TopicNotFoundException.class, IOException.class);
@@ -199,7 +216,7 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
   public void storePayload(StoreRequest request) throws TopicNotFoundException, IOException {
     try {
       TopicMetadata metadata = topicCache.get(request.getTopicId());
-      payloadTableWriterCache.get(request.getTopicId()).persist(request, metadata);
+      payloadTableWriterCache.get(new WriterKey(request.getTopicId(), 0)).persist(request, metadata);
     } catch (ExecutionException e) {
       Throwable cause = Objects.firstNonNull(e.getCause(), e);
       Throwables.propagateIfPossible(cause, TopicNotFoundException.class, IOException.class);
@@ -257,7 +274,6 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
 
   @Override
   protected void shutDown() throws Exception {
-    messageTableWriterCache.invalidateAll();
     messageTableWriterCache.invalidateAll();
     payloadTableWriterCache.invalidateAll();
     LOG.info("Core Messaging Service stopped");
@@ -337,17 +353,17 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
    * @param messageTable {@code true} for building a cache for the {@link MessageTable};
    *                     {@code false} for the {@link PayloadTable}
    * @param cConf the system configuration
-   * @return a {@link LoadingCache} for
+   * @return a {@link LoadingCache} for {@link ConcurrentMessageWriter} of each topic partition
    */
-  private LoadingCache<TopicId, ConcurrentMessageWriter> createTableWriterCache(final boolean messageTable,
+  private LoadingCache<WriterKey, ConcurrentMessageWriter> createTableWriterCache(final boolean messageTable,
                                                                                 final CConfiguration cConf) {
     long expireSecs = cConf.getLong(Constants.MessagingSystem.TABLE_CACHE_EXPIRATION_SECONDS);
 
     return CacheBuilder.newBuilder()
       .expireAfterAccess(expireSecs, TimeUnit.SECONDS)
-      .removalListener(new RemovalListener<TopicId, ConcurrentMessageWriter>() {
+      .removalListener(new RemovalListener<WriterKey, ConcurrentMessageWriter>() {
         @Override
-        public void onRemoval(RemovalNotification<TopicId, ConcurrentMessageWriter> notification) {
+        public void onRemoval(RemovalNotification<WriterKey, ConcurrentMessageWriter> notification) {
           ConcurrentMessageWriter writer = notification.getValue();
           if (writer != null) {
             try {
@@ -358,12 +374,14 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
           }
         }
       })
-      .build(new CacheLoader<TopicId, ConcurrentMessageWriter>() {
+      .build(new CacheLoader<WriterKey, ConcurrentMessageWriter>() {
         @Override
-        public ConcurrentMessageWriter load(TopicId topicId) throws Exception {
+        public ConcurrentMessageWriter load(WriterKey key) throws Exception {
+          TopicId topicId = key.getTopicId();
           TopicMetadata metadata = getTopic(topicId);
           StoreRequestWriter<?> messagesWriter = messageTable
-            ? new MessageTableStoreRequestWriter(createMessageTable(metadata), timeProvider)
+            ? new MessageTableStoreRequestWriter(createMessageTable(metadata), timeProvider,
+                                                 key.getPartition(), metadata.getPartitions())
             : new PayloadTableStoreRequestWriter(createPayloadTable(metadata), timeProvider);
 
           MetricsContext metricsContext = metricsCollectionService.getContext(ImmutableMap.of(
@@ -373,7 +391,11 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
             Constants.Metrics.Tag.TABLE, messageTable ? "message" : "payload"
           ));
 
-          return new ConcurrentMessageWriter(messagesWriter, metricsContext);
+          // Only writes to the message table make new messages available to fetchers
+          return new ConcurrentMessageWriter(messagesWriter, metricsContext,
+                                             cConf.getInt(Constants.MessagingSystem.WRITER_MAX_BATCH_SIZE),
+                                             cConf.getLong(Constants.MessagingSystem.WRITER_MAX_LINGER_MS),
+                                             messageTable ? topicNotifier.getSignal(topicId) : null);
         }
       });
   }
@@ -385,10 +407,16 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     return tableFactory.createMetadataTable(cConf.get(Constants.MessagingSystem.METADATA_TABLE_NAME));
   }
 
-  private MessageTable createMessageTable(@SuppressWarnings("unused") TopicMetadata topicMetadata) throws IOException {
+  private MessageTable createMessageTable(TopicMetadata topicMetadata) throws IOException {
+    // The message cache requires messages of a topic to be appended in order by a single writer,
+    // which is not the case for partitioned topics.
+    TableFactory factory = tableFactory;
+    if (topicMetadata.getPartitions() > 1 && factory instanceof CachingTableFactory) {
+      factory = ((CachingTableFactory) factory).getDelegate();
+    }
     // Currently we don't support customizable table name yet, hence always get it from cConf.
     // Later on it can be done by topic properties, with impersonation setting as well.
-    return tableFactory.createMessageTable(cConf.get(Constants.MessagingSystem.MESSAGE_TABLE_NAME));
+    return factory.createMessageTable(cConf.get(Constants.MessagingSystem.MESSAGE_TABLE_NAME));
   }
 
   private PayloadTable createPayloadTable(@SuppressWarnings("unused") TopicMetadata topicMetadata) throws IOException {
@@ -408,4 +436,58 @@ public class CoreMessagingService extends AbstractIdleService implements Messagi
     properties.put(TopicMetadata.GENERATION_KEY, MessagingUtils.Constants.DEFAULT_GENERATION);
     return properties;
   }
+
+  /**
+   * Invalidates the {@link ConcurrentMessageWriter} of all partitions of the given topic from the given cache.
+   */
+  private void invalidateWriters(LoadingCache<WriterKey, ConcurrentMessageWriter> cache, TopicId topicId) {
+    for (WriterKey key : cache.asMap().keySet()) {
+      if (key.getTopicId().equals(topicId)) {
+        cache.invalidate(key);
+      }
+    }
+  }
+
+  /**
+   * Key for the {@link ConcurrentMessageWriter} cache, which identifies a partition of a topic.
+   */
+  private static final class WriterKey {
+    private final TopicId topicId;
+    private final int partition;
+
+    WriterKey(TopicId topicId, int partition) {
+      this.topicId = topicId;
+      this.partition = partition;
+    }
+
+    TopicId getTopicId() {
+      return topicId;
+    }
+
+    int getPartition() {
+      return partition;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      WriterKey other = (WriterKey) o;
+      return partition == other.partition && topicId.equals(other.topicId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(topicId, partition);
+    }
+
+    @Override
+    public String toString() {
+      return topicId + ":" + partition;
+    }
+  }
 }
@@ -37,7 +37,21 @@ final class MessageTableStoreRequestWriter extends StoreRequestWriter<MessageTab
   private final MutableMessageTableEntry entry;
 
   MessageTableStoreRequestWriter(MessageTable messageTable, TimeProvider timeProvider) {
-    super(timeProvider, true);
+    this(messageTable, timeProvider, 0, 1);
+  }
+
+  /**
+   * Constructor for writing to one partition of a topic. Each partition uses a non-overlapping range of
+   * sequence ids, so that writers of different partitions can write concurrently without conflicting row keys.
+   *
+   * @param messageTable the {@link MessageTable} to write to
+   * @param timeProvider the {@link TimeProvider} for generating publish timestamp
+   * @param partition the partition that this writer writes to
+   * @param partitions total number of partitions of the topic
+   */
+  MessageTableStoreRequestWriter(MessageTable messageTable, TimeProvider timeProvider, int partition, int partitions) {
+    super(timeProvider, true, partition * (SEQUENCE_ID_LIMIT / partitions),
+          (partition + 1) * (SEQUENCE_ID_LIMIT / partitions));
     this.messageTable = messageTable;
     this.entry = new MutableMessageTableEntry();
   }
@@ -19,6 +19,7 @@ package co.cask.cdap.messaging.service;
 import co.cask.cdap.messaging.StoreRequest;
 import co.cask.cdap.messaging.TopicMetadata;
 
+import java.util.concurrent.locks.LockSupport;
 import javax.annotation.Nullable;
 
 /**
@@ -28,19 +29,21 @@ final class PendingStoreRequest extends StoreRequest {
 
   private final StoreRequest originalRequest;
   private final TopicMetadata metadata;
+  private final Thread requestThread;
 
-  private boolean completed;
+  private volatile boolean completed;
   private long startTimestamp;
   private long endTimestamp;
   private int startSequenceId;
   private int endSequenceId;
   private Throwable failureCause;
 
-  PendingStoreRequest(StoreRequest originalRequest, TopicMetadata topicMetadata) {
+  PendingStoreRequest(StoreRequest originalRequest, TopicMetadata topicMetadata, Thread requestThread) {
     super(originalRequest.getTopicId(), originalRequest.isTransactional(),
-          originalRequest.getTransactionWritePointer());
+          originalRequest.getTransactionWritePointer(), originalRequest.getPublisherId());
     this.originalRequest = originalRequest;
     this.metadata = topicMetadata;
+    this.requestThread = requestThread;
   }
 
   TopicMetadata getTopicMetadata() {
@@ -64,8 +67,15 @@ final class PendingStoreRequest extends StoreRequest {
   }
 
   void completed(@Nullable Throwable failureCause) {
-    completed = true;
     this.failureCause = failureCause;
+    completed = true;
+  }
+
+  /**
+   * Unparks the thread that is waiting for this request to complete.
+   */
+  void wakeup() {
+    LockSupport.unpark(requestThread);
   }
 
   void setStartTimestamp(long startTimestamp) {
@@ -46,6 +46,8 @@ abstract class StoreRequestWriter<T> implements Closeable {
   static final int SEQUENCE_ID_LIMIT = 0x10000;
 
   private final TimeProvider timeProvider;
+  private final int seqIdStart;
+  private final int seqIdLimit;
   private long writeTimestamp;
   private long lastWriteTimestamp;
   private int seqId;
@@ -60,7 +62,27 @@ abstract class StoreRequestWriter<T> implements Closeable {
    *                                 a {@link PendingStoreRequest} has an empty iterator of payload.
    */
   StoreRequestWriter(TimeProvider timeProvider, boolean generateNullPayloadEntry) {
+    this(timeProvider, generateNullPayloadEntry, 0, SEQUENCE_ID_LIMIT);
+  }
+
+  /**
+   * Constructor that only uses a range of the sequence ids. It is for having multiple writers writing to the
+   * same topic concurrently, with each of them using a non-overlapping range of sequence ids.
+   *
+   * @param timeProvider the {@link TimeProvider} for generating timestamp to be used for write timestamp
+   * @param generateNullPayloadEntry {@code true} to generate table entry with {@code null} payload if
+   *                                 a {@link PendingStoreRequest} has an empty iterator of payload.
+   * @param seqIdStart the first sequence id to use for each timestamp (inclusive)
+   * @param seqIdLimit the end of the sequence id range (exclusive)
+   */
+  StoreRequestWriter(TimeProvider timeProvider, boolean generateNullPayloadEntry, int seqIdStart, int seqIdLimit) {
+    if (seqIdStart < 0 || seqIdStart >= seqIdLimit || seqIdLimit > SEQUENCE_ID_LIMIT) {
+      throw new IllegalArgumentException(String.format("Invalid sequence id range [%d, %d)", seqIdStart, seqIdLimit));
+    }
     this.timeProvider = timeProvider;
+    this.seqIdStart = seqIdStart;
+    this.seqIdLimit = seqIdLimit;
+    this.seqId = seqIdStart;
     this.payloadTransformIterator = new PayloadTransformIterator(generateNullPayloadEntry);
   }
 
@@ -120,7 +142,7 @@ abstract class StoreRequestWriter<T> implements Closeable {
    */
   private void incrementSequenceId() {
     seqId++;
-    if (seqId >= SEQUENCE_ID_LIMIT) {
+    if (seqId >= seqIdLimit) {
       updateTimeSequence();
     }
   }
@@ -131,7 +153,7 @@ abstract class StoreRequestWriter<T> implements Closeable {
    */
   private void updateTimeSequence() {
     writeTimestamp = timeProvider.currentTimeMillis();
-    if (writeTimestamp == lastWriteTimestamp && seqId >= SEQUENCE_ID_LIMIT) {
+    if (writeTimestamp == lastWriteTimestamp && seqId >= seqIdLimit) {
       // Force the writeTimestamp to advance if we used up all sequence id.
       Uninterruptibles.sleepUninterruptibly(1L, TimeUnit.MILLISECONDS);
       writeTimestamp = timeProvider.currentTimeMillis();
@@ -139,7 +161,7 @@ abstract class StoreRequestWriter<T> implements Closeable {
 
     if (writeTimestamp != lastWriteTimestamp) {
       lastWriteTimestamp = writeTimestamp;
-      seqId = 0;
+      seqId = seqIdStart;
     }
   }
 
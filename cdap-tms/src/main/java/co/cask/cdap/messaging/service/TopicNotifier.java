@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.service;
+
+import co.cask.cdap.common.utils.TimeProvider;
+import co.cask.cdap.proto.id.TopicId;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Provides per topic {@link Signal} for fetchers to wait for new messages being published to a topic.
+ * Signals are weakly referenced, hence they only stay in memory while there are writers or fetchers using them.
+ */
+@ThreadSafe
+final class TopicNotifier {
+
+  private final LoadingCache<TopicId, Signal> signals;
+
+  /**
+   * Constructor.
+   *
+   * @param timeProvider the {@link TimeProvider} that is used by writers for generating publish timestamps
+   */
+  TopicNotifier(final TimeProvider timeProvider) {
+    this.signals = CacheBuilder.newBuilder().weakValues().build(new CacheLoader<TopicId, Signal>() {
+      @Override
+      public Signal load(TopicId topicId) throws Exception {
+        return new Signal(timeProvider);
+      }
+    });
+  }
+
+  /**
+   * Returns the {@link Signal} for the given topic. The same {@link Signal} instance is returned for the same
+   * topic as long as the {@link Signal} is being referenced.
+   */
+  Signal getSignal(TopicId topicId) {
+    return signals.getUnchecked(topicId);
+  }
+
+  /**
+   * A signal for notifying changes in a topic. Each time the signal is fired, the version is incremented.
+   * Waiters should capture the version before checking for new messages, so that messages published
+   * between the check and the wait won't be missed.
+   *
+   * It also tracks the writes in progress to the topic. When a topic is written by multiple writers concurrently,
+   * messages can become visible out of publish timestamp order. The {@link #getVisibleTimestamp()} method gives
+   * the publish timestamp before which all messages are already persisted. This watermark has two limitations:
+   * <ul>
+   *   <li>It is process local. Only writes done through this process are tracked, hence ordering is only preserved
+   *   when all writes to the topic go through the same messaging service instance.</li>
+   *   <li>It never goes beyond the current time. Messages published in the current millisecond are always held back,
+   *   since more messages can still be published with the same timestamp.</li>
+   * </ul>
+   */
+  static final class Signal {
+
+    private final TimeProvider timeProvider;
+    // Writers that are currently writing, and the time when they started
+    private final Map<Object, Long> inflightWrites;
+    private long version;
+
+    private Signal(TimeProvider timeProvider) {
+      this.timeProvider = timeProvider;
+      this.inflightWrites = new IdentityHashMap<>();
+    }
+
+    /**
+     * Returns the current version of this signal.
+     */
+    synchronized long getVersion() {
+      return version;
+    }
+
+    /**
+     * Fires this signal by incrementing the version and waking up all threads waiting on it.
+     */
+    synchronized void fire() {
+      version++;
+      notifyAll();
+    }
+
+    /**
+     * Marks the start of a write by the given writer. Messages written must have publish timestamps not smaller than
+     * the current time, as given by the {@link TimeProvider}.
+     */
+    synchronized void writeStarted(Object writer) {
+      inflightWrites.put(writer, timeProvider.currentTimeMillis());
+    }
+
+    /**
+     * Marks the completion of a write by the given writer, regardless of whether it succeeded or not.
+     */
+    synchronized void writeCompleted(Object writer) {
+      inflightWrites.remove(writer);
+      // The visible timestamp may have advanced
+      notifyAll();
+    }
+
+    /**
+     * Returns a publish timestamp that all messages with publish timestamp smaller than it are already persisted.
+     * Messages with publish timestamp equal to or larger than it may still be in the process of being written.
+     */
+    synchronized long getVisibleTimestamp() {
+      long timestamp = timeProvider.currentTimeMillis();
+      for (long startTime : inflightWrites.values()) {
+        timestamp = Math.min(timestamp, startTime);
+      }
+      return timestamp;
+    }
+
+    /**
+     * Waits until the version of this signal is different than the given version or the timeout expires.
+     *
+     * @param version the version to compare with
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return {@code true} if the version has changed; {@code false} if the timeout expired
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    synchronized boolean await(long version, long timeout, TimeUnit unit) throws InterruptedException {
+      long remaining = unit.toNanos(timeout);
+      long deadline = System.nanoTime() + remaining;
+      while (this.version == version && remaining > 0) {
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        remaining = deadline - System.nanoTime();
+      }
+      return this.version != version;
+    }
+
+    /**
+     * Waits until the version of this signal is different than the given version, the visible timestamp is larger
+     * than the given timestamp, or the timeout expires.
+     *
+     * @param timestamp the publish timestamp to wait for becoming visible
+     * @param version the version to compare with
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return {@code true} if the version has changed or the timestamp is visible; {@code false} if the timeout expired
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    synchronized boolean awaitVisible(long timestamp, long version,
+                                      long timeout, TimeUnit unit) throws InterruptedException {
+      long remaining = unit.toNanos(timeout);
+      long deadline = System.nanoTime() + remaining;
+      while (this.version == version && getVisibleTimestamp() <= timestamp && remaining > 0) {
+        long waitNanos = remaining;
+        if (inflightWrites.isEmpty()) {
+          // Nothing is written, hence the visible timestamp only waits for the clock to pass the timestamp.
+          // Otherwise it advances when a write completes, which notifies this signal.
+          long waitMillis = timestamp + 1 - timeProvider.currentTimeMillis();
+          waitNanos = Math.min(waitNanos, TimeUnit.MILLISECONDS.toNanos(Math.max(waitMillis, 1L)));
+        }
+        TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+        remaining = deadline - System.nanoTime();
+      }
+      return this.version != version || getVisibleTimestamp() > timestamp;
+    }
+  }
+}
@@ -51,7 +51,8 @@ public abstract class AbstractMessageTable implements MessageTable {
    *
    * @param startKey start row to delete (inclusive)
    * @param stopKey stop row to delete (exclusive)
-   * @param txWritePointer transaction write pointer for messages that are being roll backed
+   * @param txWritePointer transaction write pointer for messages that are being roll backed. Only messages
+   *                       in the key range that were written by the transaction should be updated
    * @throws IOException thrown if there was an error while trying to delete the entries
    */
   protected abstract void rollback(byte[] startKey, byte[] stopKey, byte[] txWritePointer) throws IOException;
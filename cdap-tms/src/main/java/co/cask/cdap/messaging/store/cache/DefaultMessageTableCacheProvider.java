@@ -43,7 +43,7 @@ public class DefaultMessageTableCacheProvider implements MessageTableCacheProvid
   private volatile boolean initialized;
 
   @Inject
-  DefaultMessageTableCacheProvider(CConfiguration cConf, MetricsCollectionService metricsCollectionService) {
+  public DefaultMessageTableCacheProvider(CConfiguration cConf, MetricsCollectionService metricsCollectionService) {
     // Due to circular dependency (see CoreMessagingService), we can't use the MetricsCollectionService in the
     // constructor, hence delay the cache initialization to later time.
     this.cConf = cConf;
@@ -62,9 +62,6 @@ public class DefaultMessageTableCacheProvider implements MessageTableCacheProvid
           long cacheSize = cConf.getInt(Constants.MessagingSystem.CACHE_SIZE_MB) * 1024 * 1024;
           Set<TopicId> systemTopics = MessagingServiceUtils.getSystemTopics(cConf, true);
           if (cacheSize > 0 && !systemTopics.isEmpty()) {
-            MessageTableEntryWeigher weigher = new MessageTableEntryWeigher();
-            MessageTableEntryComparator comparator = new MessageTableEntryComparator();
-
             // Just evenly distributed the cache among all system topics.
             // More sophisticated logic can be employed at runtime to monitor the metrics from MessageCache
             // for each topic and adjust the soft/hard limit accordingly to maximize efficiency in
@@ -75,7 +72,7 @@ public class DefaultMessageTableCacheProvider implements MessageTableCacheProvid
               // In future, it can be adjusted dynamically based on metrics
               MessageCache.Limits limits = new MessageCache.Limits(hardLimit / 2, hardLimit * 7 / 10, hardLimit);
               for (TopicId topic : systemTopics) {
-                caches.put(topic, new MessageCache<>(comparator, weigher, limits,
+                caches.put(topic, createMessageCache(topic, limits,
                                                      createMetricsContext(cConf, topic, metricsCollectionService)));
               }
             }
@@ -90,6 +87,20 @@ public class DefaultMessageTableCacheProvider implements MessageTableCacheProvid
     return topicMessageCaches.get(topicId);
   }
 
+  /**
+   * Creates a {@link MessageCache} for the given topic. By default, entries are cached on heap.
+   *
+   * @param topicId the topic id
+   * @param limits the limits of the cache
+   * @param metricsContext the {@link MetricsContext} for the cache to emit metrics
+   * @return a new {@link MessageCache}
+   */
+  protected MessageCache<MessageTable.Entry> createMessageCache(TopicId topicId, MessageCache.Limits limits,
+                                                                MetricsContext metricsContext) {
+    return new MessageCache<>(new MessageTableEntryComparator(), new MessageTableEntryWeigher(),
+                              limits, metricsContext);
+  }
+
   /**
    * Creates a {@link MetricsContext} for {@link MessageCache} to use for the given topic.
    */
@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.store.cache;
+
+import co.cask.cdap.api.metrics.MetricsCollectionService;
+import co.cask.cdap.api.metrics.MetricsContext;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.messaging.cache.MessageCache;
+import co.cask.cdap.messaging.store.MessageTable;
+import co.cask.cdap.proto.id.TopicId;
+import com.google.common.primitives.Ints;
+import com.google.inject.Inject;
+
+/**
+ * A {@link MessageTableCacheProvider} that caches entries in off-heap memory using
+ * {@link OffHeapMessageTableEntryStore}. The cache limits are the same as the {@link DefaultMessageTableCacheProvider}.
+ */
+public class OffHeapMessageTableCacheProvider extends DefaultMessageTableCacheProvider {
+
+  private static final int MIN_SEGMENT_SIZE = 4 * 1024;
+  private static final int MAX_SEGMENT_SIZE = 1024 * 1024;
+
+  @Inject
+  public OffHeapMessageTableCacheProvider(CConfiguration cConf, MetricsCollectionService metricsCollectionService) {
+    super(cConf, metricsCollectionService);
+  }
+
+  @Override
+  protected MessageCache<MessageTable.Entry> createMessageCache(TopicId topicId, MessageCache.Limits limits,
+                                                                MetricsContext metricsContext) {
+    return new MessageCache<>(new MessageTableEntryComparator(),
+                              new OffHeapMessageTableEntryStore(topicId, getSegmentSize(limits)),
+                              limits, metricsContext);
+  }
+
+  /**
+   * Returns the segment size based on the cache limits. Segments are sized such that weight reduction
+   * frees up memory in reasonable granularity.
+   */
+  private static int getSegmentSize(MessageCache.Limits limits) {
+    long size = limits.getHardLimit() / 16;
+    return Ints.checkedCast(Math.min(MAX_SEGMENT_SIZE, Math.max(MIN_SEGMENT_SIZE, size)));
+  }
+}
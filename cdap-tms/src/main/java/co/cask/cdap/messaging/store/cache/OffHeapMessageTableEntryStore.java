@@ -0,0 +1,362 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.store.cache;
+
+import co.cask.cdap.messaging.cache.MessageCache;
+import co.cask.cdap.messaging.store.MessageTable;
+import co.cask.cdap.proto.id.TopicId;
+import com.google.common.collect.AbstractIterator;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A {@link MessageCache.EntryStore} for {@link MessageTable.Entry} of a single topic that stores entries in
+ * off-heap memory. It is used to avoid having a large number of long living objects on heap, which slows down GC.
+ *
+ * Entries are encoded into a ring of direct {@link ByteBuffer} segments in the order they are appended.
+ * A compact index of primitive arrays, ordered by (generation, publish timestamp, sequence id), is maintained
+ * on heap for locating entries. Since entries are always appended in increasing order and removed from the head,
+ * the index is a ring buffer that can be binary searched.
+ *
+ * Each entry in a segment is encoded as:
+ *
+ * <pre>
+ * {@code
+ * flags (1 byte) transaction-write-pointer (8 bytes) payload-length (4 bytes, -1 for null) payload (bytes)
+ * }
+ * </pre>
+ */
+@ThreadSafe
+final class OffHeapMessageTableEntryStore implements MessageCache.EntryStore<MessageTable.Entry> {
+
+  private static final int FLAG_TRANSACTIONAL = 1;
+  private static final int FLAG_ROLLBACK = 2;
+
+  // Encoded size of each entry excluding the payload
+  private static final int ENTRY_HEADER_SIZE = 1 + 8 + 4;
+
+  // Approximated size of the on-heap index per entry (generation, timestamp, sequence id, segment, offset, weight)
+  private static final int INDEX_ENTRY_SIZE = 4 + 8 + 2 + 8 + 4 + 4;
+
+  private static final int INITIAL_INDEX_CAPACITY = 1024;
+
+  private final TopicId topicId;
+  private final int segmentSize;
+  private final Deque<Segment> segments;
+
+  // The index, as ring buffers indexed by the sequence number of the entry, masked by the capacity.
+  private int[] generations;
+  private long[] publishTimestamps;
+  private short[] sequenceIds;
+  private Segment[] entrySegments;
+  private int[] offsets;
+  private int[] weights;
+
+  // Sequence number of the first entry (inclusive) and the last entry (exclusive) in the store
+  private long head;
+  private long tail;
+
+  // One empty segment is kept for reuse to avoid repeatedly allocating direct buffers.
+  private Segment freeSegment;
+
+  /**
+   * Constructor.
+   *
+   * @param topicId the topic that all entries in this store belong to
+   * @param segmentSize the size in bytes of each off-heap segment
+   */
+  OffHeapMessageTableEntryStore(TopicId topicId, int segmentSize) {
+    if (segmentSize <= ENTRY_HEADER_SIZE) {
+      throw new IllegalArgumentException("Segment size must be larger than " + ENTRY_HEADER_SIZE);
+    }
+    this.topicId = topicId;
+    this.segmentSize = segmentSize;
+    this.segments = new ArrayDeque<>();
+    allocateIndex(INITIAL_INDEX_CAPACITY);
+  }
+
+  @Override
+  public synchronized int append(MessageTable.Entry entry) {
+    byte[] payload = entry.getPayload();
+    int size = ENTRY_HEADER_SIZE + (payload == null ? 0 : payload.length);
+
+    Segment segment = segments.peekLast();
+    if (segment == null || segment.buffer.remaining() < size) {
+      segment = newSegment(size);
+      segments.addLast(segment);
+    }
+
+    int offset = segment.buffer.position();
+    segment.buffer.put(getFlags(entry, false));
+    segment.buffer.putLong(entry.isTransactional() ? entry.getTransactionWritePointer() : -1L);
+    if (payload == null) {
+      segment.buffer.putInt(-1);
+    } else {
+      segment.buffer.putInt(payload.length);
+      segment.buffer.put(payload);
+    }
+    segment.entries++;
+
+    if (tail - head == generations.length) {
+      growIndex();
+    }
+    int idx = index(tail);
+    generations[idx] = entry.getGeneration();
+    publishTimestamps[idx] = entry.getPublishTimestamp();
+    sequenceIds[idx] = entry.getSequenceId();
+    entrySegments[idx] = segment;
+    offsets[idx] = offset;
+    weights[idx] = size + INDEX_ENTRY_SIZE;
+    tail++;
+
+    return weights[idx];
+  }
+
+  @Override
+  public synchronized boolean isEmpty() {
+    return head == tail;
+  }
+
+  @Nullable
+  @Override
+  public synchronized MessageTable.Entry first() {
+    return head == tail ? null : decode(head);
+  }
+
+  @Nullable
+  @Override
+  public synchronized MessageTable.Entry last() {
+    return head == tail ? null : decode(tail - 1);
+  }
+
+  @Override
+  public synchronized int firstWeight() {
+    checkNotEmpty();
+    return weights[index(head)];
+  }
+
+  @Override
+  public synchronized int removeFirst() {
+    checkNotEmpty();
+    int idx = index(head);
+    Segment segment = entrySegments[idx];
+    int weight = weights[idx];
+    entrySegments[idx] = null;
+    head++;
+
+    // Entries are removed in the same order as they were appended, hence the segment must be the head segment
+    if (--segment.entries == 0) {
+      segments.pollFirst();
+      segment.buffer.clear();
+      if (segment.buffer.capacity() == segmentSize) {
+        freeSegment = segment;
+      }
+    }
+    return weight;
+  }
+
+  @Override
+  public Iterator<MessageTable.Entry> tailIterator(MessageTable.Entry startEntry, final boolean inclusive) {
+    final long startSeq;
+    synchronized (this) {
+      startSeq = search(startEntry, inclusive);
+    }
+
+    return new AbstractIterator<MessageTable.Entry>() {
+
+      private long seq = startSeq;
+
+      @Override
+      protected MessageTable.Entry computeNext() {
+        synchronized (OffHeapMessageTableEntryStore.this) {
+          // Entries could have been removed. If that's the case, continue from the first entry.
+          seq = Math.max(seq, head);
+          if (seq >= tail) {
+            return endOfData();
+          }
+          return decode(seq++);
+        }
+      }
+    };
+  }
+
+  @Override
+  public synchronized void updateEntries(MessageTable.Entry startEntry, MessageTable.Entry endEntry,
+                                         MessageCache.EntryUpdater<MessageTable.Entry> updater) {
+    long endSeq = search(endEntry, false);
+    for (long seq = search(startEntry, true); seq < endSeq; seq++) {
+      MessageTable.Entry entry = decode(seq);
+      updater.updateEntry(entry);
+
+      // Only the flags and the transaction write pointer can be updated
+      int idx = index(seq);
+      if (compare(idx, entry) != 0) {
+        // This shouldn't happen, unless there is bug in the caller.
+        throw new IllegalStateException("Entry order should not be altered after update.");
+      }
+      ByteBuffer buffer = entrySegments[idx].buffer;
+      int offset = offsets[idx];
+      boolean rollback = entry instanceof CachingMessageTable.CacheMessageTableEntry
+        && ((CachingMessageTable.CacheMessageTableEntry) entry).isRollback();
+      buffer.put(offset, getFlags(entry, rollback));
+      buffer.putLong(offset + 1, entry.isTransactional() ? entry.getTransactionWritePointer() : -1L);
+    }
+  }
+
+  /**
+   * Returns a segment that can hold at least the given number of bytes.
+   */
+  private Segment newSegment(int size) {
+    if (size <= segmentSize && freeSegment != null) {
+      Segment segment = freeSegment;
+      freeSegment = null;
+      return segment;
+    }
+    return new Segment(ByteBuffer.allocateDirect(Math.max(segmentSize, size)));
+  }
+
+  /**
+   * Decodes the entry with the given sequence number.
+   */
+  private MessageTable.Entry decode(long seq) {
+    int idx = index(seq);
+    Segment segment = entrySegments[idx];
+    ByteBuffer buffer = segment.buffer;
+    int offset = offsets[idx];
+
+    byte flags = buffer.get(offset);
+    long transactionWritePointer = buffer.getLong(offset + 1);
+    int payloadLength = buffer.getInt(offset + 9);
+    byte[] payload = null;
+    if (payloadLength >= 0) {
+      payload = new byte[payloadLength];
+      segment.readBuffer.position(offset + ENTRY_HEADER_SIZE);
+      segment.readBuffer.get(payload);
+    }
+
+    return new CachingMessageTable.CacheMessageTableEntry(topicId, generations[idx],
+                                                          (flags & FLAG_TRANSACTIONAL) != 0, transactionWritePointer,
+                                                          payload, publishTimestamps[idx], sequenceIds[idx],
+                                                          (flags & FLAG_ROLLBACK) != 0);
+  }
+
+  /**
+   * Binary searches for the sequence number of the first entry that is larger than (or equal to if inclusive)
+   * the given entry. If there is no such entry, the tail sequence number is returned.
+   */
+  private long search(MessageTable.Entry entry, boolean inclusive) {
+    long low = head;
+    long high = tail;
+    while (low < high) {
+      long mid = (low + high) >>> 1;
+      int cmp = compare(index(mid), entry);
+      if (cmp < 0 || (cmp == 0 && !inclusive)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Compares the entry at the given index position with the given entry, using the same ordering
+   * as the {@link MessageTableEntryComparator}.
+   */
+  private int compare(int idx, MessageTable.Entry entry) {
+    int cmp = Integer.compare(generations[idx], entry.getGeneration());
+    if (cmp != 0) {
+      return cmp;
+    }
+    cmp = Long.compare(publishTimestamps[idx], entry.getPublishTimestamp());
+    if (cmp != 0) {
+      return cmp;
+    }
+    return Integer.compare(sequenceIds[idx] & 0xFFFF, entry.getSequenceId() & 0xFFFF);
+  }
+
+  private byte getFlags(MessageTable.Entry entry, boolean rollback) {
+    int flags = entry.isTransactional() ? FLAG_TRANSACTIONAL : 0;
+    return (byte) (rollback ? flags | FLAG_ROLLBACK : flags);
+  }
+
+  private int index(long seq) {
+    return (int) (seq & (generations.length - 1));
+  }
+
+  private void checkNotEmpty() {
+    if (head == tail) {
+      throw new NoSuchElementException("Entry store is empty");
+    }
+  }
+
+  /**
+   * Doubles the capacity of the index. Entries keep their sequence numbers.
+   */
+  private void growIndex() {
+    int[] oldGenerations = generations;
+    long[] oldPublishTimestamps = publishTimestamps;
+    short[] oldSequenceIds = sequenceIds;
+    Segment[] oldEntrySegments = entrySegments;
+    int[] oldOffsets = offsets;
+    int[] oldWeights = weights;
+    int oldMask = oldGenerations.length - 1;
+
+    allocateIndex(oldGenerations.length * 2);
+    for (long seq = head; seq < tail; seq++) {
+      int oldIdx = (int) (seq & oldMask);
+      int idx = index(seq);
+      generations[idx] = oldGenerations[oldIdx];
+      publishTimestamps[idx] = oldPublishTimestamps[oldIdx];
+      sequenceIds[idx] = oldSequenceIds[oldIdx];
+      entrySegments[idx] = oldEntrySegments[oldIdx];
+      offsets[idx] = oldOffsets[oldIdx];
+      weights[idx] = oldWeights[oldIdx];
+    }
+  }
+
+  private void allocateIndex(int capacity) {
+    generations = new int[capacity];
+    publishTimestamps = new long[capacity];
+    sequenceIds = new short[capacity];
+    entrySegments = new Segment[capacity];
+    offsets = new int[capacity];
+    weights = new int[capacity];
+  }
+
+  /**
+   * An off-heap buffer that entries are appended to, together with the number of entries in it that are
+   * not yet removed. The position of the buffer is the position for appending the next entry, while
+   * the read buffer shares the same content and is used for reading payloads.
+   */
+  private static final class Segment {
+    private final ByteBuffer buffer;
+    private final ByteBuffer readBuffer;
+    private int entries;
+
+    private Segment(ByteBuffer buffer) {
+      this.buffer = buffer;
+      this.readBuffer = buffer.duplicate();
+    }
+  }
+}
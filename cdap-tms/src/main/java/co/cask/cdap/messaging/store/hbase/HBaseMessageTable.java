@@ -16,6 +16,7 @@
 
 package co.cask.cdap.messaging.store.hbase;
 
+import co.cask.cdap.api.common.Bytes;
 import co.cask.cdap.api.dataset.lib.AbstractCloseableIterator;
 import co.cask.cdap.api.dataset.lib.CloseableIterator;
 import co.cask.cdap.data2.util.hbase.HBaseTableUtil;
@@ -153,8 +154,14 @@ final class HBaseMessageTable extends AbstractMessageTable {
       .build();
 
     List<Put> batchPuts = new ArrayList<>();
+    byte[] rollbackTxPtr = Bytes.toBytes(-1 * Bytes.toLong(txWritePtr));
     try (ResultScanner scanner = DistributedScanner.create(hTable, scan, rowKeyDistributor, scanExecutor)) {
       for (Result result : scanner) {
+        // Only rollback messages written by the transaction, since the range can contain messages written
+        // concurrently by other writers of a partitioned topic.
+        if (!Bytes.equals(rollbackTxPtr, result.getValue(columnFamily, TX_COL))) {
+          continue;
+        }
         // No need to turn the key back to the original row key because we want to put with the actual row key
         PutBuilder putBuilder = tableUtil.buildPut(result.getRow());
         putBuilder.add(columnFamily, TX_COL, txWritePtr);
@@ -118,11 +118,17 @@ final class LevelDBMessageTable extends AbstractMessageTable {
   @Override
   protected void rollback(byte[] startKey, byte[] stopKey, byte[] txWritePtr) throws IOException {
     WriteBatch writeBatch = levelDB.createWriteBatch();
+    byte[] rollbackTxPtr = Bytes.toBytes(-1 * Bytes.toLong(txWritePtr));
     try (CloseableIterator<Map.Entry<byte[], byte[]>> rowIterator = new DBScanIterator(levelDB, startKey, stopKey)) {
       while (rowIterator.hasNext()) {
         Map.Entry<byte[], byte[]> rowValue = rowIterator.next();
         byte[] value = rowValue.getValue();
         Map<String, byte[]> columns = decodeValue(value);
+        // Only rollback messages written by the transaction, since the range can contain messages written
+        // concurrently by other writers of a partitioned topic.
+        if (!Bytes.equals(rollbackTxPtr, columns.get(TX_COL))) {
+          continue;
+        }
         writeBatch.put(rowValue.getKey(), encodeValue(txWritePtr, columns.get(PAYLOAD_COL)));
       }
     }
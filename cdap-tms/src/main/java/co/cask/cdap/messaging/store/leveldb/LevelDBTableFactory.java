@@ -28,6 +28,7 @@ import co.cask.cdap.messaging.store.TableFactory;
 import co.cask.cdap.proto.id.NamespaceId;
 import com.google.inject.Inject;
 import org.apache.twill.common.Threads;
+import org.iq80.leveldb.DB;
 import org.iq80.leveldb.Options;
 import org.iq80.leveldb.impl.Iq80DBFactory;
 import org.slf4j.Logger;
@@ -52,6 +53,9 @@ public final class LevelDBTableFactory implements TableFactory {
   private final ScheduledExecutorService executor;
 
   private LevelDBMetadataTable metadataTable;
+  private DB messageDB;
+  private DB payloadDB;
+  // Table instances used for data cleanup
   private LevelDBMessageTable messageTable;
   private LevelDBPayloadTable payloadTable;
 
@@ -84,26 +88,28 @@ public final class LevelDBTableFactory implements TableFactory {
 
   @Override
   public synchronized MessageTable createMessageTable(String tableName) throws IOException {
-    if (messageTable != null) {
-      return messageTable;
+    // A new table instance is returned for each call, since table instances are not thread safe for writes,
+    // while multiple writers can write concurrently, such as the writers of a partitioned topic.
+    // The LevelDB itself is opened once and shared.
+    if (messageTable == null) {
+      File dbPath = ensureDirExists(new File(baseDir, NamespaceId.SYSTEM.getNamespace() + "." + tableName));
+      messageDB = LEVEL_DB_FACTORY.open(dbPath, dbOptions);
+      messageTable = new LevelDBMessageTable(messageDB);
+      LOG.info("Messaging message table created at {}", dbPath);
     }
-
-    File dbPath = ensureDirExists(new File(baseDir, NamespaceId.SYSTEM.getNamespace() + "." + tableName));
-    messageTable = new LevelDBMessageTable(LEVEL_DB_FACTORY.open(dbPath, dbOptions));
-    LOG.info("Messaging message table created at {}", dbPath);
-    return messageTable;
+    return new LevelDBMessageTable(messageDB);
   }
 
   @Override
   public synchronized PayloadTable createPayloadTable(String tableName) throws IOException {
-    if (payloadTable != null) {
-      return payloadTable;
+    // A new table instance is returned for each call for the same reason as the message table
+    if (payloadTable == null) {
+      File dbPath = ensureDirExists(new File(baseDir, NamespaceId.SYSTEM.getNamespace() + "." + tableName));
+      payloadDB = LEVEL_DB_FACTORY.open(dbPath, dbOptions);
+      payloadTable = new LevelDBPayloadTable(payloadDB);
+      LOG.info("Messaging payload table created at {}", dbPath);
     }
-
-    File dbPath = ensureDirExists(new File(baseDir, NamespaceId.SYSTEM.getNamespace() + "." + tableName));
-    payloadTable = new LevelDBPayloadTable(LEVEL_DB_FACTORY.open(dbPath, dbOptions));
-    LOG.info("Messaging payload table created at {}", dbPath);
-    return payloadTable;
+    return new LevelDBPayloadTable(payloadDB);
   }
 
   private File ensureDirExists(File dir) throws IOException {
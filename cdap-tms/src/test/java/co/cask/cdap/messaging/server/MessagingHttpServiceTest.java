@@ -26,6 +26,7 @@ import co.cask.cdap.common.conf.Constants;
 import co.cask.cdap.common.guice.ConfigModule;
 import co.cask.cdap.common.guice.DiscoveryRuntimeModule;
 import co.cask.cdap.common.metrics.NoOpMetricsCollectionService;
+import co.cask.cdap.messaging.MessageFetcher;
 import co.cask.cdap.messaging.MessagingService;
 import co.cask.cdap.messaging.RollbackDetail;
 import co.cask.cdap.messaging.TopicMetadata;
@@ -36,6 +37,7 @@ import co.cask.cdap.messaging.data.RawMessage;
 import co.cask.cdap.messaging.guice.MessagingServerRuntimeModule;
 import co.cask.cdap.proto.id.NamespaceId;
 import co.cask.cdap.proto.id.TopicId;
+import com.google.common.base.Stopwatch;
 import com.google.common.base.Strings;
 import com.google.common.collect.Iterators;
 import com.google.inject.AbstractModule;
@@ -57,6 +59,11 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Tests for {@link MessagingHttpService}.
@@ -69,6 +76,7 @@ public class MessagingHttpServiceTest {
   private static CConfiguration cConf;
   private static MessagingHttpService httpService;
   private static MessagingService client;
+  private static MessagingService avroClient;
 
   @BeforeClass
   public static void init() throws IOException {
@@ -94,6 +102,7 @@ public class MessagingHttpServiceTest {
     httpService.startAndWait();
 
     client = new ClientMessagingService(injector.getInstance(DiscoveryServiceClient.class));
+    avroClient = new ClientMessagingService(injector.getInstance(DiscoveryServiceClient.class), false);
   }
 
   @AfterClass
@@ -421,17 +430,144 @@ public class MessagingHttpServiceTest {
       client.publish(StoreRequestBuilder.of(topicId).addPayloads(payload).build());
     }
 
-    // Fetch messages. All of them should be fetched correctly
-    List<RawMessage> messages = new ArrayList<>();
-    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId).fetch()) {
-      Iterators.addAll(messages, iterator);
+    // Fetch messages with both the binary and the avro format. All of them should be fetched correctly
+    for (MessagingService fetchClient : Arrays.asList(client, avroClient)) {
+      List<RawMessage> messages = new ArrayList<>();
+      try (CloseableIterator<RawMessage> iterator = fetchClient.prepareFetch(topicId).fetch()) {
+        Iterators.addAll(messages, iterator);
+      }
+      Assert.assertEquals(10, messages.size());
+      for (int i = 0; i < 10; i++) {
+        RawMessage message = messages.get(i);
+        Assert.assertEquals(payloadSize, message.getPayload().length);
+        String payload = Strings.repeat(Integer.toString(i), payloadSize);
+        Assert.assertEquals(payload, Bytes.toString(message.getPayload()));
+      }
     }
-    Assert.assertEquals(10, messages.size());
-    for (int i = 0; i < 10; i++) {
-      RawMessage message = messages.get(i);
-      Assert.assertEquals(payloadSize, message.getPayload().length);
-      String payload = Strings.repeat(Integer.toString(i), payloadSize);
-      Assert.assertEquals(payload, Bytes.toString(message.getPayload()));
+
+    // Fetching from an empty range should work with both formats
+    for (MessagingService fetchClient : Arrays.asList(client, avroClient)) {
+      try (CloseableIterator<RawMessage> iterator = fetchClient.prepareFetch(topicId)
+        .setStartTime(System.currentTimeMillis() + 100000L).fetch()) {
+        Assert.assertFalse(iterator.hasNext());
+      }
+    }
+
+    client.deleteTopic(topicId);
+  }
+
+  @Test
+  public void testLongPoll() throws Exception {
+    final TopicId topicId = new NamespaceId("ns1").topic("testLongPoll");
+    client.createTopic(new TopicMetadata(topicId));
+
+    // Fetching from an empty topic with poll timeout should wait until the timeout expires
+    long startTime = System.currentTimeMillis();
+    Stopwatch stopwatch = new Stopwatch().start();
+    try (CloseableIterator<RawMessage> iterator = client.prepareFetch(topicId)
+      .setStartTime(startTime).setPollTimeout(500, TimeUnit.MILLISECONDS).fetch()) {
+      Assert.assertFalse(iterator.hasNext());
+    }
+    Assert.assertTrue(stopwatch.elapsedTime(TimeUnit.MILLISECONDS) >= 500L);
+
+    // Publish a message after some delay. Fetches that are waiting should return as soon as it is published.
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    try {
+      for (MessagingService fetchClient : Arrays.asList(client, avroClient)) {
+        final String payload = "message-" + fetchClient.hashCode();
+        executor.schedule(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            client.publish(StoreRequestBuilder.of(topicId).addPayloads(payload).build());
+            return null;
+          }
+        }, 200, TimeUnit.MILLISECONDS);
+
+        stopwatch = new Stopwatch().start();
+        List<RawMessage> messages = new ArrayList<>();
+        try (CloseableIterator<RawMessage> iterator = fetchClient.prepareFetch(topicId)
+          .setStartTime(startTime).setPollTimeout(20, TimeUnit.SECONDS).fetch()) {
+          Iterators.addAll(messages, iterator);
+        }
+        Assert.assertTrue(stopwatch.elapsedTime(TimeUnit.SECONDS) < 20L);
+        Assert.assertEquals(1, messages.size());
+        Assert.assertEquals(payload, Bytes.toString(messages.get(0).getPayload()));
+
+        // Fetch after the message just fetched in the next round
+        startTime = new MessageId(messages.get(0).getId()).getPublishTimestamp() + 1;
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    client.deleteTopic(topicId);
+  }
+
+  @Test
+  public void testPartitionedTopic() throws Exception {
+    final TopicId topicId = new NamespaceId("ns1").topic("testPartitionedTopic");
+    client.createTopic(new TopicMetadata(topicId, TopicMetadata.PARTITIONS_KEY, "4"));
+    Assert.assertEquals(4, client.getTopic(topicId).getPartitions());
+
+    // The number of partitions cannot be changed
+    try {
+      client.updateTopic(new TopicMetadata(topicId, TopicMetadata.PARTITIONS_KEY, "2"));
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+
+    // Publish from multiple threads concurrently, while fetching from the last message id fetched.
+    final int publishers = 4;
+    final int messagesPerPublisher = 50;
+    ExecutorService executor = Executors.newFixedThreadPool(publishers);
+    try {
+      for (int i = 0; i < publishers; i++) {
+        final int publisher = i;
+        executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            for (int j = 0; j < messagesPerPublisher; j++) {
+              client.publish(StoreRequestBuilder.of(topicId).addPayloads(publisher + ":" + j).build());
+            }
+            return null;
+          }
+        });
+      }
+
+      // All messages should be fetched exactly once, in strictly increasing message id order,
+      // and in the order they were published by each publisher
+      Set<String> payloads = new HashSet<>();
+      int[] lastPublished = new int[publishers];
+      Arrays.fill(lastPublished, -1);
+      byte[] lastId = null;
+      Stopwatch stopwatch = new Stopwatch().start();
+      while (payloads.size() < publishers * messagesPerPublisher && stopwatch.elapsedTime(TimeUnit.SECONDS) < 30L) {
+        MessageFetcher fetcher = client.prepareFetch(topicId).setPollTimeout(1, TimeUnit.SECONDS);
+        if (lastId != null) {
+          fetcher.setStartMessage(lastId, false);
+        }
+        try (CloseableIterator<RawMessage> iterator = fetcher.fetch()) {
+          while (iterator.hasNext()) {
+            RawMessage message = iterator.next();
+            if (lastId != null) {
+              Assert.assertTrue(Bytes.compareTo(lastId, message.getId()) < 0);
+            }
+            lastId = message.getId();
+            String payload = Bytes.toString(message.getPayload());
+            Assert.assertTrue(payloads.add(payload));
+
+            String[] parts = payload.split(":");
+            int publisher = Integer.parseInt(parts[0]);
+            int published = Integer.parseInt(parts[1]);
+            Assert.assertEquals(lastPublished[publisher] + 1, published);
+            lastPublished[publisher] = published;
+          }
+        }
+      }
+      Assert.assertEquals(publishers * messagesPerPublisher, payloads.size());
+    } finally {
+      executor.shutdownNow();
     }
 
     client.deleteTopic(topicId);
@@ -37,6 +37,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -46,6 +47,7 @@ import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 
 /**
@@ -268,6 +270,71 @@ public class ConcurrentMessageWriterTest {
     }
   }
 
+  @Test
+  public void testMaxBatchSize() throws InterruptedException, IOException {
+    int threadCount = 10;
+    final int requestPerThread = 20;
+    final int maxBatchSize = 3;
+
+    final TopicId topicId = NamespaceId.DEFAULT.topic("t");
+    final TopicMetadata metadata = new TopicMetadata(topicId, new HashMap<String, String>(), 1);
+    TestStoreRequestWriter testWriter = new TestStoreRequestWriter(new TimeProvider.IncrementalTimeProvider(), 5L);
+
+    // Records the max batch size and the number of batches being written
+    final AtomicInteger maxBatch = new AtomicInteger();
+    final AtomicInteger batchCount = new AtomicInteger();
+    final ConcurrentMessageWriter writer = new ConcurrentMessageWriter(testWriter, new MetricsCollector() {
+      @Override
+      public void increment(String metricName, long value) {
+        // no-op
+      }
+
+      @Override
+      public void gauge(String metricName, long value) {
+        if ("persist.batch.size".equals(metricName)) {
+          batchCount.incrementAndGet();
+          int size = (int) value;
+          int max = maxBatch.get();
+          while (size > max && !maxBatch.compareAndSet(max, size)) {
+            max = maxBatch.get();
+          }
+        }
+      }
+    }, maxBatchSize, 10L, null);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    for (int i = 0; i < threadCount; i++) {
+      executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < requestPerThread; i++) {
+              writer.persist(new TestStoreRequest(topicId, Collections.singletonList(Integer.toString(i))), metadata);
+            }
+          } catch (Exception e) {
+            LOG.error("Exception raised when persisting.", e);
+          }
+        }
+      });
+    }
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    writer.close();
+
+    // All messages should be written, with no more than max batch size requests per write
+    Assert.assertEquals(threadCount * requestPerThread, testWriter.getMessages().get(topicId).size());
+    Assert.assertTrue(maxBatch.get() <= maxBatchSize);
+    Assert.assertTrue(batchCount.get() >= threadCount * requestPerThread / maxBatchSize);
+
+    // Persisting to a closed writer should fail
+    try {
+      writer.persist(new TestStoreRequest(topicId, Collections.singletonList("x")), metadata);
+      Assert.fail("Expected IOException when persisting to a closed writer");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
   /**
    * A {@link StoreRequestWriter} that turns all payloads to {@link RawMessage} and stores it in a List.
    */
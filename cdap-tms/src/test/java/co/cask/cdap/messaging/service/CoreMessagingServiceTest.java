@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.messaging.service;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.dataset.lib.CloseableIterator;
+import co.cask.cdap.common.conf.CConfiguration;
+import co.cask.cdap.common.conf.Constants;
+import co.cask.cdap.common.guice.ConfigModule;
+import co.cask.cdap.common.metrics.NoOpMetricsCollectionService;
+import co.cask.cdap.common.utils.TimeProvider;
+import co.cask.cdap.messaging.TopicMetadata;
+import co.cask.cdap.messaging.client.StoreRequestBuilder;
+import co.cask.cdap.messaging.data.MessageId;
+import co.cask.cdap.messaging.data.RawMessage;
+import co.cask.cdap.messaging.store.TableFactory;
+import co.cask.cdap.messaging.store.leveldb.LevelDBTableFactory;
+import co.cask.cdap.proto.id.NamespaceId;
+import co.cask.cdap.proto.id.TopicId;
+import com.google.inject.Guice;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit-test for {@link CoreMessagingService}.
+ */
+public class CoreMessagingServiceTest {
+
+  @ClassRule
+  public static final TemporaryFolder TEMP_FOLDER = new TemporaryFolder();
+
+  @Test
+  public void testPartitionedPublishOrder() throws Exception {
+    CConfiguration cConf = CConfiguration.create();
+    cConf.set(Constants.CFG_LOCAL_DATA_DIR, TEMP_FOLDER.newFolder().getAbsolutePath());
+    TableFactory tableFactory = Guice.createInjector(new ConfigModule(cConf)).getInstance(LevelDBTableFactory.class);
+
+    // All messages are published within the same millisecond
+    final long publishTime = System.currentTimeMillis();
+    final long[] currentTime = { publishTime };
+    TimeProvider timeProvider = new TimeProvider() {
+      @Override
+      public long currentTimeMillis() {
+        synchronized (currentTime) {
+          return currentTime[0];
+        }
+      }
+    };
+
+    final CoreMessagingService messagingService = new CoreMessagingService(cConf, tableFactory, timeProvider,
+                                                                           new NoOpMetricsCollectionService());
+    messagingService.startAndWait();
+    try {
+      final TopicId topicId = NamespaceId.DEFAULT.topic("testPartitionedPublishOrder");
+      messagingService.createTopic(new TopicMetadata(topicId, TopicMetadata.PARTITIONS_KEY, "4"));
+
+      // Publish from multiple publishers concurrently, each of them publishing one message at a time
+      final int publishers = 8;
+      final int messagesPerPublisher = 100;
+      ExecutorService executor = Executors.newFixedThreadPool(publishers);
+      try {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < publishers; i++) {
+          final int publisher = i;
+          futures.add(executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+              for (int j = 0; j < messagesPerPublisher; j++) {
+                messagingService.publish(StoreRequestBuilder.of(topicId).addPayloads(publisher + ":" + j).build());
+              }
+              return null;
+            }
+          }));
+        }
+        for (Future<?> future : futures) {
+          future.get(30, TimeUnit.SECONDS);
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+
+      // Let the time pass the publish time, so that the messages become visible to fetches
+      synchronized (currentTime) {
+        currentTime[0]++;
+      }
+
+      // Messages of each publisher should be fetched in the order they were published
+      int[] lastPublished = new int[publishers];
+      Arrays.fill(lastPublished, -1);
+      int count = 0;
+      try (CloseableIterator<RawMessage> iterator = messagingService.prepareFetch(topicId).fetch()) {
+        while (iterator.hasNext()) {
+          RawMessage message = iterator.next();
+          Assert.assertEquals(publishTime, new MessageId(message.getId()).getPublishTimestamp());
+
+          String[] parts = Bytes.toString(message.getPayload()).split(":");
+          int publisher = Integer.parseInt(parts[0]);
+          int published = Integer.parseInt(parts[1]);
+          Assert.assertEquals(lastPublished[publisher] + 1, published);
+          lastPublished[publisher] = published;
+          count++;
+        }
+      }
+      Assert.assertEquals(publishers * messagesPerPublisher, count);
+    } finally {
+      messagingService.stopAndWait();
+    }
+  }
+}
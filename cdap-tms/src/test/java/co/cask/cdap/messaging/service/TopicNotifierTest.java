@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package co.cask.cdap.messaging.service;
+
+import co.cask.cdap.common.utils.TimeProvider;
+import co.cask.cdap.proto.id.NamespaceId;
+import com.google.common.base.Stopwatch;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit-test for {@link TopicNotifier}.
+ */
+public class TopicNotifierTest {
+
+  @Test
+  public void testAwaitVisible() throws Exception {
+    TopicNotifier notifier = new TopicNotifier(TimeProvider.SYSTEM_TIME);
+    final TopicNotifier.Signal signal = notifier.getSignal(NamespaceId.DEFAULT.topic("topic"));
+
+    // Without writes in progress, only the current millisecond is held back
+    long timestamp = System.currentTimeMillis();
+    Assert.assertTrue(signal.getVisibleTimestamp() >= timestamp);
+    Assert.assertTrue(signal.awaitVisible(timestamp, signal.getVersion(), 10, TimeUnit.SECONDS));
+    Assert.assertTrue(signal.getVisibleTimestamp() > timestamp);
+
+    // A write in progress holds back the messages published after it started
+    final Object writer = new Object();
+    signal.writeStarted(writer);
+    timestamp = System.currentTimeMillis();
+    Assert.assertFalse(signal.awaitVisible(timestamp, signal.getVersion(), 100, TimeUnit.MILLISECONDS));
+    Assert.assertTrue(signal.getVisibleTimestamp() <= timestamp);
+
+    // Completing the write wakes up the waiter, even though no new message is published
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    try {
+      executor.schedule(new Runnable() {
+        @Override
+        public void run() {
+          signal.writeCompleted(writer);
+        }
+      }, 200, TimeUnit.MILLISECONDS);
+
+      long version = signal.getVersion();
+      Stopwatch stopwatch = new Stopwatch().start();
+      Assert.assertTrue(signal.awaitVisible(timestamp, version, 10, TimeUnit.SECONDS));
+      Assert.assertTrue(stopwatch.elapsedTime(TimeUnit.SECONDS) < 10L);
+      Assert.assertEquals(version, signal.getVersion());
+      Assert.assertTrue(signal.getVisibleTimestamp() > timestamp);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testAwaitVisibleFired() throws Exception {
+    TopicNotifier notifier = new TopicNotifier(TimeProvider.SYSTEM_TIME);
+    final TopicNotifier.Signal signal = notifier.getSignal(NamespaceId.DEFAULT.topic("topic"));
+
+    // Firing the signal wakes up the waiter, even if the timestamp is still held back by a write in progress
+    signal.writeStarted(new Object());
+    long timestamp = System.currentTimeMillis();
+    long version = signal.getVersion();
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    try {
+      executor.schedule(new Runnable() {
+        @Override
+        public void run() {
+          signal.fire();
+        }
+      }, 200, TimeUnit.MILLISECONDS);
+
+      Stopwatch stopwatch = new Stopwatch().start();
+      Assert.assertTrue(signal.awaitVisible(timestamp, version, 10, TimeUnit.SECONDS));
+      Assert.assertTrue(stopwatch.elapsedTime(TimeUnit.SECONDS) < 10L);
+      Assert.assertNotEquals(version, signal.getVersion());
+      Assert.assertTrue(signal.getVisibleTimestamp() <= timestamp);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
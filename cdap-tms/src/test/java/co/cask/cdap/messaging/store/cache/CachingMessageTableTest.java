@@ -49,20 +49,26 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class CachingMessageTableTest extends LevelDBMessageTableTest {
 
-  private static MessageTableCacheProvider cacheProvider;
+  protected static MessageTableCacheProvider cacheProvider;
 
   @BeforeClass
   public static void initCache() {
-    final LoadingCache<TopicId, MessageCache<MessageTable.Entry>> caches = CacheBuilder
-      .newBuilder().build(new CacheLoader<TopicId, MessageCache<MessageTable.Entry>>() {
-        @Override
-        public MessageCache<MessageTable.Entry> load(TopicId key) throws Exception {
-          return new MessageCache<>(new MessageTableEntryComparator(), new MessageTableEntryWeigher(),
-                                    new MessageCache.Limits(500, 700, 1000), new NoopMetricsContext());
-        }
-      });
-
-    cacheProvider = new MessageTableCacheProvider() {
+    cacheProvider = createCacheProvider(new CacheLoader<TopicId, MessageCache<MessageTable.Entry>>() {
+      @Override
+      public MessageCache<MessageTable.Entry> load(TopicId key) throws Exception {
+        return new MessageCache<>(new MessageTableEntryComparator(), new MessageTableEntryWeigher(),
+                                  new MessageCache.Limits(500, 700, 1000), new NoopMetricsContext());
+      }
+    });
+  }
+
+  /**
+   * Creates a {@link MessageTableCacheProvider} that provides {@link MessageCache} loaded by the given loader.
+   */
+  protected static MessageTableCacheProvider createCacheProvider(
+    CacheLoader<TopicId, MessageCache<MessageTable.Entry>> loader) {
+    final LoadingCache<TopicId, MessageCache<MessageTable.Entry>> caches = CacheBuilder.newBuilder().build(loader);
+    return new MessageTableCacheProvider() {
       @Override
       public MessageCache<MessageTable.Entry> getMessageCache(TopicId topicId) {
         return caches.getUnchecked(topicId);
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.store.cache;
+
+import co.cask.cdap.api.metrics.NoopMetricsContext;
+import co.cask.cdap.messaging.TopicMetadata;
+import co.cask.cdap.messaging.cache.MessageCache;
+import co.cask.cdap.messaging.store.MessageFilter;
+import co.cask.cdap.messaging.store.MessageTable;
+import co.cask.cdap.proto.id.NamespaceId;
+import co.cask.cdap.proto.id.TopicId;
+import com.google.common.base.Stopwatch;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A benchmark comparing the on-heap {@link MessageCache} against the one backed by
+ * {@link OffHeapMessageTableEntryStore}. It publishes messages to the cache from a single writer thread while
+ * a number of reader threads keep scanning recent messages, then reports throughput and GC activities.
+ *
+ * Usage: {@code MessageCacheBenchmark [messages] [payloadSize] [cacheSizeMB] [readers]}
+ */
+public class MessageCacheBenchmark {
+
+  private static final int BATCH_SIZE = 100;
+  private static final int SCAN_LIMIT = 100;
+
+  public static void main(String[] args) throws Exception {
+    int messages = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+    int payloadSize = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    long cacheSize = (args.length > 2 ? Long.parseLong(args[2]) : 512L) * 1024 * 1024;
+    int readers = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+    TopicId topicId = NamespaceId.SYSTEM.topic("benchmark");
+    MessageCache.Limits limits = new MessageCache.Limits(cacheSize / 2, cacheSize * 7 / 10, cacheSize);
+
+    // Run each one twice, the first one is for warming up
+    for (int i = 0; i < 2; i++) {
+      run("heap", new MessageCache<>(new MessageTableEntryComparator(), new MessageTableEntryWeigher(),
+                                     limits, new NoopMetricsContext()),
+          topicId, messages, payloadSize, readers);
+      run("off-heap", new MessageCache<>(new MessageTableEntryComparator(),
+                                         new OffHeapMessageTableEntryStore(topicId, 1024 * 1024),
+                                         limits, new NoopMetricsContext()),
+          topicId, messages, payloadSize, readers);
+    }
+  }
+
+  private static void run(String name, final MessageCache<MessageTable.Entry> cache, TopicId topicId,
+                          final int messages, int payloadSize, int readers) throws InterruptedException {
+    System.gc();
+    long gcCount = getGCCount();
+    long gcTime = getGCTime();
+
+    final TopicMetadata metadata = new TopicMetadata(topicId, TopicMetadata.GENERATION_KEY, 1);
+    final byte[] payload = new byte[payloadSize];
+    final AtomicLong lastPublishTime = new AtomicLong(-1L);
+    final AtomicLong scanned = new AtomicLong();
+    final CountDownLatch writerDone = new CountDownLatch(1);
+
+    List<Thread> threads = new ArrayList<>();
+    threads.add(new Thread("writer") {
+      @Override
+      public void run() {
+        List<MessageTable.Entry> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < messages; i += BATCH_SIZE) {
+          batch.clear();
+          for (int j = i; j < i + BATCH_SIZE && j < messages; j++) {
+            batch.add(new CachingMessageTable.CacheMessageTableEntry(metadata.getTopicId(), 1, false, -1L,
+                                                                     payload, j, (short) 0, false));
+          }
+          cache.addAll(batch.iterator());
+          lastPublishTime.set(i + batch.size() - 1);
+        }
+        writerDone.countDown();
+      }
+    });
+
+    for (int i = 0; i < readers; i++) {
+      threads.add(new Thread("reader-" + i) {
+        @Override
+        public void run() {
+          MessageFilter<MessageTable.Entry> filter = MessageFilter.alwaysAccept();
+          while (writerDone.getCount() > 0) {
+            long startTime = Math.max(0L, lastPublishTime.get() - SCAN_LIMIT);
+            MessageTable.Entry startEntry = new CachingMessageTable.CacheMessageTableEntry(metadata, startTime,
+                                                                                           (short) 0);
+            try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(startEntry, true, SCAN_LIMIT, filter)) {
+              while (scanner.hasNext()) {
+                scanner.next();
+                scanned.incrementAndGet();
+              }
+            }
+          }
+        }
+      });
+    }
+
+    Stopwatch stopwatch = new Stopwatch().start();
+    for (Thread t : threads) {
+      t.start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    long elapsed = stopwatch.elapsedTime(TimeUnit.MILLISECONDS);
+
+    System.gc();
+    System.out.printf("%-8s: %d messages in %d ms (%.0f msg/s), %d entries scanned, GC count %d, GC time %d ms%n",
+                      name, messages, elapsed, messages * 1000.0 / elapsed, scanned.get(),
+                      getGCCount() - gcCount, getGCTime() - gcTime);
+    cache.clear();
+  }
+
+  private static long getGCCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0L, bean.getCollectionCount());
+    }
+    return count;
+  }
+
+  private static long getGCTime() {
+    long time = 0;
+    for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      time += Math.max(0L, bean.getCollectionTime());
+    }
+    return time;
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.messaging.store.cache;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.api.metrics.NoopMetricsContext;
+import co.cask.cdap.messaging.TopicMetadata;
+import co.cask.cdap.messaging.cache.MessageCache;
+import co.cask.cdap.messaging.store.MessageFilter;
+import co.cask.cdap.messaging.store.MessageTable;
+import co.cask.cdap.proto.id.NamespaceId;
+import co.cask.cdap.proto.id.TopicId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unit test for {@link OffHeapMessageTableEntryStore} under concurrent appends, scans and evictions.
+ */
+public class OffHeapMessageTableEntryStoreTest {
+
+  private static final int MESSAGES = 200000;
+  private static final int BATCH_SIZE = 100;
+  private static final int SCAN_LIMIT = 100;
+  private static final int PAYLOAD_SIZE = 50;
+  private static final int READERS = 4;
+
+  @Test
+  public void testConcurrentReadWrite() throws Exception {
+    TopicId topicId = NamespaceId.SYSTEM.topic("offheap");
+    final TopicMetadata metadata = new TopicMetadata(topicId, TopicMetadata.GENERATION_KEY, 1);
+    // Small segments and limits, so that segments are evicted and reused while readers are scanning
+    final MessageCache<MessageTable.Entry> cache = new MessageCache<>(
+      new MessageTableEntryComparator(), new OffHeapMessageTableEntryStore(topicId, 4096),
+      new MessageCache.Limits(50000, 70000, 100000), new NoopMetricsContext());
+
+    final MessageFilter<MessageTable.Entry> filter = MessageFilter.alwaysAccept();
+    final AtomicLong lastPublishTime = new AtomicLong(-1L);
+    final AtomicBoolean writerDone = new AtomicBoolean();
+    ExecutorService executor = Executors.newFixedThreadPool(READERS + 1);
+    try {
+      Future<?> writer = executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          try {
+            List<MessageTable.Entry> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < MESSAGES; i += BATCH_SIZE) {
+              batch.clear();
+              for (int j = i; j < i + BATCH_SIZE; j++) {
+                batch.add(new CachingMessageTable.CacheMessageTableEntry(metadata.getTopicId(), 1, false, -1L,
+                                                                         createPayload(j), j, (short) 0, false));
+              }
+              cache.addAll(batch.iterator());
+              lastPublishTime.set(i + BATCH_SIZE - 1);
+            }
+          } finally {
+            writerDone.set(true);
+          }
+          return null;
+        }
+      });
+
+      List<Future<Long>> readers = new ArrayList<>();
+      for (int i = 0; i < READERS; i++) {
+        readers.add(executor.submit(new Callable<Long>() {
+          @Override
+          public Long call() throws Exception {
+            long scanned = 0;
+            while (!writerDone.get()) {
+              long published = lastPublishTime.get();
+              if (published < 0) {
+                continue;
+              }
+              long startTime = Math.max(0L, published - SCAN_LIMIT);
+              MessageTable.Entry startEntry = new CachingMessageTable.CacheMessageTableEntry(metadata, startTime,
+                                                                                             (short) 0);
+              try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(startEntry, true,
+                                                                                  SCAN_LIMIT, filter)) {
+                long expected = -1L;
+                while (scanner.hasNext()) {
+                  MessageTable.Entry entry = scanner.next();
+                  // Entries must be contiguous, in order, and not corrupted by evictions of the segments
+                  if (expected >= 0) {
+                    Assert.assertEquals(expected, entry.getPublishTimestamp());
+                  }
+                  Assert.assertArrayEquals(createPayload(entry.getPublishTimestamp()), entry.getPayload());
+                  expected = entry.getPublishTimestamp() + 1;
+                  scanned++;
+                }
+              }
+            }
+            return scanned;
+          }
+        }));
+      }
+
+      writer.get(60, TimeUnit.SECONDS);
+      long scanned = 0;
+      for (Future<Long> reader : readers) {
+        scanned += reader.get(60, TimeUnit.SECONDS);
+      }
+      Assert.assertTrue(scanned > 0);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // The oldest entries must have been evicted, and the latest ones retained
+    MessageTable.Entry firstEntry = new CachingMessageTable.CacheMessageTableEntry(metadata, 0L, (short) 0);
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(firstEntry, true, 1, filter)) {
+      Assert.assertNotNull(scanner.getFirstInCache());
+      Assert.assertTrue(scanner.getFirstInCache().getPublishTimestamp() > 0L);
+    }
+    MessageTable.Entry lastEntry = new CachingMessageTable.CacheMessageTableEntry(metadata, MESSAGES - 1, (short) 0);
+    try (MessageCache.Scanner<MessageTable.Entry> scanner = cache.scan(lastEntry, true, 1, filter)) {
+      Assert.assertTrue(scanner.hasNext());
+      Assert.assertArrayEquals(createPayload(MESSAGES - 1), scanner.next().getPayload());
+    }
+  }
+
+  private static byte[] createPayload(long seq) {
+    byte[] payload = new byte[PAYLOAD_SIZE];
+    Bytes.putLong(payload, 0, seq);
+    Bytes.putLong(payload, PAYLOAD_SIZE - Bytes.SIZEOF_LONG, seq);
+    return payload;
+  }
+}
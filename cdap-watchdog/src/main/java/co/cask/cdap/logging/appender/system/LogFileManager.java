@@ -19,6 +19,7 @@ package co.cask.cdap.logging.appender.system;
 import co.cask.cdap.common.io.Locations;
 import co.cask.cdap.common.io.Syncable;
 import co.cask.cdap.logging.meta.FileMetaDataWriter;
+import co.cask.cdap.logging.write.LogFileIndex;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.io.Closeables;
 import com.google.common.util.concurrent.Uninterruptibles;
@@ -110,6 +111,7 @@ final class LogFileManager implements Flushable, Syncable {
       // delete created file as there was exception while writing meta data
       Closeables.closeQuietly(logFileOutputStream);
       Locations.deleteQuietly(location.getLocation());
+      Locations.deleteQuietly(LogFileIndex.getIndexLocation(location.getLocation()));
       throw new IOException(e);
     }
 
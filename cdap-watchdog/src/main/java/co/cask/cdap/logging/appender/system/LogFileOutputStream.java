@@ -21,6 +21,7 @@ import co.cask.cdap.common.io.ByteBuffers;
 import co.cask.cdap.common.io.Syncable;
 import co.cask.cdap.logging.serialize.LoggingEvent;
 import co.cask.cdap.logging.serialize.LoggingEventSerializer;
+import co.cask.cdap.logging.write.LogFileIndex;
 import com.google.common.io.Closeables;
 import org.apache.avro.Schema;
 import org.apache.avro.file.DataFileWriter;
@@ -35,12 +36,16 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
 
 /**
  * Represents output stream for a log file.
  *
  * Since there is no way to check the state of the underlying file on an exception,
  * all methods of this class assume that the file state is bad on any exception and close the file.
+ *
+ * Along with the log file, a {@link LogFileIndex} is written, with one segment per flush. Failure to write the index
+ * does not fail the log file, it only stops the indexing, since readers scan the part of the log file not indexed.
  */
 
 class LogFileOutputStream implements Closeable, Flushable, Syncable {
@@ -55,6 +60,14 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   private DataFileWriter<GenericRecord> dataFileWriter;
   private long fileSize;
 
+  @Nullable
+  private LogFileIndex.Writer indexWriter;
+  // Start position, number of events and min/max timestamps of the segment not yet added to the index
+  private long segmentStart;
+  private int segmentEvents;
+  private long segmentMinTimestamp;
+  private long segmentMaxTimestamp;
+
   LogFileOutputStream(Location location, String filePermissions,
                       int syncIntervalBytes, long createTime, Closeable closeable) throws IOException {
     this.location = location;
@@ -70,11 +83,18 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
       this.dataFileWriter.setSyncInterval(syncIntervalBytes);
       this.createTime = createTime;
       this.fileSize = 0;
+      this.segmentStart = dataFileWriter.sync();
     } catch (IOException e) {
       Closeables.closeQuietly(outputStream);
       Closeables.closeQuietly(dataFileWriter);
       throw e;
     }
+
+    try {
+      this.indexWriter = new LogFileIndex.Writer(location, filePermissions);
+    } catch (IOException e) {
+      LOG.warn("Failed to create time index for log file {}. Reads of the file will not be indexed.", location, e);
+    }
   }
 
   Location getLocation() {
@@ -82,6 +102,16 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   }
 
   void append(ILoggingEvent event) throws IOException {
+    long timestamp = event.getTimeStamp();
+    if (segmentEvents == 0) {
+      segmentMinTimestamp = timestamp;
+      segmentMaxTimestamp = timestamp;
+    } else {
+      segmentMinTimestamp = Math.min(segmentMinTimestamp, timestamp);
+      segmentMaxTimestamp = Math.max(segmentMaxTimestamp, timestamp);
+    }
+    segmentEvents++;
+
     // If the event is already a LoggingEvent, we don't need to re-encode.
     if (event instanceof LoggingEvent) {
       ByteBuffer encoded = ((LoggingEvent) event).getEncoded();
@@ -115,6 +145,18 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   @Override
   public void flush() throws IOException {
     fileSize = dataFileWriter.sync();
+    if (segmentEvents > 0 && indexWriter != null) {
+      try {
+        indexWriter.add(segmentStart, fileSize, segmentMinTimestamp, segmentMaxTimestamp);
+        indexWriter.flush();
+      } catch (IOException e) {
+        LOG.warn("Failed to write time index for log file {}. Stop indexing the file.", location, e);
+        Closeables.closeQuietly(indexWriter);
+        indexWriter = null;
+      }
+    }
+    segmentStart = fileSize;
+    segmentEvents = 0;
   }
 
   @Override
@@ -131,6 +173,7 @@ class LogFileOutputStream implements Closeable, Flushable, Syncable {
   public void close() throws IOException {
     LOG.trace("Closing file {}", location);
     try {
+      Closeables.closeQuietly(indexWriter);
       dataFileWriter.close();
     } finally {
       closeable.close();
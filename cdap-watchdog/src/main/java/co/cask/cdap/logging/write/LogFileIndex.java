@@ -0,0 +1,248 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.write;
+
+import co.cask.cdap.api.common.Bytes;
+import co.cask.cdap.common.io.Locations;
+import com.google.common.io.ByteStreams;
+import org.apache.twill.filesystem.Location;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.annotation.Nullable;
+
+/**
+ * A time index of an Avro log file, kept in a sidecar file next to the log file. The log file is divided into
+ * segments, each starting and ending at an Avro sync position. For each segment, the index records the start and
+ * end positions and the minimum and maximum timestamps of the events in it. Readers use it to seek directly to the
+ * segments that contain a given time, instead of scanning the log file.
+ *
+ * The index file consists of a version byte followed by fixed size entries:
+ *
+ * <pre>
+ * {@code
+ * start-position (long) end-position (long) min-timestamp (long) max-timestamp (long)
+ * }
+ * </pre>
+ *
+ * Segments are contiguous and in file order. Events after the end of the last segment are not indexed yet,
+ * either because the log file is still being written, or because the index could not be written.
+ */
+public final class LogFileIndex {
+
+  private static final String SUFFIX = ".idx";
+  private static final byte VERSION = 1;
+  private static final int ENTRY_SIZE = 4 * Bytes.SIZEOF_LONG;
+
+  private final long[] startPositions;
+  private final long[] endPositions;
+  // Maximum timestamp of all events up to and including each segment
+  private final long[] maxTimestamps;
+  // Minimum timestamp of all events from each segment to the last segment
+  private final long[] minTimestamps;
+
+  /**
+   * Returns the location of the index file for the given log file.
+   */
+  public static Location getIndexLocation(Location logLocation) throws IOException {
+    return Locations.getParent(logLocation).append(logLocation.getName() + SUFFIX);
+  }
+
+  /**
+   * Reads the index of the given log file.
+   *
+   * @param logLocation location of the log file
+   * @param logFileLength length of the log file. Segments beyond it are ignored.
+   * @return the index, or {@code null} if the log file has no index or the index has no segments
+   * @throws IOException if failed to read the index
+   */
+  @Nullable
+  static LogFileIndex read(Location logLocation, long logFileLength) throws IOException {
+    Location indexLocation = getIndexLocation(logLocation);
+    if (!indexLocation.exists()) {
+      return null;
+    }
+    byte[] bytes;
+    try (InputStream is = indexLocation.getInputStream()) {
+      bytes = ByteStreams.toByteArray(is);
+    }
+    if (bytes.length == 0 || bytes[0] != VERSION) {
+      return null;
+    }
+
+    // Ignores a partially written last entry, and entries beyond the visible length of the log file
+    int size = 0;
+    int maxSize = (bytes.length - 1) / ENTRY_SIZE;
+    while (size < maxSize && Bytes.toLong(bytes, 1 + size * ENTRY_SIZE + Bytes.SIZEOF_LONG) <= logFileLength) {
+      size++;
+    }
+    if (size == 0) {
+      return null;
+    }
+
+    long[] startPositions = new long[size];
+    long[] endPositions = new long[size];
+    long[] minTimestamps = new long[size];
+    long[] maxTimestamps = new long[size];
+    for (int i = 0; i < size; i++) {
+      int offset = 1 + i * ENTRY_SIZE;
+      startPositions[i] = Bytes.toLong(bytes, offset);
+      endPositions[i] = Bytes.toLong(bytes, offset + Bytes.SIZEOF_LONG);
+      minTimestamps[i] = Bytes.toLong(bytes, offset + 2 * Bytes.SIZEOF_LONG);
+      maxTimestamps[i] = Bytes.toLong(bytes, offset + 3 * Bytes.SIZEOF_LONG);
+    }
+    // Events may be slightly out of order across segments. Turn the timestamps into running max and min,
+    // which are sorted, so that they can be binary searched.
+    for (int i = 1; i < size; i++) {
+      maxTimestamps[i] = Math.max(maxTimestamps[i], maxTimestamps[i - 1]);
+    }
+    for (int i = size - 2; i >= 0; i--) {
+      minTimestamps[i] = Math.min(minTimestamps[i], minTimestamps[i + 1]);
+    }
+    return new LogFileIndex(startPositions, endPositions, minTimestamps, maxTimestamps);
+  }
+
+  private LogFileIndex(long[] startPositions, long[] endPositions, long[] minTimestamps, long[] maxTimestamps) {
+    this.startPositions = startPositions;
+    this.endPositions = endPositions;
+    this.minTimestamps = minTimestamps;
+    this.maxTimestamps = maxTimestamps;
+  }
+
+  /**
+   * Returns the number of segments.
+   */
+  int size() {
+    return startPositions.length;
+  }
+
+  /**
+   * Returns the sync position at the start of the given segment.
+   */
+  long getStartPosition(int segment) {
+    return startPositions[segment];
+  }
+
+  /**
+   * Returns the sync position at the end of the given segment.
+   */
+  long getEndPosition(int segment) {
+    return endPositions[segment];
+  }
+
+  /**
+   * Returns the sync position at the end of the indexed part of the log file.
+   */
+  long getIndexedEndPosition() {
+    return endPositions[endPositions.length - 1];
+  }
+
+  /**
+   * Returns the sync position from which to read to find all events with timestamp at or after the given time.
+   * No segment before it contains such events.
+   */
+  long getSeekPosition(long timestamp) {
+    // Find the first segment that has an event at or after the given time
+    int low = 0;
+    int high = maxTimestamps.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (maxTimestamps[mid] < timestamp) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low < startPositions.length ? startPositions[low] : getIndexedEndPosition();
+  }
+
+  /**
+   * Returns the last segment that may contain events at or before the given time, or {@code -1} if there is none.
+   * No segment after it contains such events.
+   */
+  int getLastSegment(long timestamp) {
+    // Find the first segment that only has events after the given time
+    int low = 0;
+    int high = minTimestamps.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (minTimestamps[mid] <= timestamp) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low - 1;
+  }
+
+  /**
+   * Writes the index of a log file. Segments must be added in file order.
+   */
+  public static final class Writer implements Closeable, Flushable {
+
+    private final OutputStream outputStream;
+    private final byte[] entry;
+
+    /**
+     * Creates the index file for the given log file.
+     *
+     * @param logLocation location of the log file
+     * @param filePermissions permissions of the index file, or empty to use the default permissions
+     */
+    public Writer(Location logLocation, String filePermissions) throws IOException {
+      Location location = getIndexLocation(logLocation);
+      this.outputStream = filePermissions.isEmpty() ? location.getOutputStream()
+                                                    : location.getOutputStream(filePermissions);
+      this.entry = new byte[ENTRY_SIZE];
+      try {
+        outputStream.write(VERSION);
+      } catch (IOException e) {
+        outputStream.close();
+        throw e;
+      }
+    }
+
+    /**
+     * Adds a segment of the log file.
+     *
+     * @param startPosition sync position at the start of the segment
+     * @param endPosition sync position at the end of the segment
+     * @param minTimestamp minimum timestamp of the events in the segment
+     * @param maxTimestamp maximum timestamp of the events in the segment
+     */
+    public void add(long startPosition, long endPosition, long minTimestamp, long maxTimestamp) throws IOException {
+      int offset = Bytes.putLong(entry, 0, startPosition);
+      offset = Bytes.putLong(entry, offset, endPosition);
+      offset = Bytes.putLong(entry, offset, minTimestamp);
+      Bytes.putLong(entry, offset, maxTimestamp);
+      outputStream.write(entry);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      outputStream.close();
+    }
+  }
+}
@@ -50,6 +50,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.Callable;
+import javax.annotation.Nullable;
 
 /**
  * LogLocation representing a log file and methods to read the file's contents.
@@ -159,43 +160,48 @@ public class LogLocation {
           return ImmutableList.of();
         }
 
-        // Calculate skipLen based on fileLength
         long length = location.length();
         LOG.trace("File length {} {}", location, length);
-        long skipLen = length / 10;
-        if (skipLen > DEFAULT_SKIP_LEN || skipLen <= 0) {
-          skipLen = DEFAULT_SKIP_LEN;
-        }
-
-        // For open file, endPosition sync marker is unknown so start from file length and read up to the actual EOF
-        dataFileReader.sync(length);
-        long finalSync = dataFileReader.previousSync();
-        List<LogEvent> logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, -1);
-
-        if (!logSegment.isEmpty()) {
-          logSegments.addFirst(logSegment);
-          count = count + logSegment.size();
-        }
-
-        LOG.trace("Read log events {} from position {}", count, finalSync);
-
-        long startPosition = finalSync;
-        long endPosition = startPosition;
-        long currentSync;
+        LogFileIndex index = readIndex(length);
+        if (index != null) {
+          count = readLogPrev(dataFileReader, index, logFilter, fromTimeMs, maxEvents, logSegments);
+        } else {
+          // Calculate skipLen based on fileLength
+          long skipLen = length / 10;
+          if (skipLen > DEFAULT_SKIP_LEN || skipLen <= 0) {
+            skipLen = DEFAULT_SKIP_LEN;
+          }
 
-        while (startPosition > 0 && count < maxEvents) {
-          // Skip to sync position less than current sync position
-          startPosition = skipToPosition(dataFileReader, startPosition, endPosition, skipLen);
-          currentSync = dataFileReader.previousSync();
-          logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, endPosition);
+          // For open file, endPosition sync marker is unknown so start from file length and read up to the actual EOF
+          dataFileReader.sync(length);
+          long finalSync = dataFileReader.previousSync();
+          List<LogEvent> logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, -1);
 
           if (!logSegment.isEmpty()) {
             logSegments.addFirst(logSegment);
             count = count + logSegment.size();
           }
-          LOG.trace("Read log events {} from position {} to endPosition {}", count, currentSync, endPosition);
 
-          endPosition = currentSync;
+          LOG.trace("Read log events {} from position {}", count, finalSync);
+
+          long startPosition = finalSync;
+          long endPosition = startPosition;
+          long currentSync;
+
+          while (startPosition > 0 && count < maxEvents) {
+            // Skip to sync position less than current sync position
+            startPosition = skipToPosition(dataFileReader, startPosition, endPosition, skipLen);
+            currentSync = dataFileReader.previousSync();
+            logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, endPosition);
+
+            if (!logSegment.isEmpty()) {
+              logSegments.addFirst(logSegment);
+              count = count + logSegment.size();
+            }
+            LOG.trace("Read log events {} from position {} to endPosition {}", count, currentSync, endPosition);
+
+            endPosition = currentSync;
+          }
         }
       }
     } catch (IOException e) {
@@ -206,6 +212,37 @@ public class LogLocation {
     return Lists.newArrayList(Iterables.skip(Iterables.concat(logSegments), skip));
   }
 
+  /**
+   * Reads log events at or before fromTimeMs backwards, using the time index to only read the segments
+   * that can contain such events.
+   *
+   * @return number of log events read
+   */
+  private int readLogPrev(DataFileReader<GenericRecord> dataFileReader, LogFileIndex index, Filter logFilter,
+                          long fromTimeMs, int maxEvents, Deque<Collection<LogEvent>> logSegments) throws IOException {
+    // Events after the indexed segments are not in the index yet, hence read them first
+    dataFileReader.seek(index.getIndexedEndPosition());
+    List<LogEvent> logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, -1);
+    if (!logSegment.isEmpty()) {
+      logSegments.addFirst(logSegment);
+    }
+    int count = logSegment.size();
+    LOG.trace("Read log events {} from indexed end position {}", count, index.getIndexedEndPosition());
+
+    for (int segment = index.getLastSegment(fromTimeMs); segment >= 0 && count < maxEvents; segment--) {
+      long startPosition = index.getStartPosition(segment);
+      long endPosition = index.getEndPosition(segment);
+      dataFileReader.seek(startPosition);
+      logSegment = readToEndSyncPosition(dataFileReader, logFilter, fromTimeMs, endPosition);
+      if (!logSegment.isEmpty()) {
+        logSegments.addFirst(logSegment);
+        count += logSegment.size();
+      }
+      LOG.trace("Read log events {} from position {} to endPosition {}", count, startPosition, endPosition);
+    }
+    return count;
+  }
+
   /**
    *  Read current block in Avro file from current block sync marker to next block sync marker
    */
@@ -276,7 +313,13 @@ public class LogLocation {
 
       try {
         dataFileReader = createReader();
-        if (dataFileReader.hasNext()) {
+        LogFileIndex index = readIndex(location.length());
+        if (index != null) {
+          // Seek directly to the first segment that has events at or after fromTimeMs
+          long position = index.getSeekPosition(fromTimeMs);
+          LOG.trace("Seeking to pos {} using the time index", position);
+          dataFileReader.seek(position);
+        } else if (dataFileReader.hasNext()) {
           datum = dataFileReader.next();
           loggingEvent = new LoggingEvent(datum);
           loggingEvent.prepareForDeferredProcessing();
@@ -371,6 +414,26 @@ public class LogLocation {
     }
   }
 
+  /**
+   * Reads the time index of the log file.
+   *
+   * @param length length of the log file
+   * @return the index, or {@code null} if the log file is not indexed
+   */
+  @Nullable
+  private LogFileIndex readIndex(long length) {
+    // Only log files written by the log saver are indexed, which never impersonates
+    if (getFrameworkVersion().equals(VERSION_0)) {
+      return null;
+    }
+    try {
+      return LogFileIndex.read(location, length);
+    } catch (IOException e) {
+      LOG.debug("Failed to read time index of log file {}. Scanning the file instead.", location, e);
+      return null;
+    }
+  }
+
   private DataFileReader<GenericRecord> createReader() throws IOException {
     boolean shouldImpersonate = this.getFrameworkVersion().equals(VERSION_0);
     return new DataFileReader<>(new LocationSeekableInput(location, namespaceId, impersonator, shouldImpersonate),
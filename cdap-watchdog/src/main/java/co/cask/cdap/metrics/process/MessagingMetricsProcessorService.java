@@ -298,6 +298,8 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
     private final PayloadInputStream payloadInput;
     private final BinaryDecoder decoder;
     private long lastMetricTimeSecs;
+    // Time to wait for new metrics in the next fetch, instead of sleeping after an empty fetch
+    private long pollTimeoutMillis;
 
     ProcessMetricsThread(TopicIdMetaKey topicIdMetaKey, @Nullable byte[] messageId) {
       super(String.format("ProcessMetricsThread-%s", topicIdMetaKey.getTopicId()));
@@ -328,7 +330,8 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
 
     /**
      * Fetch at most {@code fetcherLimit} metrics to process, and calculate the estimated sleep time
-     * before the next run with the best effort to avoid accumulating unprocessed metrics
+     * before the next run with the best effort to avoid accumulating unprocessed metrics. If nothing was fetched,
+     * the next fetch will wait for new metrics to be published instead of sleeping.
      *
      * @return the estimated sleep time before the next run with the best effort to avoid accumulating
      * unprocessed metrics, or {@code 0} if no sleep to catch-up with new metrics at best effort
@@ -338,6 +341,9 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
       try {
         MessageFetcher fetcher = messagingService.prepareFetch(topicIdMetaKey.getTopicId());
         fetcher.setLimit(fetcherLimit);
+        long fetchPollTimeoutMillis = pollTimeoutMillis;
+        fetcher.setPollTimeout(fetchPollTimeoutMillis, TimeUnit.MILLISECONDS);
+        pollTimeoutMillis = 0L;
         byte[] lastMessageId = topicMessageIds.get(topicIdMetaKey);
         if (lastMessageId != null) {
           if (LOG.isTraceEnabled()) {
@@ -350,8 +356,10 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
         }
 
         byte[] currentMessageId = null;
+        boolean emptyFetch = true;
         try (CloseableIterator<RawMessage> iterator = fetcher.fetch()) {
           while (iterator.hasNext() && isRunning()) {
+            emptyFetch = false;
             RawMessage input = iterator.next();
             try {
               payloadInput.reset(input.getPayload());
@@ -377,6 +385,14 @@ public class MessagingMetricsProcessorService extends AbstractExecutionThreadSer
         // Try to persist metrics and messageId's of the last metrics to be persisted if no other thread is persisting
         tryPersist();
 
+        if (emptyFetch) {
+          // Wait for new metrics in the next fetch, which returns as soon as new metrics are published.
+          // If this fetch returned before the poll timeout, which happens when the messaging service doesn't
+          // support waiting, sleep for the remaining time to avoid busy fetching.
+          pollTimeoutMillis = metricsProcessIntervalMillis;
+          return Math.max(0L, fetchPollTimeoutMillis - (System.currentTimeMillis() - startTime));
+        }
+
         long endTime = System.currentTimeMillis();
         // use currentMessageId != null to ensure that the current fetching is not empty and
         // lastMetricTimeSecs is updated
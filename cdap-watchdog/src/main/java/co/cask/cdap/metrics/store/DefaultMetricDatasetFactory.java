@@ -65,7 +65,10 @@ public class DefaultMetricDatasetFactory implements MetricDatasetFactory {
       public EntityTable get() {
         String tableName = cConf.get(Constants.Metrics.ENTITY_TABLE_NAME,
                                      Constants.Metrics.DEFAULT_ENTITY_TABLE_NAME);
-        return new EntityTable(getOrCreateMetricsTable(tableName, DatasetProperties.EMPTY));
+        long cacheMaxWeight = cConf.getLong(Constants.Metrics.ENTITY_TABLE_CACHE_MAX_WEIGHT,
+                                            EntityTable.DEFAULT_CACHE_MAX_WEIGHT);
+        return new EntityTable(getOrCreateMetricsTable(tableName, DatasetProperties.EMPTY),
+                               EntityTable.MAX_ID_COUNT, cacheMaxWeight);
       }
     });
   }
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2017 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package co.cask.cdap.logging.appender.system;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import co.cask.cdap.api.dataset.lib.CloseableIterator;
+import co.cask.cdap.logging.filter.Filter;
+import co.cask.cdap.logging.read.LogEvent;
+import co.cask.cdap.logging.write.LogFileIndex;
+import co.cask.cdap.logging.write.LogLocation;
+import org.apache.twill.filesystem.LocalLocationFactory;
+import org.apache.twill.filesystem.Location;
+import org.junit.Assert;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Tests for reading log files with {@link LogFileIndex}.
+ */
+public class LogFileIndexTest {
+
+  @ClassRule
+  public static final TemporaryFolder TMP_FOLDER = new TemporaryFolder();
+
+  private static final int SEGMENTS = 20;
+  private static final int EVENTS_PER_SEGMENT = 50;
+  private static final int TAIL_EVENTS = 30;
+
+  @Test
+  public void testIndexedRead() throws Exception {
+    Location location = new LocalLocationFactory(TMP_FOLDER.newFolder()).create("1000.avro");
+    writeLogFile(location);
+    Location indexLocation = LogFileIndex.getIndexLocation(location);
+    Assert.assertTrue(indexLocation.exists());
+
+    LogLocation logLocation = new LogLocation(LogLocation.VERSION_1, 0, 1000, location, "default", null);
+    int totalEvents = SEGMENTS * EVENTS_PER_SEGMENT + TAIL_EVENTS;
+    List<List<Long>> indexedResults = new ArrayList<>();
+    for (long from : new long[] { 0, 1, 49, 50, 51, 500, 999, 1000, 1010, totalEvents - 1, totalEvents + 10 }) {
+      List<Long> forward = readLog(logLocation, from, Long.MAX_VALUE, 120);
+      List<Long> expected = new ArrayList<>();
+      for (long ts = from; ts < totalEvents && expected.size() < 120; ts++) {
+        expected.add(ts);
+      }
+      Assert.assertEquals(expected, forward);
+
+      List<Long> backward = readLogPrev(logLocation, from, 120);
+      expected.clear();
+      for (long ts = Math.max(0, Math.min(from, totalEvents - 1) - 119); ts <= Math.min(from, totalEvents - 1); ts++) {
+        expected.add(ts);
+      }
+      Assert.assertEquals(expected, backward);
+
+      indexedResults.add(forward);
+      indexedResults.add(backward);
+    }
+
+    // Without the index, reads should give the same results by scanning the file
+    Assert.assertTrue(indexLocation.delete());
+    int i = 0;
+    for (long from : new long[] { 0, 1, 49, 50, 51, 500, 999, 1000, 1010, totalEvents - 1, totalEvents + 10 }) {
+      Assert.assertEquals(indexedResults.get(i++), readLog(logLocation, from, Long.MAX_VALUE, 120));
+      Assert.assertEquals(indexedResults.get(i++), readLogPrev(logLocation, from, 120));
+    }
+  }
+
+  @Test
+  public void testPartialIndex() throws Exception {
+    Location location = new LocalLocationFactory(TMP_FOLDER.newFolder()).create("1000.avro");
+    writeLogFile(location);
+
+    // Truncate the index in the middle of an entry. The partial entry should be ignored.
+    Location indexLocation = LogFileIndex.getIndexLocation(location);
+    File indexFile = new File(indexLocation.toURI());
+    try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+      file.setLength(1 + 5 * 32 + 10);
+    }
+
+    LogLocation logLocation = new LogLocation(LogLocation.VERSION_1, 0, 1000, location, "default", null);
+    Assert.assertEquals(10, readLog(logLocation, 900, 910, 100).size());
+    Assert.assertEquals(900L, (long) readLog(logLocation, 900, 910, 100).get(0));
+    List<Long> backward = readLogPrev(logLocation, 300, 10);
+    Assert.assertEquals(10, backward.size());
+    Assert.assertEquals(300L, (long) backward.get(9));
+  }
+
+  /**
+   * Writes a log file with events of timestamps from 0, one per ms, with an index segment every
+   * {@link #EVENTS_PER_SEGMENT} events, and {@link #TAIL_EVENTS} events at the end that are not indexed.
+   */
+  private void writeLogFile(Location location) throws IOException {
+    LogFileOutputStream outputStream = new LogFileOutputStream(location, "", 256, 1000, new Closeable() {
+      @Override
+      public void close() throws IOException {
+        // no-op
+      }
+    });
+    try {
+      Logger logger = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
+      long timestamp = 0;
+      for (int i = 0; i < SEGMENTS; i++) {
+        for (int j = 0; j < EVENTS_PER_SEGMENT; j++) {
+          LoggingEvent event = new LoggingEvent("co.cask.Test", logger, Level.INFO, "message " + timestamp, null, null);
+          event.setTimeStamp(timestamp++);
+          outputStream.append(event);
+        }
+        outputStream.flush();
+      }
+      for (int i = 0; i < TAIL_EVENTS; i++) {
+        LoggingEvent event = new LoggingEvent("co.cask.Test", logger, Level.INFO, "message " + timestamp, null, null);
+        event.setTimeStamp(timestamp++);
+        outputStream.append(event);
+      }
+    } finally {
+      outputStream.close();
+    }
+  }
+
+  private List<Long> readLog(LogLocation logLocation, long fromTimeMs, long toTimeMs, int maxEvents) {
+    List<Long> timestamps = new ArrayList<>();
+    try (CloseableIterator<LogEvent> iterator = logLocation.readLog(Filter.EMPTY_FILTER, fromTimeMs,
+                                                                    toTimeMs, maxEvents)) {
+      while (iterator.hasNext()) {
+        timestamps.add(iterator.next().getLoggingEvent().getTimeStamp());
+      }
+    }
+    return timestamps;
+  }
+
+  private List<Long> readLogPrev(LogLocation logLocation, long fromTimeMs, int maxEvents) throws IOException {
+    Collection<LogEvent> events = logLocation.readLogPrev(Filter.EMPTY_FILTER, fromTimeMs, maxEvents);
+    List<Long> timestamps = new ArrayList<>();
+    for (LogEvent event : events) {
+      timestamps.add(event.getLoggingEvent().getTimeStamp());
+    }
+    return timestamps;
+  }
+}